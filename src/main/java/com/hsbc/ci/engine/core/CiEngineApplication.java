@@ -1,12 +1,21 @@
 package com.hsbc.ci.engine.core;
 
+import com.hsbc.ci.engine.core.daemon.DaemonClient;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.OptionalInt;
+
 @SpringBootApplication
 public class CiEngineApplication {
     
     public static void main(String[] args) {
-        SpringApplication.run(CiEngineApplication.class, args);
+        if (DaemonClient.shouldForward(args)) {
+            OptionalInt exitCode = DaemonClient.tryForward(args);
+            if (exitCode.isPresent()) {
+                System.exit(exitCode.getAsInt());
+            }
+        }
+        System.exit(SpringApplication.exit(SpringApplication.run(CiEngineApplication.class, args)));
     }
 }
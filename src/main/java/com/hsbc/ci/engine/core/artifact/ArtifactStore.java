@@ -0,0 +1,362 @@
+package com.hsbc.ci.engine.core.artifact;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressable store of build outputs. Each file is kept once under its SHA-256 in
+ * {@code blobs/<first two hex digits>/<digest>}, so the same jar published by several
+ * projects or runs takes the space of one, and logical names ({@code app-jar}) point at
+ * digests through the {@code refs} index.
+ *
+ * Files enter and leave the store with {@link FileChannel#transferTo}, which the kernel
+ * serves without copying through the JVM. Neither side hard links: a build overwriting
+ * its output or a fetched file in place would change the blob through the shared inode,
+ * and the blob's read-only bit does not stop a build running as root.
+ *
+ * Total blob size is bounded by {@code maxSizeMb}; the least recently published or
+ * fetched blobs are evicted first, together with the names pointing at them. The
+ * {@code refs} index is {@code [int magic][int version][int count]} then
+ * {@code [utf name][utf digest][long size][utf file name]} per name.
+ */
+@Component
+public class ArtifactStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactStore.class);
+
+    static final long DEFAULT_MAX_SIZE_MB = 4096;
+
+    private static final String BLOBS_DIR = "blobs";
+    private static final String REFS_FILE = "refs";
+    private static final int MAGIC = 0x43494152;
+    private static final int VERSION = 1;
+    private static final int HASH_BUFFER_BYTES = 1 << 16;
+
+    /**
+     * @param fileName name of the file that was published, used when fetching into a directory
+     */
+    public record Artifact(String name, String digest, long size, String fileName) {
+    }
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final LinkedHashMap<String, Long> blobs = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Artifact> refs = new HashMap<>();
+    private long totalSizeBytes;
+    private long evictions;
+    private long deduplicated;
+    private boolean loaded;
+
+    public ArtifactStore() {
+        this(Paths.get(".ci-engine/artifacts"), DEFAULT_MAX_SIZE_MB * 1024 * 1024);
+    }
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public ArtifactStore(ConfigurationLoader configLoader) {
+        Object section = configLoader.getEngineConfig().get("artifacts");
+        Map<String, Object> settings = section instanceof Map<?, ?> values ? (Map<String, Object>) values : Map.of();
+        this.directory = Paths.get(String.valueOf(settings.getOrDefault("directory", ".ci-engine/artifacts")));
+        this.maxSizeBytes = ((Number) settings.getOrDefault("maxSizeMb", DEFAULT_MAX_SIZE_MB)).longValue() * 1024 * 1024;
+    }
+
+    public ArtifactStore(Path directory, long maxSizeBytes) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Stores {@code file} under {@code name}, replacing what the name pointed at before.
+     * Content already in the store is not written again.
+     */
+    public Artifact publish(String name, Path file) throws IOException {
+        String digest = sha256(file);
+        long size = Files.size(file);
+        Path blob = blobPath(digest);
+        boolean stored;
+        synchronized (this) {
+            load();
+            stored = blobs.get(digest) != null && Files.exists(blob);
+        }
+        if (!stored) {
+            ingest(file, blob);
+        }
+
+        Artifact artifact = new Artifact(name, digest, size, file.getFileName().toString());
+        synchronized (this) {
+            if (blobs.get(digest) == null) {
+                blobs.put(digest, size);
+                totalSizeBytes += size;
+            } else if (stored) {
+                deduplicated++;
+            }
+            touch(blob);
+            refs.put(name, artifact);
+            evictIfNeeded(digest);
+            writeRefs();
+        }
+        log.debug("Published {} as {} ({} bytes{})", name, digest, size, stored ? ", deduplicated" : "");
+        return artifact;
+    }
+
+    /**
+     * Places the artifact named {@code name} at {@code target}, or inside it when
+     * {@code target} is a directory. Empty when the name is unknown or its blob is gone.
+     */
+    public Optional<Artifact> fetch(String name, Path target) throws IOException {
+        Artifact artifact;
+        Path blob;
+        synchronized (this) {
+            artifact = find(name).orElse(null);
+            if (artifact == null) {
+                return Optional.empty();
+            }
+            blob = blobPath(artifact.digest());
+            if (!Files.exists(blob)) {
+                log.warn("Dropping artifact {}: blob {} is missing", name, artifact.digest());
+                remove(artifact.digest());
+                writeRefs();
+                return Optional.empty();
+            }
+            blobs.get(artifact.digest());
+            touch(blob);
+        }
+
+        Path destination = Files.isDirectory(target) ? target.resolve(artifact.fileName()) : target;
+        if (destination.getParent() != null) {
+            Files.createDirectories(destination.getParent());
+        }
+        Files.deleteIfExists(destination);
+        transfer(blob, destination);
+        return Optional.of(artifact);
+    }
+
+    public synchronized Optional<Artifact> find(String name) {
+        load();
+        return Optional.ofNullable(refs.get(name));
+    }
+
+    public synchronized int size() {
+        load();
+        return blobs.size();
+    }
+
+    public synchronized long getTotalSizeBytes() {
+        load();
+        return totalSizeBytes;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getDeduplicated() {
+        return deduplicated;
+    }
+
+    Path blobPath(String digest) {
+        return directory.resolve(BLOBS_DIR).resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private void ingest(Path file, Path blob) throws IOException {
+        Files.createDirectories(blob.getParent());
+        Path tmp = blob.resolveSibling(".tmp-" + UUID.randomUUID());
+        try {
+            transfer(file, tmp);
+            tmp.toFile().setReadOnly();
+            Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            log.debug("Blob {} was stored concurrently", blob.getFileName());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void transfer(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Evicts least recently used blobs until the store fits its quota, never the one
+     * just published.
+     */
+    private void evictIfNeeded(String keep) {
+        Iterator<Map.Entry<String, Long>> eldest = blobs.entrySet().iterator();
+        List<String> evicted = new ArrayList<>();
+        while (totalSizeBytes > maxSizeBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            eldest.remove();
+            totalSizeBytes -= entry.getValue();
+            evictions++;
+            evicted.add(entry.getKey());
+        }
+        for (String digest : evicted) {
+            refs.values().removeIf(artifact -> artifact.digest().equals(digest));
+            delete(blobPath(digest));
+            log.debug("Evicted artifact blob {}", digest);
+        }
+    }
+
+    private void remove(String digest) {
+        Long size = blobs.remove(digest);
+        if (size != null) {
+            totalSizeBytes -= size;
+        }
+        refs.values().removeIf(artifact -> artifact.digest().equals(digest));
+        delete(blobPath(digest));
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        Path blobsDir = directory.resolve(BLOBS_DIR);
+        if (Files.isDirectory(blobsDir)) {
+            try (Stream<Path> files = Files.walk(blobsDir, 2)) {
+                List<Path> stored = new ArrayList<>(files
+                    .filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().startsWith(".tmp-"))
+                    .toList());
+                stored.sort(Comparator.comparing(ArtifactStore::lastModified));
+                for (Path blob : stored) {
+                    long size = Files.size(blob);
+                    blobs.put(blob.getFileName().toString(), size);
+                    totalSizeBytes += size;
+                }
+            } catch (IOException e) {
+                log.warn("Failed to read artifact store {}: {}", blobsDir, e.getMessage());
+            }
+        }
+        readRefs();
+        log.debug("Artifact store has {} blobs, {} bytes, {} names", blobs.size(), totalSizeBytes, refs.size());
+    }
+
+    private void readRefs() {
+        Path file = directory.resolve(REFS_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Ignoring {}: not an artifact index of this version", file);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Artifact artifact = new Artifact(in.readUTF(), in.readUTF(), in.readLong(), in.readUTF());
+                if (blobs.containsKey(artifact.digest())) {
+                    refs.put(artifact.name(), artifact);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable {}: {}", file, e.getMessage());
+            refs.clear();
+        }
+    }
+
+    private void writeRefs() {
+        Path file = directory.resolve(REFS_FILE);
+        try {
+            Files.createDirectories(directory);
+            Path tmp = file.resolveSibling(REFS_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(refs.size());
+                for (Artifact artifact : refs.values()) {
+                    out.writeUTF(artifact.name());
+                    out.writeUTF(artifact.digest());
+                    out.writeLong(artifact.size());
+                    out.writeUTF(artifact.fileName());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write artifact index {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static void touch(Path blob) {
+        try {
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Failed to touch artifact blob {}: {}", blob, e.getMessage());
+        }
+    }
+
+    private static void delete(Path blob) {
+        try {
+            Files.deleteIfExists(blob);
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", blob, e.getMessage());
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.hsbc.ci.engine.core.artifact;
+
+import com.hsbc.ci.engine.core.cache.FileGlobs;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passes build outputs between stages and pipelines through the {@link ArtifactStore}.
+ * A stage's {@code artifacts} block names what it fetches before it runs and what it
+ * publishes after it succeeds, each as a logical name mapped to a workspace path:
+ *
+ * <pre>
+ * artifacts:
+ *   publish:
+ *     app-jar: target/*.jar
+ *   fetch:
+ *     app-jar: target/
+ * </pre>
+ *
+ * A publish pattern must match exactly one file. A fetch path ending in {@code /} is a
+ * directory that receives the file under its published name.
+ */
+@Component
+public class StageArtifacts {
+
+    private static final Logger log = LoggerFactory.getLogger(StageArtifacts.class);
+
+    private final ArtifactStore store;
+    private final Path workspace;
+
+    public StageArtifacts() {
+        this(new ArtifactStore(), Paths.get(""));
+    }
+
+    @Autowired
+    public StageArtifacts(ArtifactStore store) {
+        this(store, Paths.get(""));
+    }
+
+    public StageArtifacts(ArtifactStore store, Path workspace) {
+        this.store = store;
+        this.workspace = workspace;
+    }
+
+    /**
+     * Fetches every artifact the stage declares; fails with {@link IllegalStateException}
+     * naming the first one that is not in the store.
+     */
+    public List<ArtifactStore.Artifact> fetch(StageDefinition stage) throws IOException {
+        List<ArtifactStore.Artifact> fetched = new ArrayList<>();
+        for (Map.Entry<String, String> entry : declared(stage, "fetch").entrySet()) {
+            Path target = workspace.resolve(entry.getValue());
+            if (entry.getValue().endsWith("/")) {
+                Files.createDirectories(target);
+            }
+            ArtifactStore.Artifact artifact = store.fetch(entry.getKey(), target)
+                .orElseThrow(() -> new IllegalStateException("Artifact '" + entry.getKey()
+                    + "' has not been published"));
+            System.out.println("  [artifacts] Fetched " + artifact.name() + " -> " + entry.getValue()
+                + " (" + abbreviate(artifact.digest()) + ")");
+            fetched.add(artifact);
+        }
+        return fetched;
+    }
+
+    /**
+     * Publishes every artifact the stage declares; fails with {@link IllegalStateException}
+     * when a pattern matches no file or more than one.
+     */
+    public List<ArtifactStore.Artifact> publish(StageDefinition stage) throws IOException {
+        List<ArtifactStore.Artifact> published = new ArrayList<>();
+        for (Map.Entry<String, String> entry : declared(stage, "publish").entrySet()) {
+            List<Path> matches = FileGlobs.resolve(workspace, List.of(entry.getValue()));
+            if (matches.size() != 1) {
+                throw new IllegalStateException("Artifact '" + entry.getKey() + "': " + entry.getValue()
+                    + " matches " + (matches.isEmpty() ? "no file" : matches.size() + " files " + matches));
+            }
+            ArtifactStore.Artifact artifact = store.publish(entry.getKey(), workspace.resolve(matches.get(0)));
+            log.info("Published artifact {} from {} ({})", artifact.name(), matches.get(0), artifact.digest());
+            System.out.println("  [artifacts] Published " + artifact.name() + " <- " + matches.get(0)
+                + " (" + abbreviate(artifact.digest()) + ", " + artifact.size() + " bytes)");
+            published.add(artifact);
+        }
+        return published;
+    }
+
+    private static Map<String, String> declared(StageDefinition stage, String direction) {
+        Map<?, ?> artifacts = artifactsOf(stage);
+        Map<String, String> entries = new LinkedHashMap<>();
+        if (artifacts != null && artifacts.get(direction) instanceof Map<?, ?> values) {
+            values.forEach((name, path) -> entries.put(String.valueOf(name), String.valueOf(path)));
+        }
+        return entries;
+    }
+
+    private static Map<?, ?> artifactsOf(StageDefinition stage) {
+        Map<String, Object> source = stage.source();
+        if (source == null) {
+            return null;
+        }
+        Object declared = source.get("artifacts");
+        if (declared == null && source.get("config") instanceof Map<?, ?> config) {
+            declared = config.get("artifacts");
+        }
+        return declared instanceof Map<?, ?> artifacts ? artifacts : null;
+    }
+
+    private static String abbreviate(String digest) {
+        return digest.substring(0, 12);
+    }
+}
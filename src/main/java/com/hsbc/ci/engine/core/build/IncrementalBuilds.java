@@ -0,0 +1,318 @@
+package com.hsbc.ci.engine.core.build;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.model.definition.BuildProject;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Decides how much of a multi-module project to rebuild. The files changed since the
+ * project's last green build (committed, uncommitted and untracked) are mapped to the
+ * modules that own them; Maven then builds only those with {@code -pl ... -am -amd} and
+ * without {@code clean}. A change outside every module, a project without modules, or
+ * a missing or unknown last-green commit means a full build.
+ *
+ * A module with sources but no build output ({@code target/} missing or empty, e.g.
+ * after {@code mvn clean}) is rebuilt even when nothing in it changed, so a project is
+ * only up to date when its outputs are still there.
+ *
+ * A green build only counts for the Maven arguments it ran with (goals without
+ * {@code clean}, profiles, properties, {@code -DskipTests}, options): a build with
+ * {@code --skip-tests} does not make a later build that runs the tests up to date.
+ *
+ * The last green commit of each project and arguments is kept in {@code last-green}
+ * under {@code builds.directory} of ci-engine.yml, as
+ * {@code [int magic][int version][int count]} then {@code [utf project@args-hash][utf commit]}.
+ */
+@Component
+public class IncrementalBuilds {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalBuilds.class);
+
+    static final String FILE_NAME = "last-green";
+
+    private static final int MAGIC = 0x4349474e;
+    private static final int VERSION = 2;
+    private static final long GIT_TIMEOUT_SECONDS = 60;
+    private static final String OUTPUT_DIR = "target";
+
+    public enum Mode {
+        FULL,
+        MODULES,
+        UP_TO_DATE
+    }
+
+    /**
+     * @param head   commit the build starts from, null outside a git work tree
+     * @param reason why a full build is needed, or the last green commit otherwise
+     */
+    public record Plan(Mode mode, List<String> modules, String head, String reason) {
+
+        public Plan {
+            modules = List.copyOf(modules);
+        }
+
+        static Plan full(String head, String reason) {
+            return new Plan(Mode.FULL, List.of(), head, reason);
+        }
+    }
+
+    private final ToolRegistry tools;
+    private final Path file;
+    private Map<String, String> lastGreen;
+
+    public IncrementalBuilds() {
+        this(new ToolRegistry(), Paths.get(".ci-engine/builds", FILE_NAME));
+    }
+
+    @Autowired
+    public IncrementalBuilds(ConfigurationLoader configLoader, ToolRegistry tools) {
+        this(tools, file(configLoader));
+    }
+
+    public IncrementalBuilds(ToolRegistry tools, Path file) {
+        this.tools = tools;
+        this.file = file;
+    }
+
+    /**
+     * @param mavenArgs the arguments the build will run with, without {@code clean}, thread
+     *                  count or module selection
+     */
+    public Plan plan(BuildProject project, List<String> mavenArgs) {
+        Path projectDir = realPath(Paths.get(project.pom()).toAbsolutePath().normalize().getParent());
+        String head = git(projectDir, "rev-parse", "HEAD");
+        if (head == null) {
+            return Plan.full(null, "not a git work tree");
+        }
+        if (project.modules().isEmpty()) {
+            return Plan.full(head, "no modules declared");
+        }
+        String base = lastGreen(project.name(), mavenArgs);
+        if (base == null) {
+            return Plan.full(head, "no green build recorded with these arguments");
+        }
+        if (git(projectDir, "cat-file", "-e", base + "^{commit}") == null) {
+            return Plan.full(head, "last green commit " + abbreviate(base) + " is not in this clone");
+        }
+        String root = git(projectDir, "rev-parse", "--show-toplevel");
+        String diff = git(projectDir, "diff", "--name-only", base, "--", ".");
+        String untracked = git(projectDir, "ls-files", "--others", "--exclude-standard", "--full-name", "--", ".");
+        if (root == null || diff == null || untracked == null) {
+            return Plan.full(head, "git diff against " + abbreviate(base) + " failed");
+        }
+
+        List<String> changed = new ArrayList<>(diff.lines().toList());
+        changed.addAll(untracked.lines().toList());
+        Set<String> affected = new LinkedHashSet<>();
+        for (String path : changed) {
+            if (path.isBlank()) {
+                continue;
+            }
+            Path changedFile = realPath(Paths.get(root)).resolve(path).normalize();
+            if (!changedFile.startsWith(projectDir)) {
+                continue;
+            }
+            String module = owningModule(project.modules(), projectDir.relativize(changedFile));
+            if (module == null) {
+                return Plan.full(head, projectDir.relativize(changedFile) + " is outside every module");
+            }
+            affected.add(module);
+        }
+        List<String> withoutOutput = project.modules().stream()
+            .filter(module -> outputMissing(projectDir.resolve(module)))
+            .toList();
+        if (withoutOutput.size() == project.modules().size()) {
+            return Plan.full(head, "no build output in any module");
+        }
+        if (!withoutOutput.isEmpty()) {
+            log.info("Rebuilding {} of {}: build output missing", withoutOutput, project.name());
+            affected.addAll(withoutOutput);
+        }
+        if (affected.isEmpty()) {
+            return new Plan(Mode.UP_TO_DATE, List.of(), head, base);
+        }
+        List<String> ordered = project.modules().stream().filter(affected::contains).toList();
+        return new Plan(Mode.MODULES, ordered, head, base);
+    }
+
+    /**
+     * True when a module that has sources has no (or an empty) {@code target/}.
+     */
+    static boolean outputMissing(Path module) {
+        if (!Files.isDirectory(module.resolve("src"))) {
+            return false;
+        }
+        Path output = module.resolve(OUTPUT_DIR);
+        if (!Files.isDirectory(output)) {
+            return true;
+        }
+        try (Stream<Path> entries = Files.list(output)) {
+            return entries.findAny().isEmpty();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Module whose directory holds the file, the deepest one for nested modules.
+     */
+    static String owningModule(List<String> modules, Path file) {
+        String owner = null;
+        int depth = -1;
+        for (String module : modules) {
+            Path directory = Paths.get(module).normalize();
+            if (file.startsWith(directory) && directory.getNameCount() > depth) {
+                owner = module;
+                depth = directory.getNameCount();
+            }
+        }
+        return owner;
+    }
+
+    public synchronized String lastGreen(String project, List<String> mavenArgs) {
+        return load().get(key(project, mavenArgs));
+    }
+
+    /**
+     * Remembers {@code commit} as the last one {@code project} built successfully from
+     * with {@code mavenArgs}.
+     */
+    public synchronized void recordGreen(String project, List<String> mavenArgs, String commit) {
+        String key = key(project, mavenArgs);
+        if (commit == null || commit.equals(load().get(key))) {
+            return;
+        }
+        lastGreen.put(key, commit);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(lastGreen.size());
+                for (Map.Entry<String, String> entry : lastGreen.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to record last green build of {}: {}", project, e.getMessage());
+        }
+    }
+
+    static String key(String project, List<String> mavenArgs) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        for (String arg : mavenArgs) {
+            digest.update(arg.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return project + "@" + HexFormat.of().formatHex(digest.digest(), 0, 8);
+    }
+
+    private Map<String, String> load() {
+        if (lastGreen != null) {
+            return lastGreen;
+        }
+        lastGreen = new HashMap<>();
+        if (!Files.exists(file)) {
+            return lastGreen;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Ignoring {}: not a last-green file of this version", file);
+                return lastGreen;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                lastGreen.put(in.readUTF(), in.readUTF());
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable {}: {}", file, e.getMessage());
+            lastGreen.clear();
+        }
+        return lastGreen;
+    }
+
+    /**
+     * Output of a git command run in {@code directory}, trimmed, or null when it fails.
+     */
+    private String git(Path directory, String... args) {
+        List<String> command = new ArrayList<>();
+        command.add(tools.resolve("git").command());
+        command.addAll(List.of(args));
+        try {
+            Process process = new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            process.getOutputStream().close();
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (!process.waitFor(GIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return null;
+            }
+            return process.exitValue() == 0 ? output.trim() : null;
+        } catch (IOException e) {
+            log.debug("git {} failed: {}", args[0], e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static Path realPath(Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path;
+        }
+    }
+
+    private static String abbreviate(String commit) {
+        return commit.length() > 10 ? commit.substring(0, 10) : commit;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Path file(ConfigurationLoader configLoader) {
+        Object settings = configLoader.getEngineConfig().get("builds");
+        Object directory = settings instanceof Map<?, ?> values ? ((Map<String, Object>) values).get("directory") : null;
+        return Paths.get(directory != null ? directory.toString() : ".ci-engine/builds", FILE_NAME);
+    }
+}
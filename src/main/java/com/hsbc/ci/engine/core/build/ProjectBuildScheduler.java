@@ -0,0 +1,167 @@
+package com.hsbc.ci.engine.core.build;
+
+import com.hsbc.ci.engine.core.model.definition.BuildProject;
+import com.hsbc.ci.engine.core.schedule.TaskScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds the projects of build.yml concurrently on a {@link TaskScheduler}. A project
+ * starts as soon as every project in its {@code dependsOn} has built successfully, at
+ * most {@code jobs} at a time, and dependents of a failed project are skipped while
+ * independent ones carry on. Dependencies on projects outside the list being built are
+ * taken as already built.
+ *
+ * Projects share a budget of {@code cpus} CPUs. Each asks for as many as its build would
+ * use (its thread count for a parallel Maven build, else one), capped at a fair share:
+ * the budget split between the builds that can run together, i.e. {@code jobs} or the
+ * projects running and ready if fewer. It is handed what is free up to that, at least
+ * one, so a handful of {@code -T 2C} builds neither oversubscribe the machine nor leave
+ * the first one holding every CPU.
+ */
+public class ProjectBuildScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectBuildScheduler.class);
+
+    /**
+     * Builds one project with the given number of CPUs; throws when the build fails.
+     */
+    @FunctionalInterface
+    public interface ProjectBuilder {
+        String build(BuildProject project, int cpus) throws Exception;
+    }
+
+    private final int cpus;
+    private final int jobs;
+    private final Consumer<String> progress;
+
+    public ProjectBuildScheduler(int cpus, int jobs) {
+        this(cpus, jobs, System.out::println);
+    }
+
+    public ProjectBuildScheduler(int cpus, int jobs, Consumer<String> progress) {
+        if (cpus < 1 || jobs < 1) {
+            throw new IllegalArgumentException("cpus and jobs must be at least 1");
+        }
+        this.cpus = cpus;
+        this.jobs = jobs;
+        this.progress = progress;
+    }
+
+    /**
+     * Fails with {@link IllegalArgumentException} when a project depends on one that
+     * does not exist or the dependencies form a cycle.
+     */
+    public static void checkDependencies(List<BuildProject> projects) {
+        Map<String, BuildProject> byName = new HashMap<>();
+        projects.forEach(project -> byName.put(project.name(), project));
+        for (BuildProject project : projects) {
+            for (String dependency : project.dependsOn()) {
+                if (!byName.containsKey(dependency)) {
+                    throw new IllegalArgumentException("project '" + project.name()
+                        + "' depends on unknown project: " + dependency);
+                }
+            }
+        }
+        Map<String, Integer> state = new HashMap<>();
+        for (BuildProject project : projects) {
+            visit(project, byName, state, new ArrayDeque<>());
+        }
+    }
+
+    private static void visit(BuildProject project, Map<String, BuildProject> byName, Map<String, Integer> state,
+                              Deque<String> path) {
+        Integer seen = state.get(project.name());
+        if (seen != null && seen == 2) {
+            return;
+        }
+        path.addLast(project.name());
+        if (seen != null) {
+            throw new IllegalArgumentException("project dependency cycle: " + String.join(" -> ", path));
+        }
+        state.put(project.name(), 1);
+        for (String dependency : project.dependsOn()) {
+            visit(byName.get(dependency), byName, state, path);
+        }
+        state.put(project.name(), 2);
+        path.removeLast();
+    }
+
+    /**
+     * CPUs a Maven {@code -T} value asks for: {@code 2C} is two per CPU, {@code 4} is four,
+     * capped at {@code cpus}.
+     */
+    public static int cpuDemand(String threads, int cpus) {
+        String value = threads.trim();
+        double demand = value.endsWith("C") || value.endsWith("c")
+            ? Double.parseDouble(value.substring(0, value.length() - 1)) * cpus
+            : Double.parseDouble(value);
+        return (int) Math.max(1, Math.min(cpus, Math.ceil(demand)));
+    }
+
+    public TaskScheduler.Summary<BuildProject> run(List<BuildProject> projects, ToIntFunction<BuildProject> demand,
+                                                   ProjectBuilder builder) throws InterruptedException {
+        List<String> names = projects.stream().map(BuildProject::name).toList();
+        List<List<Integer>> dependencies = projects.stream()
+            .map(project -> project.dependsOn().stream().map(names::indexOf).filter(index -> index >= 0).toList())
+            .toList();
+        CpuBudget budget = new CpuBudget(cpus);
+        return new TaskScheduler<BuildProject>("project-build-", jobs, TaskScheduler.FailurePolicy.CONTINUE,
+            BuildProject::name).run(projects, dependencies,
+                (project, slot) -> build(project, demand, Math.max(1, cpus / slot.runnable()), builder, budget));
+    }
+
+    private String build(BuildProject project, ToIntFunction<BuildProject> demand, int share, ProjectBuilder builder,
+                         CpuBudget budget) throws Exception {
+        int granted = budget.acquire(Math.max(1, Math.min(share, demand.applyAsInt(project))));
+        long start = System.nanoTime();
+        progress.accept("[INFO] Building " + project.name() + " with " + granted + " CPU" + (granted == 1 ? "" : "s"));
+        try {
+            return builder.build(project, granted) + ", " + granted + " CPU" + (granted == 1 ? "" : "s");
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Build of {} failed: {}", project.name(), e.getMessage());
+            progress.accept("[ERROR] " + project.name() + " failed after "
+                + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) + "s: " + e.getMessage());
+            throw e;
+        } finally {
+            budget.release(granted);
+        }
+    }
+
+    /**
+     * CPUs shared by the running builds. A build takes what is free up to what it asks
+     * for and waits only while nothing is free.
+     */
+    private static final class CpuBudget {
+        private int available;
+
+        CpuBudget(int cpus) {
+            this.available = cpus;
+        }
+
+        synchronized int acquire(int want) throws InterruptedException {
+            while (available == 0) {
+                wait();
+            }
+            int granted = Math.min(want, available);
+            available -= granted;
+            return granted;
+        }
+
+        synchronized void release(int cpus) {
+            available += cpus;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.hsbc.ci.engine.core.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Expands workspace-relative glob patterns such as {@code src/**} or {@code target/*.jar}.
+ */
+public final class FileGlobs {
+
+    private FileGlobs() {
+    }
+
+    public static List<Path> resolve(Path root, List<String> patterns) {
+        TreeSet<Path> matches = new TreeSet<>();
+        for (String pattern : patterns) {
+            Path base = root.resolve(literalPrefix(pattern));
+            if (!Files.exists(base)) {
+                continue;
+            }
+            if (Files.isRegularFile(base)) {
+                matches.add(root.relativize(base));
+                continue;
+            }
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            try (Stream<Path> files = Files.walk(base)) {
+                files.filter(Files::isRegularFile)
+                    .map(root::relativize)
+                    .filter(matcher::matches)
+                    .forEach(matches::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to expand " + pattern, e);
+            }
+        }
+        return new ArrayList<>(matches);
+    }
+
+    private static String literalPrefix(String pattern) {
+        String[] segments = pattern.split("/");
+        StringBuilder prefix = new StringBuilder();
+        for (String segment : segments) {
+            if (segment.matches(".*[*?\\[{].*")) {
+                break;
+            }
+            if (prefix.length() > 0) {
+                prefix.append('/');
+            }
+            prefix.append(segment);
+        }
+        return prefix.toString();
+    }
+}
@@ -0,0 +1,233 @@
+package com.hsbc.ci.engine.core.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hsbc.ci.engine.core.model.StageResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * On-disk store of cached stage results, one directory per key holding
+ * {@code result.properties} and the captured output files. Total size is bounded;
+ * least recently used entries are evicted first.
+ */
+public class LocalStageCacheStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalStageCacheStore.class);
+
+    private static final String RESULT_FILE = "result.properties";
+    private static final String OUTPUTS_DIR = "outputs";
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSizeBytes;
+    private long evictions;
+
+    public LocalStageCacheStore(Path directory, long maxSizeBytes) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        loadIndex();
+    }
+
+    private void loadIndex() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> dirs = Files.list(directory)) {
+            List<Path> entryDirs = new ArrayList<>(dirs
+                .filter(dir -> Files.exists(dir.resolve(RESULT_FILE)))
+                .toList());
+            entryDirs.sort(Comparator.comparing(LocalStageCacheStore::lastModified));
+            for (Path dir : entryDirs) {
+                long size = Long.parseLong(readProperties(dir).getProperty("size", "0"));
+                entries.put(dir.getFileName().toString(), size);
+                totalSizeBytes += size;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read stage cache index {}: {}", directory, e.getMessage());
+        }
+        log.debug("Stage cache has {} entries, {} bytes", entries.size(), totalSizeBytes);
+    }
+
+    public Optional<StageResult> restore(String key, Path workspace) {
+        Path entry = directory.resolve(key);
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return Optional.empty();
+            }
+            try {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                log.debug("Failed to touch cache entry {}: {}", key, e.getMessage());
+            }
+        }
+
+        try {
+            Properties properties = readProperties(entry);
+            Path outputs = entry.resolve(OUTPUTS_DIR);
+            if (Files.isDirectory(outputs)) {
+                try (Stream<Path> files = Files.walk(outputs)) {
+                    for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                        Path target = workspace.resolve(outputs.relativize(file).toString());
+                        Files.createDirectories(target.getParent());
+                        Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+            return Optional.of(toResult(properties));
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Dropping unreadable cache entry {}: {}", key, e.getMessage());
+            remove(key);
+            return Optional.empty();
+        }
+    }
+
+    public void store(String key, StageResult result, Path workspace, List<Path> outputFiles) {
+        Path staging = directory.resolve(".tmp-" + UUID.randomUUID());
+        try {
+            Files.createDirectories(staging.resolve(OUTPUTS_DIR));
+            long size = 0;
+            for (Path file : outputFiles) {
+                Path target = staging.resolve(OUTPUTS_DIR).resolve(file.toString());
+                Files.createDirectories(target.getParent());
+                Files.copy(workspace.resolve(file), target, StandardCopyOption.REPLACE_EXISTING);
+                size += Files.size(target);
+            }
+            Properties properties = fromResult(result);
+            properties.setProperty("size", String.valueOf(size));
+            try (OutputStream out = Files.newOutputStream(staging.resolve(RESULT_FILE))) {
+                properties.store(out, "ci-engine stage cache entry");
+            }
+
+            synchronized (this) {
+                Path entry = directory.resolve(key);
+                if (entries.containsKey(key)) {
+                    deleteRecursively(staging);
+                    return;
+                }
+                Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+                entries.put(key, size);
+                totalSizeBytes += size;
+                evictIfNeeded();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to store cache entry {}: {}", key, e.getMessage());
+            deleteRecursively(staging);
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalSizeBytes > maxSizeBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalSizeBytes -= entry.getValue();
+            evictions++;
+            deleteRecursively(directory.resolve(entry.getKey()));
+            log.debug("Evicted stage cache entry {}", entry.getKey());
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalSizeBytes -= size;
+        }
+        deleteRecursively(directory.resolve(key));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalSizeBytes() {
+        return totalSizeBytes;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private static Properties fromResult(StageResult result) {
+        Properties properties = new Properties();
+        properties.setProperty("stageName", String.valueOf(result.getStageName()));
+        properties.setProperty("success", String.valueOf(result.isSuccess()));
+        properties.setProperty("output", result.getOutput() != null ? result.getOutput() : "");
+        properties.setProperty("durationMs", String.valueOf(result.getDurationMs()));
+        if (result.getMetadata() != null) {
+            result.getMetadata().forEach((k, v) -> properties.setProperty("metadata." + k, v));
+        }
+        return properties;
+    }
+
+    private static StageResult toResult(Properties properties) {
+        Map<String, String> metadata = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("metadata.")) {
+                metadata.put(name.substring("metadata.".length()), properties.getProperty(name));
+            }
+        }
+        return StageResult.builder()
+            .stageName(properties.getProperty("stageName"))
+            .success(Boolean.parseBoolean(properties.getProperty("success")))
+            .output(properties.getProperty("output"))
+            .durationMs(Long.parseLong(properties.getProperty("durationMs", "0")))
+            .metadata(metadata)
+            .build();
+    }
+
+    private static Properties readProperties(Path entry) {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(entry.resolve(RESULT_FILE))) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return properties;
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteRecursively(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    log.debug("Failed to delete {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.hsbc.ci.engine.core.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.StageResult;
+import com.hsbc.ci.engine.core.model.definition.PluginSettings;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Skips build, test and containerize stages whose inputs have not changed since their
+ * last successful run. Enabled by the {@code cache} section of ci-engine.yml; a stage can
+ * override its inputs, outputs and keyed variables with its own {@code cache} block.
+ *
+ * The key covers the compiled stage (typed settings with the build.yml and deploy.yml
+ * defaults applied, env, environment and timeout) rather than the raw YAML, so changing a
+ * default is a miss.
+ */
+@Component
+public class StageCache {
+
+    private static final Logger log = LoggerFactory.getLogger(StageCache.class);
+
+    static final long DEFAULT_MAX_SIZE_MB = 2048;
+
+    private static final Map<String, CachePolicy> DEFAULT_POLICIES = Map.of(
+        "build", new CachePolicy(
+            List.of("pom.xml", "build.gradle", "src/**"), List.of("target/*.jar"), List.of()),
+        "test", new CachePolicy(
+            List.of("pom.xml", "build.gradle", "src/**"), List.of(), List.of()),
+        "containerize", new CachePolicy(
+            List.of("Dockerfile", "target/*.jar"), List.of(), List.of("GIT_COMMIT")));
+
+    record CachePolicy(List<String> inputs, List<String> outputs, List<String> variables) {
+    }
+
+    private final LocalStageCacheStore store;
+    private final Path workspace;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+
+    public StageCache() {
+        this.store = null;
+        this.workspace = Paths.get("");
+    }
+
+    public StageCache(Path directory, long maxSizeBytes, Path workspace) {
+        this.store = new LocalStageCacheStore(directory, maxSizeBytes);
+        this.workspace = workspace;
+    }
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public StageCache(ConfigurationLoader configLoader) {
+        Map<String, Object> settings = (Map<String, Object>) configLoader.getEngineConfig().get("cache");
+        if (settings == null || !Boolean.TRUE.equals(settings.get("enabled"))) {
+            this.store = null;
+        } else {
+            Path directory = Paths.get((String) settings.getOrDefault("directory", ".ci-engine/cache"));
+            Object maxSizeMb = settings.getOrDefault("maxSizeMb", DEFAULT_MAX_SIZE_MB);
+            this.store = new LocalStageCacheStore(directory, ((Number) maxSizeMb).longValue() * 1024 * 1024);
+            log.info("Stage cache enabled: {} (max {} MB)", directory, maxSizeMb);
+        }
+        this.workspace = Paths.get("");
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * Returns the cache key for this stage invocation, or null when the stage is not cacheable.
+     */
+    public String keyFor(StageDefinition stage, PipelineContext context) {
+        String stageType = stage.type();
+        CachePolicy policy = policyFor(stageType, stage.source());
+        if (policy == null) {
+            return null;
+        }
+        Map<String, Object> keyedConfig = resolvedConfig(stage);
+
+        Map<String, String> variables = new HashMap<>();
+        for (String name : policy.variables()) {
+            String value = context.getVariable(name);
+            variables.put(name, value != null ? value : "");
+        }
+        try {
+            return StageCacheKey.compute(stageType, keyedConfig, workspace,
+                FileGlobs.resolve(workspace, policy.inputs()), variables);
+        } catch (UncheckedIOException e) {
+            log.warn("Cannot compute cache key for {}, running uncached: {}", stageType, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * What a stage runs with once compiled; the stage name is left out so a renamed stage
+     * still hits.
+     */
+    static Map<String, Object> resolvedConfig(StageDefinition stage) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        if (stage.settings() instanceof PluginSettings plugin) {
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("plugin", plugin.pluginName());
+            settings.put("config", plugin.config());
+            config.put("settings", settings);
+        } else {
+            config.put("settings", String.valueOf(stage.settings()));
+        }
+        config.put("env", stage.env());
+        config.put("environment", String.valueOf(stage.environment()));
+        config.put("timeout", stage.timeout() != null ? String.valueOf(stage.timeout().toSeconds()) : "none");
+        return config;
+    }
+
+    public Optional<StageResult> restore(String key, String stageName) {
+        return restore(key, stageName, () -> true);
+    }
+
+    /**
+     * Like {@link #restore(String, String)}, but a cached result is only used if
+     * {@code reusable} still holds, e.g. the image a containerize stage built still exists.
+     * A rejected result counts as a miss.
+     */
+    public Optional<StageResult> restore(String key, String stageName, BooleanSupplier reusable) {
+        Optional<StageResult> cached = store.restore(key, workspace);
+        if (cached.isPresent() && !reusable.getAsBoolean()) {
+            log.info("Cached result of {} is no longer usable, running it: {}", stageName, key);
+            cached = Optional.empty();
+        }
+        if (cached.isEmpty()) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        log.info("Stage cache hit for {}: {}", stageName, key);
+        System.out.println("  [cache] Reusing result of " + stageName + " (" + key.substring(0, 12) + ")");
+
+        StageResult result = cached.get();
+        Map<String, String> metadata = new HashMap<>(result.getMetadata());
+        metadata.put("cache", "hit");
+        metadata.put("cacheKey", key);
+        return Optional.of(StageResult.builder()
+            .stageName(result.getStageName())
+            .success(result.isSuccess())
+            .output(result.getOutput())
+            .durationMs(result.getDurationMs())
+            .metadata(metadata)
+            .build());
+    }
+
+    public void store(String key, StageDefinition stage, StageResult result) {
+        if (!result.isSuccess()) {
+            return;
+        }
+        CachePolicy policy = policyFor(stage.type(), stage.source());
+        store.store(key, result, workspace, FileGlobs.resolve(workspace, policy.outputs()));
+        stores.incrementAndGet();
+    }
+
+    @SuppressWarnings("unchecked")
+    private CachePolicy policyFor(String stageType, Map<String, Object> stageConfig) {
+        if (store == null || stageConfig == null) {
+            return null;
+        }
+        CachePolicy defaults = DEFAULT_POLICIES.get(stageType);
+        Object declared = stageConfig.get("cache");
+        if (declared == null && stageConfig.get("config") instanceof Map) {
+            declared = ((Map<String, Object>) stageConfig.get("config")).get("cache");
+        }
+        if (!(declared instanceof Map)) {
+            return Boolean.FALSE.equals(declared) ? null : defaults;
+        }
+
+        Map<String, Object> overrides = (Map<String, Object>) declared;
+        if (Boolean.FALSE.equals(overrides.get("enabled")) || defaults == null && overrides.get("inputs") == null) {
+            return null;
+        }
+        CachePolicy base = defaults != null ? defaults : new CachePolicy(List.of(), List.of(), List.of());
+        return new CachePolicy(
+            (List<String>) overrides.getOrDefault("inputs", base.inputs()),
+            (List<String>) overrides.getOrDefault("outputs", base.outputs()),
+            (List<String>) overrides.getOrDefault("variables", base.variables()));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStores() {
+        return stores.get();
+    }
+
+    public long getEvictions() {
+        return store != null ? store.getEvictions() : 0;
+    }
+}
@@ -0,0 +1,99 @@
+package com.hsbc.ci.engine.core.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 over everything that can change a stage's outcome: its type, the resolved
+ * config map (keys sorted), the content of its input files and selected variables.
+ */
+public final class StageCacheKey {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private StageCacheKey() {
+    }
+
+    public static String compute(String stageType,
+                                 Map<String, Object> config,
+                                 Path workspace,
+                                 List<Path> inputFiles,
+                                 Map<String, String> variables) {
+        MessageDigest digest = sha256();
+        update(digest, "type", stageType);
+        update(digest, "config", canonical(config));
+        for (Path file : inputFiles) {
+            Path absolute = workspace.resolve(file);
+            update(digest, "file", file.toString().replace('\\', '/') + ":" + size(absolute));
+            hashFile(digest, absolute);
+        }
+        for (Map.Entry<String, String> variable : new TreeMap<>(variables).entrySet()) {
+            update(digest, "var", variable.getKey() + "=" + variable.getValue());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @SuppressWarnings("unchecked")
+    static String canonical(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            StringBuilder sb = new StringBuilder("{");
+            for (Map.Entry<String, Object> entry : new TreeMap<>((Map<String, Object>) map).entrySet()) {
+                sb.append(entry.getKey()).append('=').append(canonical(entry.getValue())).append(';');
+            }
+            return sb.append('}').toString();
+        }
+        if (value instanceof List<?> list) {
+            StringBuilder sb = new StringBuilder("[");
+            for (Object item : list) {
+                sb.append(canonical(item)).append(';');
+            }
+            return sb.append(']').toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private static void update(MessageDigest digest, String tag, String value) {
+        digest.update(tag.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to stat " + file, e);
+        }
+    }
+
+    private static void hashFile(MessageDigest digest, Path file) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to hash " + file, e);
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.hsbc.ci.engine.core.checkout;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hsbc.ci.engine.core.schedule.TaskScheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Clones the repositories of checkout.yml concurrently on a {@link TaskScheduler}, at
+ * most {@code concurrency} at a time. Each clone's output is captured on its own instead
+ * of interleaving on the console, and is reported with the clone's outcome when it fails.
+ *
+ * With {@link TaskScheduler.FailurePolicy#CONTINUE} every repository is attempted and the
+ * failures are reported together. With {@link TaskScheduler.FailurePolicy#CANCEL} the
+ * first failure stops the clones still running and the ones not yet started, which are
+ * reported as cancelled.
+ */
+public class CloneScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(CloneScheduler.class);
+
+    /**
+     * Clones one repository, sending each line of output to {@code output}; throws when
+     * the clone fails.
+     */
+    @FunctionalInterface
+    public interface Cloner {
+        void clone(Repository repository, Consumer<String> output) throws Exception;
+    }
+
+    /**
+     * @param timeout null for no limit
+     */
+    public record Repository(String name, String url, String target, String branch, Integer depth, String token,
+                             Duration timeout) {
+    }
+
+    private final int concurrency;
+    private final TaskScheduler.FailurePolicy policy;
+    private final Consumer<String> progress;
+
+    public CloneScheduler(int concurrency, TaskScheduler.FailurePolicy policy) {
+        this(concurrency, policy, System.out::println);
+    }
+
+    public CloneScheduler(int concurrency, TaskScheduler.FailurePolicy policy, Consumer<String> progress) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.concurrency = concurrency;
+        this.policy = policy;
+        this.progress = progress;
+    }
+
+    public TaskScheduler.Summary<Repository> run(List<Repository> repositories, Cloner cloner)
+            throws InterruptedException {
+        AtomicInteger started = new AtomicInteger();
+        return new TaskScheduler<Repository>("clone-", concurrency, policy, Repository::name).run(repositories,
+            (repository, slot) -> {
+                progress.accept("[INFO] Cloning " + repository.name() + " (" + started.incrementAndGet() + "/"
+                    + repositories.size() + ")");
+                return clone(repository, cloner, slot.output());
+            });
+    }
+
+    private String clone(Repository repository, Cloner cloner, Consumer<String> output) throws Exception {
+        long start = System.nanoTime();
+        try {
+            cloner.clone(repository, output);
+            long duration = System.nanoTime() - start;
+            progress.accept("[SUCCESS] " + repository.name() + " cloned in "
+                + TimeUnit.NANOSECONDS.toSeconds(duration) + "s");
+            return "cloned to " + repository.target();
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            long duration = System.nanoTime() - start;
+            log.error("Clone of {} failed: {}", repository.name(), e.getMessage());
+            progress.accept("[ERROR] " + repository.name() + " failed after "
+                + TimeUnit.NANOSECONDS.toSeconds(duration) + "s: " + e.getMessage());
+            throw e;
+        }
+    }
+}
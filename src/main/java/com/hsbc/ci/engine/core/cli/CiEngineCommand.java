@@ -33,19 +33,26 @@ public class CiEngineCommand implements CommandLineRunner, ExitCodeGenerator {
 
     @Override
     public void run(String... args) throws Exception {
+        exitCode = createCommandLine().execute(args);
+    }
+
+    /**
+     * Builds a fresh command tree. Command beans are prototypes: picocli writes options into
+     * their fields, and the daemon runs several requests at once.
+     */
+    public CommandLine createCommandLine() {
         RootCommand root = new RootCommand();
-        CommandLine commandLine = new CommandLine(root)
+        return new CommandLine(root, context.getBean(CommandLine.IFactory.class))
             .addSubcommand("pipeline", new PipelineCommand())
             .addSubcommand("stage", new StageCommand())
             .addSubcommand("deploy", new DeployCommand())
-            .addSubcommand("promote", new PromoteCommand())
+            .addSubcommand("promote", context.getBean(PromoteCommand.class))
             .addSubcommand("config", new ConfigCommand())
             .addSubcommand("version", new VersionCommand())
             .addSubcommand("checkout", new CheckoutCommand())
             .addSubcommand("build", new BuildCommand())
-            .addSubcommand("plugin", context.getBean(PluginCommand.class));
-        
-        exitCode = commandLine.execute(args);
+            .addSubcommand("plugin", context.getBean(PluginCommand.class))
+            .addSubcommand("daemon", new DaemonCommand());
     }
 
     @Override
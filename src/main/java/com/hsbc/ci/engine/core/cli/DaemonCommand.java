@@ -0,0 +1,97 @@
+package com.hsbc.ci.engine.core.cli;
+
+import com.hsbc.ci.engine.core.config.ConfigWatcher;
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.daemon.DaemonClient;
+import com.hsbc.ci.engine.core.daemon.EngineDaemon;
+import com.hsbc.ci.engine.core.metrics.EngineMetrics;
+import com.hsbc.ci.engine.core.metrics.MetricsEndpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.OptionalInt;
+import java.util.concurrent.Callable;
+
+@Command(name = "daemon", description = "Run the engine as a warm background daemon", subcommands = {
+    DaemonCommand.Start.class,
+    DaemonCommand.Stop.class,
+    DaemonCommand.Status.class
+})
+public class DaemonCommand implements Runnable {
+
+    @Override
+    public void run() {
+    }
+
+    static Path socketPath(String socket) {
+        return socket != null ? Paths.get(socket) : DaemonClient.defaultSocketPath();
+    }
+
+    @Command(name = "start", description = "Start the daemon in the foreground")
+    public static class Start implements Callable<Integer> {
+        @Autowired
+        private EngineDaemon engineDaemon;
+
+        @Autowired
+        private EngineMetrics metrics;
+
+        @Autowired
+        private ConfigurationLoader configLoader;
+
+        @Option(names = {"-s", "--socket"}, description = "Unix domain socket path")
+        private String socket;
+
+        @Override
+        public Integer call() throws Exception {
+            try (ConfigWatcher watcher = ConfigWatcher.start(configLoader)) {
+                if (metrics.getHttpPort() <= 0) {
+                    engineDaemon.serve(socketPath(socket));
+                    return 0;
+                }
+                try (MetricsEndpoint endpoint = MetricsEndpoint.start(metrics, metrics.getHttpPort())) {
+                    System.out.println("[INFO] Metrics at http://localhost:" + endpoint.getPort() + "/metrics");
+                    engineDaemon.serve(socketPath(socket));
+                }
+            }
+            return 0;
+        }
+    }
+
+    @Command(name = "stop", description = "Stop a running daemon")
+    public static class Stop implements Callable<Integer> {
+        @Option(names = {"-s", "--socket"}, description = "Unix domain socket path")
+        private String socket;
+
+        @Override
+        public Integer call() throws Exception {
+            OptionalInt exitCode = DaemonClient.forward(
+                socketPath(socket), new String[] {"daemon", "stop"}, System.out, System.err);
+            if (exitCode.isEmpty()) {
+                System.out.println("No daemon running");
+                return 1;
+            }
+            System.out.println("[SUCCESS] Daemon stopped");
+            return 0;
+        }
+    }
+
+    @Command(name = "status", description = "Show daemon status")
+    public static class Status implements Callable<Integer> {
+        @Option(names = {"-s", "--socket"}, description = "Unix domain socket path")
+        private String socket;
+
+        @Override
+        public Integer call() throws Exception {
+            OptionalInt exitCode = DaemonClient.forward(
+                socketPath(socket), new String[] {"daemon", "status"}, System.out, System.err);
+            if (exitCode.isEmpty()) {
+                System.out.println("No daemon running");
+                return 1;
+            }
+            return exitCode.getAsInt();
+        }
+    }
+}
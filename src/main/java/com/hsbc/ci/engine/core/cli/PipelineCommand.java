@@ -1,11 +1,31 @@
 package com.hsbc.ci.engine.core.cli;
 
+import com.hsbc.ci.engine.core.config.ConfigValidationException;
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.journal.RunJournal;
+import com.hsbc.ci.engine.core.journal.RunState;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.PipelineResult;
+import com.hsbc.ci.engine.core.model.StageResult;
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+import com.hsbc.ci.engine.core.orchestrator.PipelineOrchestrator;
+import org.springframework.beans.factory.annotation.Autowired;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 @Command(name = "pipeline", description = "Manage pipelines", subcommands = {
     PipelineCommand.Run.class,
     PipelineCommand.List.class,
-    PipelineCommand.Validate.class
+    PipelineCommand.Validate.class,
+    PipelineCommand.Cancel.class
 })
 public class PipelineCommand implements Runnable {
 
@@ -14,26 +34,153 @@ public class PipelineCommand implements Runnable {
     }
 
     @Command(name = "run", description = "Run a pipeline")
-    public static class Run implements Runnable {
+    public static class Run implements Callable<Integer> {
+        private static final int FAILED_LOG_LINES = 30;
+
+        @Autowired
+        private PipelineOrchestrator orchestrator;
+
+        @Autowired
+        private RunJournal runJournal;
+
+        @Parameters(index = "0", arity = "0..1", description = "Pipeline name")
+        private String pipelineName;
+
+        @Option(names = {"-e", "--env"}, description = "Target environment")
+        private String environment;
+
+        @Option(names = {"-v", "--var"}, split = ",", description = "Variables (key=value, comma-separated)")
+        private Map<String, String> variables = new HashMap<>();
+
+        @Option(names = {"--dry-run"}, description = "Validate without executing")
+        private boolean dryRun;
+
+        @Option(names = {"--resume"}, paramLabel = "<runId>",
+                description = "Resume a run from its first incomplete stage")
+        private String resumeRunId;
+
         @Override
-        public void run() {
-            System.out.println("Pipeline run not yet implemented");
+        public Integer call() {
+            PipelineContext context;
+            if (resumeRunId != null) {
+                Optional<RunState> state = runJournal.replay(resumeRunId);
+                if (state.isEmpty()) {
+                    System.err.println("[ERROR] Run not found in journal: " + resumeRunId);
+                    return 1;
+                }
+                if (state.get().isFinished() && state.get().isSuccess()) {
+                    System.out.println("[INFO] Run " + resumeRunId + " already completed successfully");
+                    return 0;
+                }
+                context = state.get().toContext(dryRun);
+                pipelineName = context.getPipelineName();
+                System.out.println("[INFO] Resuming run " + resumeRunId + " of " + pipelineName
+                    + " (" + context.getStageResults().size() + " stages already completed)");
+            } else if (pipelineName == null) {
+                System.err.println("[ERROR] Either a pipeline name or --resume must be provided");
+                return 1;
+            } else {
+                context = PipelineContext.builder()
+                    .pipelineName(pipelineName)
+                    .environment(environment)
+                    .dryRun(dryRun)
+                    .variables(new HashMap<>(variables))
+                    .build();
+                System.out.println("[INFO] Run ID: " + context.getRunId());
+            }
+
+            PipelineResult result = orchestrator.execute(context);
+            if (!result.isSuccess()) {
+                System.err.println("[ERROR] " + result.getError());
+                printFailedStageLogs(context);
+                return 1;
+            }
+            System.out.println("[SUCCESS] Pipeline completed: " + pipelineName);
+            return 0;
+        }
+
+        private void printFailedStageLogs(PipelineContext context) {
+            for (Map.Entry<String, StageResult> entry : context.getStageResults().entrySet()) {
+                StageResult stageResult = entry.getValue();
+                if (stageResult.isSuccess() || stageResult.getLogTail() == null || stageResult.getLogTail().isEmpty()) {
+                    continue;
+                }
+                System.err.println("[ERROR] Stage " + entry.getKey() + ": " + stageResult.getOutput());
+                String[] lines = stageResult.getLogTail().split("\n");
+                for (int i = Math.max(0, lines.length - FAILED_LOG_LINES); i < lines.length; i++) {
+                    System.err.println("    " + lines[i]);
+                }
+                if (stageResult.getLogFile() != null) {
+                    System.err.println("  Full log: " + stageResult.getLogFile());
+                }
+            }
+        }
+    }
+
+    @Command(name = "cancel", description = "Cancel a running pipeline (runs started through the daemon)")
+    public static class Cancel implements Callable<Integer> {
+        @Autowired
+        private PipelineOrchestrator orchestrator;
+
+        @Parameters(index = "0", paramLabel = "<runId>", description = "Run ID to cancel")
+        private String runId;
+
+        @Override
+        public Integer call() {
+            if (!orchestrator.cancel(runId)) {
+                System.err.println("[ERROR] No active run in this engine: " + runId);
+                return 1;
+            }
+            System.out.println("[INFO] Cancelled run " + runId);
+            return 0;
         }
     }
 
     @Command(name = "list", description = "List pipelines")
     public static class List implements Runnable {
+        @Autowired
+        private ConfigurationLoader configLoader;
+
         @Override
         public void run() {
-            System.out.println("Pipeline list not yet implemented");
+            System.out.println("Available pipelines:");
+            for (String name : configLoader.listPipelines()) {
+                System.out.println("  " + name);
+            }
         }
     }
 
     @Command(name = "validate", description = "Validate pipeline")
-    public static class Validate implements Runnable {
+    public static class Validate implements Callable<Integer> {
+        @Autowired
+        private ConfigurationLoader configLoader;
+
+        @Parameters(index = "0", arity = "0..1", description = "Pipeline name (all pipelines if omitted)")
+        private String pipelineName;
+
         @Override
-        public void run() {
-            System.out.println("Pipeline validate not yet implemented");
+        public Integer call() {
+            Collection<String> names = pipelineName != null
+                ? java.util.List.of(pipelineName) : new TreeSet<>(configLoader.listPipelines());
+            int invalid = 0;
+            for (String name : names) {
+                try {
+                    PipelineDefinition pipeline = configLoader.getPipelineDefinition(name);
+                    if (pipeline == null) {
+                        System.err.println("[ERROR] Pipeline not found: " + name);
+                        invalid++;
+                        continue;
+                    }
+                    System.out.println("[SUCCESS] " + name + ": " + pipeline.stages().size() + " stages");
+                } catch (ConfigValidationException e) {
+                    invalid++;
+                    System.err.println("[ERROR] " + e.getSource() + ":");
+                    for (String error : e.getErrors()) {
+                        System.err.println("  - " + error);
+                    }
+                }
+            }
+            return invalid == 0 ? 0 : 1;
         }
     }
 }
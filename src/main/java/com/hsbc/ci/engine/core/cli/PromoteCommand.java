@@ -1,12 +1,169 @@
 package com.hsbc.ci.engine.core.cli;
 
+import com.hsbc.ci.engine.core.config.ConfigValidationException;
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.model.definition.GateDefinition;
+import com.hsbc.ci.engine.core.promote.PromotionCandidate;
+import com.hsbc.ci.engine.core.promote.PromotionDecision;
+import com.hsbc.ci.engine.core.promote.PromotionEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * Selects the promotion policy for one commit, or for every commit in a batch file, and
+ * reports the requirements still outstanding. Deploying the promoted build is left to
+ * the deploy stage of the target environment's pipeline.
+ */
 @Command(name = "promote", description = "Promote releases")
-public class PromoteCommand implements Runnable {
+@Component
+@Scope("prototype")
+public class PromoteCommand implements Callable<Integer> {
+
+    private static final Logger log = LoggerFactory.getLogger(PromoteCommand.class);
+
+    static final int EXIT_CONFIG_ERROR = 2;
+    static final int EXIT_REJECTED = 6;
+
+    @Autowired
+    private PromotionEngine promotionEngine;
+
+    @Autowired
+    private ConfigurationLoader configLoader;
+
+    @Option(names = {"--from"}, description = "Environment the build has reached")
+    private String from;
+
+    @Option(names = {"--to"}, description = "Target environment")
+    private String to;
+
+    @Option(names = {"-s", "--service"}, description = "Service name")
+    private String service;
+
+    @Option(names = {"--commit"}, description = "Commit to promote (default $GIT_COMMIT)")
+    private String commit;
+
+    @Option(names = {"-m", "--message"}, description = "Commit message")
+    private String message;
+
+    @Option(names = {"--reached"}, split = ",", description = "Other environments the build has reached")
+    private List<String> reached = new ArrayList<>();
+
+    @Option(names = {"--satisfied"}, split = ",", description = "Requirements already met (e.g. tests-passed)")
+    private List<String> satisfied = new ArrayList<>();
+
+    @Option(names = {"--approve"}, description = "Record manual approval")
+    private boolean approve;
+
+    @Option(names = {"--batch"}, paramLabel = "<file>",
+            description = "YAML file with a 'candidates' list to evaluate together")
+    private String batchFile;
+
+    public PromoteCommand() {
+    }
 
     @Override
-    public void run() {
-        System.out.println("Promote command not yet implemented");
+    public Integer call() {
+        try {
+            List<PromotionCandidate> candidates = batchFile != null ? loadBatch(batchFile) : List.of(candidate());
+            long start = System.nanoTime();
+            List<PromotionDecision> decisions = promotionEngine.evaluate(candidates);
+            long elapsedMicros = (System.nanoTime() - start) / 1_000;
+
+            int rejected = 0;
+            for (PromotionDecision decision : decisions) {
+                if (!decision.isApproved()) {
+                    rejected++;
+                }
+                print(decision);
+            }
+            System.out.println("[INFO] Evaluated " + decisions.size() + " commit(s) in " + elapsedMicros + "us: "
+                + (decisions.size() - rejected) + " approved, " + rejected + " rejected");
+            return rejected == 0 ? 0 : EXIT_REJECTED;
+        } catch (ConfigValidationException e) {
+            System.err.println("[ERROR] Invalid " + e.getSource() + ":");
+            e.getErrors().forEach(error -> System.err.println("  - " + error));
+            return EXIT_CONFIG_ERROR;
+        } catch (Exception e) {
+            log.error("Promotion failed: {}", e.getMessage());
+            System.err.println("[ERROR] Promotion failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private PromotionCandidate candidate() {
+        Set<String> environments = new HashSet<>(reached);
+        if (from != null) {
+            environments.add(from);
+        }
+        String sha = commit != null ? commit : System.getenv("GIT_COMMIT");
+        return new PromotionCandidate(service, sha, message, environments, requirements(satisfied));
+    }
+
+    private Set<String> requirements(List<String> met) {
+        Set<String> requirements = new HashSet<>(met);
+        if (approve) {
+            requirements.add("manual-approval");
+        }
+        return requirements;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PromotionCandidate> loadBatch(String file) {
+        Object entries = configLoader.loadYamlFile(file).get("candidates");
+        if (!(entries instanceof List<?> list)) {
+            throw new IllegalArgumentException(file + ": no 'candidates' list");
+        }
+        List<PromotionCandidate> candidates = new ArrayList<>(list.size());
+        for (Object entry : list) {
+            if (!(entry instanceof Map<?, ?> raw)) {
+                throw new IllegalArgumentException(file + ": candidate is not a mapping");
+            }
+            Map<String, Object> values = (Map<String, Object>) raw;
+            Set<String> environments = new HashSet<>(strings(values.get("reached")));
+            if (from != null) {
+                environments.add(from);
+            }
+            candidates.add(new PromotionCandidate(
+                values.get("service") != null ? values.get("service").toString() : service,
+                values.get("commit") != null ? values.get("commit").toString() : null,
+                values.get("message") != null ? values.get("message").toString() : null,
+                environments,
+                requirements(strings(values.get("satisfied")))));
+        }
+        return candidates;
+    }
+
+    private static List<String> strings(Object value) {
+        return value instanceof List<?> list ? list.stream().map(String::valueOf).toList() : List.of();
+    }
+
+    private void print(PromotionDecision decision) {
+        PromotionCandidate candidate = decision.candidate();
+        String subject = (candidate.service() != null ? candidate.service() : "build")
+            + (candidate.commit() != null ? "@" + candidate.commit() : "")
+            + (to != null ? " -> " + to : "");
+        if (!decision.isMatched()) {
+            System.out.println("[ERROR] " + subject + ": no promotion policy applies");
+        } else if (decision.isApproved()) {
+            System.out.println("[SUCCESS] " + subject + ": policy " + decision.policy());
+        } else {
+            String outstanding = decision.outstanding().stream()
+                .map(GateDefinition::type)
+                .collect(Collectors.joining(", "));
+            System.out.println("[ERROR] " + subject + ": policy " + decision.policy() + ", outstanding: " + outstanding);
+        }
     }
 }
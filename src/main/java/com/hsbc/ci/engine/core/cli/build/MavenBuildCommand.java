@@ -3,16 +3,36 @@ package com.hsbc.ci.engine.core.cli.build;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
+import com.hsbc.ci.engine.core.build.IncrementalBuilds;
+import com.hsbc.ci.engine.core.build.ProjectBuildScheduler;
+import com.hsbc.ci.engine.core.config.ConfigCompiler;
+import com.hsbc.ci.engine.core.model.definition.BuildConfig;
+import com.hsbc.ci.engine.core.model.definition.BuildProject;
+import com.hsbc.ci.engine.core.schedule.TaskScheduler;
+import com.hsbc.ci.engine.core.tool.BuildDaemonPool;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 @CommandLine.Command(name = "maven", description = "Build with Maven")
 @Component
-public class MavenBuildCommand implements Runnable {
+@Scope("prototype")
+public class MavenBuildCommand implements Callable<Integer> {
 
     private static final Logger log = LoggerFactory.getLogger(MavenBuildCommand.class);
 
@@ -50,18 +70,46 @@ public class MavenBuildCommand implements Runnable {
     @CommandLine.Option(names = {"-v", "--var"}, description = "Variables (key=value)")
     private String[] variables;
 
+    @CommandLine.Option(names = {"-j", "--jobs"},
+                        description = "Projects from --config built at once (default: CPU count)")
+    private Integer jobs;
+
+    @CommandLine.Option(names = {"--cpus"},
+                        description = "CPUs shared by concurrent project builds (default: CPU count)")
+    private Integer cpus;
+
+    @CommandLine.Option(names = {"--full"},
+                        description = "Rebuild every module of --config projects, not only changed ones")
+    private boolean fullBuild;
+
+    private final ToolRegistry tools;
+    private final BuildDaemonPool daemons;
+    private final IncrementalBuilds incrementalBuilds;
+
+    public MavenBuildCommand() {
+        this(new ToolRegistry(), BuildDaemonPool.disabled(), new IncrementalBuilds());
+    }
+
+    @Autowired
+    public MavenBuildCommand(ToolRegistry tools, BuildDaemonPool daemons, IncrementalBuilds incrementalBuilds) {
+        this.tools = tools;
+        this.daemons = daemons;
+        this.incrementalBuilds = incrementalBuilds;
+    }
+
     @Override
-    public void run() {
+    public Integer call() {
         try {
             if (configFile != null) {
                 buildFromConfig(configFile);
             } else {
                 buildMaven();
             }
+            return 0;
         } catch (Exception e) {
             log.error("Build failed: {}", e.getMessage());
             System.err.println("[ERROR] Build failed: " + e.getMessage());
-            System.exit(1);
+            return 1;
         }
     }
 
@@ -75,56 +123,94 @@ public class MavenBuildCommand implements Runnable {
             throw new java.io.FileNotFoundException("Config file not found: " + configFile);
         }
         
-        @SuppressWarnings("unchecked")
         Map<String, Object> config = yaml.load(java.nio.file.Files.readString(path));
-        Map<String, Object> build = (Map<String, Object>) config.get("build");
-        
-        if (build == null) {
-            throw new IllegalArgumentException("No 'build' section found in config");
-        }
+        BuildConfig build = ConfigCompiler.compileBuildConfig(configFile, config);
 
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> projects = (List<Map<String, Object>>) build.get("projects");
-        
-        if (projects == null || projects.isEmpty()) {
+        if (build.projects().isEmpty()) {
             log.info("No projects defined, running default build");
             System.out.println("[INFO] No projects defined, running default build");
             buildMaven();
             return;
         }
 
-        Map<String, Object> defaults = (Map<String, Object>) build.get("defaults");
-        Map<String, Object> mavenDefaults = (Map<String, Object>) ((Map<String, Object>) build.get("tools")).get("maven");
-
-        for (Map<String, Object> project : projects) {
-            String projectName = (String) project.get("name");
-            String tool = (String) project.getOrDefault("tool", "maven");
-            
-            if (!"maven".equals(tool)) {
-                log.info("Skipping {} (not maven)", projectName);
-                System.out.println("[SKIP] Skipping " + projectName + " (not maven)");
-                continue;
+        List<BuildProject> mavenProjects = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (BuildProject project : build.projects()) {
+            if ("maven".equals(project.tool())) {
+                mavenProjects.add(project);
+            } else {
+                log.info("Skipping {} (not maven)", project.name());
+                System.out.println("[SKIP] Skipping " + project.name() + " (not maven)");
+                skipped.add(project.name());
             }
+        }
+
+        int cpuBudget = cpus != null ? cpus : Runtime.getRuntime().availableProcessors();
+        int maxJobs = jobs != null ? jobs : cpuBudget;
+        System.out.println("[INFO] Building " + mavenProjects.size() + " projects, up to " + maxJobs
+            + " at a time on " + cpuBudget + " CPUs");
+        TaskScheduler.Summary<BuildProject> summary = new ProjectBuildScheduler(cpuBudget, maxJobs).run(mavenProjects,
+            project -> parallel || project.parallel()
+                ? ProjectBuildScheduler.cpuDemand(threads != null ? threads : "2C", cpuBudget) : 1,
+            this::buildProject);
+        printSummary(summary, skipped);
+
+        if (!summary.isSuccess()) {
+            long failed = summary.outcomes().stream()
+                .filter(outcome -> outcome.status() != TaskScheduler.Status.SUCCESS).count();
+            throw new RuntimeException(failed + " of " + mavenProjects.size() + " projects did not build");
+        }
+    }
+
+    /**
+     * Builds one project of build.yml on the CPUs the scheduler granted it; its output is
+     * prefixed with the project name so concurrent builds stay readable. Unless
+     * {@code --full} is given, only the modules changed since the project's last green
+     * build with the same arguments are rebuilt, and the build is skipped when nothing
+     * changed.
+     */
+    private String buildProject(BuildProject project, int grantedCpus) throws Exception {
+        String prefix = "[" + project.name() + "] ";
+        String projGoals = project.goals() != null ? project.goals() : goals;
+        String incrementalGoals = String.join(" ", Arrays.stream(projGoals.split("\\s+"))
+            .filter(goal -> !"clean".equals(goal)).toList());
+        boolean projSkipTests = skipTests || project.skipTests();
+        List<String> greenArgs = mavenArgs(project.pom(), incrementalGoals, projSkipTests, null,
+            project.options(), null);
+        IncrementalBuilds.Plan plan = incrementalBuilds.plan(project, greenArgs);
+        IncrementalBuilds.Mode mode = fullBuild ? IncrementalBuilds.Mode.FULL : plan.mode();
+        if (mode == IncrementalBuilds.Mode.UP_TO_DATE) {
+            System.out.println(prefix + "Up to date: nothing changed since " + plan.reason());
+            return "up to date";
+        }
 
-            log.info("Building project: {}", projectName);
-            System.out.println("[INFO] Building project: " + projectName);
-            
-            String projPom = (String) project.getOrDefault("pom", "pom.xml");
-            String projGoals = (String) project.getOrDefault("goals", goals);
-            Boolean projSkipTests = (Boolean) project.getOrDefault("skipTests", skipTests);
-            Boolean projParallel = (Boolean) project.getOrDefault("parallel", parallel);
-            
-            buildMavenProject(projPom, projGoals, projSkipTests, projParallel);
+        List<String> selection = null;
+        if (mode == IncrementalBuilds.Mode.MODULES) {
+            System.out.println(prefix + "Changed since " + plan.reason() + ": " + String.join(", ", plan.modules()));
+            projGoals = incrementalGoals;
+            selection = List.of("-pl", String.join(",", plan.modules()), "-am", "-amd");
+        } else {
+            System.out.println(prefix + "Full build" + (fullBuild ? "" : ": " + plan.reason()));
         }
+        boolean projParallel = parallel || project.parallel();
+        List<String> args = mavenArgs(project.pom(), projGoals, projSkipTests,
+            projParallel ? String.valueOf(grantedCpus) : null, project.options(), selection);
+        runMaven(args, project.pom(), project.jvmOpts(), project.timeout(), prefix);
+        incrementalBuilds.recordGreen(project.name(), greenArgs, plan.head());
+        return mode == IncrementalBuilds.Mode.MODULES ? "modules " + String.join(", ", plan.modules()) : "full build";
     }
 
     private void buildMaven() throws Exception {
-        buildMavenProject(pomPath, goals, skipTests, parallel);
+        List<String> args = mavenArgs(pomPath, goals, skipTests, parallel ? (threads != null ? threads : "2C") : null,
+            null, null);
+        runMaven(args, pomPath, null, null, null);
+        log.info("Build completed successfully");
+        System.out.println("[SUCCESS] Build completed successfully");
     }
 
-    private void buildMavenProject(String pom, String goals, boolean skipTests, boolean parallel) throws Exception {
+    private List<String> mavenArgs(String pom, String goals, boolean skipTests, String threadArg, String options,
+                                   List<String> selection) {
         List<String> cmd = new ArrayList<>();
-        cmd.add("mvn");
 
         if (settings != null) {
             cmd.add("-s");
@@ -140,8 +226,7 @@ public class MavenBuildCommand implements Runnable {
             cmd.add("-DskipTests");
         }
 
-        if (parallel) {
-            String threadArg = threads != null ? threads : "2C";
+        if (threadArg != null) {
             cmd.add("-T");
             cmd.add(threadArg);
         }
@@ -156,6 +241,18 @@ public class MavenBuildCommand implements Runnable {
             }
         }
 
+        if (options != null) {
+            for (String option : options.trim().split("\\s+")) {
+                if (!option.isEmpty() && !cmd.contains(option)) {
+                    cmd.add(option);
+                }
+            }
+        }
+
+        if (selection != null) {
+            cmd.addAll(selection);
+        }
+
         for (String goal : goals.split("\\s+")) {
             if (!goal.isEmpty()) {
                 cmd.add(goal);
@@ -164,26 +261,88 @@ public class MavenBuildCommand implements Runnable {
 
         cmd.add("-f");
         cmd.add(pom);
+        return cmd;
+    }
 
-        log.debug("Running: {}", String.join(" ", cmd));
-        System.out.println("[INFO] Running: " + String.join(" ", cmd));
-
-        ProcessBuilder pb = new ProcessBuilder(cmd);
-        pb.inheritIO();
-        
+    /**
+     * Runs Maven on a warm daemon when one is free, else forks {@code mvn}. With a
+     * {@code prefix} the output is captured and prefixed line by line, otherwise it is
+     * passed straight through.
+     */
+    private void runMaven(List<String> args, String pom, String jvmOpts, Duration timeout, String prefix)
+            throws Exception {
         String workDir = new File(pom).getParent();
-        if (workDir != null) {
-            pb.directory(new File(workDir));
-        }
+        Optional<BuildDaemonPool.Lease> lease = daemons.lease(BuildDaemonPool.Key.of("maven",
+            java.nio.file.Paths.get(workDir != null ? workDir : ""), System.getenv(), jvmOpts));
+        try {
+            List<String> cmd = lease.isPresent() ? lease.get().command(args) : mavenCommand(args);
+            log.debug("Running: {}", String.join(" ", cmd));
+            System.out.println((prefix != null ? prefix : "[INFO] ") + "Running: " + String.join(" ", cmd));
+
+            ProcessBuilder pb = new ProcessBuilder(cmd);
+            if (prefix == null) {
+                pb.inheritIO();
+            } else {
+                pb.redirectErrorStream(true);
+            }
+            if (jvmOpts != null && lease.isEmpty()) {
+                pb.environment().put("MAVEN_OPTS", jvmOpts);
+            }
+            if (workDir != null) {
+                pb.directory(new File(workDir));
+            }
 
-        Process process = pb.start();
-        int exitCode = process.waitFor();
+            Process process = pb.start();
+            Thread pump = prefix != null ? Thread.ofVirtual().start(() -> copyLines(process, prefix)) : null;
+            try {
+                if (timeout != null && !process.waitFor(timeout.toSeconds(), TimeUnit.SECONDS)) {
+                    throw new RuntimeException("Maven build timed out after " + timeout.toSeconds() + "s");
+                }
+                int exitCode = process.waitFor();
+                if (exitCode != 0) {
+                    throw new RuntimeException("Maven build failed with exit code: " + exitCode);
+                }
+            } finally {
+                if (process.isAlive()) {
+                    process.destroyForcibly();
+                }
+                if (pump != null) {
+                    pump.join();
+                }
+            }
+        } finally {
+            lease.ifPresent(BuildDaemonPool.Lease::close);
+        }
+    }
 
-        if (exitCode != 0) {
-            throw new RuntimeException("Maven build failed with exit code: " + exitCode);
+    private static void copyLines(Process process, String prefix) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                System.out.println(prefix + line);
+            }
+        } catch (IOException e) {
+            log.debug("Output of {} ended: {}", prefix.trim(), e.getMessage());
         }
+    }
 
-        log.info("Build completed successfully");
-        System.out.println("[SUCCESS] Build completed successfully");
+    private List<String> mavenCommand(List<String> args) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(tools.resolve("maven").command());
+        cmd.addAll(args);
+        return cmd;
+    }
+
+    private static void printSummary(TaskScheduler.Summary<BuildProject> summary, List<String> skipped) {
+        System.out.println("[INFO] Build summary (" + TimeUnit.NANOSECONDS.toSeconds(summary.durationNanos())
+            + "s):");
+        for (TaskScheduler.Outcome<BuildProject> outcome : summary.outcomes()) {
+            System.out.println(String.format("  %-24s %-8s %6ss  %s", outcome.name(), outcome.status(),
+                TimeUnit.NANOSECONDS.toSeconds(outcome.durationNanos()), outcome.message()));
+        }
+        for (String name : skipped) {
+            System.out.println(String.format("  %-24s %-8s %6s   %s", name, "SKIPPED", "-", "not maven"));
+        }
     }
 }
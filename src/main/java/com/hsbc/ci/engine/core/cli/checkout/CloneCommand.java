@@ -1,19 +1,38 @@
 package com.hsbc.ci.engine.core.cli.checkout;
 
+import com.hsbc.ci.engine.core.checkout.CloneScheduler;
+import com.hsbc.ci.engine.core.schedule.TaskScheduler;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import picocli.CommandLine;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @CommandLine.Command(name = "clone", description = "Clone a git repository")
 @Component
-public class CloneCommand implements Runnable {
+@Scope("prototype")
+public class CloneCommand implements Callable<Integer> {
 
     private static final Logger log = LoggerFactory.getLogger(CloneCommand.class);
 
+    private static final int DEFAULT_JOBS = 4;
+    private static final long TERMINATE_GRACE_SECONDS = 10;
+
     @CommandLine.Option(names = {"-u", "--url"}, description = "Repository URL")
     private String url;
 
@@ -32,24 +51,49 @@ public class CloneCommand implements Runnable {
     @CommandLine.Option(names = {"-c", "--config"}, description = "Config YAML file")
     private String configFile;
 
+    @CommandLine.Option(names = {"-j", "--jobs"},
+                        description = "Repositories from --config cloned at once (default: checkout.defaults.concurrency)")
+    private Integer jobs;
+
+    @CommandLine.Option(names = {"--failure-policy"},
+                        description = "On a failed clone: continue with the rest, or cancel them (default: continue)")
+    private String failurePolicy;
+
+    private final ToolRegistry tools;
+
+    public CloneCommand() {
+        this(new ToolRegistry());
+    }
+
+    @Autowired
+    public CloneCommand(ToolRegistry tools) {
+        this.tools = tools;
+    }
+
     @Override
-    public void run() {
+    public Integer call() {
         try {
             if (configFile != null) {
                 cloneFromConfig(configFile);
             } else if (url != null) {
-                cloneRepository(url, target, branch, depth, token);
+                System.out.println("[INFO] Cloning " + url);
+                cloneRepository(new CloneScheduler.Repository(getRepoName(url), url, target, branch, depth, token,
+                    null), System.out::println);
+                System.out.println("[SUCCESS] Cloned to: "
+                    + new File(target != null ? target : getRepoName(url)).getAbsolutePath());
             } else {
                 System.err.println("[ERROR] Either --url or --config must be provided");
-                System.exit(1);
+                return 1;
             }
+            return 0;
         } catch (Exception e) {
             log.error("Clone failed: {}", e.getMessage());
             System.err.println("[ERROR] Clone failed: " + e.getMessage());
-            System.exit(1);
+            return 1;
         }
     }
 
+    @SuppressWarnings("unchecked")
     private void cloneFromConfig(String configFile) throws Exception {
         log.info("Loading checkout config from: {}", configFile);
         System.out.println("[INFO] Loading checkout config from: " + configFile);
@@ -67,7 +111,6 @@ public class CloneCommand implements Runnable {
             throw new IllegalArgumentException("No 'checkout' section found in config");
         }
 
-        @SuppressWarnings("unchecked")
         java.util.List<Map<String, Object>> repositories = 
             (java.util.List<Map<String, Object>>) checkout.get("repositories");
 
@@ -75,63 +118,123 @@ public class CloneCommand implements Runnable {
             throw new IllegalArgumentException("No repositories defined in checkout config");
         }
 
-        Map<String, Object> defaults = (Map<String, Object>) checkout.get("defaults");
+        Map<String, Object> defaults = checkout.get("defaults") instanceof Map<?, ?> values
+            ? (Map<String, Object>) values : Map.of();
+        Object defaultTimeout = defaults.get("timeout");
 
+        List<CloneScheduler.Repository> clones = new ArrayList<>();
         for (Map<String, Object> repo : repositories) {
             String repoUrl = (String) repo.get("url");
             String repoTarget = (String) repo.getOrDefault("target", getRepoName(repoUrl));
             String repoBranch = (String) repo.getOrDefault("branch", "main");
-            Integer repoDepth = (Integer) repo.getOrDefault("depth", defaults != null ? (Integer) defaults.get("depth") : null);
+            Integer repoDepth = (Integer) repo.getOrDefault("depth", defaults.get("depth"));
             String repoToken = (String) repo.get("token");
+            Object repoTimeout = repo.getOrDefault("timeout", defaultTimeout);
+            clones.add(new CloneScheduler.Repository((String) repo.getOrDefault("name", getRepoName(repoUrl)),
+                repoUrl, repoTarget, repoBranch, repoDepth, repoToken,
+                repoTimeout != null ? Duration.ofSeconds(((Number) repoTimeout).longValue()) : null));
+        }
 
-            log.info("Cloning {} to {}", repoUrl, repoTarget);
-            System.out.println("[INFO] Cloning " + repoUrl + " to " + repoTarget);
-            cloneRepository(repoUrl, repoTarget, repoBranch, repoDepth, repoToken);
+        int concurrency = jobs != null ? jobs : ((Number) defaults.getOrDefault("concurrency", DEFAULT_JOBS)).intValue();
+        TaskScheduler.FailurePolicy policy = TaskScheduler.FailurePolicy.parse(
+            failurePolicy != null ? failurePolicy : String.valueOf(defaults.getOrDefault("failurePolicy", "continue")));
+        log.info("Cloning {} repositories, {} at a time, on failure {}", clones.size(), concurrency, policy);
+        System.out.println("[INFO] Cloning " + clones.size() + " repositories, " + concurrency + " at a time");
+
+        TaskScheduler.Summary<CloneScheduler.Repository> summary = new CloneScheduler(concurrency, policy)
+            .run(clones, this::cloneRepository);
+        printSummary(summary);
+
+        if (!summary.isSuccess()) {
+            long failed = summary.outcomes().stream()
+                .filter(outcome -> outcome.status() != TaskScheduler.Status.SUCCESS).count();
+            throw new RuntimeException(failed + " of " + clones.size() + " repositories were not cloned");
         }
     }
 
-    private void cloneRepository(String url, String targetDir, String branch, Integer depth, String token) throws Exception {
-        if (targetDir == null) {
-            targetDir = getRepoName(url);
-        }
+    /**
+     * Runs {@code git clone} for one repository, passing its output to {@code output} line
+     * by line. An interrupted clone is terminated so that git removes the partial checkout.
+     */
+    private void cloneRepository(CloneScheduler.Repository repository, Consumer<String> output) throws Exception {
+        String targetDir = repository.target() != null ? repository.target() : getRepoName(repository.url());
 
-        String effectiveUrl = url;
-        if (token != null && url.startsWith("https://")) {
-            effectiveUrl = url.replace("https://", "https://oauth2:" + token + "@");
+        String effectiveUrl = repository.url();
+        if (repository.token() != null && effectiveUrl.startsWith("https://")) {
+            effectiveUrl = effectiveUrl.replace("https://", "https://oauth2:" + repository.token() + "@");
         }
 
-        java.util.List<String> cmd = new java.util.ArrayList<>();
-        cmd.add("git");
+        List<String> cmd = new ArrayList<>();
+        cmd.add(tools.resolve("git").command());
         cmd.add("clone");
 
-        if (depth != null && depth > 0) {
+        if (repository.depth() != null && repository.depth() > 0) {
             cmd.add("--depth");
-            cmd.add(String.valueOf(depth));
+            cmd.add(String.valueOf(repository.depth()));
         }
 
-        if (branch != null) {
+        if (repository.branch() != null) {
             cmd.add("--branch");
-            cmd.add(branch);
+            cmd.add(repository.branch());
             cmd.add("--single-branch");
         }
 
         cmd.add(effectiveUrl);
         cmd.add(targetDir);
 
-        log.debug("Running: {}", String.join(" ", cmd));
-        System.out.println("[INFO] Running: " + String.join(" ", cmd));
+        String printable = String.join(" ", cmd).replace(effectiveUrl, repository.url());
+        log.debug("Running: {}", printable);
+        output.accept("Running: " + printable);
 
         ProcessBuilder pb = new ProcessBuilder(cmd);
-        pb.inheritIO();
+        pb.redirectErrorStream(true);
         Process process = pb.start();
-        int exitCode = process.waitFor();
+        process.getOutputStream().close();
+        Thread pump = Thread.ofVirtual().start(() -> copyLines(process, output));
+        try {
+            Duration timeout = repository.timeout();
+            if (timeout != null && !process.waitFor(timeout.toSeconds(), TimeUnit.SECONDS)) {
+                throw new RuntimeException("Git clone timed out after " + timeout.toSeconds() + "s");
+            }
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new RuntimeException("Git clone failed with exit code: " + exitCode);
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.destroy();
+                if (!process.waitFor(TERMINATE_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+            pump.join();
+        }
+        log.info("Cloned to: {}", new File(targetDir).getAbsolutePath());
+    }
 
-        if (exitCode != 0) {
-            throw new RuntimeException("Git clone failed with exit code: " + exitCode);
+    private static void copyLines(Process process, Consumer<String> output) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.accept(line);
+            }
+        } catch (IOException e) {
+            log.debug("Stopped reading git output: {}", e.getMessage());
         }
+    }
 
-        log.info("Cloned to: {}", new File(targetDir).getAbsolutePath());
-        System.out.println("[SUCCESS] Cloned to: " + new File(targetDir).getAbsolutePath());
+    private static void printSummary(TaskScheduler.Summary<CloneScheduler.Repository> summary) {
+        System.out.println("[INFO] Clone summary (" + TimeUnit.NANOSECONDS.toSeconds(summary.durationNanos())
+            + "s):");
+        for (TaskScheduler.Outcome<CloneScheduler.Repository> outcome : summary.outcomes()) {
+            System.out.println(String.format("  %-24s %-9s %6ss  %s", outcome.name(), outcome.status(),
+                TimeUnit.NANOSECONDS.toSeconds(outcome.durationNanos()), outcome.message()));
+        }
+        for (TaskScheduler.Outcome<CloneScheduler.Repository> outcome : summary.failed()) {
+            System.out.println("[ERROR] Output of " + outcome.name() + ":");
+            outcome.output().forEach(line -> System.out.println("  [" + outcome.name() + "] " + line));
+        }
     }
 
     private String getRepoName(String url) {
@@ -5,12 +5,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import picocli.CommandLine;
 
 @CommandLine.Command(name = "plugin", 
                      description = "Plugin management")
 @Component
+@Scope("prototype")
 public class PluginCommand implements CommandLineRunner {
 
     private static final Logger log = LoggerFactory.getLogger(PluginCommand.class);
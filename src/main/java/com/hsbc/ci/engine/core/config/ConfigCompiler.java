@@ -0,0 +1,431 @@
+package com.hsbc.ci.engine.core.config;
+
+import com.hsbc.ci.engine.core.build.ProjectBuildScheduler;
+import com.hsbc.ci.engine.core.model.definition.BuildConfig;
+import com.hsbc.ci.engine.core.model.definition.BuildProject;
+import com.hsbc.ci.engine.core.model.definition.BuildSettings;
+import com.hsbc.ci.engine.core.model.definition.ContainerSettings;
+import com.hsbc.ci.engine.core.deploy.FleetPlan;
+import com.hsbc.ci.engine.core.model.definition.DeploySettings;
+import com.hsbc.ci.engine.core.model.definition.FleetService;
+import com.hsbc.ci.engine.core.model.definition.GateDefinition;
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+import com.hsbc.ci.engine.core.model.definition.PluginSettings;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.model.definition.StageSettings;
+import com.hsbc.ci.engine.core.model.definition.TestSettings;
+import com.hsbc.ci.engine.core.orchestrator.StageGraph;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Turns parsed YAML into the typed definitions in {@code model.definition}.
+ *
+ * Every problem in a file is collected and reported together as a
+ * {@link ConfigValidationException}, so a broken pipeline fails when config is loaded
+ * rather than halfway through a run.
+ */
+public class ConfigCompiler {
+
+    static final String PLUGIN_PREFIX = "plugin:";
+
+    private static final Set<String> BUILT_IN_TYPES = Set.of("build", "test", "containerize", "deploy");
+    private static final Set<String> DEPLOY_TARGETS = Set.of("kubernetes", "ecs");
+    private static final Set<String> STRATEGIES = Set.of("rolling", "blue-green", "canary");
+    private static final int DEFAULT_FLEET_CONCURRENCY = 8;
+
+    private final Map<String, Object> build;
+    private final Map<String, Object> deploy;
+
+    public ConfigCompiler() {
+        this(Map.of(), Map.of());
+    }
+
+    /**
+     * @param buildRoot parsed build.yml, used for build tool and timeout defaults
+     * @param deployRoot parsed deploy.yml, used for deploy target defaults
+     */
+    public ConfigCompiler(Map<String, Object> buildRoot, Map<String, Object> deployRoot) {
+        this.build = map(buildRoot.get("build"));
+        this.deploy = map(deployRoot.get("deploy"));
+    }
+
+    public PipelineDefinition compilePipeline(String source, Map<String, Object> pipeline) {
+        List<String> errors = new ArrayList<>();
+        if (pipeline == null) {
+            throw new ConfigValidationException(source, List.of("empty pipeline definition"));
+        }
+        String name = string(pipeline, "name", source, errors);
+        List<Map<String, Object>> rawStages = mapList(pipeline.get("stages"), "stages", errors);
+        if (rawStages.isEmpty()) {
+            errors.add("no stages defined");
+        }
+
+        StageGraph graph = null;
+        try {
+            graph = StageGraph.build(rawStages);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+        }
+
+        List<StageDefinition> stages = new ArrayList<>();
+        for (Map<String, Object> rawStage : rawStages) {
+            String stageName = (String) rawStage.get("name");
+            List<String> dependsOn = graph != null && stageName != null
+                ? List.copyOf(graph.getDependencies(stageName)) : List.of();
+            StageDefinition stage = compileStage(rawStage, (String) rawStage.get("type"), dependsOn, errors);
+            if (stage != null) {
+                stages.add(stage);
+            }
+        }
+
+        Duration timeout = seconds(pipeline.get("timeout"), "pipeline timeout", errors);
+        List<String> environments = new ArrayList<>();
+        for (Object environment : list(pipeline.get("environments"), "environments", errors)) {
+            environments.add(String.valueOf(environment));
+        }
+
+        if (!errors.isEmpty()) {
+            throw new ConfigValidationException(source, errors);
+        }
+        return new PipelineDefinition(name, string(pipeline, "version", null, errors),
+            string(pipeline, "description", null, errors), timeout, stages, environments);
+    }
+
+    /**
+     * Compiles a single stage entry outside of a pipeline (no dependencies).
+     */
+    public StageDefinition compileStage(String type, Map<String, Object> stage) {
+        List<String> errors = new ArrayList<>();
+        Map<String, Object> entry = new LinkedHashMap<>(stage);
+        entry.putIfAbsent("name", type);
+        StageDefinition definition = compileStage(entry, type, List.of(), errors);
+        if (!errors.isEmpty()) {
+            throw new ConfigValidationException("stage " + entry.get("name"), errors);
+        }
+        return definition;
+    }
+
+    private StageDefinition compileStage(Map<String, Object> stage, String type,
+                                         List<String> dependsOn, List<String> errors) {
+        String name = (String) stage.get("name");
+        if (name == null) {
+            return null;
+        }
+        String prefix = "stage '" + name + "': ";
+        int errorsBefore = errors.size();
+        if (type == null) {
+            errors.add(prefix + "missing type");
+            return null;
+        }
+        Map<String, Object> config = map(stage.get("config"));
+
+        StageSettings settings = switch (type) {
+            case "build" -> buildSettings(config);
+            case "test" -> new TestSettings(
+                string(config, "test-type", "unit", errors),
+                string(config, "scope", null, errors),
+                config.get("coverage-min") instanceof Number min ? min.intValue() : null,
+                jvmOpts(config));
+            case "containerize" -> new ContainerSettings(
+                string(config, "dockerfile", "Dockerfile", errors),
+                string(config, "image", "myapp", errors),
+                string(config, "registry", null, errors),
+                strings(config.get("tags"), prefix + "tags", errors),
+                Boolean.TRUE.equals(config.get("push")));
+            case "deploy" -> deploySettings(stage, config, prefix, errors);
+            default -> {
+                if (type.startsWith(PLUGIN_PREFIX) && type.length() > PLUGIN_PREFIX.length()) {
+                    yield new PluginSettings(type.substring(PLUGIN_PREFIX.length()), config);
+                }
+                errors.add(prefix + "unknown stage type '" + type + "' (expected one of "
+                    + BUILT_IN_TYPES + " or plugin:<name>)");
+                yield null;
+            }
+        };
+
+        Object timeoutValue = stage.containsKey("timeout") ? stage.get("timeout") : config.get("timeout");
+        Duration timeout = seconds(timeoutValue, prefix + "timeout", errors);
+        if (timeout == null) {
+            timeout = defaultTimeout(type, settings);
+        }
+
+        List<GateDefinition> gates = new ArrayList<>();
+        for (Map<String, Object> gate : mapList(stage.get("gates"), prefix + "gates", errors)) {
+            Map<String, Object> params = new LinkedHashMap<>(gate);
+            Object gateType = params.remove("type");
+            if (gateType == null) {
+                errors.add(prefix + "gate without a type");
+                continue;
+            }
+            gates.add(new GateDefinition(String.valueOf(gateType), params));
+        }
+
+        Map<String, String> env = new LinkedHashMap<>();
+        map(stage.get("env")).forEach((key, value) -> env.put(key, String.valueOf(value)));
+
+        if (errors.size() > errorsBefore) {
+            return null;
+        }
+        Object environment = stage.containsKey("environment") ? stage.get("environment") : config.get("environment");
+        return new StageDefinition(name, type, environment != null ? String.valueOf(environment) : null,
+            dependsOn, timeout, gates, env, settings, Collections.unmodifiableMap(stage));
+    }
+
+    private BuildSettings buildSettings(Map<String, Object> config) {
+        String tool = stringOr(config.get("build-tool"), stringOr(build.get("defaultTool"), "maven"));
+        Map<String, Object> toolSettings = map(map(build.get("tools")).get(tool));
+        String goals = stringOr(config.get("goals"), stringOr(toolSettings.get("goals"),
+            "gradle".equals(tool) ? stringOr(toolSettings.get("tasks"), "build") : "clean package"));
+        return new BuildSettings(tool, List.of(goals.trim().split("\\s+")), jvmOpts(config));
+    }
+
+    private String jvmOpts(Map<String, Object> config) {
+        return stringOr(config.get("jvm-opts"), stringOr(map(build.get("defaults")).get("jvmOpts"), null));
+    }
+
+    private DeploySettings deploySettings(Map<String, Object> stage, Map<String, Object> config,
+                                          String prefix, List<String> errors) {
+        String target = stringOr(stage.get("target"), stringOr(config.get("target"), null));
+        if (target == null) {
+            errors.add(prefix + "deploy stage needs a target " + DEPLOY_TARGETS);
+            return null;
+        }
+        if (!DEPLOY_TARGETS.contains(target)) {
+            errors.add(prefix + "unknown deploy target '" + target + "'");
+            return null;
+        }
+        Map<String, Object> kubernetes = map(deploy.get("kubernetes"));
+        Map<String, Object> ecs = map(deploy.get("ecs"));
+        Map<String, Object> targetDefaults = map(deploy.get(target));
+        String strategy = stringOr(config.get("strategy"), "rolling");
+        if (!STRATEGIES.contains(strategy)) {
+            errors.add(prefix + "unknown deployment strategy '" + strategy + "' " + STRATEGIES);
+        }
+        List<FleetService> services = fleetServices(config.get("services"), prefix, errors);
+        Object concurrency = config.containsKey("concurrency")
+            ? config.get("concurrency") : map(deploy.get("fleet")).get("concurrency");
+        if (concurrency != null && !(concurrency instanceof Number number && number.intValue() > 0)) {
+            errors.add(prefix + "concurrency must be a positive number");
+            concurrency = null;
+        }
+        Duration serviceTimeout = seconds(config.containsKey("service-timeout")
+            ? config.get("service-timeout") : targetDefaults.get("timeout"), prefix + "service-timeout", errors);
+        return new DeploySettings(
+            target,
+            stringOr(config.get("namespace"), stringOr(kubernetes.get("defaultNamespace"), "default")),
+            stringOr(config.get("cluster"), stringOr(ecs.get("defaultCluster"), "default")),
+            stringOr(config.get("image"), "myapp:latest"),
+            strategy,
+            Boolean.TRUE.equals(config.get("auto-promote")),
+            !Boolean.FALSE.equals(targetDefaults.get("rollbackOnFailure")),
+            services,
+            concurrency != null ? ((Number) concurrency).intValue() : DEFAULT_FLEET_CONCURRENCY,
+            serviceTimeout);
+    }
+
+    /**
+     * Services of a fleet deploy, as names or as mappings with {@code name},
+     * {@code depends-on} and {@code image}. Dependencies must be services of the same fleet.
+     */
+    private static List<FleetService> fleetServices(Object value, String prefix, List<String> errors) {
+        List<FleetService> services = new ArrayList<>();
+        int errorsBefore = errors.size();
+        for (Object item : list(value, prefix + "services", errors)) {
+            if (item instanceof Map<?, ?> raw) {
+                Map<String, Object> service = map(raw);
+                Object name = service.get("name");
+                if (name == null) {
+                    errors.add(prefix + "service without a name");
+                    continue;
+                }
+                Object dependsOn = service.get("depends-on");
+                services.add(new FleetService(String.valueOf(name),
+                    dependsOn instanceof List ? strings(dependsOn, prefix + "depends-on", errors)
+                        : dependsOn != null ? List.of(String.valueOf(dependsOn)) : List.of(),
+                    stringOr(service.get("image"), null)));
+            } else if (item != null) {
+                services.add(new FleetService(String.valueOf(item), List.of(), null));
+            }
+        }
+        if (errors.size() == errorsBefore && !services.isEmpty()) {
+            try {
+                FleetPlan.of(services);
+            } catch (IllegalArgumentException e) {
+                errors.add(prefix + e.getMessage());
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Default stage timeout. A fleet deploy gets {@code deploy.fleet.timeout}, else one
+     * service timeout per wave, so that the per-service limit is what fails a slow service.
+     */
+    private Duration defaultTimeout(String type, StageSettings settings) {
+        if (settings instanceof DeploySettings deploySettings && deploySettings.isFleet()) {
+            Object fleetTimeout = map(deploy.get("fleet")).get("timeout");
+            if (fleetTimeout instanceof Number number) {
+                return Duration.ofSeconds(number.longValue());
+            }
+            if (deploySettings.serviceTimeout() == null) {
+                return null;
+            }
+            try {
+                int waves = FleetPlan.of(deploySettings.services()).waves().size();
+                return deploySettings.serviceTimeout().multipliedBy(waves);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        Object value = switch (type) {
+            case "build", "test", "containerize" -> map(build.get("defaults")).get("timeout");
+            case "deploy" -> settings instanceof DeploySettings deploySettings
+                ? map(deploy.get(deploySettings.target())).get("timeout") : null;
+            default -> null;
+        };
+        return value instanceof Number number ? Duration.ofSeconds(number.longValue()) : null;
+    }
+
+    /**
+     * Compiles build.yml. Project settings fall back to {@code build.defaults}, and goals
+     * to the project tool's {@code goals}/{@code tasks}.
+     */
+    public static BuildConfig compileBuildConfig(String source, Map<String, Object> root) {
+        List<String> errors = new ArrayList<>();
+        Map<String, Object> build = root != null ? map(root.get("build")) : Map.of();
+        if (build.isEmpty()) {
+            throw new ConfigValidationException(source, List.of("no 'build' section found"));
+        }
+        Map<String, Object> defaults = map(build.get("defaults"));
+        Map<String, Object> tools = map(build.get("tools"));
+        String defaultTool = stringOr(build.get("defaultTool"), "maven");
+
+        List<BuildProject> projects = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (Map<String, Object> project : mapList(build.get("projects"), "projects", errors)) {
+            String name = (String) project.get("name");
+            if (name == null) {
+                errors.add("project without a name");
+                continue;
+            }
+            if (names.contains(name)) {
+                errors.add("duplicate project name: " + name);
+            }
+            names.add(name);
+            String prefix = "project '" + name + "': ";
+            String tool = stringOr(project.get("tool"), defaultTool);
+            Map<String, Object> toolSettings = map(tools.get(tool));
+            Object goals = project.containsKey("goals") ? project.get("goals")
+                : project.containsKey("tasks") ? project.get("tasks")
+                : toolSettings.containsKey("goals") ? toolSettings.get("goals") : toolSettings.get("tasks");
+            Duration timeout = seconds(project.containsKey("timeout") ? project.get("timeout") : defaults.get("timeout"),
+                prefix + "timeout", errors);
+            projects.add(new BuildProject(
+                name,
+                tool,
+                stringOr(project.get("pom"), "maven".equals(tool) ? "pom.xml" : null),
+                stringOr(project.get("buildFile"), null),
+                goals != null ? String.valueOf(goals) : null,
+                stringOr(toolSettings.get("options"), null),
+                bool(project.getOrDefault("skipTests", defaults.get("skipTests")), prefix + "skipTests", errors),
+                bool(project.getOrDefault("parallel", defaults.get("parallel")), prefix + "parallel", errors),
+                stringOr(project.get("jvmOpts"), stringOr(defaults.get("jvmOpts"), null)),
+                timeout,
+                strings(project.get("modules"), prefix + "modules", errors),
+                strings(project.get("dependsOn"), prefix + "dependsOn", errors)));
+        }
+        if (errors.isEmpty()) {
+            try {
+                ProjectBuildScheduler.checkDependencies(projects);
+            } catch (IllegalArgumentException e) {
+                errors.add(e.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new ConfigValidationException(source, errors);
+        }
+        return new BuildConfig(defaultTool, projects);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> map(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Map.of();
+    }
+
+    private static List<?> list(Object value, String what, List<String> errors) {
+        if (value == null) {
+            return List.of();
+        }
+        if (!(value instanceof List<?> items)) {
+            errors.add(what + " must be a list");
+            return List.of();
+        }
+        return items;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> mapList(Object value, String what, List<String> errors) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Object item : list(value, what, errors)) {
+            if (item instanceof Map) {
+                result.add((Map<String, Object>) item);
+            } else {
+                errors.add(what + " entries must be mappings, got: " + item);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> strings(Object value, String what, List<String> errors) {
+        List<String> result = new ArrayList<>();
+        for (Object item : list(value, what, errors)) {
+            result.add(String.valueOf(item));
+        }
+        return result;
+    }
+
+    private static String string(Map<String, Object> map, String key, String fallback, List<String> errors) {
+        Object value = map.get(key);
+        if (value == null) {
+            return fallback;
+        }
+        if (value instanceof Map || value instanceof List) {
+            errors.add(key + " must be a scalar");
+            return fallback;
+        }
+        return String.valueOf(value);
+    }
+
+    private static String stringOr(Object value, String fallback) {
+        return value != null ? String.valueOf(value) : fallback;
+    }
+
+    private static boolean bool(Object value, String what, List<String> errors) {
+        if (value == null) {
+            return false;
+        }
+        if (!(value instanceof Boolean flag)) {
+            errors.add(what + " must be true or false");
+            return false;
+        }
+        return flag;
+    }
+
+    private static Duration seconds(Object value, String what, List<String> errors) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Number number) || number.longValue() <= 0) {
+            errors.add(what + " must be a positive number of seconds");
+            return null;
+        }
+        return Duration.ofSeconds(number.longValue());
+    }
+}
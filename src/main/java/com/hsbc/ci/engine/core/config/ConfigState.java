@@ -0,0 +1,64 @@
+package com.hsbc.ci.engine.core.config;
+
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One generation of loaded configuration. {@link ConfigurationLoader} publishes a new
+ * generation with a single reference swap on every (re)load, so a reader holding a
+ * generation never sees a mix of old and new files.
+ *
+ * Entries are filled in lazily as pipelines and files are first used, but an entry is
+ * never replaced once present; a changed file is picked up by the next generation.
+ *
+ * A run keeps the generation it started with ({@code PipelineContext#getConfigState}) and
+ * reads its config files through it, so a reload mid-run does not change them under it.
+ */
+public final class ConfigState {
+
+    final String configPath;
+    final Map<String, Object> engineConfig;
+    final Path snapshotFile;
+    final long snapshotFingerprint;
+
+    final Map<String, Map<String, Object>> configFiles = new ConcurrentHashMap<>();
+    final Map<String, Map<String, Object>> pipelineConfigs = new ConcurrentHashMap<>();
+    final Map<String, PipelineDefinition> pipelineDefinitions = new ConcurrentHashMap<>();
+    final Map<String, List<String>> pipelineErrors = new ConcurrentHashMap<>();
+    final Map<String, PipelineSnapshot.Stamp> compiledStamps = new ConcurrentHashMap<>();
+
+    volatile PipelineSnapshot snapshot = PipelineSnapshot.empty();
+    volatile ConfigCompiler compiler;
+
+    ConfigState(String configPath, Map<String, Object> engineConfig, Path snapshotFile, long snapshotFingerprint) {
+        this.configPath = configPath;
+        this.engineConfig = engineConfig;
+        this.snapshotFile = snapshotFile;
+        this.snapshotFingerprint = snapshotFingerprint;
+    }
+
+    boolean isResolved(String pipeline) {
+        return pipelineDefinitions.containsKey(pipeline) || pipelineErrors.containsKey(pipeline);
+    }
+
+    /**
+     * Carries a pipeline's entries over from the previous generation.
+     */
+    void inherit(ConfigState previous, String pipeline) {
+        copy(previous.pipelineConfigs, pipelineConfigs, pipeline);
+        copy(previous.pipelineDefinitions, pipelineDefinitions, pipeline);
+        copy(previous.pipelineErrors, pipelineErrors, pipeline);
+        copy(previous.compiledStamps, compiledStamps, pipeline);
+    }
+
+    private static <V> void copy(Map<String, V> from, Map<String, V> to, String key) {
+        V value = from.get(key);
+        if (value != null) {
+            to.put(key, value);
+        }
+    }
+}
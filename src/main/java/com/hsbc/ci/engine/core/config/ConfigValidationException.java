@@ -0,0 +1,26 @@
+package com.hsbc.ci.engine.core.config;
+
+import java.util.List;
+
+/**
+ * A config file that parsed as YAML but does not describe a valid pipeline or build.
+ */
+public class ConfigValidationException extends RuntimeException {
+
+    private final String source;
+    private final List<String> errors;
+
+    public ConfigValidationException(String source, List<String> errors) {
+        super(source + ": " + String.join("; ", errors));
+        this.source = source;
+        this.errors = List.copyOf(errors);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
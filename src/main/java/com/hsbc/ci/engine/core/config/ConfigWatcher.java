@@ -0,0 +1,124 @@
+package com.hsbc.ci.engine.core.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the config directory and its pipelines/ directory and hands changed YAML files
+ * to {@link ConfigurationLoader#reload(java.util.Collection)} on a background thread.
+ *
+ * Events are batched until the directory has been quiet for {@link #SETTLE_MILLIS}, so
+ * an editor's write-rename sequence or a git checkout becomes a single reload.
+ */
+public class ConfigWatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigWatcher.class);
+
+    static final long SETTLE_MILLIS = 200;
+
+    private final ConfigurationLoader configLoader;
+    private final Path configDir;
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    private ConfigWatcher(ConfigurationLoader configLoader) throws IOException {
+        this.configLoader = configLoader;
+        this.configDir = Paths.get(configLoader.getConfigPath()).toAbsolutePath().normalize();
+        this.watchService = configDir.getFileSystem().newWatchService();
+        register(configDir);
+        register(configDir.resolve(ConfigurationLoader.PIPELINES_DIR));
+        this.thread = Thread.ofPlatform().name("config-watcher").daemon(true).unstarted(this::watch);
+    }
+
+    public static ConfigWatcher start(ConfigurationLoader configLoader) throws IOException {
+        ConfigWatcher watcher = new ConfigWatcher(configLoader);
+        watcher.thread.start();
+        log.info("Watching {} for config changes", watcher.configDir);
+        return watcher;
+    }
+
+    private void register(Path dir) throws IOException {
+        if (Files.isDirectory(dir)) {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+
+    private void watch() {
+        try {
+            while (!closed) {
+                Set<String> changed = new TreeSet<>();
+                boolean overflow = collect(watchService.take(), changed);
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= collect(key, changed);
+                }
+                try {
+                    if (overflow) {
+                        configLoader.reload();
+                    } else if (!changed.isEmpty()) {
+                        configLoader.reload(changed);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Config reload failed, keeping the current config: {}", e.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Adds the changed YAML files of a key, relative to the config directory. Returns true
+     * if events were lost and everything has to be reloaded.
+     */
+    private boolean collect(WatchKey key, Set<String> changed) {
+        Path dir = (Path) key.watchable();
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+            Path file = dir.resolve((Path) event.context());
+            if (dir.equals(configDir) && file.getFileName().toString().equals(ConfigurationLoader.PIPELINES_DIR)
+                    && event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                try {
+                    register(file);
+                } catch (IOException e) {
+                    log.warn("Cannot watch {}: {}", file, e.getMessage());
+                }
+                continue;
+            }
+            if (file.getFileName().toString().endsWith(".yml")) {
+                changed.add(configDir.relativize(file).toString().replace('\\', '/'));
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.debug("Failed to close watch service: {}", e.getMessage());
+        }
+    }
+}
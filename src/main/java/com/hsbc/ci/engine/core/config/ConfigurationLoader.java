@@ -5,55 +5,426 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.yaml.snakeyaml.Yaml;
 
+import com.hsbc.ci.engine.core.metrics.LatencyHistogram;
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+
 import jakarta.annotation.PostConstruct;
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Loads the config directory. All loaded state lives in a {@link ConfigState} that is
+ * replaced with one atomic swap by {@link #setConfigPath}, {@link #reload()} and
+ * {@link #reload(Collection)}, so concurrent readers see either the old or the new
+ * configuration, never a half-loaded one.
+ */
 @Component
 public class ConfigurationLoader {
 
     private static final Logger log = LoggerFactory.getLogger(ConfigurationLoader.class);
 
+    static final String PIPELINES_DIR = "pipelines";
+
     private String configPath = "config";
-    private Map<String, Object> pipelineConfigs = new HashMap<>();
+    private final Yaml yaml = new Yaml();
+    private final Object yamlLock = new Object();
+    private final AtomicReference<ConfigState> state = new AtomicReference<>();
+    private final Map<String, LatencyHistogram> loadTimes = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init() {
-        loadPipelines();
+        reload();
     }
 
     public void setConfigPath(String path) {
         this.configPath = path;
-        loadPipelines();
+        reload();
+    }
+
+    public String getConfigPath() {
+        return configPath;
     }
 
-    private void loadPipelines() {
-        Path pipelineDir = Paths.get(configPath, "pipelines");
+    /**
+     * Discards everything loaded and starts a new generation. Pipelines are resolved on
+     * first use: from the compiled snapshot when it is still current for the YAML file,
+     * otherwise by parsing and compiling the YAML.
+     */
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        Path pipelineDir = Paths.get(configPath, PIPELINES_DIR);
         if (!Files.exists(pipelineDir)) {
             log.warn("Pipeline directory not found: {}", pipelineDir);
+        }
+        ConfigState next = newState(configPath, readEngineConfig(configPath), null);
+        state.set(next);
+        log.debug("Pipeline snapshot {} holds {} pipelines", next.snapshotFile, next.snapshot.size());
+        recordLoadTime("pipelines", start);
+    }
+
+    /**
+     * Starts a new generation that re-reads only the given files (relative to the config
+     * directory, e.g. {@code pipelines/app.yml}). Pipelines already in use that changed
+     * are recompiled before the swap; everything else is carried over. A change to
+     * build.yml or deploy.yml recompiles every pipeline in use, as their defaults are
+     * compiled in. Components that read ci-engine.yml at startup keep their settings.
+     */
+    public synchronized void reload(Collection<String> changedFiles) {
+        long start = System.nanoTime();
+        ConfigState previous = current();
+        boolean engineChanged = changedFiles.contains("ci-engine.yml");
+        boolean defaultsChanged = changedFiles.contains("build.yml") || changedFiles.contains("deploy.yml");
+        Set<String> changedPipelines = new HashSet<>();
+        for (String file : changedFiles) {
+            if (file.startsWith(PIPELINES_DIR + "/") && file.endsWith(".yml")) {
+                changedPipelines.add(file.substring(PIPELINES_DIR.length() + 1, file.length() - ".yml".length()));
+            }
+        }
+
+        Map<String, Object> engineConfig = engineChanged ? readEngineConfig(previous.configPath) : previous.engineConfig;
+        ConfigState next = newState(previous.configPath, engineConfig, previous);
+        previous.configFiles.forEach((file, content) -> {
+            if (!changedFiles.contains(file)) {
+                next.configFiles.put(file, content);
+            }
+        });
+        if (!defaultsChanged) {
+            next.compiler = previous.compiler;
+        }
+
+        Set<String> recompile = new TreeSet<>();
+        Set<String> known = new HashSet<>(previous.pipelineConfigs.keySet());
+        known.addAll(previous.pipelineDefinitions.keySet());
+        known.addAll(previous.pipelineErrors.keySet());
+        for (String name : known) {
+            boolean changed = changedPipelines.contains(name);
+            if (!changed && !defaultsChanged) {
+                next.inherit(previous, name);
+                continue;
+            }
+            Map<String, Object> raw = previous.pipelineConfigs.get(name);
+            if (!changed && raw != null) {
+                next.pipelineConfigs.put(name, raw);
+            }
+            if (previous.isResolved(name)) {
+                recompile.add(name);
+            }
+        }
+
+        boolean compiled = false;
+        for (String name : recompile) {
+            compiled |= resolvePipeline(next, name);
+        }
+        state.set(next);
+        if (compiled) {
+            saveSnapshot(next);
+        }
+        recordLoadTime("reload", start);
+        log.info("Reloaded config: {} changed files, {} pipelines recompiled", changedFiles.size(), recompile.size());
+    }
+
+    private ConfigState current() {
+        ConfigState current = state.get();
+        if (current == null) {
+            synchronized (this) {
+                if (state.get() == null) {
+                    reload();
+                }
+                current = state.get();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Creates a generation. The mapped pipeline snapshot is shared with {@code previous}
+     * when both use the same snapshot file and fingerprint.
+     */
+    @SuppressWarnings("unchecked")
+    private ConfigState newState(String path, Map<String, Object> engineConfig, ConfigState previous) {
+        Path snapshotFile = null;
+        Map<String, Object> settings = (Map<String, Object>) engineConfig.get("snapshot");
+        if (settings != null && Boolean.TRUE.equals(settings.get("enabled"))) {
+            String directory = (String) settings.getOrDefault("directory", ".ci-engine/snapshot");
+            String configKey = Integer.toHexString(Paths.get(path).toAbsolutePath().normalize().hashCode());
+            snapshotFile = Paths.get(directory, configKey + "-" + PipelineSnapshot.FILE_NAME);
+        }
+        long fingerprint = snapshotFile != null ? fingerprint(path) : 0;
+        ConfigState next = new ConfigState(path, engineConfig, snapshotFile, fingerprint);
+        if (previous != null && Objects.equals(previous.snapshotFile, snapshotFile)
+                && previous.snapshotFingerprint == fingerprint) {
+            next.snapshot = previous.snapshot;
+        } else if (snapshotFile != null) {
+            next.snapshot = PipelineSnapshot.open(snapshotFile, fingerprint);
+        }
+        return next;
+    }
+
+    private static long fingerprint(String path) {
+        long hash = 17;
+        for (String file : List.of("build.yml", "deploy.yml")) {
+            PipelineSnapshot.Stamp stamp = PipelineSnapshot.Stamp.of(Paths.get(path, file));
+            hash = 31 * hash + stamp.modified();
+            hash = 31 * hash + stamp.size();
+        }
+        return hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readEngineConfig(String path) {
+        Path file = Paths.get(path, "ci-engine.yml");
+        Map<String, Object> section = null;
+        if (Files.exists(file)) {
+            Map<String, Object> root = loadYamlFile(file.toString());
+            section = root != null ? (Map<String, Object>) root.get("ci-engine") : null;
+        } else {
+            log.debug("Engine config not found: {}", file);
+        }
+        return section != null ? section : new HashMap<>();
+    }
+
+    private static Path pipelineFile(ConfigState state, String name) {
+        return Paths.get(state.configPath, PIPELINES_DIR, name + ".yml");
+    }
+
+    /**
+     * Returns the parsed YAML of a pipeline, or null if there is no such pipeline.
+     */
+    public Map<String, Object> getPipeline(String name) {
+        ConfigState current = current();
+        Map<String, Object> raw = current.pipelineConfigs.get(name);
+        return raw != null ? raw : parsePipeline(current, name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> parsePipeline(ConfigState state, String name) {
+        Path file = pipelineFile(state, name);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            Object raw = parseYaml(Files.readString(file));
+            if (!(raw instanceof Map)) {
+                return null;
+            }
+            Map<String, Object> existing = state.pipelineConfigs.putIfAbsent(name, (Map<String, Object>) raw);
+            return existing != null ? existing : (Map<String, Object>) raw;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read pipeline " + file, e);
+        }
+    }
+
+    /**
+     * Returns the compiled pipeline, or null if there is no such pipeline.
+     * Throws {@link ConfigValidationException} if the pipeline failed validation.
+     * The returned definition is immutable, so a run keeps it across reloads.
+     */
+    public PipelineDefinition getPipelineDefinition(String name) {
+        ConfigState current = current();
+        if (!current.isResolved(name) && resolvePipeline(current, name)) {
+            saveSnapshot(current);
+        }
+        List<String> errors = current.pipelineErrors.get(name);
+        if (errors != null) {
+            throw new ConfigValidationException(name + ".yml", errors);
+        }
+        return current.pipelineDefinitions.get(name);
+    }
+
+    /**
+     * Validation errors of every invalid pipeline, keyed by pipeline name. Resolves every
+     * pipeline in the directory.
+     */
+    public Map<String, List<String>> getValidationErrors() {
+        ConfigState current = current();
+        boolean compiled = false;
+        for (String name : listPipelines(current)) {
+            if (!current.isResolved(name)) {
+                compiled |= resolvePipeline(current, name);
+            }
+        }
+        if (compiled) {
+            saveSnapshot(current);
+        }
+        return Collections.unmodifiableMap(current.pipelineErrors);
+    }
+
+    /**
+     * Loads one pipeline into a generation. Returns true if it had to be compiled from
+     * YAML, i.e. the snapshot is out of date.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized boolean resolvePipeline(ConfigState state, String name) {
+        if (state.isResolved(name)) {
+            return false;
+        }
+        Path file = pipelineFile(state, name);
+        PipelineSnapshot.Stamp stamp = PipelineSnapshot.Stamp.of(file);
+        if (stamp.equals(PipelineSnapshot.Stamp.MISSING)) {
+            return false;
+        }
+        if (state.snapshot.isFresh(name, stamp)) {
+            Object entry = state.snapshot.read(name);
+            if (entry instanceof PipelineDefinition pipeline) {
+                state.pipelineDefinitions.put(name, pipeline);
+                return false;
+            }
+            if (entry instanceof List<?> errors) {
+                state.pipelineErrors.put(name, (List<String>) errors);
+                return false;
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> raw = state.pipelineConfigs.get(name);
+            if (raw == null) {
+                raw = parsePipeline(state, name);
+            }
+            if (raw == null) {
+                throw new ConfigValidationException(name + ".yml", List.of("not a YAML mapping"));
+            }
+            state.pipelineDefinitions.put(name, compiler(state).compilePipeline(name + ".yml", raw));
+        } catch (ConfigValidationException e) {
+            state.pipelineErrors.put(name, e.getErrors());
+            log.error("Invalid pipeline {}: {}", name, e.getMessage());
+        } catch (RuntimeException e) {
+            state.pipelineErrors.put(name, List.of("unreadable YAML: " + e.getMessage()));
+            log.error("Failed to load pipeline {}: {}", name, e.getMessage());
+        }
+        state.compiledStamps.put(name, stamp);
+        recordLoadTime("pipeline-compile", start);
+        return true;
+    }
+
+    private ConfigCompiler compiler(ConfigState state) {
+        if (state.compiler == null) {
+            state.compiler = new ConfigCompiler(configFile(state, "build.yml"), configFile(state, "deploy.yml"));
+        }
+        return state.compiler;
+    }
+
+    /**
+     * Rewrites the snapshot with every pipeline compiled in this generation plus the
+     * entries of the previous snapshot whose YAML has not changed since.
+     */
+    private synchronized void saveSnapshot(ConfigState state) {
+        if (state.snapshotFile == null) {
             return;
         }
+        Map<String, PipelineSnapshot.Stamp> stamps = new HashMap<>();
+        Map<String, byte[]> bodies = new TreeMap<>();
+        try {
+            for (String name : listPipelines(state)) {
+                PipelineSnapshot.Stamp current = PipelineSnapshot.Stamp.of(pipelineFile(state, name));
+                PipelineSnapshot.Stamp compiled = state.compiledStamps.get(name);
+                byte[] body = null;
+                if (current.equals(compiled)) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+                    DataOutputStream out = new DataOutputStream(bytes);
+                    if (state.pipelineErrors.containsKey(name)) {
+                        PipelineSnapshotCodec.writeInvalid(out, state.pipelineErrors.get(name));
+                    } else {
+                        PipelineSnapshotCodec.writeValid(out, state.pipelineDefinitions.get(name));
+                    }
+                    body = bytes.toByteArray();
+                } else if (state.snapshot.isFresh(name, current)) {
+                    body = state.snapshot.body(name);
+                }
+                if (body != null) {
+                    stamps.put(name, current);
+                    bodies.put(name, body);
+                }
+            }
+            PipelineSnapshot.write(state.snapshotFile, state.snapshotFingerprint, stamps, bodies);
+            state.snapshot = PipelineSnapshot.open(state.snapshotFile, state.snapshotFingerprint);
+            state.compiledStamps.clear();
+            log.debug("Wrote pipeline snapshot {} with {} pipelines", state.snapshotFile, bodies.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write pipeline snapshot {}: {}", state.snapshotFile, e.getMessage());
+        }
+    }
 
+    /**
+     * Names of the pipelines in the pipelines directory. Does not parse them.
+     */
+    public Collection<String> listPipelines() {
+        return listPipelines(current());
+    }
+
+    private List<String> listPipelines(ConfigState state) {
+        List<String> names = new ArrayList<>();
+        Path pipelineDir = Paths.get(state.configPath, PIPELINES_DIR);
+        if (!Files.isDirectory(pipelineDir)) {
+            return names;
+        }
         try (DirectoryStream<Path> stream = Files.newDirectoryStream(pipelineDir, "*.yml")) {
             for (Path file : stream) {
-                String name = file.getFileName().toString().replace(".yml", "");
-                Yaml yaml = new Yaml();
-                pipelineConfigs.put(name, yaml.load(Files.readString(file)));
+                String fileName = file.getFileName().toString();
+                names.add(fileName.substring(0, fileName.length() - ".yml".length()));
             }
-            log.info("Loaded {} pipelines", pipelineConfigs.size());
         } catch (IOException e) {
-            log.error("Failed to load pipelines: {}", e.getMessage());
+            log.error("Failed to list pipelines: {}", e.getMessage());
         }
+        Collections.sort(names);
+        return names;
     }
 
-    @SuppressWarnings("unchecked")
-    public Map<String, Object> getPipeline(String name) {
-        return (Map<String, Object>) pipelineConfigs.get(name);
+    public Map<String, Object> getEngineConfig() {
+        return current().engineConfig;
     }
 
-    public Collection<String> listPipelines() {
-        return pipelineConfigs.keySet();
+    /**
+     * Returns the parsed content of a file in the config directory (e.g. build.yml),
+     * or an empty map when it does not exist.
+     */
+    public Map<String, Object> getConfigFile(String fileName) {
+        return configFile(current(), fileName);
+    }
+
+    /**
+     * Returns a config file as it was in the given generation, or in the current one when
+     * {@code state} is null.
+     */
+    public Map<String, Object> getConfigFile(ConfigState state, String fileName) {
+        return configFile(state != null ? state : current(), fileName);
+    }
+
+    /**
+     * The current generation of configuration, for a run to hold on to. The config files
+     * of the generation are read now rather than on first use, so a file edited while the
+     * run is going does not leak into it before the reload.
+     */
+    public ConfigState getState() {
+        ConfigState current = current();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(current.configPath), "*.yml")) {
+            for (Path file : files) {
+                configFile(current, file.getFileName().toString());
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read config files of {}: {}", current.configPath, e.getMessage());
+        }
+        return current;
+    }
+
+    private Map<String, Object> configFile(ConfigState state, String fileName) {
+        return state.configFiles.computeIfAbsent(fileName, name -> {
+            Path file = Paths.get(state.configPath, name);
+            if (!Files.exists(file)) {
+                return Collections.emptyMap();
+            }
+            Map<String, Object> content = loadYamlFile(file.toString());
+            return content != null ? content : Collections.emptyMap();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getGlobalSettings() {
+        Map<String, Object> global = (Map<String, Object>) getEngineConfig().get("global");
+        return global != null ? global : Collections.emptyMap();
     }
 
     @SuppressWarnings("unchecked")
@@ -63,10 +434,31 @@ public class ConfigurationLoader {
             if (!Files.exists(path)) {
                 throw new FileNotFoundException("Config file not found: " + filePath);
             }
-            Yaml yaml = new Yaml();
-            return yaml.load(Files.readString(path));
+            long start = System.nanoTime();
+            Map<String, Object> content = (Map<String, Object>) parseYaml(Files.readString(path));
+            recordLoadTime(path.getFileName().toString(), start);
+            return content;
         } catch (Exception e) {
             throw new RuntimeException("Failed to load YAML file: " + e.getMessage(), e);
         }
     }
+
+    // SnakeYAML's Yaml instance is not thread-safe. A lock of its own, as parsing runs
+    // inside computeIfAbsent and must not wait for a reload holding the loader's monitor
+    private Object parseYaml(String content) {
+        synchronized (yamlLock) {
+            return yaml.load(content);
+        }
+    }
+
+    private void recordLoadTime(String name, long startNanos) {
+        loadTimes.computeIfAbsent(name, n -> new LatencyHistogram()).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Time spent reading and parsing each config file, keyed by file name ("pipelines" for the directory).
+     */
+    public Map<String, LatencyHistogram> getLoadTimes() {
+        return Collections.unmodifiableMap(loadTimes);
+    }
 }
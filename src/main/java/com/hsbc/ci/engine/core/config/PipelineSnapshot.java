@@ -0,0 +1,196 @@
+package com.hsbc.ci.engine.core.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-mapped file of compiled pipelines, so a CLI start only decodes the pipeline it
+ * runs instead of parsing and compiling every YAML file.
+ *
+ * Layout: {@code [int magic][int version][long fingerprint][int count]}, then per
+ * pipeline {@code [name][long mtime][long size][int offset][int length][int crc32c]},
+ * then the entry bodies. An entry is used only while its YAML file still has the recorded
+ * mtime and size; the fingerprint covers build.yml and deploy.yml, whose defaults are
+ * compiled into every entry, so changing either discards the whole snapshot.
+ */
+final class PipelineSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineSnapshot.class);
+
+    static final String FILE_NAME = "pipelines.snapshot";
+
+    private static final int MAGIC = 0x43495053;
+    private static final int VERSION = 4;
+
+    /**
+     * Modification time (nanoseconds) and size of a file, or of a missing file (-1, -1).
+     */
+    record Stamp(long modified, long size) {
+
+        static final Stamp MISSING = new Stamp(-1, -1);
+
+        static Stamp of(Path file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new Stamp(attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), attributes.size());
+            } catch (IOException e) {
+                return MISSING;
+            }
+        }
+    }
+
+    private record Entry(Stamp stamp, int offset, int length, int checksum) {
+    }
+
+    private final ByteBuffer data;
+    private final Map<String, Entry> index;
+
+    private PipelineSnapshot(ByteBuffer data, Map<String, Entry> index) {
+        this.data = data;
+        this.index = index;
+    }
+
+    static PipelineSnapshot empty() {
+        return new PipelineSnapshot(null, Map.of());
+    }
+
+    /**
+     * Maps the snapshot file. Returns an empty snapshot if it is missing, unreadable or
+     * was written for a different fingerprint.
+     */
+    static PipelineSnapshot open(Path file, long fingerprint) {
+        if (!Files.exists(file)) {
+            return empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.remaining() < 20 || mapped.getInt() != MAGIC || mapped.getInt() != VERSION
+                    || mapped.getLong() != fingerprint) {
+                log.debug("Ignoring outdated pipeline snapshot {}", file);
+                return empty();
+            }
+            int count = mapped.getInt();
+            Map<String, Entry> index = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String name = PipelineSnapshotCodec.readString(mapped);
+                Stamp stamp = new Stamp(mapped.getLong(), mapped.getLong());
+                index.put(name, new Entry(stamp, mapped.getInt(), mapped.getInt(), mapped.getInt()));
+            }
+            ByteBuffer data = mapped.slice();
+            return new PipelineSnapshot(data, index);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable pipeline snapshot {}: {}", file, e.toString());
+            return empty();
+        }
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    boolean isFresh(String name, Stamp stamp) {
+        Entry entry = index.get(name);
+        return entry != null && entry.stamp().equals(stamp);
+    }
+
+    /**
+     * Raw bytes of an entry after checking its checksum, or null if it is absent or corrupt.
+     */
+    byte[] body(String name) {
+        Entry entry = index.get(name);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            byte[] body = new byte[entry.length()];
+            data.get(entry.offset(), body);
+            CRC32C crc = new CRC32C();
+            crc.update(body);
+            if ((int) crc.getValue() != entry.checksum()) {
+                log.warn("Pipeline snapshot checksum mismatch for {}", name);
+                return null;
+            }
+            return body;
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            log.warn("Truncated pipeline snapshot entry for {}", name);
+            return null;
+        }
+    }
+
+    /**
+     * Decodes an entry: a compiled pipeline, its list of validation errors, or null if
+     * the entry is absent or corrupt.
+     */
+    Object read(String name) {
+        byte[] body = body(name);
+        if (body == null) {
+            return null;
+        }
+        try {
+            return PipelineSnapshotCodec.read(ByteBuffer.wrap(body));
+        } catch (RuntimeException e) {
+            log.warn("Undecodable pipeline snapshot entry for {}: {}", name, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Atomically replaces the snapshot file with the given entry bodies.
+     */
+    static void write(Path file, long fingerprint, Map<String, Stamp> stamps, Map<String, byte[]> bodies)
+            throws IOException {
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        int offset = 0;
+        CRC32C crc = new CRC32C();
+        for (Map.Entry<String, byte[]> entry : bodies.entrySet()) {
+            Stamp stamp = stamps.get(entry.getKey());
+            crc.reset();
+            crc.update(entry.getValue());
+            PipelineSnapshotCodec.writeString(index, entry.getKey());
+            index.writeLong(stamp.modified());
+            index.writeLong(stamp.size());
+            index.writeInt(offset);
+            index.writeInt(entry.getValue().length);
+            index.writeInt((int) crc.getValue());
+            offset += entry.getValue().length;
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, file.getFileName() + ".", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(fingerprint);
+                out.writeInt(bodies.size());
+                indexBytes.writeTo(out);
+                for (byte[] body : bodies.values()) {
+                    out.write(body);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
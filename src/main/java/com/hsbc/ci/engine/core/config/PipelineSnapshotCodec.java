@@ -0,0 +1,337 @@
+package com.hsbc.ci.engine.core.config;
+
+import com.hsbc.ci.engine.core.model.definition.BuildSettings;
+import com.hsbc.ci.engine.core.model.definition.ContainerSettings;
+import com.hsbc.ci.engine.core.model.definition.DeploySettings;
+import com.hsbc.ci.engine.core.model.definition.FleetService;
+import com.hsbc.ci.engine.core.model.definition.GateDefinition;
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+import com.hsbc.ci.engine.core.model.definition.PluginSettings;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.model.definition.StageSettings;
+import com.hsbc.ci.engine.core.model.definition.TestSettings;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of a compiled pipeline, or of the validation errors of an invalid one.
+ * Raw YAML values kept in the definitions (stage sources, plugin config, gate params)
+ * are written as tagged values so they read back with the same Java types.
+ */
+final class PipelineSnapshotCodec {
+
+    private static final byte VALID = 1;
+    private static final byte INVALID = 0;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte LIST = 6;
+    private static final byte MAP = 7;
+
+    private static final byte BUILD = 1;
+    private static final byte TEST = 2;
+    private static final byte CONTAINER = 3;
+    private static final byte DEPLOY = 4;
+    private static final byte PLUGIN = 5;
+
+    private PipelineSnapshotCodec() {
+    }
+
+    static void writeValid(DataOutputStream out, PipelineDefinition pipeline) throws IOException {
+        out.writeByte(VALID);
+        writeString(out, pipeline.name());
+        writeString(out, pipeline.version());
+        writeString(out, pipeline.description());
+        writeDuration(out, pipeline.timeout());
+        writeStrings(out, pipeline.environments());
+        out.writeInt(pipeline.stages().size());
+        for (StageDefinition stage : pipeline.stages()) {
+            writeStage(out, stage);
+        }
+    }
+
+    static void writeInvalid(DataOutputStream out, List<String> errors) throws IOException {
+        out.writeByte(INVALID);
+        writeStrings(out, errors);
+    }
+
+    /**
+     * Reads an entry written by {@link #writeValid} or {@link #writeInvalid}: either a
+     * {@link PipelineDefinition} or the {@code List<String>} of errors.
+     */
+    static Object read(ByteBuffer in) {
+        if (in.get() == INVALID) {
+            return readStrings(in);
+        }
+        String name = readString(in);
+        String version = readString(in);
+        String description = readString(in);
+        Duration timeout = readDuration(in);
+        List<String> environments = readStrings(in);
+        int count = in.getInt();
+        List<StageDefinition> stages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            stages.add(readStage(in));
+        }
+        return new PipelineDefinition(name, version, description, timeout, stages, environments);
+    }
+
+    private static void writeStage(DataOutputStream out, StageDefinition stage) throws IOException {
+        writeString(out, stage.name());
+        writeString(out, stage.type());
+        writeString(out, stage.environment());
+        writeStrings(out, stage.dependsOn());
+        writeDuration(out, stage.timeout());
+        out.writeInt(stage.gates().size());
+        for (GateDefinition gate : stage.gates()) {
+            writeString(out, gate.type());
+            writeValue(out, gate.params());
+        }
+        out.writeInt(stage.env().size());
+        for (Map.Entry<String, String> entry : stage.env().entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+        writeSettings(out, stage.settings());
+        writeValue(out, stage.source());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StageDefinition readStage(ByteBuffer in) {
+        String name = readString(in);
+        String type = readString(in);
+        String environment = readString(in);
+        List<String> dependsOn = readStrings(in);
+        Duration timeout = readDuration(in);
+        int gateCount = in.getInt();
+        List<GateDefinition> gates = new ArrayList<>(gateCount);
+        for (int i = 0; i < gateCount; i++) {
+            gates.add(new GateDefinition(readString(in), (Map<String, Object>) readValue(in)));
+        }
+        int envCount = in.getInt();
+        Map<String, String> env = new LinkedHashMap<>();
+        for (int i = 0; i < envCount; i++) {
+            env.put(readString(in), readString(in));
+        }
+        StageSettings settings = readSettings(in);
+        Map<String, Object> source = Collections.unmodifiableMap((Map<String, Object>) readValue(in));
+        return new StageDefinition(name, type, environment, dependsOn, timeout, gates, env, settings, source);
+    }
+
+    private static void writeSettings(DataOutputStream out, StageSettings settings) throws IOException {
+        switch (settings) {
+            case null -> out.writeByte(NULL);
+            case BuildSettings build -> {
+                out.writeByte(BUILD);
+                writeString(out, build.tool());
+                writeStrings(out, build.goals());
+                writeString(out, build.jvmOpts());
+            }
+            case TestSettings test -> {
+                out.writeByte(TEST);
+                writeString(out, test.testType());
+                writeString(out, test.scope());
+                out.writeInt(test.coverageMin() != null ? test.coverageMin() : -1);
+                writeString(out, test.jvmOpts());
+            }
+            case ContainerSettings container -> {
+                out.writeByte(CONTAINER);
+                writeString(out, container.dockerfile());
+                writeString(out, container.image());
+                writeString(out, container.registry());
+                writeStrings(out, container.tags());
+                out.writeBoolean(container.push());
+            }
+            case DeploySettings deploy -> {
+                out.writeByte(DEPLOY);
+                writeString(out, deploy.target());
+                writeString(out, deploy.namespace());
+                writeString(out, deploy.cluster());
+                writeString(out, deploy.image());
+                writeString(out, deploy.strategy());
+                out.writeBoolean(deploy.autoPromote());
+                out.writeBoolean(deploy.rollbackOnFailure());
+                out.writeInt(deploy.services().size());
+                for (FleetService service : deploy.services()) {
+                    writeString(out, service.name());
+                    writeStrings(out, service.dependsOn());
+                    writeString(out, service.image());
+                }
+                out.writeInt(deploy.concurrency());
+                writeDuration(out, deploy.serviceTimeout());
+            }
+            case PluginSettings plugin -> {
+                out.writeByte(PLUGIN);
+                writeString(out, plugin.pluginName());
+                writeValue(out, plugin.config());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StageSettings readSettings(ByteBuffer in) {
+        byte kind = in.get();
+        return switch (kind) {
+            case NULL -> null;
+            case BUILD -> new BuildSettings(readString(in), readStrings(in), readString(in));
+            case TEST -> {
+                String testType = readString(in);
+                String scope = readString(in);
+                int coverageMin = in.getInt();
+                yield new TestSettings(testType, scope, coverageMin >= 0 ? coverageMin : null, readString(in));
+            }
+            case CONTAINER -> new ContainerSettings(readString(in), readString(in), readString(in),
+                readStrings(in), in.get() != 0);
+            case DEPLOY -> {
+                String target = readString(in);
+                String namespace = readString(in);
+                String cluster = readString(in);
+                String image = readString(in);
+                String strategy = readString(in);
+                boolean autoPromote = in.get() != 0;
+                boolean rollbackOnFailure = in.get() != 0;
+                int serviceCount = in.getInt();
+                List<FleetService> services = new ArrayList<>(serviceCount);
+                for (int i = 0; i < serviceCount; i++) {
+                    services.add(new FleetService(readString(in), readStrings(in), readString(in)));
+                }
+                yield new DeploySettings(target, namespace, cluster, image, strategy, autoPromote,
+                    rollbackOnFailure, services, in.getInt(), readDuration(in));
+            }
+            case PLUGIN -> new PluginSettings(readString(in), (Map<String, Object>) readValue(in));
+            default -> throw new IllegalStateException("Unknown stage settings kind " + kind);
+        };
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case null -> out.writeByte(NULL);
+            case String string -> {
+                out.writeByte(STRING);
+                writeString(out, string);
+            }
+            case Integer number -> {
+                out.writeByte(INT);
+                out.writeInt(number);
+            }
+            case Long number -> {
+                out.writeByte(LONG);
+                out.writeLong(number);
+            }
+            case Double number -> {
+                out.writeByte(DOUBLE);
+                out.writeDouble(number);
+            }
+            case Boolean flag -> {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(flag);
+            }
+            case List<?> list -> {
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (Object item : list) {
+                    writeValue(out, item);
+                }
+            }
+            case Map<?, ?> map -> {
+                out.writeByte(MAP);
+                out.writeInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(out, String.valueOf(entry.getKey()));
+                    writeValue(out, entry.getValue());
+                }
+            }
+            default -> {
+                out.writeByte(STRING);
+                writeString(out, value.toString());
+            }
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case NULL -> null;
+            case STRING -> readString(in);
+            case INT -> in.getInt();
+            case LONG -> in.getLong();
+            case DOUBLE -> in.getDouble();
+            case BOOLEAN -> in.get() != 0;
+            case LIST -> {
+                int size = in.getInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            case MAP -> {
+                int size = in.getInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(readString(in), readValue(in));
+                }
+                yield map;
+            }
+            default -> throw new IllegalStateException("Unknown value tag " + tag);
+        };
+    }
+
+    private static void writeDuration(DataOutputStream out, Duration duration) throws IOException {
+        out.writeLong(duration != null ? duration.toSeconds() : -1);
+    }
+
+    private static Duration readDuration(ByteBuffer in) {
+        long seconds = in.getLong();
+        return seconds >= 0 ? Duration.ofSeconds(seconds) : null;
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer in) {
+        int size = in.getInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
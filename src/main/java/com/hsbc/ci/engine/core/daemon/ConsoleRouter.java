@@ -0,0 +1,46 @@
+package com.hsbc.ci.engine.core.daemon;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Installed behind System.out / System.err in daemon mode so each client request (and any
+ * stage thread it starts) writes to its own connection instead of the daemon console.
+ */
+final class ConsoleRouter extends OutputStream {
+
+    private final OutputStream fallback;
+    private final InheritableThreadLocal<OutputStream> target = new InheritableThreadLocal<>();
+
+    ConsoleRouter(OutputStream fallback) {
+        this.fallback = fallback;
+    }
+
+    void bind(OutputStream out) {
+        target.set(out);
+    }
+
+    void unbind() {
+        target.remove();
+    }
+
+    private OutputStream current() {
+        OutputStream out = target.get();
+        return out != null ? out : fallback;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        current().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        current().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        current().flush();
+    }
+}
@@ -0,0 +1,155 @@
+package com.hsbc.ci.engine.core.daemon;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.OptionalInt;
+
+/**
+ * Thin client that forwards CLI arguments to a running {@link EngineDaemon} and streams
+ * its output back. Deliberately free of Spring so a forwarded command never boots a context.
+ */
+public final class DaemonClient {
+
+    public static final String SOCKET_ENV = "CI_ENGINE_SOCKET";
+    public static final String DAEMON_ENV = "CI_ENGINE_DAEMON";
+
+    /** Exit code when the daemon went away after it had been handed the command. */
+    public static final int EXIT_CONNECTION_LOST = 1;
+
+    /**
+     * The daemon was handed the command and then stopped answering. It may already have
+     * run part of it, so the command must not be run again locally.
+     */
+    public static final class ConnectionLostException extends IOException {
+        ConnectionLostException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private DaemonClient() {
+    }
+
+    public static Path defaultSocketPath() {
+        String configured = System.getenv(SOCKET_ENV);
+        if (configured != null && !configured.isBlank()) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"),
+            "ci-engine-" + System.getProperty("user.name") + ".sock");
+    }
+
+    public static boolean shouldForward(String[] args) {
+        if ("off".equalsIgnoreCase(System.getenv(DAEMON_ENV))) {
+            return false;
+        }
+        return args.length < 2 || !"daemon".equals(args[0]) || !"start".equals(args[1]);
+    }
+
+    /**
+     * Forwards the command to the daemon. Empty means the daemon never took the command and
+     * it should run locally; once it has been sent, a lost connection is reported and
+     * gives {@link #EXIT_CONNECTION_LOST} rather than a second run.
+     */
+    public static OptionalInt tryForward(String[] args) {
+        return tryForward(defaultSocketPath(), args, System.out, System.err);
+    }
+
+    static OptionalInt tryForward(Path socketPath, String[] args, PrintStream out, PrintStream err) {
+        try {
+            return forward(socketPath, args, out, err);
+        } catch (ConnectionLostException e) {
+            err.println("[ERROR] " + e.getMessage() + "; the command was not re-run locally");
+            return OptionalInt.of(EXIT_CONNECTION_LOST);
+        } catch (IOException e) {
+            return OptionalInt.empty();
+        }
+    }
+
+    public static boolean isRunning(Path socketPath) {
+        if (!Files.exists(socketPath)) {
+            return false;
+        }
+        try (SocketChannel ignored = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the remote exit code, or empty when no daemon is listening or it refused the
+     * request (for example because it serves a different working directory). Throws
+     * {@link ConnectionLostException} when the connection fails after the request was sent.
+     */
+    public static OptionalInt forward(Path socketPath, String[] args, OutputStream out, OutputStream err)
+            throws IOException {
+        if (!Files.exists(socketPath)) {
+            return OptionalInt.empty();
+        }
+
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+        } catch (IOException e) {
+            return OptionalInt.empty();
+        }
+
+        try (channel) {
+            try {
+                DataOutputStream request = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)));
+                DaemonProtocol.writeRequest(request, Paths.get("").toAbsolutePath().toString(), args);
+            } catch (IOException e) {
+                return OptionalInt.empty();
+            }
+            try {
+                return readResponse(new DataInputStream(Channels.newInputStream(channel)), out, err);
+            } catch (ConnectionLostException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new ConnectionLostException("Lost connection to the daemon: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static OptionalInt readResponse(DataInputStream in, OutputStream out, OutputStream err)
+            throws IOException {
+        while (true) {
+            byte type;
+            try {
+                type = in.readByte();
+            } catch (EOFException e) {
+                throw new ConnectionLostException("Daemon closed the connection before completing the command", e);
+            }
+            byte[] payload = in.readNBytes(in.readInt());
+            switch (type) {
+                case DaemonProtocol.STDOUT -> {
+                    out.write(payload);
+                    out.flush();
+                }
+                case DaemonProtocol.STDERR -> {
+                    err.write(payload);
+                    err.flush();
+                }
+                case DaemonProtocol.EXIT -> {
+                    return OptionalInt.of(DaemonProtocol.readExitCode(payload));
+                }
+                case DaemonProtocol.REJECTED -> {
+                    return OptionalInt.empty();
+                }
+                default -> throw new IOException("Unknown daemon frame type: " + type);
+            }
+        }
+    }
+}
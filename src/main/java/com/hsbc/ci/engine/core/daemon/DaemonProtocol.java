@@ -0,0 +1,93 @@
+package com.hsbc.ci.engine.core.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format between {@link DaemonClient} and {@link EngineDaemon}.
+ *
+ * The client sends its working directory and the picocli arguments once. The daemon
+ * answers with a stream of frames ({@code type, length, payload}) ending in EXIT or REJECTED.
+ */
+final class DaemonProtocol {
+
+    static final int VERSION = 1;
+
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+    static final byte REJECTED = 4;
+
+    private DaemonProtocol() {
+    }
+
+    record Request(String workingDir, String[] args) {
+    }
+
+    static void writeRequest(DataOutputStream out, String workingDir, String[] args) throws IOException {
+        out.writeInt(VERSION);
+        out.writeUTF(workingDir);
+        out.writeInt(args.length);
+        for (String arg : args) {
+            out.writeUTF(arg);
+        }
+        out.flush();
+    }
+
+    static Request readRequest(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported daemon protocol version: " + version);
+        }
+        String workingDir = in.readUTF();
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = in.readUTF();
+        }
+        return new Request(workingDir, args);
+    }
+
+    static void writeFrame(DataOutputStream out, byte type, byte[] payload, int offset, int length)
+            throws IOException {
+        synchronized (out) {
+            out.writeByte(type);
+            out.writeInt(length);
+            out.write(payload, offset, length);
+            out.flush();
+        }
+    }
+
+    static void writeExit(DataOutputStream out, int exitCode) throws IOException {
+        writeFrame(out, EXIT, ByteBuffer.allocate(4).putInt(exitCode).array(), 0, 4);
+    }
+
+    static int readExitCode(byte[] payload) {
+        return ByteBuffer.wrap(payload).getInt();
+    }
+
+    /** Turns every write into a STDOUT or STDERR frame on the shared connection stream. */
+    static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                writeFrame(out, type, b, off, len);
+            }
+        }
+    }
+}
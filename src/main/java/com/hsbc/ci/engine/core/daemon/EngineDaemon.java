@@ -0,0 +1,178 @@
+package com.hsbc.ci.engine.core.daemon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.hsbc.ci.engine.core.cli.CiEngineCommand;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived engine process that keeps the Spring context, parsed pipelines and plugins
+ * warm and executes CLI commands sent by {@link DaemonClient} over a Unix domain socket.
+ */
+@Component
+public class EngineDaemon {
+
+    private static final Logger log = LoggerFactory.getLogger(EngineDaemon.class);
+
+    @FunctionalInterface
+    public interface CommandDispatcher {
+        int dispatch(String[] args);
+    }
+
+    private final CommandDispatcher dispatcher;
+    private final String workingDir = Paths.get("").toAbsolutePath().toString();
+    private final AtomicLong requests = new AtomicLong();
+    private volatile ServerSocketChannel server;
+    private volatile Instant startedAt;
+
+    @Autowired
+    public EngineDaemon(ApplicationContext context) {
+        this(args -> context.getBean(CiEngineCommand.class).createCommandLine().execute(args));
+    }
+
+    public EngineDaemon(CommandDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public void serve(Path socketPath) throws IOException {
+        if (DaemonClient.isRunning(socketPath)) {
+            throw new IllegalStateException("Daemon already running on " + socketPath);
+        }
+        Files.deleteIfExists(socketPath);
+        if (socketPath.getParent() != null) {
+            Files.createDirectories(socketPath.getParent());
+        }
+
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        startedAt = Instant.now();
+        log.info("Engine daemon listening on {}", socketPath);
+        System.out.println("[INFO] Engine daemon listening on " + socketPath);
+
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        ConsoleRouter stdout = new ConsoleRouter(originalOut);
+        ConsoleRouter stderr = new ConsoleRouter(originalErr);
+        System.setOut(new PrintStream(stdout, true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(stderr, true, StandardCharsets.UTF_8));
+
+        try (ExecutorService connections = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("daemon-client-", 0).factory())) {
+            while (server.isOpen()) {
+                SocketChannel channel;
+                try {
+                    channel = server.accept();
+                } catch (AsynchronousCloseException e) {
+                    break;
+                }
+                connections.submit(() -> handle(channel, stdout, stderr));
+            }
+        } finally {
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+            Files.deleteIfExists(socketPath);
+            log.info("Engine daemon stopped after {} requests", requests.get());
+        }
+    }
+
+    public void stop() {
+        ServerSocketChannel current = server;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.warn("Failed to close daemon socket: {}", e.getMessage());
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        ServerSocketChannel current = server;
+        return current != null && current.isOpen();
+    }
+
+    private void handle(SocketChannel channel, ConsoleRouter stdout, ConsoleRouter stderr) {
+        try (channel) {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel)));
+            DaemonProtocol.Request request = DaemonProtocol.readRequest(in);
+            String[] args = request.args();
+            requests.incrementAndGet();
+
+            if (!workingDir.equals(request.workingDir())) {
+                byte[] reason = ("Daemon serves " + workingDir).getBytes(StandardCharsets.UTF_8);
+                DaemonProtocol.writeFrame(out, DaemonProtocol.REJECTED, reason, 0, reason.length);
+                return;
+            }
+            if (isDaemonCommand(args, "stop")) {
+                DaemonProtocol.writeExit(out, 0);
+                stop();
+                return;
+            }
+            if (isDaemonCommand(args, "status")) {
+                byte[] status = status().getBytes(StandardCharsets.UTF_8);
+                DaemonProtocol.writeFrame(out, DaemonProtocol.STDOUT, status, 0, status.length);
+                DaemonProtocol.writeExit(out, 0);
+                return;
+            }
+
+            log.debug("Daemon request: {}", Arrays.toString(args));
+            int exitCode;
+            stdout.bind(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDOUT));
+            stderr.bind(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDERR));
+            try {
+                exitCode = dispatcher.dispatch(args);
+            } catch (RuntimeException e) {
+                log.error("Daemon request failed: {}", e.getMessage());
+                System.err.println("[ERROR] " + e.getMessage());
+                exitCode = 1;
+            } finally {
+                System.out.flush();
+                System.err.flush();
+                stdout.unbind();
+                stderr.unbind();
+            }
+            DaemonProtocol.writeExit(out, exitCode);
+        } catch (IOException e) {
+            log.warn("Daemon connection error: {}", e.getMessage());
+        }
+    }
+
+    private String status() {
+        Duration uptime = Duration.between(startedAt, Instant.now());
+        return "Daemon running: pid=" + ProcessHandle.current().pid()
+            + ", workingDir=" + workingDir
+            + ", uptime=" + uptime.toSeconds() + "s"
+            + ", requests=" + requests.get() + System.lineSeparator();
+    }
+
+    private static boolean isDaemonCommand(String[] args, String action) {
+        return args.length == 2 && "daemon".equals(args[0]) && action.equals(args[1]);
+    }
+}
@@ -0,0 +1,40 @@
+package com.hsbc.ci.engine.core.deploy;
+
+/**
+ * The calls a {@link RolloutController} makes to the cluster. Every call must return
+ * promptly: the controller polls instead of waiting inside the cluster client.
+ */
+public interface ClusterApi {
+
+    /**
+     * Readiness of a revision. {@code failed} means it will not become healthy (crash
+     * loop, failing probes, error budget exceeded), and the rollout is aborted.
+     */
+    record Health(int ready, int desired, boolean failed, String message) {
+
+        public boolean isReady() {
+            return !failed && desired > 0 && ready >= desired;
+        }
+    }
+
+    /**
+     * Starts a revision of {@code service} running {@code image}. It receives no traffic
+     * until {@link #setTraffic}, except under a rolling strategy, where the cluster
+     * shifts traffic as pods are replaced. Returns the revision id.
+     */
+    String createRevision(String namespace, String service, String image, RolloutStrategy strategy);
+
+    Health health(String namespace, String service, String revision);
+
+    void setTraffic(String namespace, String service, String revision, int percent);
+
+    /**
+     * Makes the revision the stable one and retires the previous revision.
+     */
+    void promote(String namespace, String service, String revision);
+
+    /**
+     * Sends all traffic back to the stable revision and removes {@code revision}.
+     */
+    void rollback(String namespace, String service, String revision);
+}
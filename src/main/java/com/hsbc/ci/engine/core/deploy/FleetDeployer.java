@@ -0,0 +1,135 @@
+package com.hsbc.ci.engine.core.deploy;
+
+import com.hsbc.ci.engine.core.model.definition.FleetService;
+import com.hsbc.ci.engine.core.schedule.TaskScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Rolls a {@link FleetPlan} out wave by wave on a {@link TaskScheduler}. The services of
+ * a wave are deployed concurrently, at most {@code concurrency} at a time, and the next
+ * wave starts as soon as every service of the current one is healthy. After a failure the rest of the wave
+ * is allowed to finish, so no rollout is left half-applied, and later waves are skipped.
+ */
+public class FleetDeployer {
+
+    private static final Logger log = LoggerFactory.getLogger(FleetDeployer.class);
+
+    /**
+     * Deploys one service and returns once it is healthy; throws when the rollout fails.
+     */
+    @FunctionalInterface
+    public interface ServiceDeployer {
+        String deploy(FleetService service) throws Exception;
+    }
+
+    /**
+     * Progress of one wave: announced when its first service starts, reported when its
+     * last one finishes.
+     */
+    private static final class Wave {
+        final int number;
+        final List<FleetService> services;
+        int remaining;
+        boolean failed;
+        long startNanos;
+
+        Wave(int number, List<FleetService> services) {
+            this.number = number;
+            this.services = services;
+            this.remaining = services.size();
+        }
+    }
+
+    private final int concurrency;
+    private final Consumer<String> progress;
+
+    public FleetDeployer(int concurrency) {
+        this(concurrency, System.out::println);
+    }
+
+    public FleetDeployer(int concurrency, Consumer<String> progress) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.concurrency = concurrency;
+        this.progress = progress;
+    }
+
+    /**
+     * Deploys the plan; the outcomes are in wave order. Every service of a wave depends on
+     * every service of the wave before, so one failure skips all later waves.
+     */
+    public TaskScheduler.Summary<FleetService> deploy(FleetPlan plan, ServiceDeployer deployer)
+            throws InterruptedException {
+        List<List<FleetService>> waves = plan.waves();
+        List<FleetService> services = new ArrayList<>(plan.size());
+        Map<String, Wave> waveOf = new HashMap<>();
+        List<List<Integer>> dependencies = new ArrayList<>(plan.size());
+        List<Integer> previousWave = List.of();
+        for (int index = 0; index < waves.size(); index++) {
+            Wave wave = new Wave(index + 1, waves.get(index));
+            List<Integer> positions = new ArrayList<>();
+            for (FleetService service : wave.services) {
+                positions.add(services.size());
+                services.add(service);
+                waveOf.put(service.name(), wave);
+                dependencies.add(previousWave);
+            }
+            previousWave = positions;
+        }
+
+        TaskScheduler.Summary<FleetService> result = new TaskScheduler<FleetService>("fleet-", concurrency,
+            TaskScheduler.FailurePolicy.CONTINUE, FleetService::name).run(services, dependencies,
+                (service, slot) -> deployService(service, waveOf.get(service.name()), waves.size(), deployer));
+
+        long deployed = result.outcomes().stream()
+            .filter(outcome -> outcome.status() == TaskScheduler.Status.SUCCESS).count();
+        progress.accept("  [Fleet] " + deployed + "/" + plan.size() + " services deployed in " + waves.size()
+            + " waves, " + TimeUnit.NANOSECONDS.toMillis(result.durationNanos()) + "ms");
+        return result;
+    }
+
+    private String deployService(FleetService service, Wave wave, int waves, ServiceDeployer deployer)
+            throws Exception {
+        synchronized (wave) {
+            if (wave.startNanos == 0) {
+                wave.startNanos = System.nanoTime();
+                progress.accept("  [Fleet] Wave " + wave.number + "/" + waves + ": "
+                    + wave.services.stream().map(FleetService::name).collect(Collectors.joining(", ")));
+            }
+        }
+        long start = System.nanoTime();
+        boolean healthy = false;
+        try {
+            String message = deployer.deploy(service);
+            healthy = true;
+            progress.accept("  [Fleet] " + service.name() + " healthy in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+            return message;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Deploy of {} failed: {}", service.name(), e.getMessage());
+            progress.accept("  [Fleet] " + service.name() + " FAILED after "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms: " + e.getMessage());
+            throw e;
+        } finally {
+            synchronized (wave) {
+                wave.failed |= !healthy;
+                if (--wave.remaining == 0) {
+                    progress.accept("  [Fleet] Wave " + wave.number + " " + (wave.failed ? "failed" : "healthy")
+                        + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wave.startNanos) + "ms");
+                }
+            }
+        }
+    }
+}
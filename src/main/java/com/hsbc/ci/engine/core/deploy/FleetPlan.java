@@ -0,0 +1,85 @@
+package com.hsbc.ci.engine.core.deploy;
+
+import com.hsbc.ci.engine.core.model.definition.FleetService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The services of a fleet deploy grouped into waves: every service depends only on
+ * services of earlier waves. Within a wave services keep their declared order.
+ */
+public final class FleetPlan {
+
+    private final List<List<FleetService>> waves;
+    private final int size;
+
+    private FleetPlan(List<List<FleetService>> waves, int size) {
+        this.waves = waves;
+        this.size = size;
+    }
+
+    /**
+     * Throws if a name is repeated, a dependency is not part of the fleet, or the
+     * dependencies form a cycle.
+     */
+    public static FleetPlan of(List<FleetService> services) {
+        Map<String, FleetService> byName = new LinkedHashMap<>();
+        for (FleetService service : services) {
+            if (byName.put(service.name(), service) != null) {
+                throw new IllegalArgumentException("duplicate service: " + service.name());
+            }
+        }
+        Map<String, Integer> remaining = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (FleetService service : services) {
+            List<String> dependencies = service.dependsOn().stream().distinct().toList();
+            for (String dependency : dependencies) {
+                if (!byName.containsKey(dependency)) {
+                    throw new IllegalArgumentException(
+                        "service '" + service.name() + "' depends on unknown service: " + dependency);
+                }
+                dependents.computeIfAbsent(dependency, name -> new ArrayList<>()).add(service.name());
+            }
+            remaining.put(service.name(), dependencies.size());
+        }
+
+        List<List<FleetService>> waves = new ArrayList<>();
+        List<FleetService> current = services.stream().filter(s -> remaining.get(s.name()) == 0).toList();
+        int placed = 0;
+        while (!current.isEmpty()) {
+            waves.add(current);
+            placed += current.size();
+            Set<String> ready = new HashSet<>();
+            for (FleetService service : current) {
+                for (String dependent : dependents.getOrDefault(service.name(), List.of())) {
+                    if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                        ready.add(dependent);
+                    }
+                }
+            }
+            current = services.stream().filter(s -> ready.contains(s.name())).toList();
+        }
+        if (placed != services.size()) {
+            List<String> cyclic = services.stream()
+                .map(FleetService::name)
+                .filter(name -> remaining.get(name) > 0)
+                .toList();
+            throw new IllegalArgumentException("cyclic service dependencies: " + cyclic);
+        }
+        return new FleetPlan(List.copyOf(waves), services.size());
+    }
+
+    public List<List<FleetService>> waves() {
+        return waves;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,131 @@
+package com.hsbc.ci.engine.core.deploy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory stand-in for a cluster, for running rollouts offline. A revision becomes
+ * ready {@code readyDelay} after it is created. Selected with {@code deploy.cluster: local}
+ * in deploy.yml.
+ */
+public class LocalClusterApi implements ClusterApi {
+
+    private static final class Revision {
+        final String id;
+        final String image;
+        final long readyAtNanos;
+        int traffic;
+
+        Revision(String id, String image, long readyAtNanos) {
+            this.id = id;
+            this.image = image;
+            this.readyAtNanos = readyAtNanos;
+        }
+    }
+
+    private static final class Service {
+        final Map<String, Revision> revisions = new LinkedHashMap<>();
+        final List<String> history = new ArrayList<>();
+        Revision stable;
+    }
+
+    private final Duration readyDelay;
+    private final int replicas;
+    private final Map<String, Service> services = new HashMap<>();
+    private int revisionCount;
+
+    public LocalClusterApi() {
+        this(Duration.ZERO, 3);
+    }
+
+    public LocalClusterApi(Duration readyDelay, int replicas) {
+        this.readyDelay = readyDelay;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public synchronized String createRevision(String namespace, String service, String image, RolloutStrategy strategy) {
+        Service state = service(namespace, service);
+        String id = service + "-" + (++revisionCount);
+        Revision revision = new Revision(id, image, System.nanoTime() + readyDelay.toNanos());
+        state.revisions.put(id, revision);
+        if (state.stable == null || strategy instanceof RolloutStrategy.Rolling) {
+            revision.traffic = 100;
+        }
+        state.history.add("create " + id + " " + image);
+        return id;
+    }
+
+    @Override
+    public synchronized Health health(String namespace, String service, String revision) {
+        Revision state = revision(namespace, service, revision);
+        boolean ready = System.nanoTime() - state.readyAtNanos >= 0;
+        return new Health(ready ? replicas : 0, replicas, false, ready ? "ready" : "starting");
+    }
+
+    @Override
+    public synchronized void setTraffic(String namespace, String service, String revision, int percent) {
+        Service state = service(namespace, service);
+        revision(namespace, service, revision).traffic = percent;
+        if (state.stable != null) {
+            state.stable.traffic = 100 - percent;
+        }
+        state.history.add("traffic " + revision + " " + percent);
+    }
+
+    @Override
+    public synchronized void promote(String namespace, String service, String revision) {
+        Service state = service(namespace, service);
+        Revision promoted = revision(namespace, service, revision);
+        state.revisions.values().removeIf(other -> other != promoted);
+        promoted.traffic = 100;
+        state.stable = promoted;
+        state.history.add("promote " + revision);
+    }
+
+    @Override
+    public synchronized void rollback(String namespace, String service, String revision) {
+        Service state = service(namespace, service);
+        state.revisions.remove(revision);
+        if (state.stable != null) {
+            state.stable.traffic = 100;
+        }
+        state.history.add("rollback " + revision);
+    }
+
+    /**
+     * Image of the stable revision, or null before the first promotion.
+     */
+    public synchronized String stableImage(String namespace, String service) {
+        Revision stable = service(namespace, service).stable;
+        return stable != null ? stable.image : null;
+    }
+
+    public synchronized int traffic(String namespace, String service, String revision) {
+        Revision state = service(namespace, service).revisions.get(revision);
+        return state != null ? state.traffic : 0;
+    }
+
+    /**
+     * Every call made for the service, e.g. {@code traffic app-2 10}.
+     */
+    public synchronized List<String> history(String namespace, String service) {
+        return List.copyOf(service(namespace, service).history);
+    }
+
+    private Service service(String namespace, String service) {
+        return services.computeIfAbsent(namespace + "/" + service, key -> new Service());
+    }
+
+    private Revision revision(String namespace, String service, String revision) {
+        Revision state = service(namespace, service).revisions.get(revision);
+        if (state == null) {
+            throw new IllegalArgumentException("Unknown revision " + revision + " of " + namespace + "/" + service);
+        }
+        return state;
+    }
+}
@@ -0,0 +1,230 @@
+package com.hsbc.ci.engine.core.deploy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Drives progressive rollouts: creates the new revision, waits until it is ready, then
+ * steps traffic over to it following its {@link RolloutStrategy}, checking health every
+ * {@code pollInterval}. A revision that reports failed is rolled back at the next poll,
+ * not at the end of the step.
+ *
+ * All rollouts share one scheduler thread, used for timers only. Each tick runs its
+ * {@link ClusterApi} calls on a virtual thread and schedules the next tick when they
+ * return, so a slow cluster call delays only its own rollout and waiting between polls
+ * holds no thread at all. The returned future can be cancelled; the rollout is then
+ * rolled back at its next poll. Closing the controller fails the futures of rollouts
+ * still in flight.
+ */
+public class RolloutController implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RolloutController.class);
+
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(2);
+
+    /**
+     * @param readyTimeout how long the new revision may take to become ready
+     */
+    public record RolloutRequest(String namespace,
+                                 String service,
+                                 String image,
+                                 RolloutStrategy strategy,
+                                 Duration readyTimeout) {
+    }
+
+    public enum Status {
+        PROMOTED,
+        ROLLED_BACK
+    }
+
+    /**
+     * @param traffic share of traffic the new revision had reached
+     */
+    public record RolloutResult(String service, String revision, Status status, String reason,
+                                int traffic, long durationNanos) {
+
+        public boolean isPromoted() {
+            return status == Status.PROMOTED;
+        }
+    }
+
+    private enum Phase {
+        START,
+        AWAIT_READY,
+        HOLD
+    }
+
+    private final ClusterApi cluster;
+    private final Duration pollInterval;
+    private final Consumer<String> progress;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rollout-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("rollout-", 0).factory());
+    private final Set<Rollout> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public RolloutController(ClusterApi cluster) {
+        this(cluster, DEFAULT_POLL_INTERVAL, message -> { });
+    }
+
+    public RolloutController(ClusterApi cluster, Duration pollInterval, Consumer<String> progress) {
+        this.cluster = cluster;
+        this.pollInterval = pollInterval;
+        this.progress = progress;
+    }
+
+    public CompletableFuture<RolloutResult> start(RolloutRequest request) {
+        if (closed) {
+            throw new IllegalStateException("Rollout controller is closed");
+        }
+        Rollout rollout = new Rollout(request);
+        inFlight.add(rollout);
+        rollout.result.whenComplete((result, error) -> inFlight.remove(rollout));
+        workers.execute(rollout);
+        return rollout.result;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        for (Rollout rollout : inFlight) {
+            rollout.result.completeExceptionally(new IllegalStateException(
+                "Rollout controller closed during rollout of " + rollout.request.service()));
+        }
+    }
+
+    /**
+     * One rollout as a state machine; every call of {@link #run} is one tick on a
+     * virtual thread. Ticks of a rollout never overlap: the next one is scheduled only
+     * when the current one is done.
+     */
+    private final class Rollout implements Runnable {
+
+        private final RolloutRequest request;
+        private final List<RolloutStrategy.TrafficStep> steps;
+        private final CompletableFuture<RolloutResult> result = new CompletableFuture<>();
+        private final long startNanos = System.nanoTime();
+        private Phase phase = Phase.START;
+        private String revision;
+        private int step = -1;
+        private int traffic;
+        private long deadlineNanos;
+
+        Rollout(RolloutRequest request) {
+            this.request = request;
+            this.steps = request.strategy().steps();
+        }
+
+        @Override
+        public void run() {
+            if (result.isCancelled()) {
+                rollBack("cancelled");
+                return;
+            }
+            try {
+                switch (phase) {
+                    case START -> {
+                        revision = cluster.createRevision(request.namespace(), request.service(), request.image(),
+                            request.strategy());
+                        progress.accept("  [Rollout] " + request.service() + ": started " + revision + " ("
+                            + request.image() + ")");
+                        phase = Phase.AWAIT_READY;
+                        deadlineNanos = System.nanoTime() + request.readyTimeout().toNanos();
+                        poll(pollInterval.toNanos());
+                    }
+                    case AWAIT_READY -> {
+                        ClusterApi.Health health = health();
+                        if (health.failed()) {
+                            rollBack(health.message());
+                        } else if (health.isReady()) {
+                            advance();
+                        } else if (System.nanoTime() - deadlineNanos >= 0) {
+                            rollBack(revision + " not ready within " + request.readyTimeout().toSeconds() + "s ("
+                                + health.ready() + "/" + health.desired() + ")");
+                        } else {
+                            poll(pollInterval.toNanos());
+                        }
+                    }
+                    case HOLD -> {
+                        ClusterApi.Health health = health();
+                        long remaining = deadlineNanos - System.nanoTime();
+                        if (health.failed()) {
+                            rollBack(health.message());
+                        } else if (remaining <= 0) {
+                            advance();
+                        } else {
+                            poll(Math.min(pollInterval.toNanos(), remaining));
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Rollout of {} failed: {}", request.service(), e.getMessage());
+                rollBack("cluster error: " + e.getMessage());
+            }
+        }
+
+        private ClusterApi.Health health() {
+            return cluster.health(request.namespace(), request.service(), revision);
+        }
+
+        /**
+         * Moves to the next traffic step, or promotes the revision after the last one.
+         */
+        private void advance() {
+            while (++step < steps.size()) {
+                RolloutStrategy.TrafficStep next = steps.get(step);
+                cluster.setTraffic(request.namespace(), request.service(), revision, next.percent());
+                traffic = next.percent();
+                progress.accept("  [Rollout] " + request.service() + ": " + traffic + "% traffic to " + revision);
+                if (!next.hold().isZero()) {
+                    phase = Phase.HOLD;
+                    deadlineNanos = System.nanoTime() + next.hold().toNanos();
+                    poll(Math.min(pollInterval.toNanos(), next.hold().toNanos()));
+                    return;
+                }
+            }
+            cluster.promote(request.namespace(), request.service(), revision);
+            progress.accept("  [Rollout] " + request.service() + ": " + revision + " promoted");
+            complete(Status.PROMOTED, null, 100);
+        }
+
+        private void rollBack(String reason) {
+            log.warn("Rolling back {} of {}: {}", revision, request.service(), reason);
+            if (revision != null) {
+                try {
+                    cluster.rollback(request.namespace(), request.service(), revision);
+                } catch (RuntimeException e) {
+                    log.error("Rollback of {} failed: {}", revision, e.getMessage());
+                }
+            }
+            progress.accept("  [Rollout] " + request.service() + ": rolled back (" + reason + ")");
+            complete(Status.ROLLED_BACK, reason, traffic);
+        }
+
+        private void complete(Status status, String reason, int finalTraffic) {
+            result.complete(new RolloutResult(request.service(), revision, status, reason, finalTraffic,
+                System.nanoTime() - startNanos));
+        }
+
+        private void poll(long delayNanos) {
+            scheduler.schedule(() -> workers.execute(this), delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
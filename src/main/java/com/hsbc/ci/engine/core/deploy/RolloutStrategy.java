@@ -0,0 +1,105 @@
+package com.hsbc.ci.engine.core.deploy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How a new revision takes over from the running one, built from the
+ * {@code deploymentStrategies} section of deploy.yml. Durations there are in seconds.
+ */
+public sealed interface RolloutStrategy {
+
+    /**
+     * Share of traffic sent to the new revision, and how long it must stay healthy
+     * before the next step.
+     */
+    record TrafficStep(int percent, Duration hold) {
+    }
+
+    /**
+     * Pods are replaced in place by the cluster; the rollout is done once the new
+     * revision is ready.
+     */
+    record Rolling(int maxSurge, int maxUnavailable) implements RolloutStrategy {
+
+        @Override
+        public List<TrafficStep> steps() {
+            return List.of();
+        }
+    }
+
+    /**
+     * The new revision is brought up beside the old one, {@code trafficSplit} percent
+     * is switched to it and verified for {@code verification}, then the rest follows.
+     */
+    record BlueGreen(int trafficSplit, Duration verification) implements RolloutStrategy {
+
+        @Override
+        public List<TrafficStep> steps() {
+            List<TrafficStep> steps = new ArrayList<>();
+            steps.add(new TrafficStep(trafficSplit, verification));
+            if (trafficSplit < 100) {
+                steps.add(new TrafficStep(100, Duration.ZERO));
+            }
+            return steps;
+        }
+    }
+
+    /**
+     * Traffic starts at {@code initialPercent} and grows by {@code incrementPercent}
+     * every {@code interval} while the new revision stays healthy.
+     */
+    record Canary(int initialPercent, int incrementPercent, Duration interval) implements RolloutStrategy {
+
+        @Override
+        public List<TrafficStep> steps() {
+            List<TrafficStep> steps = new ArrayList<>();
+            for (int percent = initialPercent; percent < 100; percent += incrementPercent) {
+                steps.add(new TrafficStep(percent, interval));
+            }
+            steps.add(new TrafficStep(100, Duration.ZERO));
+            return steps;
+        }
+    }
+
+    List<TrafficStep> steps();
+
+    /**
+     * Builds the named strategy from its deploy.yml parameters; missing parameters take
+     * the defaults of the sample deploy.yml.
+     */
+    static RolloutStrategy of(String name, Map<String, Object> params) {
+        Map<String, Object> values = params != null ? params : Map.of();
+        return switch (name) {
+            case "rolling" -> new Rolling(intOr(values.get("maxSurge"), 1), intOr(values.get("maxUnavailable"), 0));
+            case "blue-green" -> new BlueGreen(
+                percent(values.get("trafficSplit"), 100, "trafficSplit"),
+                Duration.ofSeconds(intOr(values.get("verificationDuration"), 300)));
+            case "canary" -> {
+                int increment = percent(values.get("incrementPercentage"), 20, "incrementPercentage");
+                if (increment == 0) {
+                    throw new IllegalArgumentException("canary incrementPercentage must be positive");
+                }
+                yield new Canary(
+                    percent(values.get("initialTrafficPercentage"), 10, "initialTrafficPercentage"),
+                    increment,
+                    Duration.ofSeconds(intOr(values.get("incrementInterval"), 300)));
+            }
+            default -> throw new IllegalArgumentException("Unknown deployment strategy: " + name);
+        };
+    }
+
+    private static int intOr(Object value, int fallback) {
+        return value instanceof Number number ? number.intValue() : fallback;
+    }
+
+    private static int percent(Object value, int fallback, String what) {
+        int percent = intOr(value, fallback);
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException(what + " must be between 0 and 100");
+        }
+        return percent;
+    }
+}
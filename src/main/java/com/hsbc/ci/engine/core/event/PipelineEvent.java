@@ -0,0 +1,48 @@
+package com.hsbc.ci.engine.core.event;
+
+/**
+ * One slot of the {@link PipelineEventBus} ring buffer. Slots are pre-allocated and
+ * reused, so listeners must copy whatever they keep beyond {@code onEvent}.
+ */
+public class PipelineEvent {
+
+    private PipelineEventType type;
+    private String runId;
+    private String pipelineName;
+    private String name;
+    private String stageType;
+    private boolean success;
+    private long durationNanos;
+    private String message;
+    private long timestampNanos;
+
+    void set(PipelineEventType type, String runId, String pipelineName, String name, String stageType,
+             boolean success, long durationNanos, String message) {
+        this.type = type;
+        this.runId = runId;
+        this.pipelineName = pipelineName;
+        this.name = name;
+        this.stageType = stageType;
+        this.success = success;
+        this.durationNanos = durationNanos;
+        this.message = message;
+        this.timestampNanos = System.nanoTime();
+    }
+
+    public PipelineEventType getType() { return type; }
+    public String getRunId() { return runId; }
+    public String getPipelineName() { return pipelineName; }
+    /** Stage name for stage events, plugin name for plugin events, null for run events. */
+    public String getName() { return name; }
+    public String getStageType() { return stageType; }
+    public boolean isSuccess() { return success; }
+    public long getDurationNanos() { return durationNanos; }
+    public String getMessage() { return message; }
+    public long getTimestampNanos() { return timestampNanos; }
+
+    @Override
+    public String toString() {
+        return type + " " + runId + (name != null ? " " + name : "") + (type.name().endsWith("FINISHED")
+            ? (success ? " ok" : " failed") + " in " + durationNanos / 1_000_000 + "ms" : "");
+    }
+}
@@ -0,0 +1,248 @@
+package com.hsbc.ci.engine.core.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Multi-producer, multi-consumer ring buffer of {@link PipelineEvent}s.
+ *
+ * Producers claim a sequence with a single atomic increment, fill the pre-allocated slot
+ * and mark it published; nothing is allocated or locked on that path. Each listener
+ * has its own consumer thread and sequence and sees every event in order. A producer
+ * only waits when it would overwrite a slot the slowest listener has not read yet.
+ *
+ * An idle consumer spins briefly, then parks until a producer signals it; producers
+ * only pay for the signal while some consumer is parked. {@link #shutdown()} delivers
+ * what was published before stopping the consumers.
+ */
+@Component
+public class PipelineEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineEventBus.class);
+
+    static final int DEFAULT_BUFFER_SIZE = 1024;
+    private static final int SPIN_TRIES = 100;
+    private static final long IDLE_PARK_NANOS = 50_000;
+    private static final Duration SHUTDOWN_DRAIN_TIMEOUT = Duration.ofSeconds(5);
+
+    private final PipelineEvent[] ring;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger parkedConsumers = new AtomicInteger();
+    private volatile long gatingCache = -1;
+
+    public PipelineEventBus() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public PipelineEventBus(int bufferSize) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of two");
+        }
+        this.ring = new PipelineEvent[bufferSize];
+        this.published = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            ring[i] = new PipelineEvent();
+            published.set(i, -1);
+        }
+        this.mask = bufferSize - 1;
+    }
+
+    @Autowired
+    public PipelineEventBus(ConfigurationLoader configLoader) {
+        this(resolveBufferSize(configLoader));
+    }
+
+    private static int resolveBufferSize(ConfigurationLoader configLoader) {
+        Object events = configLoader.getEngineConfig().get("events");
+        if (events instanceof Map<?, ?> settings && settings.get("bufferSize") instanceof Number size) {
+            return size.intValue();
+        }
+        return DEFAULT_BUFFER_SIZE;
+    }
+
+    public void publish(PipelineEventType type, String runId, String pipelineName, String name,
+                        String stageType, boolean success, long durationNanos, String message) {
+        long sequence = cursor.incrementAndGet();
+        waitForCapacity(sequence);
+        int index = (int) (sequence & mask);
+        ring[index].set(type, runId, pipelineName, name, stageType, success, durationNanos, message);
+        published.set(index, sequence);
+        if (parkedConsumers.get() > 0) {
+            for (Consumer consumer : consumers) {
+                if (consumer.parked) {
+                    LockSupport.unpark(consumer.thread);
+                }
+            }
+        }
+    }
+
+    private void waitForCapacity(long sequence) {
+        long wrapPoint = sequence - ring.length;
+        if (wrapPoint <= gatingCache) {
+            return;
+        }
+        int tries = 0;
+        long min;
+        while (wrapPoint > (min = minimumConsumerSequence(sequence))) {
+            backOff(++tries);
+        }
+        gatingCache = min;
+    }
+
+    private long minimumConsumerSequence(long fallback) {
+        long min = fallback;
+        for (Consumer consumer : consumers) {
+            min = Math.min(min, consumer.sequence.get());
+        }
+        return min;
+    }
+
+    /**
+     * Registers a listener on its own consumer thread; it receives events published from now on.
+     */
+    public void subscribe(PipelineEventListener listener) {
+        Consumer consumer = new Consumer(listener, cursor.get());
+        consumers.add(consumer);
+        consumer.thread.start();
+    }
+
+    public void unsubscribe(PipelineEventListener listener) {
+        for (Consumer consumer : consumers) {
+            if (consumer.listener == listener) {
+                consumers.remove(consumer);
+                consumer.stop();
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return consumers.size();
+    }
+
+    public int getBufferSize() {
+        return ring.length;
+    }
+
+    /**
+     * Blocks until every listener has consumed all events published so far.
+     */
+    public void drain() {
+        drain(null);
+    }
+
+    /**
+     * Like {@link #drain()}, giving up after {@code timeout} (null for none); false when
+     * some listener is still behind.
+     */
+    public boolean drain(Duration timeout) {
+        long target = cursor.get();
+        long deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : Long.MAX_VALUE;
+        int tries = 0;
+        while (minimumConsumerSequence(target) < target) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            backOff(++tries);
+        }
+        return true;
+    }
+
+    /**
+     * Delivers the events already published, waiting at most a few seconds for slow
+     * listeners, then stops every consumer.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!drain(SHUTDOWN_DRAIN_TIMEOUT)) {
+            log.warn("Stopping event listeners before they caught up after {}s", SHUTDOWN_DRAIN_TIMEOUT.toSeconds());
+        }
+        for (Consumer consumer : consumers) {
+            consumer.stop();
+        }
+        consumers.clear();
+    }
+
+    private static void backOff(int tries) {
+        if (tries < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private class Consumer implements Runnable {
+        private final PipelineEventListener listener;
+        private final AtomicLong sequence;
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile boolean parked;
+
+        Consumer(PipelineEventListener listener, long start) {
+            this.listener = listener;
+            this.sequence = new AtomicLong(start);
+            this.thread = Thread.ofPlatform().daemon().name("event-consumer-" + consumers.size()).unstarted(this);
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int tries = 0;
+            while (running) {
+                int index = (int) (next & mask);
+                if (published.getAcquire(index) != next) {
+                    if (++tries < SPIN_TRIES) {
+                        Thread.onSpinWait();
+                    } else {
+                        park(index, next);
+                    }
+                    continue;
+                }
+                tries = 0;
+                try {
+                    listener.onEvent(ring[index]);
+                } catch (RuntimeException e) {
+                    log.warn("Event listener failed on {}: {}", ring[index].getType(), e.getMessage());
+                }
+                sequence.setRelease(next);
+                next++;
+            }
+        }
+
+        /**
+         * Parks until the slot is published. Announcing the park before re-reading the
+         * slot, while producers publish before checking for parked consumers, means one
+         * side always sees the other and no signal is lost.
+         */
+        private void park(int index, long next) {
+            parked = true;
+            parkedConsumers.incrementAndGet();
+            if (running && published.get(index) != next) {
+                LockSupport.park(this);
+            }
+            parkedConsumers.decrementAndGet();
+            parked = false;
+        }
+
+        void stop() {
+            running = false;
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.hsbc.ci.engine.core.event;
+
+@FunctionalInterface
+public interface PipelineEventListener {
+
+    void onEvent(PipelineEvent event);
+}
@@ -0,0 +1,10 @@
+package com.hsbc.ci.engine.core.event;
+
+public enum PipelineEventType {
+    RUN_STARTED,
+    RUN_FINISHED,
+    STAGE_STARTED,
+    STAGE_FINISHED,
+    PLUGIN_STARTED,
+    PLUGIN_FINISHED
+}
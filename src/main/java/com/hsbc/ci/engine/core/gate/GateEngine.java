@@ -0,0 +1,272 @@
+package com.hsbc.ci.engine.core.gate;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.StageResult;
+import com.hsbc.ci.engine.core.model.definition.GateDefinition;
+import com.hsbc.ci.engine.core.plugin.GatePlugin;
+import com.hsbc.ci.engine.core.plugin.GateResult;
+import com.hsbc.ci.engine.core.plugin.PluginManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates the gates of a stage (or a promotion) concurrently and stops at the first
+ * blocking failure, cancelling the gates still running.
+ *
+ * A gate's config is its defaults from the {@code gates} section of promote.yml overlaid
+ * with the parameters in the pipeline. Passing gates backed by a {@link GatePlugin} are
+ * memoized by commit ({@code GIT_COMMIT}) and config, so promoting the same build through
+ * several environments evaluates each gate once. Failures are not memoized: a gate that
+ * failed on something outside the commit (a flaky scan, a missing report) is evaluated
+ * again on the next attempt. Set {@code blocking: false} on a gate to only
+ * report its failure, and {@code memoize: false} to always re-evaluate it.
+ *
+ * The built-in {@code test-passed} gate checks the results of the run's test stages that
+ * the caller names, not the guarded stage. A gate with no plugin fails when it is blocking
+ * and only warns otherwise, so a missing plugin jar cannot wave a release through.
+ */
+public class GateEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(GateEngine.class);
+
+    static final int DEFAULT_CACHE_SIZE = 1024;
+    static final Duration DEFAULT_CACHE_TTL = Duration.ofHours(24);
+    static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
+
+    /**
+     * Outcome of one gate. {@code cached} is true when the result came from the memo.
+     */
+    public record GateOutcome(String type, GateResult result, boolean blocking, boolean cached, long durationNanos) {
+
+        public boolean blocks() {
+            return blocking && !result.isPassed();
+        }
+    }
+
+    /**
+     * Outcomes of the gates that finished, and the gate that blocked, if any. Gates
+     * cancelled after a blocking failure have no outcome.
+     */
+    public record GateEvaluation(List<GateOutcome> outcomes, GateOutcome blockedBy) {
+
+        public boolean isPassed() {
+            return blockedBy == null;
+        }
+    }
+
+    private final PluginManager pluginManager;
+    private final ConfigurationLoader configLoader;
+    private final GateResultCache cache;
+    private final Duration timeout;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("gate-", 0).factory());
+
+    @SuppressWarnings("unchecked")
+    public GateEngine(PluginManager pluginManager, ConfigurationLoader configLoader) {
+        this.pluginManager = pluginManager;
+        this.configLoader = configLoader;
+        Map<String, Object> settings = configLoader != null
+            ? (Map<String, Object>) configLoader.getEngineConfig().get("gates") : null;
+        if (settings == null) {
+            settings = Map.of();
+        }
+        int cacheSize = settings.get("cacheSize") instanceof Number size ? size.intValue() : DEFAULT_CACHE_SIZE;
+        Duration ttl = settings.get("cacheTtl") instanceof Number seconds
+            ? Duration.ofSeconds(seconds.longValue()) : DEFAULT_CACHE_TTL;
+        this.timeout = settings.get("timeout") instanceof Number seconds
+            ? Duration.ofSeconds(seconds.longValue()) : DEFAULT_TIMEOUT;
+        this.cache = new GateResultCache(cacheSize, ttl.toNanos());
+    }
+
+    GateResultCache cache() {
+        return cache;
+    }
+
+    /**
+     * Evaluates {@code gates} for {@code subject}, the stage (or promotion) they guard,
+     * with no test stages to check for {@code test-passed}.
+     */
+    public GateEvaluation evaluate(String subject, List<GateDefinition> gates, PipelineContext context) {
+        return evaluate(subject, gates, List.of(), context);
+    }
+
+    /**
+     * Evaluates {@code gates} for {@code subject}. {@code testStages} are the stages whose
+     * results {@code test-passed} checks.
+     */
+    public GateEvaluation evaluate(String subject,
+                                   List<GateDefinition> gates,
+                                   List<String> testStages,
+                                   PipelineContext context) {
+        if (gates.isEmpty()) {
+            return new GateEvaluation(List.of(), null);
+        }
+        String commit = context.getVariable("GIT_COMMIT");
+        Map<String, Object> view = context.readOnlyView(Map.of("stage", subject));
+        List<GateOutcome> outcomes = new ArrayList<>();
+        List<Callable<GateOutcome>> tasks = new ArrayList<>();
+
+        for (GateDefinition gate : gates) {
+            Map<String, Object> config = effectiveConfig(gate, context);
+            boolean blocking = !Boolean.FALSE.equals(config.get("blocking"));
+            GatePlugin plugin = pluginManager != null ? pluginManager.getGatePlugin(gate.type()) : null;
+            String key = plugin != null && commit != null && !Boolean.FALSE.equals(config.get("memoize"))
+                ? cacheKey(commit, gate.type(), config) : null;
+            GateResult cached = key != null ? cache.get(key) : null;
+            if (cached != null) {
+                GateOutcome outcome = new GateOutcome(gate.type(), cached, blocking, true, 0);
+                outcomes.add(outcome);
+                if (outcome.blocks()) {
+                    return blocked(subject, outcomes, outcome);
+                }
+                continue;
+            }
+            tasks.add(() -> evaluateGate(subject, gate.type(), config, blocking, plugin, key, view,
+                testStages, context));
+        }
+
+        CompletionService<GateOutcome> completion = new ExecutorCompletionService<>(executor);
+        List<Future<GateOutcome>> futures = new ArrayList<>(tasks.size());
+        for (Callable<GateOutcome> task : tasks) {
+            futures.add(completion.submit(task));
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                Future<GateOutcome> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    GateOutcome outcome = new GateOutcome("timeout", GateResult.fail(
+                        (futures.size() - i) + " gates did not finish within " + timeout.toSeconds() + "s"),
+                        true, false, timeout.toNanos());
+                    outcomes.add(outcome);
+                    return blocked(subject, outcomes, outcome);
+                }
+                GateOutcome outcome = done.get();
+                outcomes.add(outcome);
+                if (outcome.blocks()) {
+                    return blocked(subject, outcomes, outcome);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            GateOutcome outcome = new GateOutcome("interrupted", GateResult.fail("Gate evaluation interrupted"),
+                true, false, 0);
+            outcomes.add(outcome);
+            return blocked(subject, outcomes, outcome);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Gate evaluation failed", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return new GateEvaluation(outcomes, null);
+    }
+
+    private GateEvaluation blocked(String subject, List<GateOutcome> outcomes, GateOutcome blockedBy) {
+        log.warn("Gate {} blocked {}: {}", blockedBy.type(), subject, blockedBy.result().getMessage());
+        return new GateEvaluation(outcomes, blockedBy);
+    }
+
+    private GateOutcome evaluateGate(String subject,
+                                     String type,
+                                     Map<String, Object> config,
+                                     boolean blocking,
+                                     GatePlugin plugin,
+                                     String key,
+                                     Map<String, Object> view,
+                                     List<String> testStages,
+                                     PipelineContext context) {
+        long start = System.nanoTime();
+        GateResult result;
+        try {
+            result = plugin != null
+                ? plugin.evaluate(new HashMap<>(config), view)
+                : builtIn(subject, type, blocking, testStages, context);
+            if (result == null) {
+                result = GateResult.fail("Gate " + type + " returned no result");
+            } else if (key != null && result.isPassed()) {
+                cache.put(key, result);
+            }
+        } catch (RuntimeException e) {
+            result = GateResult.fail("Gate " + type + " failed: " + e.getMessage());
+        }
+        long duration = System.nanoTime() - start;
+        log.debug("Gate {} for {}: {} in {}ms", type, subject, result.isPassed() ? "passed" : "failed",
+            TimeUnit.NANOSECONDS.toMillis(duration));
+        return new GateOutcome(type, result, blocking, false, duration);
+    }
+
+    /**
+     * Gates that need no plugin. They depend on the run rather than the commit, so they
+     * are not memoized.
+     */
+    private static GateResult builtIn(String subject,
+                                      String type,
+                                      boolean blocking,
+                                      List<String> testStages,
+                                      PipelineContext context) {
+        if ("test-passed".equals(type)) {
+            if (testStages.isEmpty()) {
+                return GateResult.fail("No test stage runs before " + subject);
+            }
+            for (String testStage : testStages) {
+                StageResult result = context.getStageResults().get(testStage);
+                if (result == null) {
+                    return GateResult.fail("Test stage " + testStage + " has not run");
+                }
+                if (!result.isSuccess()) {
+                    return GateResult.fail("Tests failed in " + testStage);
+                }
+            }
+            return GateResult.pass("Tests passed in " + String.join(", ", testStages));
+        }
+        String message = "No gate plugin for '" + type + "'";
+        return blocking ? GateResult.fail(message) : GateResult.warn(message + ", skipped");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> effectiveConfig(GateDefinition gate, PipelineContext context) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        if (configLoader != null) {
+            Object gates = configLoader.getConfigFile(context.getConfigState(), "promote.yml").get("gates");
+            if (gates instanceof Map<?, ?> defaults && defaults.get(gate.type()) instanceof Map<?, ?> values) {
+                config.putAll((Map<String, Object>) values);
+            }
+        }
+        config.putAll(gate.params());
+        return config;
+    }
+
+    static String cacheKey(String commit, String type, Map<String, Object> config) {
+        return commit + '\u0000' + type + '\u0000' + canonical(config);
+    }
+
+    private static String canonical(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, String> sorted = new TreeMap<>();
+            map.forEach((k, v) -> sorted.put(String.valueOf(k), canonical(v)));
+            return sorted.toString();
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(GateEngine::canonical).toList().toString();
+        }
+        return String.valueOf(value);
+    }
+}
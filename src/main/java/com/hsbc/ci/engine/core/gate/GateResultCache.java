@@ -0,0 +1,57 @@
+package com.hsbc.ci.engine.core.gate;
+
+import com.hsbc.ci.engine.core.plugin.GateResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded LRU of gate results with a time to live. Keys combine the commit, the gate type
+ * and the effective gate config, so a build promoted through several environments
+ * evaluates each gate once.
+ */
+final class GateResultCache {
+
+    private record Entry(GateResult result, long expiresAtNanos) {
+    }
+
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    GateResultCache(int maxEntries, long ttlNanos) {
+        this(maxEntries, ttlNanos, System::nanoTime);
+    }
+
+    GateResultCache(int maxEntries, long ttlNanos, LongSupplier clock) {
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized GateResult get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.getAsLong() - entry.expiresAtNanos() >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.result();
+    }
+
+    synchronized void put(String key, GateResult result) {
+        entries.put(key, new Entry(result, clock.getAsLong() + ttlNanos));
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,421 @@
+package com.hsbc.ci.engine.core.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.StageResult;
+
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, fsync'd journal of pipeline run events, used to resume a failed or
+ * interrupted run from its first incomplete stage.
+ *
+ * Each run has its own segment, {@code <runId>.journal} in the journal directory, so
+ * resuming a run reads only that run's records. The most recent {@code keep} segments
+ * are kept; older ones are deleted when a new run starts.
+ *
+ * Each record is {@code [int length][int crc32c][body]}, so a torn write at the tail
+ * after a crash is detected and ignored on replay. A run whose segment cannot be written
+ * is logged and continues without a journal; it just cannot be resumed.
+ */
+@Component
+public class RunJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(RunJournal.class);
+
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final int DEFAULT_KEEP = 100;
+
+    private static final Pattern RUN_ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+    static final byte RUN_STARTED = 1;
+    static final byte RUN_RESUMED = 2;
+    static final byte STAGE_STARTED = 3;
+    static final byte STAGE_FINISHED = 4;
+    static final byte RUN_FINISHED = 5;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int READ_BUFFER_BYTES = 1024 * 1024;
+
+    private final Path directory;
+    private final int keep;
+    private final Map<String, FileOutputStream> outputs = new HashMap<>();
+    private final Set<String> failedRuns = new HashSet<>();
+
+    public RunJournal() {
+        this(null, DEFAULT_KEEP);
+    }
+
+    public RunJournal(Path directory) {
+        this(directory, DEFAULT_KEEP);
+    }
+
+    public RunJournal(Path directory, int keep) {
+        if (keep < 1) {
+            throw new IllegalArgumentException("keep must be at least 1");
+        }
+        this.directory = directory;
+        this.keep = keep;
+    }
+
+    @Autowired
+    public RunJournal(ConfigurationLoader configLoader) {
+        this(directoryOf(configLoader), keepOf(configLoader));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> settings(ConfigurationLoader configLoader) {
+        Object settings = configLoader.getEngineConfig().get("journal");
+        return settings instanceof Map<?, ?> map ? (Map<String, Object>) map : Map.of();
+    }
+
+    private static Path directoryOf(ConfigurationLoader configLoader) {
+        Map<String, Object> settings = settings(configLoader);
+        if (!Boolean.TRUE.equals(settings.get("enabled"))) {
+            return null;
+        }
+        return Paths.get((String) settings.getOrDefault("directory", ".ci-engine/journal"));
+    }
+
+    private static int keepOf(ConfigurationLoader configLoader) {
+        return settings(configLoader).get("keep") instanceof Number keep ? keep.intValue() : DEFAULT_KEEP;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    public void runStarted(PipelineContext context) {
+        prune();
+        append(RUN_STARTED, context.getRunId(), out -> {
+            writeString(out, context.getPipelineName());
+            writeString(out, context.getEnvironment());
+            writeMap(out, context.getVariables());
+        });
+    }
+
+    public void runResumed(PipelineContext context) {
+        append(RUN_RESUMED, context.getRunId(), out -> { });
+    }
+
+    public void stageStarted(String runId, String stageName) {
+        append(STAGE_STARTED, runId, out -> writeString(out, stageName));
+    }
+
+    public void stageFinished(String runId, String stageName, StageResult result) {
+        append(STAGE_FINISHED, runId, out -> {
+            writeString(out, stageName);
+            writeString(out, result.getStageName());
+            out.writeBoolean(result.isSuccess());
+            writeString(out, result.getOutput());
+            out.writeLong(result.getDurationMs());
+            writeMap(out, result.getMetadata());
+        });
+    }
+
+    public void runFinished(String runId, boolean success, String error) {
+        append(RUN_FINISHED, runId, out -> {
+            out.writeBoolean(success);
+            writeString(out, error);
+        });
+        synchronized (this) {
+            closeSegment(runId);
+            failedRuns.remove(runId);
+        }
+    }
+
+    public Optional<RunState> replay(String runId) {
+        if (directory == null || !RUN_ID.matcher(runId).matches()) {
+            return Optional.empty();
+        }
+        Map<String, RunState> runs = new LinkedHashMap<>();
+        read(segment(runId), runs, runId);
+        return Optional.ofNullable(runs.get(runId));
+    }
+
+    public Map<String, RunState> replayAll() {
+        Map<String, RunState> runs = new LinkedHashMap<>();
+        for (Path segment : segments()) {
+            read(segment, runs, null);
+        }
+        return runs;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (String runId : List.copyOf(outputs.keySet())) {
+            closeSegment(runId);
+        }
+    }
+
+    Path segment(String runId) {
+        return directory.resolve(runId + SEGMENT_SUFFIX);
+    }
+
+    private void closeSegment(String runId) {
+        FileOutputStream output = outputs.remove(runId);
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                log.warn("Failed to close run journal of {}: {}", runId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Segments oldest first.
+     */
+    private List<Path> segments() {
+        List<Path> segments = new ArrayList<>();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            files.forEach(segments::add);
+        } catch (IOException e) {
+            log.warn("Failed to list run journal {}: {}", directory, e.getMessage());
+        }
+        Map<Path, FileTime> modified = new HashMap<>();
+        for (Path segment : segments) {
+            try {
+                modified.put(segment, Files.getLastModifiedTime(segment));
+            } catch (IOException e) {
+                modified.put(segment, FileTime.fromMillis(0));
+            }
+        }
+        segments.sort(Comparator.comparing(modified::get));
+        return segments;
+    }
+
+    /**
+     * Deletes the oldest segments so that, with the run about to start, {@code keep} remain.
+     */
+    private synchronized void prune() {
+        List<Path> segments = segments();
+        for (int i = 0; i <= segments.size() - keep; i++) {
+            Path segment = segments.get(i);
+            String runId = segment.getFileName().toString().replace(SEGMENT_SUFFIX, "");
+            if (outputs.containsKey(runId)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                log.warn("Failed to delete run journal segment {}: {}", segment, e.getMessage());
+            }
+        }
+    }
+
+    private interface BodyWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private synchronized void append(byte type, String runId, BodyWriter writer) {
+        if (directory == null || failedRuns.contains(runId)) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeLong(System.currentTimeMillis());
+            writeString(out, runId);
+            writer.write(out);
+            byte[] body = bytes.toByteArray();
+
+            CRC32C crc = new CRC32C();
+            crc.update(body);
+            ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + body.length);
+            record.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+
+            // Stream I/O rather than a FileChannel: interrupting a cancelled stage's thread
+            // must not close the journal under every other run
+            FileOutputStream journal = output(runId);
+            journal.write(record.array());
+            journal.getFD().sync();
+        } catch (IOException e) {
+            log.warn("Failed to append to run journal of {}, run {} continues without it and cannot be resumed: {}",
+                directory, runId, e.getMessage());
+            failedRuns.add(runId);
+            closeSegment(runId);
+        }
+    }
+
+    private FileOutputStream output(String runId) throws IOException {
+        FileOutputStream output = outputs.get(runId);
+        if (output == null) {
+            if (!RUN_ID.matcher(runId).matches()) {
+                throw new IOException("Run id '" + runId + "' is not a valid segment name");
+            }
+            Files.createDirectories(directory);
+            output = new FileOutputStream(segment(runId).toFile(), true);
+            outputs.put(runId, output);
+        }
+        return output;
+    }
+
+    private void read(Path file, Map<String, RunState> runs, String onlyRunId) {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+            byte[] body = new byte[4096];
+            CRC32C crc = new CRC32C();
+            long records = 0;
+            buffer.flip();
+            while (true) {
+                if (buffer.remaining() < HEADER_BYTES && !fill(in, buffer, HEADER_BYTES)) {
+                    break;
+                }
+                int length = buffer.getInt(buffer.position());
+                int checksum = buffer.getInt(buffer.position() + 4);
+                if (length < 0) {
+                    log.warn("Corrupt run journal record at #{}, ignoring the rest", records);
+                    break;
+                }
+                if (buffer.capacity() < HEADER_BYTES + length) {
+                    ByteBuffer larger = ByteBuffer.allocateDirect(HEADER_BYTES + length);
+                    larger.put(buffer).flip();
+                    buffer = larger;
+                }
+                if (buffer.remaining() < HEADER_BYTES + length
+                        && !fill(in, buffer, HEADER_BYTES + length)) {
+                    log.warn("Truncated run journal record at #{}, ignoring it", records);
+                    break;
+                }
+                buffer.position(buffer.position() + HEADER_BYTES);
+                if (body.length < length) {
+                    body = new byte[length];
+                }
+                buffer.get(body, 0, length);
+                crc.reset();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Run journal checksum mismatch at #{}, ignoring the rest", records);
+                    break;
+                }
+                apply(ByteBuffer.wrap(body, 0, length), runs, onlyRunId);
+                records++;
+            }
+            log.debug("Replayed {} journal records from {}", records, file.getFileName());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read run journal " + file, e);
+        }
+    }
+
+    private static boolean fill(FileChannel in, ByteBuffer buffer, int needed) throws IOException {
+        buffer.compact();
+        try {
+            while (buffer.position() < needed) {
+                if (in.read(buffer) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            buffer.flip();
+        }
+    }
+
+    private static void apply(ByteBuffer record, Map<String, RunState> runs, String onlyRunId) {
+        byte type = record.get();
+        record.getLong();
+        String runId = readString(record);
+        if (onlyRunId != null && !onlyRunId.equals(runId)) {
+            return;
+        }
+        RunState state = runs.computeIfAbsent(runId, RunState::new);
+        switch (type) {
+            case RUN_STARTED -> state.started(readString(record), readString(record), readMap(record));
+            case RUN_RESUMED -> state.resumed();
+            case STAGE_STARTED -> state.stageStarted(readString(record));
+            case STAGE_FINISHED -> {
+                String stageName = readString(record);
+                StageResult result = StageResult.builder()
+                    .stageName(readString(record))
+                    .success(record.get() != 0)
+                    .output(readString(record))
+                    .durationMs(record.getLong())
+                    .metadata(readMap(record))
+                    .build();
+                state.stageFinished(stageName, result);
+            }
+            case RUN_FINISHED -> state.finished(record.get() != 0, readString(record));
+            default -> log.warn("Unknown run journal record type {}", type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        if (map == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static Map<String, String> readMap(ByteBuffer in) {
+        int size = in.getInt();
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+}
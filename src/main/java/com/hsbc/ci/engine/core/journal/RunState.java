@@ -0,0 +1,84 @@
+package com.hsbc.ci.engine.core.journal;
+
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.StageResult;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * State of one pipeline run as rebuilt from the journal.
+ */
+public class RunState {
+    private final String runId;
+    private String pipelineName;
+    private String environment;
+    private final Map<String, String> variables = new HashMap<>();
+    private final Set<String> startedStages = new LinkedHashSet<>();
+    private final Map<String, StageResult> finishedStages = new LinkedHashMap<>();
+    private boolean finished;
+    private boolean success;
+    private String error;
+
+    RunState(String runId) {
+        this.runId = runId;
+    }
+
+    public String getRunId() { return runId; }
+    public String getPipelineName() { return pipelineName; }
+    public String getEnvironment() { return environment; }
+    public Map<String, String> getVariables() { return variables; }
+    public Set<String> getStartedStages() { return startedStages; }
+    public Map<String, StageResult> getFinishedStages() { return finishedStages; }
+    public boolean isFinished() { return finished; }
+    public boolean isSuccess() { return success; }
+    public String getError() { return error; }
+
+    void started(String pipelineName, String environment, Map<String, String> variables) {
+        this.pipelineName = pipelineName;
+        this.environment = environment;
+        this.variables.putAll(variables);
+        this.finished = false;
+    }
+
+    void resumed() {
+        this.finished = false;
+    }
+
+    void stageStarted(String stageName) {
+        startedStages.add(stageName);
+    }
+
+    void stageFinished(String stageName, StageResult result) {
+        finishedStages.put(stageName, result);
+    }
+
+    void finished(boolean success, String error) {
+        this.finished = true;
+        this.success = success;
+        this.error = error;
+    }
+
+    /**
+     * Rebuilds a context that carries the successful stage results forward so the
+     * orchestrator continues from the first stage that did not complete.
+     */
+    public PipelineContext toContext(boolean dryRun) {
+        PipelineContext context = PipelineContext.builder()
+            .runId(runId)
+            .pipelineName(pipelineName)
+            .environment(environment)
+            .dryRun(dryRun)
+            .variables(new HashMap<>(variables))
+            .build();
+        for (Map.Entry<String, StageResult> entry : finishedStages.entrySet()) {
+            if (entry.getValue().isSuccess()) {
+                context.addStageResult(entry.getKey(), entry.getValue());
+            }
+        }
+        return context;
+    }
+}
@@ -0,0 +1,239 @@
+package com.hsbc.ci.engine.core.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hsbc.ci.engine.core.cache.StageCache;
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.event.PipelineEvent;
+import com.hsbc.ci.engine.core.event.PipelineEventBus;
+import com.hsbc.ci.engine.core.event.PipelineEventType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency histograms for stages, plugin hooks, config loads and process spawns, plus the
+ * stage cache's hit, miss, store and eviction counts since the engine started.
+ *
+ * Stage and plugin timings arrive through the {@link PipelineEventBus}. With
+ * {@code metrics.directory} set in ci-engine.yml, histograms are merged with the state
+ * saved by earlier runs and written back after every run, together with a Prometheus
+ * text file ({@code ci-engine.prom}) for the node exporter's textfile collector.
+ */
+@Component
+public class EngineMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(EngineMetrics.class);
+
+    public static final String STAGE_DURATION = "ci_engine_stage_duration_seconds";
+    public static final String PLUGIN_DURATION = "ci_engine_plugin_duration_seconds";
+    public static final String CONFIG_LOAD_DURATION = "ci_engine_config_load_duration_seconds";
+    public static final String PROCESS_SPAWN_DURATION = "ci_engine_process_spawn_duration_seconds";
+    public static final String STAGE_CACHE_HITS = "ci_engine_stage_cache_hits_total";
+    public static final String STAGE_CACHE_MISSES = "ci_engine_stage_cache_misses_total";
+    public static final String STAGE_CACHE_STORES = "ci_engine_stage_cache_stores_total";
+    public static final String STAGE_CACHE_EVICTIONS = "ci_engine_stage_cache_evictions_total";
+
+    static final String STATE_FILE = "histograms.state";
+    static final String PROMETHEUS_FILE = "ci-engine.prom";
+
+    private static final Map<String, String> LABELS = Map.of(
+        STAGE_DURATION, "stage",
+        PLUGIN_DURATION, "plugin",
+        CONFIG_LOAD_DURATION, "file",
+        PROCESS_SPAWN_DURATION, "command");
+
+    private final Map<String, Map<String, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+    private final Path directory;
+    private int httpPort;
+    private ConfigurationLoader configLoader;
+    private StageCache stageCache;
+
+    public EngineMetrics() {
+        this.directory = null;
+    }
+
+    public EngineMetrics(Path directory) {
+        this.directory = directory;
+        if (directory != null) {
+            loadState();
+        }
+    }
+
+    @Autowired
+    public EngineMetrics(ConfigurationLoader configLoader, PipelineEventBus eventBus) {
+        this(resolveDirectory(configLoader));
+        this.configLoader = configLoader;
+        this.httpPort = resolveHttpPort(configLoader);
+        eventBus.subscribe(this::onEvent);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Path resolveDirectory(ConfigurationLoader configLoader) {
+        Map<String, Object> settings = (Map<String, Object>) configLoader.getEngineConfig().get("metrics");
+        if (settings == null || settings.get("directory") == null) {
+            return null;
+        }
+        return Paths.get((String) settings.get("directory"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int resolveHttpPort(ConfigurationLoader configLoader) {
+        Map<String, Object> settings = (Map<String, Object>) configLoader.getEngineConfig().get("metrics");
+        Object port = settings != null ? settings.get("port") : null;
+        return port instanceof Number number ? number.intValue() : 0;
+    }
+
+    @Autowired(required = false)
+    public void setStageCache(StageCache stageCache) {
+        this.stageCache = stageCache;
+    }
+
+    /**
+     * Port of the daemon's local metrics endpoint ({@code metrics.port}), or 0 when disabled.
+     */
+    public int getHttpPort() {
+        return httpPort;
+    }
+
+    public void record(String metric, String label, long nanos) {
+        histograms.computeIfAbsent(metric, m -> new ConcurrentHashMap<>())
+            .computeIfAbsent(label, l -> new LatencyHistogram())
+            .record(nanos);
+    }
+
+    public LatencyHistogram histogram(String metric, String label) {
+        Map<String, LatencyHistogram> byLabel = histograms.get(metric);
+        return byLabel != null ? byLabel.get(label) : null;
+    }
+
+    void onEvent(PipelineEvent event) {
+        if (event.getType() == PipelineEventType.STAGE_FINISHED && event.getStageType() != null) {
+            record(STAGE_DURATION, event.getStageType(), event.getDurationNanos());
+        } else if (event.getType() == PipelineEventType.PLUGIN_FINISHED) {
+            record(PLUGIN_DURATION, event.getName(), event.getDurationNanos());
+        } else if (event.getType() == PipelineEventType.RUN_FINISHED && directory != null) {
+            flush();
+        }
+    }
+
+    /**
+     * Histograms by metric and label, including the config loader's own load timings.
+     */
+    public Map<String, Map<String, LatencyHistogram>> snapshot() {
+        Map<String, Map<String, LatencyHistogram>> result = new TreeMap<>();
+        histograms.forEach((metric, byLabel) -> result.put(metric, new TreeMap<>(byLabel)));
+        if (configLoader != null && !configLoader.getLoadTimes().isEmpty()) {
+            Map<String, LatencyHistogram> loads = result.computeIfAbsent(CONFIG_LOAD_DURATION, m -> new TreeMap<>());
+            configLoader.getLoadTimes().forEach((file, loaded) -> {
+                LatencyHistogram merged = new LatencyHistogram();
+                merged.merge(loaded);
+                LatencyHistogram saved = loads.get(file);
+                if (saved != null) {
+                    merged.merge(saved);
+                }
+                loads.put(file, merged);
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Counters by metric; empty when the stage cache is disabled.
+     */
+    public Map<String, Long> counters() {
+        Map<String, Long> result = new TreeMap<>();
+        if (stageCache != null && stageCache.isEnabled()) {
+            result.put(STAGE_CACHE_HITS, stageCache.getHits());
+            result.put(STAGE_CACHE_MISSES, stageCache.getMisses());
+            result.put(STAGE_CACHE_STORES, stageCache.getStores());
+            result.put(STAGE_CACHE_EVICTIONS, stageCache.getEvictions());
+        }
+        return result;
+    }
+
+    public String toPrometheus() {
+        return PrometheusFormat.render(snapshot(), LABELS) + PrometheusFormat.renderCounters(counters());
+    }
+
+    /**
+     * Writes the merged histogram state and the Prometheus text file. Both are replaced atomically.
+     */
+    public synchronized void flush() {
+        if (directory == null) {
+            return;
+        }
+        Map<String, Map<String, LatencyHistogram>> snapshot = snapshot();
+        try {
+            Files.createDirectories(directory);
+            writeAtomically(directory.resolve(STATE_FILE), encodeState(snapshot));
+            writeAtomically(directory.resolve(PROMETHEUS_FILE),
+                PrometheusFormat.render(snapshot, LABELS) + PrometheusFormat.renderCounters(counters()));
+        } catch (IOException e) {
+            log.warn("Failed to write metrics to {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private static void writeAtomically(Path target, String content) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(tmp, content, StandardCharsets.UTF_8);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * One line per histogram: {@code metric label count sum max bucket:count...}.
+     */
+    static String encodeState(Map<String, Map<String, LatencyHistogram>> snapshot) {
+        StringBuilder out = new StringBuilder();
+        snapshot.forEach((metric, byLabel) -> byLabel.forEach((label, histogram) -> {
+            out.append(metric).append(' ').append(label.replace(' ', '_'))
+                .append(' ').append(histogram.getCount())
+                .append(' ').append(histogram.getSum())
+                .append(' ').append(histogram.getMax());
+            for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+                long bucketCount = histogram.getBucketCount(i);
+                if (bucketCount != 0) {
+                    out.append(' ').append(i).append(':').append(bucketCount);
+                }
+            }
+            out.append('\n');
+        }));
+        return out.toString();
+    }
+
+    private void loadState() {
+        Path file = directory.resolve(STATE_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] parts = line.split(" ");
+                if (parts.length < 5) {
+                    continue;
+                }
+                LatencyHistogram histogram = histograms.computeIfAbsent(parts[0], m -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(parts[1], l -> new LatencyHistogram());
+                histogram.restoreTotals(Long.parseLong(parts[2]), Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+                for (int i = 5; i < parts.length; i++) {
+                    int colon = parts[i].indexOf(':');
+                    histogram.restore(Integer.parseInt(parts[i].substring(0, colon)),
+                        Long.parseLong(parts[i].substring(colon + 1)));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring corrupt metrics state {}: {}", file, e.getMessage());
+            histograms.clear();
+        }
+    }
+}
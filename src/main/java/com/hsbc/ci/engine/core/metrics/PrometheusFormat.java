@@ -0,0 +1,56 @@
+package com.hsbc.ci.engine.core.metrics;
+
+import java.util.Map;
+
+/**
+ * Renders histograms in the Prometheus text exposition format, as summaries with
+ * p50/p95/p99 quantiles plus a {@code _max} gauge, in seconds, and plain counters.
+ */
+final class PrometheusFormat {
+
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private PrometheusFormat() {
+    }
+
+    static String render(Map<String, Map<String, LatencyHistogram>> snapshot, Map<String, String> labelNames) {
+        StringBuilder out = new StringBuilder();
+        snapshot.forEach((metric, byLabel) -> {
+            String labelName = labelNames.getOrDefault(metric, "name");
+            out.append("# TYPE ").append(metric).append(" summary\n");
+            byLabel.forEach((label, histogram) -> {
+                String labels = labelName + "=\"" + escape(label) + "\"";
+                for (double quantile : QUANTILES) {
+                    out.append(metric).append('{').append(labels)
+                        .append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(histogram.percentile(quantile))).append('\n');
+                }
+                out.append(metric).append("_sum{").append(labels).append("} ")
+                    .append(seconds(histogram.getSum())).append('\n');
+                out.append(metric).append("_count{").append(labels).append("} ")
+                    .append(histogram.getCount()).append('\n');
+            });
+            out.append("# TYPE ").append(metric).append("_max gauge\n");
+            byLabel.forEach((label, histogram) ->
+                out.append(metric).append("_max{").append(labelName).append("=\"").append(escape(label))
+                    .append("\"} ").append(seconds(histogram.getMax())).append('\n'));
+        });
+        return out.toString();
+    }
+
+    static String renderCounters(Map<String, Long> counters) {
+        StringBuilder out = new StringBuilder();
+        counters.forEach((metric, value) ->
+            out.append("# TYPE ").append(metric).append(" counter\n")
+                .append(metric).append(' ').append(value).append('\n'));
+        return out.toString();
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
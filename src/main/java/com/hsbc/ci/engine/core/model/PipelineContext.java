@@ -1,27 +1,55 @@
 package com.hsbc.ci.engine.core.model;
 
+import com.hsbc.ci.engine.core.config.ConfigState;
+
+import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PipelineContext {
+    private final String runId;
     private final String pipelineName;
     private final String environment;
     private final boolean dryRun;
     private final Map<String, String> variables = new HashMap<>();
-    private final Map<String, StageResult> stageResults = new HashMap<>();
+    private final Map<String, StageResult> stageResults = new ConcurrentHashMap<>();
+    private volatile Instant deadline;
+    private volatile boolean cancelled;
+    private volatile ConfigState configState;
 
     private PipelineContext(Builder builder) {
+        this.runId = builder.runId != null ? builder.runId : newRunId();
         this.pipelineName = builder.pipelineName;
         this.environment = builder.environment;
         this.dryRun = builder.dryRun;
         this.variables.putAll(builder.variables);
     }
 
+    public String getRunId() { return runId; }
     public String getPipelineName() { return pipelineName; }
     public String getEnvironment() { return environment; }
     public boolean isDryRun() { return dryRun; }
     public Map<String, String> getVariables() { return variables; }
     public Map<String, StageResult> getStageResults() { return stageResults; }
+    public Instant getDeadline() { return deadline; }
+    public boolean isCancelled() { return cancelled; }
+    public ConfigState getConfigState() { return configState; }
+
+    public void setDeadline(Instant deadline) {
+        this.deadline = deadline;
+    }
+
+    public void setConfigState(ConfigState configState) {
+        this.configState = configState;
+    }
+
+    public void cancel() {
+        this.cancelled = true;
+    }
     
     public void addVariable(String key, String value) {
         variables.put(key, value);
@@ -35,16 +63,39 @@ public class PipelineContext {
         return variables.get(key);
     }
 
+    /**
+     * Read-only view of the run for plugins: run id, pipeline, environment, variables,
+     * stage results and deadline, plus the given extra entries. Variables and stage
+     * results are live but cannot be modified.
+     */
+    public Map<String, Object> readOnlyView(Map<String, Object> extra) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("runId", runId);
+        view.put("pipeline", pipelineName);
+        view.put("environment", environment);
+        view.put("variables", Collections.unmodifiableMap(variables));
+        view.put("stageResults", Collections.unmodifiableMap(stageResults));
+        view.put("deadline", deadline);
+        view.putAll(extra);
+        return Collections.unmodifiableMap(view);
+    }
+
     public static Builder builder() {
         return new Builder();
     }
 
+    private static String newRunId() {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+    }
+
     public static class Builder {
+        private String runId;
         private String pipelineName;
         private String environment;
         private boolean dryRun;
         private Map<String, String> variables = new HashMap<>();
 
+        public Builder runId(String runId) { this.runId = runId; return this; }
         public Builder pipelineName(String pipelineName) { this.pipelineName = pipelineName; return this; }
         public Builder environment(String environment) { this.environment = environment; return this; }
         public Builder dryRun(boolean dryRun) { this.dryRun = dryRun; return this; }
@@ -8,6 +8,8 @@ public class StageResult {
     private final String output;
     private final long durationMs;
     private final Map<String, String> metadata;
+    private final String logTail;
+    private final String logFile;
 
     private StageResult(Builder builder) {
         this.stageName = builder.stageName;
@@ -15,6 +17,8 @@ public class StageResult {
         this.output = builder.output;
         this.durationMs = builder.durationMs;
         this.metadata = builder.metadata;
+        this.logTail = builder.logTail;
+        this.logFile = builder.logFile;
     }
 
     public String getStageName() { return stageName; }
@@ -22,6 +26,8 @@ public class StageResult {
     public String getOutput() { return output; }
     public long getDurationMs() { return durationMs; }
     public Map<String, String> getMetadata() { return metadata; }
+    public String getLogTail() { return logTail; }
+    public String getLogFile() { return logFile; }
 
     public static Builder builder() {
         return new Builder();
@@ -33,12 +39,16 @@ public class StageResult {
         private String output;
         private long durationMs;
         private Map<String, String> metadata;
+        private String logTail;
+        private String logFile;
 
         public Builder stageName(String stageName) { this.stageName = stageName; return this; }
         public Builder success(boolean success) { this.success = success; return this; }
         public Builder output(String output) { this.output = output; return this; }
         public Builder durationMs(long durationMs) { this.durationMs = durationMs; return this; }
         public Builder metadata(Map<String, String> metadata) { this.metadata = metadata; return this; }
+        public Builder logTail(String logTail) { this.logTail = logTail; return this; }
+        public Builder logFile(String logFile) { this.logFile = logFile; return this; }
 
         public StageResult build() {
             return new StageResult(this);
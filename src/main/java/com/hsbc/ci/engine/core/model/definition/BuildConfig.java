@@ -0,0 +1,14 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+import java.util.List;
+
+/**
+ * Compiled build.yml: the projects to build, with project settings falling back to
+ * {@code build.defaults} and tool settings already applied.
+ */
+public record BuildConfig(String defaultTool, List<BuildProject> projects) {
+
+    public BuildConfig {
+        projects = List.copyOf(projects);
+    }
+}
@@ -0,0 +1,30 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A project from build.yml. {@code goals} is null when neither the project nor its
+ * tool declares any, leaving the choice to the caller. {@code options} are the extra
+ * command-line options of the project's tool, and {@code dependsOn} names projects
+ * that must build successfully first.
+ */
+public record BuildProject(
+        String name,
+        String tool,
+        String pom,
+        String buildFile,
+        String goals,
+        String options,
+        boolean skipTests,
+        boolean parallel,
+        String jvmOpts,
+        Duration timeout,
+        List<String> modules,
+        List<String> dependsOn) {
+
+    public BuildProject {
+        modules = List.copyOf(modules);
+        dependsOn = List.copyOf(dependsOn);
+    }
+}
@@ -0,0 +1,10 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+import java.util.List;
+
+public record BuildSettings(String tool, List<String> goals, String jvmOpts) implements StageSettings {
+
+    public BuildSettings {
+        goals = List.copyOf(goals);
+    }
+}
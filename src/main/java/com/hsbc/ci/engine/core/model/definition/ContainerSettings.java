@@ -0,0 +1,15 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+import java.util.List;
+
+public record ContainerSettings(
+        String dockerfile,
+        String image,
+        String registry,
+        List<String> tags,
+        boolean push) implements StageSettings {
+
+    public ContainerSettings {
+        tags = List.copyOf(tags);
+    }
+}
@@ -0,0 +1,30 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of a deploy stage. A stage with {@code services} deploys the whole fleet,
+ * at most {@code concurrency} services at a time. {@code serviceTimeout} bounds each
+ * service's rollout (null for the default); the stage timeout bounds the whole fleet.
+ */
+public record DeploySettings(
+        String target,
+        String namespace,
+        String cluster,
+        String image,
+        String strategy,
+        boolean autoPromote,
+        boolean rollbackOnFailure,
+        List<FleetService> services,
+        int concurrency,
+        Duration serviceTimeout) implements StageSettings {
+
+    public DeploySettings {
+        services = services != null ? List.copyOf(services) : List.of();
+    }
+
+    public boolean isFleet() {
+        return !services.isEmpty();
+    }
+}
@@ -0,0 +1,14 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+import java.util.List;
+
+/**
+ * One service of a fleet deploy. {@code image} is null when the service takes the
+ * image of its deploy stage.
+ */
+public record FleetService(String name, List<String> dependsOn, String image) {
+
+    public FleetService {
+        dependsOn = List.copyOf(dependsOn);
+    }
+}
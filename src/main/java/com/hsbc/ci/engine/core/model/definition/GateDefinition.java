@@ -0,0 +1,12 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public record GateDefinition(String type, Map<String, Object> params) {
+
+    public GateDefinition {
+        params = Collections.unmodifiableMap(new LinkedHashMap<>(params));
+    }
+}
@@ -0,0 +1,31 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A pipeline compiled from its YAML definition: validated, with defaults from build.yml
+ * and deploy.yml already resolved. Immutable, so one instance serves every run.
+ */
+public record PipelineDefinition(
+        String name,
+        String version,
+        String description,
+        Duration timeout,
+        List<StageDefinition> stages,
+        List<String> environments) {
+
+    public PipelineDefinition {
+        stages = List.copyOf(stages);
+        environments = List.copyOf(environments);
+    }
+
+    public StageDefinition stage(String stageName) {
+        for (StageDefinition stage : stages) {
+            if (stage.name().equals(stageName)) {
+                return stage;
+            }
+        }
+        return null;
+    }
+}
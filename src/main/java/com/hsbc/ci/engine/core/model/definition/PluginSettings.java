@@ -0,0 +1,12 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public record PluginSettings(String pluginName, Map<String, Object> config) implements StageSettings {
+
+    public PluginSettings {
+        config = Collections.unmodifiableMap(new LinkedHashMap<>(config));
+    }
+}
@@ -0,0 +1,56 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One compiled stage. {@code dependsOn} is fully resolved (implicit ordering included),
+ * {@code settings} holds the typed, defaulted configuration for the stage type, and
+ * {@code source} is the original YAML entry, kept for plugins and per-stage cache policies.
+ */
+public record StageDefinition(
+        String name,
+        String type,
+        String environment,
+        List<String> dependsOn,
+        Duration timeout,
+        List<GateDefinition> gates,
+        Map<String, String> env,
+        StageSettings settings,
+        Map<String, Object> source) {
+
+    public StageDefinition {
+        dependsOn = List.copyOf(dependsOn);
+        gates = List.copyOf(gates);
+        env = Map.copyOf(env);
+    }
+
+    public BuildSettings build() {
+        return settings(BuildSettings.class);
+    }
+
+    public TestSettings test() {
+        return settings(TestSettings.class);
+    }
+
+    public ContainerSettings container() {
+        return settings(ContainerSettings.class);
+    }
+
+    public DeploySettings deploy() {
+        return settings(DeploySettings.class);
+    }
+
+    public PluginSettings plugin() {
+        return settings(PluginSettings.class);
+    }
+
+    private <T extends StageSettings> T settings(Class<T> kind) {
+        if (!kind.isInstance(settings)) {
+            throw new IllegalStateException("Stage '" + name + "' of type " + type
+                + " has no " + kind.getSimpleName());
+        }
+        return kind.cast(settings);
+    }
+}
@@ -0,0 +1,8 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+/**
+ * Typed configuration of a stage, one implementation per stage type.
+ */
+public sealed interface StageSettings
+        permits BuildSettings, TestSettings, ContainerSettings, DeploySettings, PluginSettings {
+}
@@ -0,0 +1,9 @@
+package com.hsbc.ci.engine.core.model.definition;
+
+/**
+ * @param jvmOpts same default as the build stage's, so a project's build and tests lease
+ *                the same warm daemon
+ */
+public record TestSettings(String testType, String scope, Integer coverageMin, String jvmOpts)
+        implements StageSettings {
+}
@@ -5,44 +5,96 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.hsbc.ci.engine.core.config.ConfigValidationException;
 import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.event.PipelineEventBus;
+import com.hsbc.ci.engine.core.event.PipelineEventType;
+import com.hsbc.ci.engine.core.gate.GateEngine;
+import com.hsbc.ci.engine.core.journal.RunJournal;
 import com.hsbc.ci.engine.core.model.PipelineContext;
 import com.hsbc.ci.engine.core.model.PipelineResult;
 import com.hsbc.ci.engine.core.model.StageResult;
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+import com.hsbc.ci.engine.core.model.definition.PluginSettings;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.plugin.PluginHookRunner;
 import com.hsbc.ci.engine.core.plugin.PluginManager;
-import com.hsbc.ci.engine.core.plugin.StagePlugin;
+import com.hsbc.ci.engine.core.schedule.TaskScheduler;
 import com.hsbc.ci.engine.core.stages.StageExecutor;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class PipelineOrchestrator {
 
     private static final Logger log = LoggerFactory.getLogger(PipelineOrchestrator.class);
 
+    private static final Duration EVENT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+
     private ConfigurationLoader configLoader;
     private StageExecutor stageExecutor;
     private PluginManager pluginManager;
+    private RunJournal runJournal = new RunJournal();
+    private PipelineEventBus eventBus = new PipelineEventBus();
+    private PluginHookRunner hookRunner;
+    private GateEngine gateEngine;
+    private final Map<String, PipelineContext> activeRuns = new ConcurrentHashMap<>();
 
     public PipelineOrchestrator() {
     }
 
-    @Autowired
     public PipelineOrchestrator(ConfigurationLoader configLoader, 
                                 StageExecutor stageExecutor,
                                 PluginManager pluginManager) {
+        this(configLoader, stageExecutor, pluginManager, new RunJournal());
+    }
+
+    public PipelineOrchestrator(ConfigurationLoader configLoader,
+                                StageExecutor stageExecutor,
+                                PluginManager pluginManager,
+                                RunJournal runJournal) {
+        this(configLoader, stageExecutor, pluginManager, runJournal, new PipelineEventBus());
+    }
+
+    @Autowired
+    public PipelineOrchestrator(ConfigurationLoader configLoader,
+                                StageExecutor stageExecutor,
+                                PluginManager pluginManager,
+                                RunJournal runJournal,
+                                PipelineEventBus eventBus) {
         this.configLoader = configLoader;
         this.stageExecutor = stageExecutor;
         this.pluginManager = pluginManager;
+        this.runJournal = runJournal;
+        this.eventBus = eventBus;
+        this.hookRunner = new PluginHookRunner(pluginManager, eventBus);
+        this.gateEngine = new GateEngine(pluginManager, configLoader);
     }
 
     public PipelineResult execute(PipelineContext context) {
         String pipelineName = context.getPipelineName();
-        Map<String, Object> pipelineConfig = configLoader.getPipeline(pipelineName);
+        if (context.getConfigState() == null) {
+            context.setConfigState(configLoader.getState());
+        }
+        PipelineDefinition pipeline;
+        try {
+            pipeline = configLoader.getPipelineDefinition(pipelineName);
+        } catch (ConfigValidationException e) {
+            log.error("Invalid pipeline {}: {}", pipelineName, e.getMessage());
+            return PipelineResult.failed("Invalid pipeline: " + String.join("; ", e.getErrors()));
+        }
 
-        if (pipelineConfig == null) {
+        if (pipeline == null) {
             log.error("Pipeline not found: {}", pipelineName);
             return PipelineResult.failed("Pipeline not found: " + pipelineName);
         }
@@ -52,64 +104,237 @@ public class PipelineOrchestrator {
             return PipelineResult.success(context);
         }
 
-        log.info("Executing pipeline: {}", pipelineName);
+        log.info("Executing pipeline: {} (run {})", pipelineName, context.getRunId());
 
-        executePreStagePlugins(context);
-
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> stages = (List<Map<String, Object>>) pipelineConfig.get("stages");
+        Duration pipelineTimeout = getPipelineTimeout(pipeline);
+        if (pipelineTimeout != null && context.getDeadline() == null) {
+            context.setDeadline(Instant.now().plus(pipelineTimeout));
+        }
+        activeRuns.put(context.getRunId(), context);
+        long start = System.nanoTime();
+        eventBus.publish(PipelineEventType.RUN_STARTED, context.getRunId(), pipelineName, null, null, true, 0, null);
+        PipelineResult result = null;
+        try {
+            result = executeStages(pipeline, context);
+            return result;
+        } finally {
+            activeRuns.remove(context.getRunId());
+            eventBus.publish(PipelineEventType.RUN_FINISHED, context.getRunId(), pipelineName, null, null,
+                result != null && result.isSuccess(), System.nanoTime() - start,
+                result != null ? result.getError() : null);
+            // Listeners such as EngineMetrics flush on RUN_FINISHED; a CLI run exits right after this returns
+            if (!eventBus.drain(EVENT_DRAIN_TIMEOUT)) {
+                log.warn("Event listeners still busy {}s after run {} finished",
+                    EVENT_DRAIN_TIMEOUT.toSeconds(), context.getRunId());
+            }
+        }
+    }
 
-        if (stages == null) {
-            log.error("No stages defined in pipeline: {}", pipelineName);
-            return PipelineResult.failed("No stages defined in pipeline");
+    /**
+     * Cancels an active run: no further stages start and in-flight stages are
+     * interrupted, which kills their process trees. Returns false if the run is not active.
+     */
+    public boolean cancel(String runId) {
+        PipelineContext context = activeRuns.get(runId);
+        if (context == null) {
+            return false;
         }
+        log.info("Cancelling run {}", runId);
+        context.cancel();
+        stageExecutor.cancel(runId);
+        return true;
+    }
 
-        for (Map<String, Object> stageConfig : stages) {
-            String stageName = (String) stageConfig.get("name");
-            String stageType = (String) stageConfig.get("type");
+    public boolean isActive(String runId) {
+        return activeRuns.containsKey(runId);
+    }
 
-            log.info("Executing stage: {}", stageName);
+    private PipelineResult executeStages(PipelineDefinition pipeline, PipelineContext context) {
+        if (context.getStageResults().isEmpty()) {
+            runJournal.runStarted(context);
+        } else {
+            log.info("Resuming run {} after {} completed stages",
+                context.getRunId(), context.getStageResults().size());
+            runJournal.runResumed(context);
+        }
 
-            executeStagePlugins(stageName, context);
+        PluginHookRunner.Hooks hooks = new PluginHookRunner.Hooks(pluginManager.hookPlugins());
+        List<String> plugins = referencedPlugins(pipeline);
+        plugins.addAll(hooks.all());
+        pluginManager.preload(plugins);
+        executePreStagePlugins(hooks, context);
 
-            StageResult result = stageExecutor.execute(stageType, stageConfig, context);
-            context.addStageResult(stageName, result);
+        String failedStage;
+        if (isParallelStagesEnabled()) {
+            failedStage = executeParallel(pipeline, hooks, context);
+        } else {
+            failedStage = executeSequential(pipeline, hooks, context);
+        }
 
-            if (!result.isSuccess()) {
-                log.error("Stage failed: {}", stageName);
-                return PipelineResult.failed("Stage failed: " + stageName);
-            }
+        if (failedStage != null || context.isCancelled()) {
+            String error = context.isCancelled() ? "Pipeline cancelled" : "Stage failed: " + failedStage;
+            log.error(error);
+            runJournal.runFinished(context.getRunId(), false, error);
+            return PipelineResult.failed(error);
         }
 
-        executePostStagePlugins(context);
+        executePostStagePlugins(hooks, context);
 
-        log.info("Pipeline completed successfully: {}", pipelineName);
+        runJournal.runFinished(context.getRunId(), true, null);
+        log.info("Pipeline completed successfully: {}", pipeline.name());
         return PipelineResult.success(context);
     }
 
-    private void executePreStagePlugins(PipelineContext context) {
-        var plugins = pluginManager.listStagePlugins();
-        for (String pluginName : plugins) {
-            StagePlugin plugin = pluginManager.getStagePlugin(pluginName);
-            if (plugin != null) {
-                log.info("Running pre-stage plugin: {}", pluginName);
-                plugin.execute(new HashMap<>(), new HashMap<>());
+    private String executeSequential(PipelineDefinition pipeline, PluginHookRunner.Hooks hooks,
+                                     PipelineContext context) {
+        for (StageDefinition stage : pipeline.stages()) {
+            if (context.isCancelled()) {
+                return stage.name();
+            }
+            if (!executeStage(pipeline, stage, hooks, context)) {
+                return stage.name();
             }
         }
+        return null;
     }
 
-    private void executeStagePlugins(String stageName, PipelineContext context) {
-        log.debug("Stage plugins would run here for: {}", stageName);
+    private String executeParallel(PipelineDefinition pipeline, PluginHookRunner.Hooks hooks,
+                                   PipelineContext context) {
+        StageGraph graph = StageGraph.of(pipeline);
+        int maxParallel = Math.max(1, Math.min(getMaxParallelStages(), graph.size()));
+        log.info("Executing {} stages with up to {} in parallel", graph.size(), maxParallel);
+
+        List<String> names = graph.getStageNames();
+        List<List<Integer>> dependencies = names.stream()
+            .map(name -> graph.getDependencies(name).stream().map(names::indexOf).toList())
+            .toList();
+        try {
+            TaskScheduler.Summary<String> summary = new TaskScheduler<String>("pipeline-stage-", maxParallel,
+                TaskScheduler.FailurePolicy.CANCEL, name -> name).run(names, dependencies, (stageName, slot) -> {
+                    if (context.isCancelled()) {
+                        throw new CancellationException("Pipeline cancelled");
+                    }
+                    if (!executeStage(pipeline, pipeline.stage(stageName), hooks, context)) {
+                        throw new IllegalStateException("Stage failed: " + stageName);
+                    }
+                    return "completed";
+                });
+            return summary.failed().stream().map(TaskScheduler.Outcome::name).findFirst().orElse(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        } catch (IllegalStateException e) {
+            log.error("Stage execution error: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            return "unknown";
+        }
     }
 
-    private void executePostStagePlugins(PipelineContext context) {
-        var plugins = pluginManager.listStagePlugins();
-        for (String pluginName : plugins) {
-            StagePlugin plugin = pluginManager.getStagePlugin(pluginName);
-            if (plugin != null) {
-                log.info("Running post-stage plugin: {}", pluginName);
-                plugin.execute(new HashMap<>(), new HashMap<>());
+    private boolean executeStage(PipelineDefinition pipeline, StageDefinition stage, PluginHookRunner.Hooks hooks,
+                                 PipelineContext context) {
+        String stageName = stage.name();
+        StageResult previous = context.getStageResults().get(stageName);
+        if (previous != null && previous.isSuccess()) {
+            log.info("Skipping stage completed in an earlier attempt: {}", stageName);
+            return true;
+        }
+
+        log.info("Executing stage: {}", stageName);
+        runJournal.stageStarted(context.getRunId(), stageName);
+
+        executeStagePlugins(hooks, stageName, context);
+
+        StageResult result = stageExecutor.execute(stage, context);
+        context.addStageResult(stageName, result);
+        if (result.isSuccess() && !stage.gates().isEmpty()) {
+            result = applyGates(pipeline, stage, result, context);
+            context.addStageResult(stageName, result);
+        }
+        runJournal.stageFinished(context.getRunId(), stageName, result);
+        return result.isSuccess();
+    }
+
+    /**
+     * Evaluates a successful stage's gates; a blocking gate failure fails the stage.
+     */
+    private StageResult applyGates(PipelineDefinition pipeline, StageDefinition stage, StageResult result,
+                                   PipelineContext context) {
+        GateEngine.GateEvaluation evaluation =
+            gateEngine.evaluate(stage.name(), stage.gates(), testStagesUpTo(pipeline, stage), context);
+        if (evaluation.isPassed()) {
+            return result;
+        }
+        GateEngine.GateOutcome blockedBy = evaluation.blockedBy();
+        return StageResult.builder()
+            .stageName(result.getStageName())
+            .success(false)
+            .output("Gate " + blockedBy.type() + " failed: " + blockedBy.result().getMessage())
+            .durationMs(result.getDurationMs())
+            .metadata(Map.of("gate", blockedBy.type()))
+            .logTail(result.getLogTail())
+            .logFile(result.getLogFile())
+            .build();
+    }
+
+    private Duration getPipelineTimeout(PipelineDefinition pipeline) {
+        if (pipeline.timeout() != null) {
+            return pipeline.timeout();
+        }
+        Object value = configLoader.getGlobalSettings().get("timeout");
+        return value instanceof Number seconds ? Duration.ofSeconds(seconds.longValue()) : null;
+    }
+
+    private boolean isParallelStagesEnabled() {
+        return Boolean.TRUE.equals(configLoader.getGlobalSettings().get("parallelStages"));
+    }
+
+    private int getMaxParallelStages() {
+        Object value = configLoader.getGlobalSettings().get("maxParallelStages");
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The test stages a stage's {@code test-passed} gate checks: the stage itself if it is
+     * one, and every test stage it depends on, directly or not.
+     */
+    private static List<String> testStagesUpTo(PipelineDefinition pipeline, StageDefinition stage) {
+        Set<String> seen = new LinkedHashSet<>();
+        Deque<StageDefinition> pending = new ArrayDeque<>(List.of(stage));
+        List<String> testStages = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            StageDefinition next = pending.poll();
+            if (!seen.add(next.name())) {
+                continue;
+            }
+            if ("test".equals(next.type())) {
+                testStages.add(next.name());
+            }
+            next.dependsOn().forEach(dependency -> pending.add(pipeline.stage(dependency)));
+        }
+        return testStages;
+    }
+
+    private static List<String> referencedPlugins(PipelineDefinition pipeline) {
+        List<String> names = new ArrayList<>();
+        for (StageDefinition stage : pipeline.stages()) {
+            if (stage.settings() instanceof PluginSettings plugin) {
+                names.add(plugin.pluginName());
             }
         }
+        return names;
+    }
+
+    private void executePreStagePlugins(PluginHookRunner.Hooks hooks, PipelineContext context) {
+        hookRunner.run(hooks, "pre-run", null, context);
+    }
+
+    private void executeStagePlugins(PluginHookRunner.Hooks hooks, String stageName, PipelineContext context) {
+        hookRunner.run(hooks, "pre-stage", stageName, context);
+    }
+
+    private void executePostStagePlugins(PluginHookRunner.Hooks hooks, PipelineContext context) {
+        hookRunner.run(hooks, "post-run", null, context);
     }
 }
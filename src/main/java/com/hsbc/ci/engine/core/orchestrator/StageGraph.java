@@ -0,0 +1,178 @@
+package com.hsbc.ci.engine.core.orchestrator;
+
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependency graph of the stages in a pipeline definition.
+ *
+ * A stage may declare {@code depends-on} (at stage level or inside its {@code config})
+ * as a single name or a list. A stage without it depends on every earlier stage that
+ * nothing else depends on yet, which keeps plain stage lists running in declared order.
+ */
+public class StageGraph {
+
+    private final List<String> stageNames;
+    private final Map<String, Set<String>> dependencies;
+    private final Map<String, Set<String>> dependents;
+
+    private StageGraph(List<String> stageNames,
+                       Map<String, Set<String>> dependencies,
+                       Map<String, Set<String>> dependents) {
+        this.stageNames = stageNames;
+        this.dependencies = dependencies;
+        this.dependents = dependents;
+    }
+
+    public static StageGraph build(List<Map<String, Object>> stages) {
+        List<String> names = new ArrayList<>();
+        Map<String, Map<String, Object>> configs = new LinkedHashMap<>();
+        for (Map<String, Object> stage : stages) {
+            String name = (String) stage.get("name");
+            if (name == null) {
+                throw new IllegalArgumentException("Stage without a name");
+            }
+            if (configs.put(name, stage) != null) {
+                throw new IllegalArgumentException("Duplicate stage name: " + name);
+            }
+            names.add(name);
+        }
+
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        Set<String> frontier = new LinkedHashSet<>();
+        for (String name : names) {
+            List<String> declared = declaredDependencies(configs.get(name));
+            Set<String> deps = new LinkedHashSet<>();
+            if (declared == null) {
+                deps.addAll(frontier);
+            } else {
+                for (String dep : declared) {
+                    if (!configs.containsKey(dep)) {
+                        throw new IllegalArgumentException(
+                            "Stage '" + name + "' depends on unknown stage: " + dep);
+                    }
+                    deps.add(dep);
+                }
+            }
+            dependencies.put(name, deps);
+            frontier.removeAll(deps);
+            frontier.add(name);
+        }
+        return link(names, dependencies);
+    }
+
+    /**
+     * Builds the graph of a compiled pipeline, whose dependencies are already resolved.
+     */
+    public static StageGraph of(PipelineDefinition pipeline) {
+        List<String> names = new ArrayList<>();
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        for (StageDefinition stage : pipeline.stages()) {
+            names.add(stage.name());
+            dependencies.put(stage.name(), new LinkedHashSet<>(stage.dependsOn()));
+        }
+        return link(names, dependencies);
+    }
+
+    private static StageGraph link(List<String> names, Map<String, Set<String>> dependencies) {
+        Map<String, Set<String>> dependents = new HashMap<>();
+        for (String name : names) {
+            dependents.put(name, new LinkedHashSet<>());
+        }
+        for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+            for (String dep : entry.getValue()) {
+                dependents.get(dep).add(entry.getKey());
+            }
+        }
+
+        StageGraph graph = new StageGraph(names, dependencies, dependents);
+        graph.levels();
+        return graph;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> declaredDependencies(Map<String, Object> stage) {
+        Object value = stage.get("depends-on");
+        if (value == null && stage.get("config") instanceof Map) {
+            value = ((Map<String, Object>) stage.get("config")).get("depends-on");
+        }
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof List) {
+            List<String> result = new ArrayList<>();
+            for (Object item : (List<Object>) value) {
+                result.add(String.valueOf(item));
+            }
+            return result;
+        }
+        return List.of(String.valueOf(value));
+    }
+
+    public List<String> getStageNames() {
+        return Collections.unmodifiableList(stageNames);
+    }
+
+    public Set<String> getDependencies(String name) {
+        return Collections.unmodifiableSet(dependencies.get(name));
+    }
+
+    public Set<String> getDependents(String name) {
+        return Collections.unmodifiableSet(dependents.get(name));
+    }
+
+    public int size() {
+        return stageNames.size();
+    }
+
+    /**
+     * Groups stages into levels where every stage only depends on earlier levels.
+     * Throws if the graph contains a cycle.
+     */
+    public List<List<String>> levels() {
+        Map<String, Integer> remaining = new HashMap<>();
+        List<String> current = new ArrayList<>();
+        for (String name : stageNames) {
+            remaining.put(name, dependencies.get(name).size());
+            if (dependencies.get(name).isEmpty()) {
+                current.add(name);
+            }
+        }
+
+        List<List<String>> levels = new ArrayList<>();
+        int visited = 0;
+        while (!current.isEmpty()) {
+            levels.add(current);
+            visited += current.size();
+            List<String> next = new ArrayList<>();
+            for (String name : current) {
+                for (String dependent : dependents.get(name)) {
+                    if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                        next.add(dependent);
+                    }
+                }
+            }
+            current = next;
+        }
+
+        if (visited != stageNames.size()) {
+            List<String> cyclic = new ArrayList<>();
+            for (String name : stageNames) {
+                if (remaining.get(name) > 0) {
+                    cyclic.add(name);
+                }
+            }
+            throw new IllegalArgumentException("Cyclic stage dependencies: " + cyclic);
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,43 @@
+package com.hsbc.ci.engine.core.output;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-capacity buffer keeping the last N lines of a stage's output.
+ * Memory is bounded by {@code capacity * maxLineLength} however much the process prints.
+ */
+public class LogRingBuffer {
+
+    private final String[] lines;
+    private long written;
+
+    public LogRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.lines = new String[capacity];
+    }
+
+    public synchronized void append(String line) {
+        lines[(int) (written % lines.length)] = line;
+        written++;
+    }
+
+    public synchronized List<String> tail(int count) {
+        int size = (int) Math.min(Math.min(count, lines.length), written);
+        List<String> result = new ArrayList<>(size);
+        for (long i = written - size; i < written; i++) {
+            result.add(lines[(int) (i % lines.length)]);
+        }
+        return result;
+    }
+
+    public synchronized long getLinesWritten() {
+        return written;
+    }
+
+    public int getCapacity() {
+        return lines.length;
+    }
+}
@@ -0,0 +1,9 @@
+package com.hsbc.ci.engine.core.output;
+
+/**
+ * Receives captured process output line by line.
+ */
+public interface OutputSink {
+
+    void onLine(String runId, String stageName, boolean stderr, String line);
+}
@@ -0,0 +1,163 @@
+package com.hsbc.ci.engine.core.output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains stage processes' stdout and stderr on virtual threads into a {@link StageOutput}
+ * per stage. Configured by the {@code logs} section of ci-engine.yml.
+ */
+@Component
+public class ProcessOutputPump {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessOutputPump.class);
+
+    static final int DEFAULT_TAIL_LINES = 200;
+    static final int MAX_LINE_LENGTH = 8192;
+    private static final long DRAIN_TIMEOUT_SECONDS = 5;
+
+    private final Path directory;
+    private final int tailLines;
+    private final boolean console;
+    private final List<OutputSink> sinks = new CopyOnWriteArrayList<>();
+
+    public ProcessOutputPump() {
+        this(null, DEFAULT_TAIL_LINES, true);
+    }
+
+    public ProcessOutputPump(Path directory, int tailLines, boolean console) {
+        this.directory = directory;
+        this.tailLines = tailLines;
+        this.console = console;
+    }
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public ProcessOutputPump(ConfigurationLoader configLoader) {
+        Map<String, Object> settings = (Map<String, Object>) configLoader.getEngineConfig().get("logs");
+        if (settings == null) {
+            settings = Map.of();
+        }
+        Object dir = settings.get("directory");
+        Object lines = settings.getOrDefault("tailLines", DEFAULT_TAIL_LINES);
+        this.directory = dir != null ? Paths.get((String) dir) : null;
+        this.tailLines = ((Number) lines).intValue();
+        this.console = !Boolean.FALSE.equals(settings.get("console"));
+    }
+
+    public void subscribe(OutputSink sink) {
+        sinks.add(sink);
+    }
+
+    public void unsubscribe(OutputSink sink) {
+        sinks.remove(sink);
+    }
+
+    /**
+     * Creates the output of a stage; its full log goes to {@code <directory>/<runId>/<stage>.log}.
+     */
+    public StageOutput open(String runId, String stageName) {
+        Path logFile = directory != null ? directory.resolve(runId).resolve(stageName + ".log") : null;
+        return new StageOutput(runId, stageName, tailLines, logFile, console ? System.out : null, sinks);
+    }
+
+    /**
+     * Runs a stage body with its output bound, so processes it starts are captured.
+     */
+    public <T> T capture(StageOutput output, Callable<T> body) throws Exception {
+        StageOutput previous = StageOutput.current();
+        StageOutput.bind(output);
+        try {
+            return body.call();
+        } finally {
+            StageOutput.bind(previous);
+        }
+    }
+
+    /**
+     * Starts pumping a process's stdout and stderr; the returned handle waits for both to drain.
+     */
+    public static Drain pump(Process process, StageOutput output) {
+        Thread stdout = Thread.ofVirtual().name("pump-out-" + output.getStageName())
+            .start(() -> drain(process.getInputStream(), output, false));
+        Thread stderr = Thread.ofVirtual().name("pump-err-" + output.getStageName())
+            .start(() -> drain(process.getErrorStream(), output, true));
+        return new Drain(stdout, stderr);
+    }
+
+    private static void drain(InputStream stream, StageOutput output, boolean stderr) {
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[4096];
+            StringBuilder line = new StringBuilder();
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    char c = buffer[i];
+                    if (c == '\n' || line.length() == MAX_LINE_LENGTH) {
+                        output.line(stderr, stripCarriageReturn(line));
+                        line.setLength(0);
+                        if (c == '\n') {
+                            continue;
+                        }
+                    }
+                    line.append(c);
+                }
+            }
+            if (!line.isEmpty()) {
+                output.line(stderr, stripCarriageReturn(line));
+            }
+        } catch (IOException e) {
+            log.debug("Output stream of {} closed: {}", output.getStageName(), e.getMessage());
+        }
+    }
+
+    private static String stripCarriageReturn(StringBuilder line) {
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    public static class Drain {
+        private final Thread stdout;
+        private final Thread stderr;
+
+        Drain(Thread stdout, Thread stderr) {
+            this.stdout = stdout;
+            this.stderr = stderr;
+        }
+
+        /**
+         * Waits for both streams to reach EOF. A background grandchild holding the pipe
+         * open must not hang the stage, so this gives up after a few seconds.
+         */
+        public void await() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT_SECONDS);
+            for (Thread thread : List.of(stdout, stderr)) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining > 0) {
+                    thread.join(Duration.ofNanos(remaining));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.hsbc.ci.engine.core.output;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Captured output of one stage: a tail ring buffer, an optional full log file, the
+ * console and any subscribers. Lines are delivered by the pump threads of
+ * {@link ProcessOutputPump}; every write here blocks the pump rather than buffering,
+ * so a slow sink backs up into the process pipe instead of the heap.
+ *
+ * Lines that arrive after {@link #close()}, from a pump that outlived its stage, are
+ * dropped rather than reopening the log file.
+ */
+public class StageOutput implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StageOutput.class);
+
+    private static final ThreadLocal<StageOutput> CURRENT = new InheritableThreadLocal<>();
+
+    private final String runId;
+    private final String stageName;
+    private final LogRingBuffer tail;
+    private final Path logFile;
+    private final PrintStream console;
+    private final List<OutputSink> sinks;
+    private BufferedWriter writer;
+    private boolean closed;
+    private long dropped;
+
+    StageOutput(String runId, String stageName, int tailLines, Path logFile,
+                PrintStream console, List<OutputSink> sinks) {
+        this.runId = runId;
+        this.stageName = stageName;
+        this.tail = new LogRingBuffer(tailLines);
+        this.logFile = logFile;
+        this.console = console;
+        this.sinks = sinks;
+    }
+
+    /**
+     * The output bound to the calling stage thread, or null outside a stage.
+     */
+    public static StageOutput current() {
+        return CURRENT.get();
+    }
+
+    static void bind(StageOutput output) {
+        if (output == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(output);
+        }
+    }
+
+    public synchronized void line(boolean stderr, String line) {
+        if (closed) {
+            if (dropped++ == 0) {
+                log.debug("Stage {} output is closed, dropping late lines", stageName);
+            }
+            return;
+        }
+        tail.append(line);
+        if (console != null) {
+            console.println("  [" + stageName + "] " + line);
+        }
+        writeToFile(line);
+        for (OutputSink sink : sinks) {
+            try {
+                sink.onLine(runId, stageName, stderr, line);
+            } catch (RuntimeException e) {
+                log.warn("Output sink failed for stage {}: {}", stageName, e.getMessage());
+            }
+        }
+    }
+
+    private void writeToFile(String line) {
+        if (logFile == null) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                Files.createDirectories(logFile.getParent());
+                writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(line);
+            writer.newLine();
+        } catch (IOException e) {
+            log.warn("Cannot write stage log {}: {}", logFile, e.getMessage());
+        }
+    }
+
+    public String tail(int lines) {
+        return String.join("\n", tail.tail(lines));
+    }
+
+    public String tail() {
+        return tail(tail.getCapacity());
+    }
+
+    public long getLinesWritten() {
+        return tail.getLinesWritten();
+    }
+
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    public String getStageName() {
+        return stageName;
+    }
+
+    synchronized long getLinesDropped() {
+        return dropped;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("Cannot close stage log {}: {}", logFile, e.getMessage());
+            }
+            writer = null;
+        }
+    }
+}
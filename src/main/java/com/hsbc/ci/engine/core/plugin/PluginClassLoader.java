@@ -0,0 +1,66 @@
+package com.hsbc.ci.engine.core.plugin;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+/**
+ * Child-first class loader for one plugin jar, so plugins can bundle their own versions
+ * of libraries. The plugin API and the JDK always come from the engine, otherwise a
+ * plugin's {@link StagePlugin} would not be the engine's {@link StagePlugin}.
+ */
+final class PluginClassLoader extends URLClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private static final List<String> SHARED_PACKAGES = List.of("java.", "javax.", "jdk.", "sun.", "org.slf4j.");
+
+    private static final List<String> SHARED_CLASSES = List.of(
+        Plugin.class.getName(),
+        StagePlugin.class.getName(),
+        GatePlugin.class.getName(),
+        NotifierPlugin.class.getName(),
+        PluginResult.class.getName(),
+        GateResult.class.getName());
+
+    PluginClassLoader(String pluginName, URL jar, ClassLoader parent) {
+        super("plugin-" + pluginName, new URL[] {jar}, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (isShared(name)) {
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                try {
+                    loaded = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    loaded = super.loadClass(name, false);
+                }
+            }
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    static boolean isShared(String name) {
+        for (String prefix : SHARED_PACKAGES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String shared : SHARED_CLASSES) {
+            if (name.equals(shared) || name.startsWith(shared + "$")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
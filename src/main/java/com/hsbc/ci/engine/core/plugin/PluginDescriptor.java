@@ -0,0 +1,47 @@
+package com.hsbc.ci.engine.core.plugin;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An enabled plugin from plugins.yml, resolved against the plugin index but not yet
+ * instantiated. {@code jar} is null for plugins found on the engine's own classpath;
+ * {@code budget} bounds each hook invocation, null for the engine default; {@code hooks}
+ * names the run hooks a stage plugin runs at.
+ */
+public record PluginDescriptor(
+        String name,
+        String className,
+        String version,
+        Kind kind,
+        Path jar,
+        Duration budget,
+        List<String> hooks,
+        Map<String, Object> config) {
+
+    public enum Kind {
+        STAGE, GATE, NOTIFIER;
+
+        static Kind of(Class<?> pluginClass) {
+            if (StagePlugin.class.isAssignableFrom(pluginClass)) {
+                return STAGE;
+            }
+            if (GatePlugin.class.isAssignableFrom(pluginClass)) {
+                return GATE;
+            }
+            if (NotifierPlugin.class.isAssignableFrom(pluginClass)) {
+                return NOTIFIER;
+            }
+            return null;
+        }
+    }
+
+    public PluginDescriptor {
+        hooks = hooks != null ? List.copyOf(hooks) : List.of();
+        config = config != null ? Collections.unmodifiableMap(new LinkedHashMap<>(config)) : Map.of();
+    }
+}
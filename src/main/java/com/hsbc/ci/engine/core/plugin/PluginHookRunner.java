@@ -0,0 +1,201 @@
+package com.hsbc.ci.engine.core.plugin;
+
+import com.hsbc.ci.engine.core.event.PipelineEventBus;
+import com.hsbc.ci.engine.core.event.PipelineEventType;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs stage plugin hooks concurrently on virtual threads. Every plugin gets a read-only
+ * view of the run and its own time budget ({@link PluginManager#getBudget}); a plugin
+ * still running when its budget is spent is interrupted and reported, so a hook costs at
+ * most the slowest budget rather than the sum of all plugins.
+ *
+ * Each invocation is published as PLUGIN_STARTED/PLUGIN_FINISHED, which EngineMetrics
+ * records per plugin. The duration is timed on the plugin's own thread; the hook's start
+ * only sets the budget deadline.
+ *
+ * Which plugins run at a hook is an input, {@link Hooks}, taken once when a run starts:
+ * every hook of that run invokes the same plugins, whatever else the process loads
+ * meanwhile, so a plugin's timings compare like for like across runs.
+ */
+public class PluginHookRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PluginHookRunner.class);
+
+    /**
+     * Outcome of one plugin invocation. {@code error} is null on success.
+     */
+    public record HookResult(String plugin, boolean success, boolean timedOut, long durationNanos, String error) {
+    }
+
+    /**
+     * The stage plugins a run invokes at each hook, by hook name.
+     */
+    public record Hooks(Map<String, List<String>> plugins) {
+
+        public Hooks {
+            Map<String, List<String>> copy = new LinkedHashMap<>();
+            plugins.forEach((hook, names) -> copy.put(hook, List.copyOf(names)));
+            plugins = Collections.unmodifiableMap(copy);
+        }
+
+        public List<String> at(String hook) {
+            return plugins.getOrDefault(hook, List.of());
+        }
+
+        /**
+         * Every plugin of any hook, each once.
+         */
+        public Set<String> all() {
+            Set<String> names = new LinkedHashSet<>();
+            plugins.values().forEach(names::addAll);
+            return names;
+        }
+    }
+
+    private final PluginManager pluginManager;
+    private final PipelineEventBus eventBus;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("plugin-", 0).factory());
+
+    public PluginHookRunner(PluginManager pluginManager, PipelineEventBus eventBus) {
+        this.pluginManager = pluginManager;
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Runs the run's plugins for a hook and waits until each has finished or used up its
+     * budget. {@code stageName} is null for the run-level hooks. A plugin that cannot be
+     * found is reported as failed rather than left out.
+     */
+    public List<HookResult> run(Hooks hooks, String hook, String stageName, PipelineContext context) {
+        List<String> pluginNames = hooks.at(hook);
+        if (pluginNames.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Object> view = view(context, hook, stageName);
+        long start = System.nanoTime();
+        Map<String, Invocation> invocations = new LinkedHashMap<>();
+        List<HookResult> missing = new ArrayList<>();
+        for (String name : pluginNames) {
+            StagePlugin plugin = pluginManager.getStagePlugin(name);
+            if (plugin == null) {
+                log.warn("Plugin {} {} hook: plugin not found", name, hook);
+                missing.add(new HookResult(name, false, false, 0, "plugin not found"));
+                continue;
+            }
+            eventBus.publish(PipelineEventType.PLUGIN_STARTED, context.getRunId(), context.getPipelineName(),
+                name, null, true, 0, null);
+            Map<String, Object> config = new HashMap<>(pluginManager.getPluginConfig(name));
+            Invocation invocation = new Invocation(plugin, config, view);
+            invocation.future = executor.submit(invocation);
+            invocations.put(name, invocation);
+        }
+
+        List<HookResult> results = new ArrayList<>(pluginNames.size());
+        for (Map.Entry<String, Invocation> entry : invocations.entrySet()) {
+            results.add(await(entry.getKey(), entry.getValue(), start, hook, context));
+        }
+        results.addAll(missing);
+        return results;
+    }
+
+    private HookResult await(String name, Invocation invocation, long start, String hook, PipelineContext context) {
+        Duration budget = pluginManager.getBudget(name);
+        long remaining = start + budget.toNanos() - System.nanoTime();
+        Future<?> future = invocation.future;
+        HookResult result;
+        try {
+            future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+            result = new HookResult(name, true, false, invocation.elapsedNanos(), null);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            result = new HookResult(name, false, true, invocation.elapsedNanos(),
+                "exceeded its " + budget.toMillis() + "ms budget");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            result = new HookResult(name, false, false, invocation.elapsedNanos(), "interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            result = new HookResult(name, false, false, invocation.elapsedNanos(), cause.toString());
+        }
+
+        if (!result.success()) {
+            log.warn("Plugin {} {} hook {}", name, hook, result.error());
+        } else {
+            log.debug("Plugin {} {} hook took {}ms", name, hook, TimeUnit.NANOSECONDS.toMillis(result.durationNanos()));
+        }
+        eventBus.publish(PipelineEventType.PLUGIN_FINISHED, context.getRunId(), context.getPipelineName(),
+            name, null, result.success(), result.durationNanos(), result.error());
+        return result;
+    }
+
+    /**
+     * One plugin call, timing itself on the thread that runs it so that awaiting plugins
+     * in order does not add an earlier plugin's wait to a later one's duration.
+     */
+    private static final class Invocation implements Runnable {
+        private final StagePlugin plugin;
+        private final Map<String, Object> config;
+        private final Map<String, Object> view;
+        private Future<?> future;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile boolean started;
+        private volatile boolean finished;
+
+        Invocation(StagePlugin plugin, Map<String, Object> config, Map<String, Object> view) {
+            this.plugin = plugin;
+            this.config = config;
+            this.view = view;
+        }
+
+        @Override
+        public void run() {
+            startedAt = System.nanoTime();
+            started = true;
+            try {
+                plugin.execute(config, view);
+            } finally {
+                finishedAt = System.nanoTime();
+                finished = true;
+            }
+        }
+
+        /**
+         * Time spent in the plugin so far; a plugin cut off at its budget counts up to now.
+         */
+        long elapsedNanos() {
+            if (!started) {
+                return 0;
+            }
+            return (finished ? finishedAt : System.nanoTime()) - startedAt;
+        }
+    }
+
+    private static Map<String, Object> view(PipelineContext context, String hook, String stageName) {
+        Map<String, Object> extra = new HashMap<>();
+        extra.put("hook", hook);
+        extra.put("stage", stageName);
+        return context.readOnlyView(extra);
+    }
+}
@@ -0,0 +1,252 @@
+package com.hsbc.ci.engine.core.plugin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Cache of where each configured plugin class lives (which jar, or the engine classpath)
+ * and what kind of plugin it is, so startup does not open every jar in the plugin
+ * directory.
+ *
+ * The index is valid while the plugin directory holds the same jars with the same
+ * modification times and sizes. Otherwise the jars are scanned in parallel and the
+ * classes are loaded (without initialization) in parallel to classify them.
+ *
+ * Layout: {@code [int magic][int version][long fingerprint][int count]}, then per class
+ * {@code [utf className][utf jar or ""][utf kind]}.
+ */
+final class PluginIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PluginIndex.class);
+
+    static final String FILE_NAME = "plugins.index";
+
+    private static final int MAGIC = 0x43495049;
+    private static final int VERSION = 1;
+
+    record Location(Path jar, PluginDescriptor.Kind kind) {
+    }
+
+    private final Path pluginDir;
+    private final Path indexFile;
+    private final ClassLoader parent;
+    private int scans;
+
+    PluginIndex(Path pluginDir, Path indexFile, ClassLoader parent) {
+        this.pluginDir = pluginDir;
+        this.indexFile = indexFile;
+        this.parent = parent;
+    }
+
+    /**
+     * Number of jar scans performed by this index, for tests.
+     */
+    int scans() {
+        return scans;
+    }
+
+    /**
+     * Locates and classifies the given plugin classes. Classes that cannot be found or
+     * are not plugins are left out of the result.
+     */
+    Map<String, Location> resolve(Collection<String> classNames) {
+        List<Path> jars = listJars();
+        long fingerprint = fingerprint(jars);
+        Map<String, Location> cached = read(fingerprint);
+
+        Map<String, Location> resolved = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String className : classNames) {
+            Location location = cached.get(className);
+            if (location != null) {
+                resolved.put(className, location);
+            } else {
+                missing.add(className);
+            }
+        }
+        if (missing.isEmpty()) {
+            return resolved;
+        }
+
+        Map<String, Location> found = scan(jars, missing);
+        resolved.putAll(found);
+        if (!found.isEmpty() || cached.size() != resolved.size()) {
+            write(fingerprint, resolved);
+        }
+        return resolved;
+    }
+
+    private List<Path> listJars() {
+        if (pluginDir == null || !Files.isDirectory(pluginDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(pluginDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar")).sorted().toList();
+        } catch (IOException e) {
+            log.warn("Cannot list plugin directory {}: {}", pluginDir, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static long fingerprint(List<Path> jars) {
+        long hash = 17;
+        for (Path jar : jars) {
+            hash = 31 * hash + jar.getFileName().toString().hashCode();
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+                hash = 31 * hash + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+                hash = 31 * hash + attributes.size();
+            } catch (IOException e) {
+                hash = 31 * hash - 1;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Finds the jar of each class, scanning jars in parallel, then loads each class in
+     * its own loader in parallel to find out its kind.
+     */
+    private Map<String, Location> scan(List<Path> jars, List<String> classNames) {
+        scans++;
+        long start = System.nanoTime();
+        Map<Path, List<String>> contents = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path jar : jars) {
+                executor.submit(() -> contents.put(jar, classesIn(jar, classNames)));
+            }
+        }
+        Map<String, Path> jarOf = new HashMap<>();
+        for (Path jar : jars) {
+            for (String className : contents.getOrDefault(jar, List.of())) {
+                jarOf.putIfAbsent(className, jar);
+            }
+        }
+
+        Map<String, Location> found = new ConcurrentHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String className : classNames) {
+                executor.submit(() -> {
+                    Path jar = jarOf.get(className);
+                    PluginDescriptor.Kind kind = classify(className, jar);
+                    if (kind != null) {
+                        found.put(className, new Location(jar, kind));
+                    }
+                });
+            }
+        }
+        log.debug("Scanned {} plugin jars for {} classes in {}ms", jars.size(), classNames.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return found;
+    }
+
+    private static List<String> classesIn(Path jar, List<String> classNames) {
+        List<String> present = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            for (String className : classNames) {
+                if (jarFile.getEntry(className.replace('.', '/') + ".class") != null) {
+                    present.add(className);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cannot read plugin jar {}: {}", jar, e.getMessage());
+        }
+        return present;
+    }
+
+    private PluginDescriptor.Kind classify(String className, Path jar) {
+        try {
+            if (jar == null) {
+                return kindOf(className, Class.forName(className, false, parent));
+            }
+            try (PluginClassLoader loader = new PluginClassLoader(className, jar.toUri().toURL(), parent)) {
+                return kindOf(className, Class.forName(className, false, loader));
+            }
+        } catch (ClassNotFoundException e) {
+            log.warn("Plugin class not found in {} or on the classpath: {}", pluginDir, className);
+        } catch (IOException | LinkageError e) {
+            log.warn("Cannot load plugin class {}: {}", className, e.toString());
+        }
+        return null;
+    }
+
+    private static PluginDescriptor.Kind kindOf(String className, Class<?> pluginClass) {
+        PluginDescriptor.Kind kind = PluginDescriptor.Kind.of(pluginClass);
+        if (kind == null) {
+            log.warn("Not a stage, gate or notifier plugin: {}", className);
+        }
+        return kind;
+    }
+
+    private Map<String, Location> read(long fingerprint) {
+        if (indexFile == null || !Files.exists(indexFile)) {
+            return Map.of();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != fingerprint) {
+                log.debug("Plugin index {} is outdated", indexFile);
+                return Map.of();
+            }
+            int count = in.readInt();
+            Map<String, Location> entries = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String className = in.readUTF();
+                String jar = in.readUTF();
+                PluginDescriptor.Kind kind = PluginDescriptor.Kind.valueOf(in.readUTF());
+                entries.put(className, new Location(jar.isEmpty() ? null : Paths.get(jar), kind));
+            }
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable plugin index {}: {}", indexFile, e.toString());
+            return Map.of();
+        }
+    }
+
+    private void write(long fingerprint, Map<String, Location> entries) {
+        if (indexFile == null) {
+            return;
+        }
+        try {
+            if (indexFile.getParent() != null) {
+                Files.createDirectories(indexFile.getParent());
+            }
+            Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(fingerprint);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Location> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue().jar() != null ? entry.getValue().jar().toString() : "");
+                    out.writeUTF(entry.getValue().kind().name());
+                }
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write plugin index {}: {}", indexFile, e.getMessage());
+        }
+    }
+}
@@ -1,25 +1,72 @@
 package com.hsbc.ci.engine.core.plugin;
 
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.*;
+import java.net.MalformedURLException;
 import java.nio.file.*;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Registry of stage, gate and notifier plugins.
+ *
+ * Enabled plugins from plugins.yml are only resolved at startup (through the
+ * {@link PluginIndex} cache); a plugin's class is loaded in its own class loader,
+ * instantiated and {@code init()}ed the first time it is looked up or preloaded for a
+ * pipeline that references it.
+ */
 @Component
 public class PluginManager {
 
     private static final Logger log = LoggerFactory.getLogger(PluginManager.class);
 
+    static final Duration DEFAULT_BUDGET = Duration.ofSeconds(60);
+
+    /**
+     * The run hooks a stage plugin can declare, in the order a run reaches them.
+     */
+    public static final List<String> HOOKS = List.of("pre-run", "pre-stage", "post-run");
+
     private String pluginPath = "plugins";
+    private Path indexFile;
+    private Duration defaultBudget = DEFAULT_BUDGET;
+    private ConfigurationLoader configLoader;
     private final Map<String, StagePlugin> stagePlugins = new ConcurrentHashMap<>();
     private final Map<String, GatePlugin> gatePlugins = new ConcurrentHashMap<>();
     private final Map<String, NotifierPlugin> notifierPlugins = new ConcurrentHashMap<>();
+    private final Map<String, PluginDescriptor> descriptors = new ConcurrentHashMap<>();
+    private final Map<String, PluginClassLoader> classLoaders = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> registeredHooks = new ConcurrentHashMap<>();
+
+    public PluginManager() {
+    }
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public PluginManager(ConfigurationLoader configLoader) {
+        this.configLoader = configLoader;
+        Map<String, Object> settings = (Map<String, Object>) configLoader.getEngineConfig().get("plugins");
+        if (settings != null) {
+            this.pluginPath = (String) settings.getOrDefault("directory", pluginPath);
+            this.indexFile = Paths.get((String) settings.getOrDefault("index", ".ci-engine/plugins"),
+                PluginIndex.FILE_NAME);
+            Duration budget = seconds(settings.get("budget"));
+            if (budget != null) {
+                this.defaultBudget = budget;
+            }
+        }
+    }
 
     @PostConstruct
     public void init() {
@@ -35,56 +82,213 @@ public class PluginManager {
         Path pluginDir = Paths.get(pluginPath);
         if (!Files.exists(pluginDir)) {
             log.info("Plugin directory not found: {}", pluginDir);
-            return;
         }
 
         try {
-            loadPluginConfig();
+            loadPluginConfig(pluginDir);
         } catch (Exception e) {
             log.warn("Failed to load plugin config: {}", e.getMessage());
         }
 
         log.info("Loaded {} stage plugins, {} gate plugins, {} notifier plugins",
-            stagePlugins.size(), gatePlugins.size(), notifierPlugins.size());
+            listStagePlugins().size(), listGatePlugins().size(), listNotifierPlugins().size());
     }
 
     @SuppressWarnings("unchecked")
-    private void loadPluginConfig() throws Exception {
-        Path configFile = Paths.get("config/plugins.yml");
-        if (!Files.exists(configFile)) {
-            log.info("No plugins.yml found, using built-in plugins only");
-            loadBuiltInPlugins();
-            return;
-        }
-
-        Yaml yaml = new Yaml();
-        Map<String, Object> config = yaml.load(Files.readString(configFile));
-        Map<String, Object> plugins = (Map<String, Object>) config.get("plugins");
+    private void loadPluginConfig(Path pluginDir) throws Exception {
+        Map<String, Object> config = readPluginsYaml();
+        Map<String, Object> plugins = config != null ? (Map<String, Object>) config.get("plugins") : null;
 
         if (plugins == null) {
             loadBuiltInPlugins();
             return;
         }
 
+        Map<String, Map<String, Object>> enabledPlugins = new LinkedHashMap<>();
         for (Map.Entry<String, Object> entry : plugins.entrySet()) {
             Map<String, Object> pluginConfig = (Map<String, Object>) entry.getValue();
             Boolean enabled = (Boolean) pluginConfig.getOrDefault("enabled", true);
-            
+
             if (!Boolean.TRUE.equals(enabled)) {
                 log.info("Plugin disabled: {}", entry.getKey());
                 continue;
             }
+            if (!(pluginConfig.get("class") instanceof String)) {
+                log.warn("Plugin {} has no class", entry.getKey());
+                continue;
+            }
+            enabledPlugins.put(entry.getKey(), pluginConfig);
+        }
+        if (enabledPlugins.isEmpty()) {
+            return;
+        }
+
+        Set<String> classNames = new HashSet<>();
+        enabledPlugins.values().forEach(pluginConfig -> classNames.add((String) pluginConfig.get("class")));
+        Map<String, PluginIndex.Location> locations =
+            new PluginIndex(pluginDir, indexFile, getClass().getClassLoader()).resolve(classNames);
 
+        for (Map.Entry<String, Map<String, Object>> entry : enabledPlugins.entrySet()) {
+            Map<String, Object> pluginConfig = entry.getValue();
+            String className = (String) pluginConfig.get("class");
+            PluginIndex.Location location = locations.get(className);
+            if (location == null) {
+                continue;
+            }
+            Object version = pluginConfig.get("version");
+            descriptors.put(entry.getKey(), new PluginDescriptor(entry.getKey(), className,
+                version != null ? version.toString() : null, location.kind(), location.jar(),
+                seconds(pluginConfig.get("budget")), hooks(entry.getKey(), pluginConfig.get("hooks")),
+                (Map<String, Object>) pluginConfig.get("config")));
             log.info("Registering plugin: {}", entry.getKey());
         }
     }
 
+    private static List<String> hooks(String plugin, Object value) {
+        if (!(value instanceof Collection<?> declared)) {
+            return List.of();
+        }
+        List<String> hooks = new ArrayList<>();
+        for (Object hook : declared) {
+            if (HOOKS.contains(String.valueOf(hook))) {
+                hooks.add(String.valueOf(hook));
+            } else {
+                log.warn("Plugin {} declares unknown hook {} (expected one of {})", plugin, hook, HOOKS);
+            }
+        }
+        return hooks;
+    }
+
+    private static Duration seconds(Object value) {
+        return value instanceof Number number && number.doubleValue() > 0
+            ? Duration.ofMillis((long) (number.doubleValue() * 1000)) : null;
+    }
+
+    private Map<String, Object> readPluginsYaml() throws IOException {
+        if (configLoader != null) {
+            return configLoader.getConfigFile("plugins.yml");
+        }
+        Path configFile = Paths.get("config/plugins.yml");
+        if (!Files.exists(configFile)) {
+            log.info("No plugins.yml found, using built-in plugins only");
+            return null;
+        }
+        return new Yaml().load(Files.readString(configFile));
+    }
+
     private void loadBuiltInPlugins() {
         log.info("Using built-in plugins only");
     }
 
-    public void registerStage(StagePlugin plugin) {
+    /**
+     * Instantiates the named plugins in parallel, so the first lookup during a run does not
+     * pay for class loading and {@code init()}. Unknown and already loaded names are skipped.
+     */
+    public void preload(Collection<String> names) {
+        List<PluginDescriptor> pending = new ArrayList<>();
+        for (String name : names) {
+            PluginDescriptor descriptor = descriptors.get(name);
+            if (descriptor != null && instanceOf(descriptor) == null) {
+                pending.add(descriptor);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (PluginDescriptor descriptor : pending) {
+                executor.submit(() -> load(descriptor));
+            }
+        }
+    }
+
+    private Plugin instanceOf(PluginDescriptor descriptor) {
+        return switch (descriptor.kind()) {
+            case STAGE -> stagePlugins.get(descriptor.name());
+            case GATE -> gatePlugins.get(descriptor.name());
+            case NOTIFIER -> notifierPlugins.get(descriptor.name());
+        };
+    }
+
+    /**
+     * Loads, instantiates and initializes a plugin once. Returns null if that fails.
+     */
+    private Plugin load(PluginDescriptor descriptor) {
+        synchronized (descriptor) {
+            Plugin plugin = instanceOf(descriptor);
+            if (plugin != null) {
+                return plugin;
+            }
+            long start = System.nanoTime();
+            try {
+                ClassLoader loader = getClass().getClassLoader();
+                if (descriptor.jar() != null) {
+                    loader = classLoaders.computeIfAbsent(descriptor.name(), name -> newClassLoader(descriptor));
+                }
+                Class<?> pluginClass = Class.forName(descriptor.className(), true, loader);
+                plugin = (Plugin) pluginClass.getDeclaredConstructor().newInstance();
+                plugin.init(new HashMap<>(descriptor.config()));
+            } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+                log.error("Failed to load plugin {} ({}): {}", descriptor.name(), descriptor.className(), e.toString());
+                return null;
+            }
+            switch (descriptor.kind()) {
+                case STAGE -> stagePlugins.put(descriptor.name(), (StagePlugin) plugin);
+                case GATE -> gatePlugins.put(descriptor.name(), (GatePlugin) plugin);
+                case NOTIFIER -> notifierPlugins.put(descriptor.name(), (NotifierPlugin) plugin);
+            }
+            log.debug("Loaded plugin {} in {}ms", descriptor.name(), (System.nanoTime() - start) / 1_000_000);
+            return plugin;
+        }
+    }
+
+    private PluginClassLoader newClassLoader(PluginDescriptor descriptor) {
+        try {
+            return new PluginClassLoader(descriptor.name(), descriptor.jar().toUri().toURL(), getClass().getClassLoader());
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid plugin jar: " + descriptor.jar(), e);
+        }
+    }
+
+    private Plugin lookup(String name, PluginDescriptor.Kind kind) {
+        PluginDescriptor descriptor = descriptors.get(name);
+        return descriptor != null && descriptor.kind() == kind ? load(descriptor) : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Plugin> loaded = new ArrayList<>();
+        loaded.addAll(stagePlugins.values());
+        loaded.addAll(gatePlugins.values());
+        loaded.addAll(notifierPlugins.values());
+        for (Plugin plugin : loaded) {
+            try {
+                plugin.cleanup();
+            } catch (RuntimeException e) {
+                log.warn("Plugin {} cleanup failed: {}", plugin.getName(), e.getMessage());
+            }
+        }
+        for (PluginClassLoader loader : classLoaders.values()) {
+            try {
+                loader.close();
+            } catch (IOException e) {
+                log.debug("Failed to close class loader {}: {}", loader.getName(), e.getMessage());
+            }
+        }
+        classLoaders.clear();
+    }
+
+    /**
+     * Registers a stage plugin in code, optionally running at the given {@link #HOOKS}.
+     */
+    public void registerStage(StagePlugin plugin, String... hooks) {
+        for (String hook : hooks) {
+            if (!HOOKS.contains(hook)) {
+                throw new IllegalArgumentException("Unknown hook " + hook + " (expected one of " + HOOKS + ")");
+            }
+        }
         stagePlugins.put(plugin.getName(), plugin);
+        registeredHooks.put(plugin.getName(), List.of(hooks));
         log.info("Registered stage plugin: {}", plugin.getName());
     }
 
@@ -99,27 +303,84 @@ public class PluginManager {
     }
 
     public StagePlugin getStagePlugin(String name) {
-        return stagePlugins.get(name);
+        StagePlugin plugin = stagePlugins.get(name);
+        return plugin != null ? plugin : (StagePlugin) lookup(name, PluginDescriptor.Kind.STAGE);
     }
 
     public GatePlugin getGatePlugin(String name) {
-        return gatePlugins.get(name);
+        GatePlugin plugin = gatePlugins.get(name);
+        return plugin != null ? plugin : (GatePlugin) lookup(name, PluginDescriptor.Kind.GATE);
     }
 
     public NotifierPlugin getNotifierPlugin(String name) {
-        return notifierPlugins.get(name);
+        NotifierPlugin plugin = notifierPlugins.get(name);
+        return plugin != null ? plugin : (NotifierPlugin) lookup(name, PluginDescriptor.Kind.NOTIFIER);
+    }
+
+    /**
+     * The {@code config} section of a plugin in plugins.yml, empty for plugins registered
+     * in code.
+     */
+    public Map<String, Object> getPluginConfig(String name) {
+        PluginDescriptor descriptor = descriptors.get(name);
+        return descriptor != null ? descriptor.config() : Map.of();
+    }
+
+    /**
+     * How long one hook invocation of a plugin may take: its {@code budget} in plugins.yml,
+     * else {@code plugins.budget} in ci-engine.yml, else 60 seconds.
+     */
+    public Duration getBudget(String name) {
+        PluginDescriptor descriptor = descriptors.get(name);
+        return descriptor != null && descriptor.budget() != null ? descriptor.budget() : defaultBudget;
+    }
+
+    public void setDefaultBudget(Duration defaultBudget) {
+        this.defaultBudget = defaultBudget;
+    }
+
+    /**
+     * Stage plugins by the hook they run at, each list in name order: those declaring the
+     * hook under {@code hooks} in plugins.yml or when registered. Whether a plugin has been
+     * loaded, or is also used as a {@code plugin:} stage, makes no difference.
+     */
+    public Map<String, List<String>> hookPlugins() {
+        Map<String, Set<String>> byHook = new LinkedHashMap<>();
+        HOOKS.forEach(hook -> byHook.put(hook, new TreeSet<>()));
+        registeredHooks.forEach((name, hooks) -> hooks.forEach(hook -> byHook.get(hook).add(name)));
+        descriptors.values().stream()
+            .filter(descriptor -> descriptor.kind() == PluginDescriptor.Kind.STAGE)
+            .forEach(descriptor -> descriptor.hooks().forEach(hook -> byHook.get(hook).add(descriptor.name())));
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        byHook.forEach((hook, names) -> result.put(hook, List.copyOf(names)));
+        return result;
+    }
+
+    /**
+     * Names of the stage plugins that are instantiated, without loading any others.
+     */
+    public Collection<String> loadedStagePlugins() {
+        return new TreeSet<>(stagePlugins.keySet());
     }
 
     public Collection<String> listStagePlugins() {
-        return stagePlugins.keySet();
+        return namesOf(stagePlugins, PluginDescriptor.Kind.STAGE);
     }
 
     public Collection<String> listGatePlugins() {
-        return gatePlugins.keySet();
+        return namesOf(gatePlugins, PluginDescriptor.Kind.GATE);
     }
 
     public Collection<String> listNotifierPlugins() {
-        return notifierPlugins.keySet();
+        return namesOf(notifierPlugins, PluginDescriptor.Kind.NOTIFIER);
+    }
+
+    private Collection<String> namesOf(Map<String, ? extends Plugin> loaded, PluginDescriptor.Kind kind) {
+        Set<String> names = new TreeSet<>(loaded.keySet());
+        descriptors.values().stream()
+            .filter(descriptor -> descriptor.kind() == kind)
+            .forEach(descriptor -> names.add(descriptor.name()));
+        return names;
     }
 
     public Map<String, Collection<String>> listAllPlugins() {
@@ -0,0 +1,20 @@
+package com.hsbc.ci.engine.core.promote;
+
+import java.util.Set;
+
+/**
+ * A commit of a service waiting to be promoted: its message, the environments it has
+ * already reached and the requirements (e.g. {@code tests-passed}) it already meets.
+ */
+public record PromotionCandidate(String service,
+                                 String commit,
+                                 String message,
+                                 Set<String> reachedEnvironments,
+                                 Set<String> satisfiedRequirements) {
+
+    public PromotionCandidate {
+        message = message != null ? message : "";
+        reachedEnvironments = reachedEnvironments != null ? Set.copyOf(reachedEnvironments) : Set.of();
+        satisfiedRequirements = satisfiedRequirements != null ? Set.copyOf(satisfiedRequirements) : Set.of();
+    }
+}
@@ -0,0 +1,24 @@
+package com.hsbc.ci.engine.core.promote;
+
+import com.hsbc.ci.engine.core.model.definition.GateDefinition;
+
+import java.util.List;
+
+/**
+ * The policy selected for a candidate and the requirements of that policy it does not
+ * meet yet. {@code policy} is null when no policy applies.
+ */
+public record PromotionDecision(PromotionCandidate candidate, String policy, List<GateDefinition> outstanding) {
+
+    public PromotionDecision {
+        outstanding = List.copyOf(outstanding);
+    }
+
+    public boolean isMatched() {
+        return policy != null;
+    }
+
+    public boolean isApproved() {
+        return policy != null && outstanding.isEmpty();
+    }
+}
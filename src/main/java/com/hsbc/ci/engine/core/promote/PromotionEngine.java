@@ -0,0 +1,58 @@
+package com.hsbc.ci.engine.core.promote;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects promotion policies from promote.yml. The policies are compiled on first use and
+ * again only when the loader hands out a new promote.yml, e.g. after a daemon reload.
+ */
+@Component
+public class PromotionEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(PromotionEngine.class);
+
+    private record Compiled(Map<String, Object> source, PromotionPolicies policies) {
+    }
+
+    private final ConfigurationLoader configLoader;
+    private volatile Compiled compiled;
+
+    public PromotionEngine() {
+        this(null);
+    }
+
+    @Autowired
+    public PromotionEngine(ConfigurationLoader configLoader) {
+        this.configLoader = configLoader;
+    }
+
+    public PromotionPolicies policies() {
+        Map<String, Object> source = configLoader != null
+            ? configLoader.getConfigFile(PromotionPolicies.SOURCE) : Map.of();
+        Compiled current = compiled;
+        if (current == null || current.source() != source) {
+            long start = System.nanoTime();
+            current = new Compiled(source, PromotionPolicies.compile(source));
+            compiled = current;
+            log.debug("Compiled {} promotion policies ({} conditions) in {}us",
+                current.policies().policyNames().size(), current.policies().conditionCount(),
+                (System.nanoTime() - start) / 1_000);
+        }
+        return current.policies();
+    }
+
+    public List<PromotionDecision> evaluate(List<PromotionCandidate> candidates) {
+        return policies().evaluate(candidates);
+    }
+
+    public PromotionDecision evaluate(PromotionCandidate candidate) {
+        return policies().evaluate(candidate);
+    }
+}
@@ -0,0 +1,279 @@
+package com.hsbc.ci.engine.core.promote;
+
+import com.hsbc.ci.engine.core.config.ConfigValidationException;
+import com.hsbc.ci.engine.core.model.definition.GateDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The {@code promotion.policies} of promote.yml, compiled once for evaluating many commits.
+ *
+ * Every distinct condition gets an index: {@code commit-message} patterns are compiled once
+ * and shared by the policies using them, and {@code environment-reached} conditions are
+ * looked up by environment name. Policies are tried in a fixed order, highest
+ * {@code priority} first, then the policy with more conditions, then declaration order,
+ * so {@code always} only applies when nothing more specific does. The first policy whose
+ * conditions all hold wins; a message pattern is only evaluated when a policy needs it,
+ * and at most once per commit.
+ *
+ * A {@code commit-message} pattern must match the whole message, with {@code .} also
+ * matching line breaks, so {@code .*\[security\].*} finds the tag in any line.
+ */
+public final class PromotionPolicies {
+
+    static final String SOURCE = "promote.yml";
+
+    private static final byte UNKNOWN = 0;
+    private static final byte MET = 1;
+    private static final byte NOT_MET = 2;
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+
+    private record Policy(String name, int priority, int order, int[] conditions, List<GateDefinition> requirements) {
+    }
+
+    private final List<Policy> policies;
+    // Indexed by condition; null for environment conditions
+    private final List<Predicate<String>> messageConditions;
+    private final Map<String, Integer> environmentConditions;
+
+    private PromotionPolicies(List<Policy> policies,
+                              List<Predicate<String>> messageConditions,
+                              Map<String, Integer> environmentConditions) {
+        this.policies = policies;
+        this.messageConditions = messageConditions;
+        this.environmentConditions = environmentConditions;
+    }
+
+    /**
+     * Compiles the policies of a parsed promote.yml. Every invalid policy is reported
+     * together as a {@link ConfigValidationException}.
+     */
+    public static PromotionPolicies compile(Map<String, Object> promoteConfig) {
+        List<String> errors = new ArrayList<>();
+        Map<String, Integer> patterns = new HashMap<>();
+        Map<String, Integer> environments = new HashMap<>();
+        List<Predicate<String>> messageConditions = new ArrayList<>();
+        List<Policy> policies = new ArrayList<>();
+
+        Object promotion = promoteConfig != null ? promoteConfig.get("promotion") : null;
+        Object rawPolicies = promotion instanceof Map<?, ?> section ? section.get("policies") : null;
+        if (rawPolicies != null && !(rawPolicies instanceof List<?>)) {
+            throw new ConfigValidationException(SOURCE, List.of("promotion.policies must be a list"));
+        }
+        List<?> entries = rawPolicies != null ? (List<?>) rawPolicies : List.of();
+
+        for (int order = 0; order < entries.size(); order++) {
+            if (!(entries.get(order) instanceof Map<?, ?> entry)) {
+                errors.add("policy #" + (order + 1) + ": not a mapping");
+                continue;
+            }
+            Object name = entry.get("name");
+            String label = name != null ? "policy " + name : "policy #" + (order + 1);
+            if (name == null) {
+                errors.add(label + ": missing 'name'");
+            } else if (policies.stream().anyMatch(p -> p.name().equals(name.toString()))) {
+                errors.add(label + ": duplicate name");
+            }
+            int priority = 0;
+            if (entry.get("priority") instanceof Number number) {
+                priority = number.intValue();
+            } else if (entry.get("priority") != null) {
+                errors.add(label + ": 'priority' must be a number");
+            }
+
+            List<Integer> conditions = new ArrayList<>();
+            for (Object rawCondition : list(entry.get("conditions"))) {
+                if (!(rawCondition instanceof Map<?, ?> condition)) {
+                    errors.add(label + ": condition is not a mapping");
+                    continue;
+                }
+                Object type = condition.get("type");
+                if ("always".equals(type)) {
+                    continue;
+                }
+                if ("commit-message".equals(type)) {
+                    Object regex = condition.get("pattern");
+                    if (regex == null) {
+                        errors.add(label + ": commit-message condition needs a 'pattern'");
+                        continue;
+                    }
+                    Integer index = patterns.get(regex.toString());
+                    if (index == null) {
+                        try {
+                            messageConditions.add(messageCondition(regex.toString()));
+                        } catch (PatternSyntaxException e) {
+                            errors.add(label + ": invalid pattern '" + regex + "': " + e.getDescription());
+                            continue;
+                        }
+                        index = messageConditions.size() - 1;
+                        patterns.put(regex.toString(), index);
+                    }
+                    conditions.add(index);
+                } else if ("environment-reached".equals(type)) {
+                    Object environment = condition.get("environment");
+                    if (environment == null) {
+                        errors.add(label + ": environment-reached condition needs an 'environment'");
+                        continue;
+                    }
+                    Integer index = environments.get(environment.toString());
+                    if (index == null) {
+                        messageConditions.add(null);
+                        index = messageConditions.size() - 1;
+                        environments.put(environment.toString(), index);
+                    }
+                    conditions.add(index);
+                } else {
+                    errors.add(label + ": unknown condition type '" + type + "'");
+                }
+            }
+
+            List<GateDefinition> requirements = new ArrayList<>();
+            for (Object rawRequirement : list(entry.get("requirements"))) {
+                GateDefinition requirement = requirement(rawRequirement);
+                if (requirement == null) {
+                    errors.add(label + ": requirement needs a 'type'");
+                } else {
+                    requirements.add(requirement);
+                }
+            }
+
+            if (name != null) {
+                int[] indices = conditions.stream().distinct().mapToInt(Integer::intValue).toArray();
+                policies.add(new Policy(name.toString(), priority, order, indices, List.copyOf(requirements)));
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new ConfigValidationException(SOURCE, errors);
+        }
+
+        policies.sort(Comparator.comparingInt(Policy::priority).reversed()
+            .thenComparing(Comparator.comparingInt((Policy p) -> p.conditions().length).reversed())
+            .thenComparingInt(Policy::order));
+        return new PromotionPolicies(List.copyOf(policies), new ArrayList<>(messageConditions), Map.copyOf(environments));
+    }
+
+    /**
+     * Policy names in the order they are tried.
+     */
+    public List<String> policyNames() {
+        return policies.stream().map(Policy::name).toList();
+    }
+
+    /**
+     * Number of distinct conditions across all policies.
+     */
+    public int conditionCount() {
+        return messageConditions.size();
+    }
+
+    public List<PromotionDecision> evaluate(List<PromotionCandidate> candidates) {
+        List<PromotionDecision> decisions = new ArrayList<>(candidates.size());
+        byte[] state = new byte[messageConditions.size()];
+        for (PromotionCandidate candidate : candidates) {
+            decisions.add(evaluate(candidate, state));
+        }
+        return decisions;
+    }
+
+    public PromotionDecision evaluate(PromotionCandidate candidate) {
+        return evaluate(candidate, new byte[messageConditions.size()]);
+    }
+
+    private PromotionDecision evaluate(PromotionCandidate candidate, byte[] state) {
+        Arrays.fill(state, UNKNOWN);
+        for (String environment : candidate.reachedEnvironments()) {
+            Integer index = environmentConditions.get(environment);
+            if (index != null) {
+                state[index] = MET;
+            }
+        }
+        for (Policy policy : policies) {
+            if (holds(policy, candidate.message(), state)) {
+                List<GateDefinition> outstanding = new ArrayList<>();
+                for (GateDefinition requirement : policy.requirements()) {
+                    if (!candidate.satisfiedRequirements().contains(requirement.type())) {
+                        outstanding.add(requirement);
+                    }
+                }
+                return new PromotionDecision(candidate, policy.name(), outstanding);
+            }
+        }
+        return new PromotionDecision(candidate, null, List.of());
+    }
+
+    private boolean holds(Policy policy, String message, byte[] state) {
+        for (int index : policy.conditions()) {
+            byte value = state[index];
+            if (value == UNKNOWN) {
+                // Reached environments were marked up front, so only patterns are left to test
+                Predicate<String> condition = messageConditions.get(index);
+                value = condition != null && condition.test(message) ? MET : NOT_MET;
+                state[index] = value;
+            }
+            if (value != MET) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A {@code .*literal.*} pattern is a substring search; anything else goes to the regex engine.
+     */
+    static Predicate<String> messageCondition(String regex) {
+        Pattern pattern = Pattern.compile(regex, Pattern.DOTALL);
+        String literal = literalInfix(regex);
+        if (literal != null) {
+            return message -> message.contains(literal);
+        }
+        return message -> pattern.matcher(message).matches();
+    }
+
+    static String literalInfix(String regex) {
+        if (regex.length() < 4 || !regex.startsWith(".*") || !regex.endsWith(".*")) {
+            return null;
+        }
+        String body = regex.substring(2, regex.length() - 2);
+        StringBuilder literal = new StringBuilder(body.length());
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= body.length() || Character.isLetterOrDigit(body.charAt(i + 1))) {
+                    return null;
+                }
+                literal.append(body.charAt(++i));
+            } else if (REGEX_META.indexOf(c) >= 0) {
+                return null;
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static GateDefinition requirement(Object raw) {
+        if (raw instanceof String type) {
+            return new GateDefinition(type, Map.of());
+        }
+        if (raw instanceof Map<?, ?> map && map.get("type") != null) {
+            Map<String, Object> params = new LinkedHashMap<>((Map<String, Object>) map);
+            params.remove("type");
+            return new GateDefinition(map.get("type").toString(), params);
+        }
+        return null;
+    }
+
+    private static List<?> list(Object value) {
+        return value instanceof List<?> list ? list : List.of();
+    }
+}
@@ -0,0 +1,244 @@
+package com.hsbc.ci.engine.core.schedule;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a list of tasks on virtual threads, at most {@code concurrency} at a time. A task
+ * starts as soon as every task it depends on has succeeded; tasks whose dependencies
+ * failed or were skipped are skipped. Tasks are identified by their position in the
+ * list, so their names need not be unique.
+ *
+ * With {@link FailurePolicy#CONTINUE} every task that can run does, and the failures are
+ * reported together. With {@link FailurePolicy#CANCEL} the first failure interrupts the
+ * tasks still running and no more are started; they are reported as cancelled.
+ *
+ * Each task's output is captured on its own instead of interleaving on the console, and
+ * is kept on its outcome.
+ */
+public class TaskScheduler<T> {
+
+    /**
+     * Runs one task and returns a short description of what it did; throws when it fails.
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        String run(T task, Slot slot) throws Exception;
+    }
+
+    /**
+     * What a task is started with.
+     *
+     * @param runnable tasks that could run together when it started, itself included: those
+     *                 running and ready, capped at the concurrency
+     * @param output   receives the task's output line by line
+     */
+    public record Slot(int runnable, Consumer<String> output) {
+    }
+
+    public enum FailurePolicy {
+        CONTINUE,
+        CANCEL;
+
+        public static FailurePolicy parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown failure policy '" + value
+                    + "' (expected continue or cancel)");
+            }
+        }
+    }
+
+    public enum Status {
+        SUCCESS,
+        FAILED,
+        SKIPPED,
+        CANCELLED
+    }
+
+    public record Outcome<T>(T task, String name, Status status, long durationNanos, String message,
+                             List<String> output) {
+
+        public Outcome {
+            output = List.copyOf(output);
+        }
+    }
+
+    /**
+     * @param outcomes one per task, in the order the tasks were given
+     */
+    public record Summary<T>(List<Outcome<T>> outcomes, long durationNanos) {
+
+        public boolean isSuccess() {
+            return outcomes.stream().allMatch(outcome -> outcome.status() == Status.SUCCESS);
+        }
+
+        public List<Outcome<T>> failed() {
+            return outcomes.stream().filter(outcome -> outcome.status() == Status.FAILED).toList();
+        }
+    }
+
+    private record Finished<T>(int index, Outcome<T> outcome) {
+    }
+
+    private final String threadPrefix;
+    private final int concurrency;
+    private final FailurePolicy policy;
+    private final Function<T, String> nameOf;
+
+    public TaskScheduler(String threadPrefix, int concurrency, FailurePolicy policy, Function<T, String> nameOf) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.threadPrefix = threadPrefix;
+        this.concurrency = concurrency;
+        this.policy = policy;
+        this.nameOf = nameOf;
+    }
+
+    /**
+     * Runs independent tasks.
+     */
+    public Summary<T> run(List<T> tasks, Work<T> work) throws InterruptedException {
+        return run(tasks, Collections.nCopies(tasks.size(), List.of()), work);
+    }
+
+    /**
+     * @param dependencies for each task, the positions of the tasks it depends on; they
+     *                     must not form a cycle
+     */
+    public Summary<T> run(List<T> tasks, List<? extends Collection<Integer>> dependencies, Work<T> work)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        int count = tasks.size();
+        int[] waitingOn = new int[count];
+        List<List<Integer>> dependents = new ArrayList<>(count);
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int i = 0; i < count; i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < count; i++) {
+            for (int dependency : new LinkedHashSet<>(dependencies.get(i))) {
+                dependents.get(dependency).add(i);
+                waitingOn[i]++;
+            }
+            if (waitingOn[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        List<List<String>> outputs = new ArrayList<>(Collections.nCopies(count, List.of()));
+        Long[] started = new Long[count];
+        List<Outcome<T>> outcomes = new ArrayList<>(Collections.nCopies(count, null));
+        String cancelledBy = null;
+
+        List<Future<Finished<T>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(threadPrefix, 0).factory())) {
+            CompletionService<Finished<T>> completion = new ExecutorCompletionService<>(executor);
+            int running = 0;
+            try {
+                while (running > 0 || (!ready.isEmpty() && cancelledBy == null)) {
+                    while (running < concurrency && !ready.isEmpty() && cancelledBy == null) {
+                        int runnable = Math.min(concurrency, ready.size() + running);
+                        int index = ready.poll();
+                        List<String> output = Collections.synchronizedList(new ArrayList<>());
+                        outputs.set(index, output);
+                        started[index] = System.nanoTime();
+                        Slot slot = new Slot(runnable, output::add);
+                        futures.add(completion.submit(
+                            () -> new Finished<>(index, runTask(tasks.get(index), work, slot, output))));
+                        running++;
+                    }
+                    Finished<T> finished = completion.take().get();
+                    running--;
+                    outcomes.set(finished.index(), finished.outcome());
+                    if (finished.outcome().status() == Status.SUCCESS) {
+                        for (int dependent : dependents.get(finished.index())) {
+                            if (--waitingOn[dependent] == 0) {
+                                ready.add(dependent);
+                            }
+                        }
+                    } else if (policy == FailurePolicy.CANCEL) {
+                        cancelledBy = finished.outcome().name();
+                        futures.forEach(future -> future.cancel(true));
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            } catch (ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Task failed", e.getCause());
+            }
+        }
+        for (Future<Finished<T>> future : futures) {
+            if (future.state() == Future.State.SUCCESS && outcomes.get(future.resultNow().index()) == null) {
+                outcomes.set(future.resultNow().index(), future.resultNow().outcome());
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (outcomes.get(i) == null && cancelledBy != null) {
+                outcomes.set(i, new Outcome<>(tasks.get(i), nameOf.apply(tasks.get(i)), Status.CANCELLED,
+                    started[i] != null ? System.nanoTime() - started[i] : 0,
+                    "cancelled after " + cancelledBy + " failed", outputs.get(i)));
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (outcomes.get(i) == null) {
+                outcomes.set(i, skipped(i, tasks, dependencies, outcomes));
+            }
+        }
+        return new Summary<>(List.copyOf(outcomes), System.nanoTime() - start);
+    }
+
+    private Outcome<T> runTask(T task, Work<T> work, Slot slot, List<String> output) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            String message = work.run(task, slot);
+            return new Outcome<>(task, nameOf.apply(task), Status.SUCCESS, System.nanoTime() - start, message,
+                output);
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            return new Outcome<>(task, nameOf.apply(task), Status.FAILED, System.nanoTime() - start, e.getMessage(),
+                output);
+        }
+    }
+
+    /**
+     * Outcome of a task that never started, naming the dependency that held it back.
+     */
+    private Outcome<T> skipped(int index, List<T> tasks, List<? extends Collection<Integer>> dependencies,
+                               List<Outcome<T>> outcomes) {
+        String reason = "a dependency did not succeed";
+        for (int dependency : dependencies.get(index)) {
+            Outcome<T> outcome = outcomes.get(dependency);
+            if (outcome == null || outcome.status() != Status.SUCCESS) {
+                String name = nameOf.apply(tasks.get(dependency));
+                reason = outcome != null && outcome.status() == Status.FAILED
+                    ? "dependency " + name + " failed" : "dependency " + name + " was skipped";
+                break;
+            }
+        }
+        T task = tasks.get(index);
+        return new Outcome<>(task, nameOf.apply(task), Status.SKIPPED, 0, reason, List.of());
+    }
+}
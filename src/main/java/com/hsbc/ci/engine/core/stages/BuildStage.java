@@ -2,32 +2,82 @@ package com.hsbc.ci.engine.core.stages;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import com.hsbc.ci.engine.core.model.PipelineContext;
-import java.util.Map;
+import com.hsbc.ci.engine.core.model.definition.BuildSettings;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.tool.BuildDaemonPool;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class BuildStage implements Stage {
 
     private static final Logger log = LoggerFactory.getLogger(BuildStage.class);
 
+    private final ProcessRunner processRunner;
+    private final ToolRegistry tools;
+    private final BuildDaemonPool daemons;
+
+    public BuildStage() {
+        this(new ProcessRunner(), new ToolRegistry(), BuildDaemonPool.disabled());
+    }
+
+    /**
+     * With a custom runner the process may not be real, so tools are passed through
+     * unresolved and every build forks.
+     */
+    public BuildStage(ProcessRunner processRunner) {
+        this(processRunner, ToolRegistry.unchecked(), BuildDaemonPool.disabled());
+    }
+
+    @Autowired
+    public BuildStage(ProcessRunner processRunner, ToolRegistry tools, BuildDaemonPool daemons) {
+        this.processRunner = processRunner;
+        this.tools = tools;
+        this.daemons = daemons;
+    }
+
     @Override
-    public String execute(Map<String, Object> config, PipelineContext context) {
-        String buildTool = (String) config.getOrDefault("build-tool", "maven");
+    public String execute(StageDefinition stage, PipelineContext context) {
+        BuildSettings settings = stage.build();
+        String buildTool = settings.tool();
         
         log.info("Building with: {}", buildTool);
         System.out.println("  Building with: " + buildTool);
         
+        Optional<BuildDaemonPool.Lease> lease = daemons.lease(
+            BuildDaemonPool.Key.of(buildTool, Paths.get(""), stage.env(), settings.jvmOpts()));
         try {
-            ProcessBuilder pb = new ProcessBuilder();
+            List<String> args = new ArrayList<>(settings.goals());
             if ("maven".equals(buildTool)) {
-                pb.command("mvn", "clean", "package", "-DskipTests");
+                if (!args.contains("-DskipTests")) {
+                    args.add("-DskipTests");
+                }
             } else if ("gradle".equals(buildTool)) {
-                pb.command("./gradlew", "build", "-x", "test");
+                args.addAll(List.of("-x", "test"));
+            } else {
+                throw new RuntimeException("Unsupported build tool: " + buildTool);
+            }
+            List<String> command;
+            if (lease.isPresent()) {
+                command = lease.get().command(args);
+                System.out.println("  Using build daemon " + lease.get().daemon().id());
+            } else {
+                command = new ArrayList<>();
+                command.add(tools.resolve(buildTool).command());
+                command.addAll(args);
+            }
+            ProcessBuilder pb = new ProcessBuilder(command);
+            if (settings.jvmOpts() != null && lease.isEmpty()) {
+                pb.environment().put("maven".equals(buildTool) ? "MAVEN_OPTS" : "JAVA_OPTS", settings.jvmOpts());
             }
-            pb.inheritIO();
-            Process process = pb.start();
-            int exitCode = process.waitFor();
+            pb.environment().putAll(stage.env());
+            int exitCode = processRunner.run(pb);
             
             if (exitCode != 0) {
                 throw new RuntimeException("Build failed with exit code: " + exitCode);
@@ -37,6 +87,8 @@ public class BuildStage implements Stage {
         } catch (Exception e) {
             log.error("Build failed: {}", e.getMessage());
             throw new RuntimeException("Build failed: " + e.getMessage());
+        } finally {
+            lease.ifPresent(BuildDaemonPool.Lease::close);
         }
     }
 }
@@ -2,32 +2,52 @@ package com.hsbc.ci.engine.core.stages;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import com.hsbc.ci.engine.core.model.PipelineContext;
-import java.util.Map;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
 
 @Component
 public class ContainerizeStage implements Stage {
 
     private static final Logger log = LoggerFactory.getLogger(ContainerizeStage.class);
 
+    private final ProcessRunner processRunner;
+    private final ToolRegistry tools;
+
+    public ContainerizeStage() {
+        this(new ProcessRunner(), new ToolRegistry());
+    }
+
+    /**
+     * With a custom runner the process may not be real, so tools are passed through
+     * unresolved.
+     */
+    public ContainerizeStage(ProcessRunner processRunner) {
+        this(processRunner, ToolRegistry.unchecked());
+    }
+
+    @Autowired
+    public ContainerizeStage(ProcessRunner processRunner, ToolRegistry tools) {
+        this.processRunner = processRunner;
+        this.tools = tools;
+    }
+
     @Override
-    public String execute(Map<String, Object> config, PipelineContext context) {
-        String dockerfile = (String) config.getOrDefault("dockerfile", "Dockerfile");
+    public String execute(StageDefinition stage, PipelineContext context) {
+        String dockerfile = stage.container().dockerfile();
         
-        String image = "myapp";
-        String tag = context.getVariable("GIT_COMMIT");
-        if (tag == null) tag = "latest";
+        String image = stage.container().image();
+        String tag = tagOf(context);
         
         log.info("Building Docker image: {}:{}", image, tag);
         System.out.println("  Building Docker image: " + image + ":" + tag);
         
         try {
             ProcessBuilder pb = new ProcessBuilder();
-            pb.command("docker", "build", "-t", image + ":" + tag, "-f", dockerfile, ".");
-            pb.inheritIO();
-            Process process = pb.start();
-            int exitCode = process.waitFor();
+            pb.command(tools.resolve("docker").command(), "build", "-t", image + ":" + tag, "-f", dockerfile, ".");
+            int exitCode = processRunner.run(pb);
             
             if (exitCode != 0) {
                 throw new RuntimeException("Docker build failed with exit code: " + exitCode);
@@ -40,4 +60,30 @@ public class ContainerizeStage implements Stage {
             throw new RuntimeException("Containerization failed: " + e.getMessage());
         }
     }
+
+    /**
+     * A cached build is only reusable while the image it tagged is still in the local
+     * docker store; it may have been pruned or built on another machine.
+     */
+    @Override
+    public boolean isReusable(StageDefinition stage, PipelineContext context) {
+        String reference = stage.container().image() + ":" + tagOf(context);
+        try {
+            ProcessBuilder pb = new ProcessBuilder(tools.resolve("docker").command(), "image", "inspect", reference)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD);
+            return processRunner.run(pb) == 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("Cannot inspect image {}: {}", reference, e.getMessage());
+            return false;
+        }
+    }
+
+    private static String tagOf(PipelineContext context) {
+        String tag = context.getVariable("GIT_COMMIT");
+        return tag != null ? tag : "latest";
+    }
 }
@@ -2,29 +2,100 @@ package com.hsbc.ci.engine.core.stages;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.deploy.ClusterApi;
+import com.hsbc.ci.engine.core.deploy.FleetDeployer;
+import com.hsbc.ci.engine.core.deploy.FleetPlan;
+import com.hsbc.ci.engine.core.deploy.LocalClusterApi;
+import com.hsbc.ci.engine.core.deploy.RolloutController;
+import com.hsbc.ci.engine.core.deploy.RolloutStrategy;
 import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.definition.DeploySettings;
+import com.hsbc.ci.engine.core.model.definition.FleetService;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.schedule.TaskScheduler;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 @Component
 public class DeployStage implements Stage {
 
     private static final Logger log = LoggerFactory.getLogger(DeployStage.class);
 
+    private static final Duration DEFAULT_ROLLOUT_TIMEOUT = Duration.ofSeconds(300);
+
+    private final ProcessRunner processRunner;
+    private final ConfigurationLoader configLoader;
+    private final ToolRegistry tools;
+    private volatile RolloutController rolloutController;
+
+    public DeployStage() {
+        this(new ProcessRunner(), null, new ToolRegistry());
+    }
+
+    /**
+     * With a custom runner the process may not be real, so tools are passed through
+     * unresolved.
+     */
+    public DeployStage(ProcessRunner processRunner) {
+        this(processRunner, null, ToolRegistry.unchecked());
+    }
+
+    @Autowired
+    public DeployStage(ProcessRunner processRunner, ConfigurationLoader configLoader, ToolRegistry tools) {
+        this.processRunner = processRunner;
+        this.configLoader = configLoader;
+        this.tools = tools;
+        if (configLoader != null && "local".equals(clusterSetting(configLoader))) {
+            setClusterApi(new LocalClusterApi());
+        }
+    }
+
+    /**
+     * With a cluster client, single-service deploys run as progressive rollouts
+     * following the stage's {@code strategy} from deploy.yml. {@code deploy.cluster: local}
+     * selects the in-memory {@link LocalClusterApi}.
+     */
+    @Autowired(required = false)
+    public void setClusterApi(ClusterApi clusterApi) {
+        RolloutController previous = rolloutController;
+        rolloutController = clusterApi != null
+            ? new RolloutController(clusterApi, RolloutController.DEFAULT_POLL_INTERVAL, System.out::println) : null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
     @Override
-    public String execute(Map<String, Object> config, PipelineContext context) {
-        String targetType = (String) config.get("type");
-        String namespace = (String) config.getOrDefault("namespace", "default");
-        String image = (String) config.getOrDefault("image", "myapp:latest");
+    public String execute(StageDefinition stage, PipelineContext context) {
+        DeploySettings settings = stage.deploy();
+        String targetType = settings.target();
+        String namespace = settings.namespace();
+        String image = settings.image();
         
         log.info("Deploying to: {} namespace: {}", targetType, namespace);
         System.out.println("  Deploying to: " + targetType + " namespace: " + namespace);
         
         try {
+            if (settings.isFleet()) {
+                return deployFleet(settings);
+            }
+            if (rolloutController != null) {
+                return rollout(settings, stage.timeout(), context);
+            }
             if ("kubernetes".equals(targetType)) {
-                return deployToKubernetes(namespace, image, config);
+                return deployToKubernetes(namespace, image);
             } else if ("ecs".equals(targetType)) {
-                return deployToECS(config);
+                return deployToECS(settings.cluster());
             }
             throw new RuntimeException("Unknown deployment target: " + targetType);
         } catch (Exception e) {
@@ -33,17 +104,9 @@ public class DeployStage implements Stage {
         }
     }
 
-    private String deployToKubernetes(String namespace, String image, Map<String, Object> config) 
+    private String deployToKubernetes(String namespace, String image)
             throws Exception {
-        log.debug("Checking kubectl...");
-        System.out.println("  [Kubernetes] Checking kubectl...");
-        
-        ProcessBuilder pb = new ProcessBuilder("kubectl", "version", "--client");
-        pb.redirectErrorStream(true);
-        Process p = pb.start();
-        int exitCode = p.waitFor();
-        
-        if (exitCode != 0) {
+        if (tools.find("kubectl").isEmpty()) {
             log.warn("kubectl not found - skipping deployment");
             System.out.println("  [Kubernetes] kubectl not found - skipping deployment");
             return "Kubernetes deployment skipped (kubectl not available)";
@@ -59,18 +122,9 @@ public class DeployStage implements Stage {
         return "Kubernetes deployment completed: namespace=" + namespace + ", image=" + image;
     }
 
-    private String deployToECS(Map<String, Object> config) throws Exception {
-        String cluster = (String) config.getOrDefault("cluster", "default");
-        
-        log.debug("Checking AWS CLI...");
-        System.out.println("  [ECS] Checking AWS CLI...");
+    private String deployToECS(String cluster) throws Exception {
         
-        ProcessBuilder pb = new ProcessBuilder("aws", "--version");
-        pb.redirectErrorStream(true);
-        Process p = pb.start();
-        int exitCode = p.waitFor();
-        
-        if (exitCode != 0) {
+        if (tools.find("aws").isEmpty()) {
             log.warn("AWS CLI not found - skipping deployment");
             System.out.println("  [ECS] AWS CLI not found - skipping deployment");
             return "ECS deployment skipped (AWS CLI not available)";
@@ -84,4 +138,122 @@ public class DeployStage implements Stage {
         
         return "ECS deployment completed: cluster=" + cluster;
     }
+
+    private String rollout(DeploySettings settings, Duration timeout, PipelineContext context) throws Exception {
+        String target = "ecs".equals(settings.target()) ? settings.cluster() : settings.namespace();
+        String service = serviceOf(settings.image());
+        RolloutStrategy strategy = RolloutStrategy.of(settings.strategy(), strategyParams(settings.strategy(), context));
+        System.out.println("  [Rollout] " + settings.strategy() + " rollout of " + service + " to " + target);
+
+        var request = new RolloutController.RolloutRequest(target, service, settings.image(), strategy,
+            timeout != null ? timeout : DEFAULT_ROLLOUT_TIMEOUT);
+        var pending = rolloutController.start(request);
+        RolloutController.RolloutResult result;
+        try {
+            result = pending.get();
+        } catch (InterruptedException e) {
+            pending.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Rollout of " + service + " failed", e.getCause());
+        }
+        if (!result.isPromoted()) {
+            throw new RuntimeException("Rollout of " + service + " rolled back: " + result.reason());
+        }
+        return settings.strategy() + " rollout completed: " + result.revision() + " (" + settings.image() + ")";
+    }
+
+    private static String clusterSetting(ConfigurationLoader configLoader) {
+        Object deploy = configLoader.getConfigFile("deploy.yml").get("deploy");
+        Object cluster = deploy instanceof Map<?, ?> values ? values.get("cluster") : null;
+        if (cluster != null && !"local".equals(cluster)) {
+            log.warn("Unknown deploy.cluster '{}' - deploys are not rolled out", cluster);
+        }
+        return cluster != null ? cluster.toString() : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> strategyParams(String strategy, PipelineContext context) {
+        if (configLoader == null) {
+            return Map.of();
+        }
+        Object strategies = configLoader.getConfigFile(context.getConfigState(), "deploy.yml")
+            .get("deploymentStrategies");
+        Object params = strategies instanceof Map<?, ?> map ? map.get(strategy) : null;
+        return params instanceof Map<?, ?> values ? (Map<String, Object>) values : Map.of();
+    }
+
+    /**
+     * Service name from an image reference: {@code registry/team/payments:1.2} is {@code payments}.
+     */
+    static String serviceOf(String image) {
+        String name = image.substring(image.lastIndexOf('/') + 1);
+        int tag = name.indexOf(':');
+        int digest = name.indexOf('@');
+        int end = tag >= 0 ? tag : digest >= 0 ? digest : name.length();
+        return name.substring(0, end);
+    }
+
+    /**
+     * Deploys every service of the stage in dependency waves and fails the stage if any
+     * service does not become healthy. Each service gets the settings' service timeout;
+     * the stage timeout, enforced by the executor, covers the whole fleet.
+     */
+    private String deployFleet(DeploySettings settings) throws Exception {
+        FleetPlan plan = FleetPlan.of(settings.services());
+        boolean kubernetes = "kubernetes".equals(settings.target());
+        String cli = kubernetes ? "kubectl" : "aws";
+        if (tools.find(cli).isEmpty()) {
+            System.out.println("  [Fleet] " + cli + " not found - skipping deployment of " + plan.size() + " services");
+            return "Fleet deployment skipped (" + cli + " not available)";
+        }
+        System.out.println("  [Fleet] Deploying " + plan.size() + " services in " + plan.waves().size()
+            + " waves, " + settings.concurrency() + " at a time");
+
+        Duration rolloutTimeout = settings.serviceTimeout() != null
+            ? settings.serviceTimeout() : DEFAULT_ROLLOUT_TIMEOUT;
+        TaskScheduler.Summary<FleetService> result = new FleetDeployer(settings.concurrency()).deploy(plan,
+            service -> kubernetes
+                ? rolloutKubernetes(settings.namespace(), service, imageOf(settings, service), rolloutTimeout)
+                : rolloutEcs(settings.cluster(), service));
+        if (!result.isSuccess()) {
+            throw new RuntimeException("Fleet deploy failed for " + result.failed().stream()
+                .map(TaskScheduler.Outcome::name)
+                .collect(Collectors.joining(", ")));
+        }
+        return "Fleet deployment completed: " + plan.size() + " services in " + plan.waves().size() + " waves";
+    }
+
+    private String rolloutKubernetes(String namespace, FleetService service, String image, Duration timeout)
+            throws IOException, InterruptedException {
+        String deployment = "deployment/" + service.name();
+        run("kubectl", "set", "image", deployment, service.name() + "=" + image, "-n", namespace);
+        run("kubectl", "rollout", "status", deployment, "-n", namespace, "--timeout=" + timeout.toSeconds() + "s");
+        return service.name() + " running " + image;
+    }
+
+    private String rolloutEcs(String cluster, FleetService service) throws IOException, InterruptedException {
+        run("aws", "ecs", "update-service", "--cluster", cluster, "--service", service.name(), "--force-new-deployment");
+        run("aws", "ecs", "wait", "services-stable", "--cluster", cluster, "--services", service.name());
+        return service.name() + " stable on " + cluster;
+    }
+
+    /**
+     * The service's own image, else the stage image with {@code {service}} replaced by
+     * the service name.
+     */
+    static String imageOf(DeploySettings settings, FleetService service) {
+        return service.image() != null ? service.image() : settings.image().replace("{service}", service.name());
+    }
+
+    private void run(String... command) throws IOException, InterruptedException {
+        List<String> resolved = new ArrayList<>(List.of(command));
+        resolved.set(0, tools.resolve(command[0]).command());
+        ProcessBuilder pb = new ProcessBuilder(resolved);
+        pb.redirectErrorStream(true);
+        int exitCode = processRunner.run(pb);
+        if (exitCode != 0) {
+            throw new RuntimeException(String.join(" ", List.of(command).subList(0, 3)) + " exited with " + exitCode);
+        }
+    }
 }
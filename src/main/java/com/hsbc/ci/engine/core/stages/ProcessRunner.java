@@ -0,0 +1,158 @@
+package com.hsbc.ci.engine.core.stages;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.metrics.EngineMetrics;
+import com.hsbc.ci.engine.core.output.ProcessOutputPump;
+import com.hsbc.ci.engine.core.output.StageOutput;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spawns external processes for stages, capping how many run at once across the engine.
+ * The limit comes from {@code global.maxConcurrentProcesses} in ci-engine.yml.
+ *
+ * Interrupting the calling thread (stage timeout or cancel) kills the whole process tree.
+ * The process permit is released as soon as the tree has been signalled; escalating to
+ * SIGKILL happens in the background.
+ * Output of processes started by a stage is captured into that stage's {@link StageOutput};
+ * anything else inherits the engine's console.
+ */
+@Component
+public class ProcessRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessRunner.class);
+
+    static final int DEFAULT_MAX_CONCURRENT_PROCESSES = 16;
+    static final long KILL_GRACE_SECONDS = 10;
+
+    private final int maxConcurrentProcesses;
+    private final Semaphore permits;
+    private final EngineMetrics metrics;
+
+    public ProcessRunner() {
+        this(DEFAULT_MAX_CONCURRENT_PROCESSES);
+    }
+
+    public ProcessRunner(int maxConcurrentProcesses) {
+        this(maxConcurrentProcesses, new EngineMetrics());
+    }
+
+    public ProcessRunner(int maxConcurrentProcesses, EngineMetrics metrics) {
+        if (maxConcurrentProcesses < 1) {
+            throw new IllegalArgumentException("maxConcurrentProcesses must be at least 1");
+        }
+        this.maxConcurrentProcesses = maxConcurrentProcesses;
+        this.permits = new Semaphore(maxConcurrentProcesses, true);
+        this.metrics = metrics;
+    }
+
+    @Autowired
+    public ProcessRunner(ConfigurationLoader configLoader, EngineMetrics metrics) {
+        this(resolveLimit(configLoader), metrics);
+    }
+
+    private static int resolveLimit(ConfigurationLoader configLoader) {
+        Object value = configLoader.getGlobalSettings().get("maxConcurrentProcesses");
+        return value instanceof Number number ? number.intValue() : DEFAULT_MAX_CONCURRENT_PROCESSES;
+    }
+
+    public int run(ProcessBuilder builder) throws IOException, InterruptedException {
+        if (!permits.tryAcquire()) {
+            log.debug("Process limit of {} reached, waiting: {}", maxConcurrentProcesses, builder.command());
+            permits.acquire();
+        }
+        try {
+            return execute(builder);
+        } finally {
+            permits.release();
+        }
+    }
+
+    protected int execute(ProcessBuilder builder) throws IOException, InterruptedException {
+        StageOutput output = StageOutput.current();
+        boolean piped = builder.redirectOutput() == ProcessBuilder.Redirect.PIPE;
+        if (output == null && piped) {
+            builder.inheritIO();
+        }
+        long spawnStart = System.nanoTime();
+        Process process = builder.start();
+        metrics.record(EngineMetrics.PROCESS_SPAWN_DURATION, commandName(builder), System.nanoTime() - spawnStart);
+        try {
+            ProcessOutputPump.Drain drain = output != null && piped ? ProcessOutputPump.pump(process, output) : null;
+            int exitCode = process.waitFor();
+            if (drain != null) {
+                drain.await();
+            }
+            return exitCode;
+        } catch (InterruptedException e) {
+            killTree(process.toHandle());
+            throw e;
+        }
+    }
+
+    private static String commandName(ProcessBuilder builder) {
+        String executable = builder.command().isEmpty() ? "unknown" : builder.command().get(0);
+        return executable.substring(executable.lastIndexOf('/') + 1);
+    }
+
+    static CompletableFuture<Void> killTree(ProcessHandle root) {
+        return killTree(root, Duration.ofSeconds(KILL_GRACE_SECONDS));
+    }
+
+    /**
+     * Sends SIGTERM to the process and all its descendants and returns; a virtual thread
+     * then sends SIGKILL to whatever is still alive after {@code grace}. The returned future
+     * completes once that is done. Descendants are captured first because they get
+     * reparented, and become unreachable, once their parent exits.
+     */
+    static CompletableFuture<Void> killTree(ProcessHandle root, Duration grace) {
+        List<ProcessHandle> tree = new ArrayList<>(root.descendants().toList());
+        tree.add(root);
+        log.warn("Killing process tree of pid {} ({} processes)", root.pid(), tree.size());
+        for (ProcessHandle handle : tree) {
+            handle.destroy();
+        }
+        CompletableFuture<Void> killed = new CompletableFuture<>();
+        Thread.ofVirtual().name("kill-" + root.pid()).start(() -> {
+            escalate(tree, grace);
+            killed.complete(null);
+        });
+        return killed;
+    }
+
+    private static void escalate(List<ProcessHandle> tree, Duration grace) {
+        long deadline = System.nanoTime() + grace.toNanos();
+        for (ProcessHandle handle : tree) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                if (remaining > 0) {
+                    handle.onExit().get(remaining, TimeUnit.NANOSECONDS);
+                }
+            } catch (Exception e) {
+                log.debug("Process {} did not exit within grace period", handle.pid());
+            }
+            if (handle.isAlive()) {
+                handle.destroyForcibly();
+            }
+        }
+    }
+
+    public int getMaxConcurrentProcesses() {
+        return maxConcurrentProcesses;
+    }
+
+    public int getRunningProcesses() {
+        return maxConcurrentProcesses - permits.availablePermits();
+    }
+}
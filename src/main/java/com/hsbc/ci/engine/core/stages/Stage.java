@@ -1,8 +1,16 @@
 package com.hsbc.ci.engine.core.stages;
 
 import com.hsbc.ci.engine.core.model.PipelineContext;
-import java.util.Map;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
 
 public interface Stage {
-    String execute(Map<String, Object> config, PipelineContext context);
+    String execute(StageDefinition stage, PipelineContext context);
+
+    /**
+     * Whether a cached result of this stage can stand in for running it, for stages whose
+     * output lives outside the workspace. The default trusts the cache.
+     */
+    default boolean isReusable(StageDefinition stage, PipelineContext context) {
+        return true;
+    }
 }
@@ -3,36 +3,136 @@ package com.hsbc.ci.engine.core.stages;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.hsbc.ci.engine.core.artifact.StageArtifacts;
+import com.hsbc.ci.engine.core.cache.StageCache;
+import com.hsbc.ci.engine.core.event.PipelineEventBus;
+import com.hsbc.ci.engine.core.event.PipelineEventType;
 import com.hsbc.ci.engine.core.model.PipelineContext;
 import com.hsbc.ci.engine.core.model.StageResult;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.output.ProcessOutputPump;
+import com.hsbc.ci.engine.core.output.StageOutput;
 
-import java.util.HashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Runs stages on virtual threads. Each stage body is bounded by the earlier of its own
+ * timeout and the pipeline deadline; when either passes, or the run is cancelled, the
+ * stage thread is interrupted and {@link ProcessRunner} kills its process tree.
+ */
 @Component
 public class StageExecutor {
 
-    private final Map<String, Stage> stages = new HashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(StageExecutor.class);
 
-    @Autowired
-    private BuildStage buildStage;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("stage-", 0).factory());
+    private final Map<String, Set<Future<String>>> inFlight = new ConcurrentHashMap<>();
 
-    @Autowired
+    private BuildStage buildStage;
     private TestStage testStage;
-
-    @Autowired
     private ContainerizeStage containerizeStage;
-
-    @Autowired
     private DeployStage deployStage;
+    private StageCache stageCache = new StageCache();
+    private StageArtifacts artifacts = new StageArtifacts();
+    private ProcessOutputPump outputPump = new ProcessOutputPump();
+    private PipelineEventBus eventBus = new PipelineEventBus();
 
     public StageExecutor() {
     }
 
-    public StageResult execute(String stageType, 
-                              Map<String, Object> config, 
-                              PipelineContext context) {
-        long startTime = System.currentTimeMillis();
+    public StageExecutor(BuildStage buildStage,
+                         TestStage testStage,
+                         ContainerizeStage containerizeStage,
+                         DeployStage deployStage) {
+        this(buildStage, testStage, containerizeStage, deployStage, new StageCache(),
+            new ProcessOutputPump(), new PipelineEventBus());
+    }
+
+    public StageExecutor(BuildStage buildStage,
+                         TestStage testStage,
+                         ContainerizeStage containerizeStage,
+                         DeployStage deployStage,
+                         StageCache stageCache,
+                         ProcessOutputPump outputPump,
+                         PipelineEventBus eventBus) {
+        this(buildStage, testStage, containerizeStage, deployStage, stageCache, outputPump, eventBus,
+            new StageArtifacts());
+    }
+
+    @Autowired
+    public StageExecutor(BuildStage buildStage,
+                         TestStage testStage,
+                         ContainerizeStage containerizeStage,
+                         DeployStage deployStage,
+                         StageCache stageCache,
+                         ProcessOutputPump outputPump,
+                         PipelineEventBus eventBus,
+                         StageArtifacts artifacts) {
+        this.buildStage = buildStage;
+        this.testStage = testStage;
+        this.containerizeStage = containerizeStage;
+        this.deployStage = deployStage;
+        this.stageCache = stageCache;
+        this.outputPump = outputPump;
+        this.eventBus = eventBus;
+        this.artifacts = artifacts;
+    }
+
+    public Future<StageResult> submit(StageDefinition stage, PipelineContext context) {
+        return executor.submit(() -> execute(stage, context));
+    }
+
+    /**
+     * Interrupts every in-flight stage of a run. Returns the number of stages cancelled.
+     */
+    public int cancel(String runId) {
+        Set<Future<String>> futures = inFlight.getOrDefault(runId, Set.of());
+        int cancelled = 0;
+        for (Future<String> future : futures) {
+            if (future.cancel(true)) {
+                cancelled++;
+            }
+        }
+        log.info("Cancelled {} in-flight stages of run {}", cancelled, runId);
+        return cancelled;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public StageResult execute(StageDefinition stage, PipelineContext context) {
+        long start = System.nanoTime();
+        eventBus.publish(PipelineEventType.STAGE_STARTED, context.getRunId(), context.getPipelineName(),
+            stage.name(), stage.type(), true, 0, null);
+        StageResult result = run(stage, context);
+        eventBus.publish(PipelineEventType.STAGE_FINISHED, context.getRunId(), context.getPipelineName(),
+            stage.name(), stage.type(), result.isSuccess(), System.nanoTime() - start, result.getOutput());
+        return result;
+    }
+
+    private StageResult run(StageDefinition definition, PipelineContext context) {
+        long startTime = System.nanoTime();
+        String stageType = definition.type();
         
         try {
             Stage stage = getStage(stageType);
@@ -45,18 +145,36 @@ public class StageExecutor {
                     .build();
             }
 
-            String output = stage.execute(config, context);
-            long duration = System.currentTimeMillis() - startTime;
+            if (context.isCancelled()) {
+                return failure(stageType, "Cancelled", 0, Map.of("cancelled", "true"), null);
+            }
+            Duration timeout = resolveTimeout(definition, context);
+            if (timeout != null && !timeout.isPositive()) {
+                return failure(stageType, "Pipeline deadline exceeded", 0, Map.of("timedOut", "true"), null);
+            }
 
-            return StageResult.builder()
-                .stageName(stageType)
-                .success(true)
-                .output(output)
-                .durationMs(duration)
-                .build();
+            try {
+                artifacts.fetch(definition);
+            } catch (IllegalStateException e) {
+                return failure(stageType, "Missing input: " + e.getMessage(), elapsedMillis(startTime), null, null);
+            }
+
+            String cacheKey = stageCache.keyFor(definition, context);
+            if (cacheKey != null) {
+                Optional<StageResult> cached = stageCache.restore(cacheKey, stageType,
+                    () -> stage.isReusable(definition, context));
+                if (cached.isPresent()) {
+                    return publishArtifacts(definition, cached.get(), startTime);
+                }
+            }
+
+            try (StageOutput stageOutput = outputPump.open(context.getRunId(), definition.name())) {
+                return publishArtifacts(definition,
+                    runCaptured(stage, definition, context, timeout, cacheKey, stageOutput, startTime), startTime);
+            }
 
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
+            long duration = elapsedMillis(startTime);
             return StageResult.builder()
                 .stageName(stageType)
                 .success(false)
@@ -66,6 +184,125 @@ public class StageExecutor {
         }
     }
 
+    private StageResult runCaptured(Stage stage,
+                                    StageDefinition definition,
+                                    PipelineContext context,
+                                    Duration timeout,
+                                    String cacheKey,
+                                    StageOutput stageOutput,
+                                    long startTime) {
+        String stageType = definition.type();
+        String output;
+        try {
+            output = runBounded(stage, definition, context, timeout, stageOutput);
+        } catch (TimeoutException e) {
+            log.warn("Stage {} timed out after {}s", stageType, timeout.toSeconds());
+            return failure(stageType, "Timed out after " + timeout.toSeconds() + "s",
+                elapsedMillis(startTime), Map.of("timedOut", "true"), stageOutput);
+        } catch (CancellationException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return failure(stageType, "Cancelled",
+                elapsedMillis(startTime), Map.of("cancelled", "true"), stageOutput);
+        } catch (Exception e) {
+            return failure(stageType, "Error: " + e.getMessage(),
+                elapsedMillis(startTime), null, stageOutput);
+        }
+        long duration = elapsedMillis(startTime);
+
+        StageResult result = StageResult.builder()
+            .stageName(stageType)
+            .success(true)
+            .output(output)
+            .durationMs(duration)
+            .logTail(stageOutput.tail())
+            .logFile(logFileOf(stageOutput))
+            .build();
+        if (cacheKey != null) {
+            stageCache.store(cacheKey, definition, result);
+        }
+        return result;
+    }
+
+    /**
+     * Publishes the artifacts of a successful stage; a declared output that cannot be
+     * published fails the stage, since the stages fetching it would fail anyway.
+     */
+    private StageResult publishArtifacts(StageDefinition definition, StageResult result, long startTime)
+            throws IOException {
+        if (!result.isSuccess()) {
+            return result;
+        }
+        try {
+            artifacts.publish(definition);
+        } catch (IllegalStateException e) {
+            return failure(definition.type(), "Error: " + e.getMessage(), elapsedMillis(startTime), null, null);
+        }
+        return result;
+    }
+
+    private String runBounded(Stage stage,
+                              StageDefinition definition,
+                              PipelineContext context,
+                              Duration timeout,
+                              StageOutput stageOutput) throws Exception {
+        Future<String> future = executor.submit(
+            () -> outputPump.capture(stageOutput, () -> stage.execute(definition, context)));
+        Set<Future<String>> runFutures = inFlight.computeIfAbsent(context.getRunId(), id -> ConcurrentHashMap.newKeySet());
+        runFutures.add(future);
+        try {
+            if (context.isCancelled()) {
+                future.cancel(true);
+            }
+            return timeout == null ? future.get() : future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            runFutures.remove(future);
+            inFlight.computeIfPresent(context.getRunId(), (id, futures) -> futures.isEmpty() ? null : futures);
+        }
+    }
+
+    private Duration resolveTimeout(StageDefinition stage, PipelineContext context) {
+        Duration timeout = stage.timeout();
+        Instant deadline = context.getDeadline();
+        if (deadline != null) {
+            Duration remaining = Duration.between(Instant.now(), deadline);
+            if (timeout == null || remaining.compareTo(timeout) < 0) {
+                timeout = remaining;
+            }
+        }
+        return timeout;
+    }
+
+    private StageResult failure(String stageType,
+                                String output,
+                                long durationMs,
+                                Map<String, String> metadata,
+                                StageOutput stageOutput) {
+        return StageResult.builder()
+            .stageName(stageType)
+            .success(false)
+            .output(output)
+            .durationMs(durationMs)
+            .metadata(metadata)
+            .logTail(stageOutput != null ? stageOutput.tail() : null)
+            .logFile(stageOutput != null ? logFileOf(stageOutput) : null)
+            .build();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static String logFileOf(StageOutput stageOutput) {
+        return stageOutput.getLogFile() != null ? stageOutput.getLogFile().toString() : null;
+    }
+
     private Stage getStage(String type) {
         return switch (type) {
             case "build" -> buildStage;
@@ -2,28 +2,66 @@ package com.hsbc.ci.engine.core.stages;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import com.hsbc.ci.engine.core.model.PipelineContext;
-import java.util.Map;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.model.definition.TestSettings;
+import com.hsbc.ci.engine.core.tool.BuildDaemonPool;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class TestStage implements Stage {
 
     private static final Logger log = LoggerFactory.getLogger(TestStage.class);
 
+    private final ProcessRunner processRunner;
+    private final ToolRegistry tools;
+    private final BuildDaemonPool daemons;
+
+    public TestStage() {
+        this(new ProcessRunner(), new ToolRegistry(), BuildDaemonPool.disabled());
+    }
+
+    /**
+     * With a custom runner the process may not be real, so tools are passed through
+     * unresolved and every build forks.
+     */
+    public TestStage(ProcessRunner processRunner) {
+        this(processRunner, ToolRegistry.unchecked(), BuildDaemonPool.disabled());
+    }
+
+    @Autowired
+    public TestStage(ProcessRunner processRunner, ToolRegistry tools, BuildDaemonPool daemons) {
+        this.processRunner = processRunner;
+        this.tools = tools;
+        this.daemons = daemons;
+    }
+
     @Override
-    public String execute(Map<String, Object> config, PipelineContext context) {
-        String testType = (String) config.getOrDefault("test-type", "unit");
+    public String execute(StageDefinition stage, PipelineContext context) {
+        TestSettings settings = stage.test();
+        String testType = settings.testType();
         
         log.info("Running tests: {}", testType);
         System.out.println("  Running tests: " + testType);
         
+        Optional<BuildDaemonPool.Lease> lease = daemons.lease(
+            BuildDaemonPool.Key.of("maven", Paths.get(""), stage.env(), settings.jvmOpts()));
         try {
             ProcessBuilder pb = new ProcessBuilder();
-            pb.command("mvn", "test");
-            pb.inheritIO();
-            Process process = pb.start();
-            int exitCode = process.waitFor();
+            pb.command(lease.isPresent()
+                ? lease.get().command(List.of("test"))
+                : List.of(tools.resolve("maven").command(), "test"));
+            if (settings.jvmOpts() != null && lease.isEmpty()) {
+                pb.environment().put("MAVEN_OPTS", settings.jvmOpts());
+            }
+            pb.environment().putAll(stage.env());
+            int exitCode = processRunner.run(pb);
             
             if (exitCode != 0) {
                 throw new RuntimeException("Tests failed with exit code: " + exitCode);
@@ -33,6 +71,8 @@ public class TestStage implements Stage {
         } catch (Exception e) {
             log.error("Tests failed: {}", e.getMessage());
             throw new RuntimeException("Tests failed: " + e.getMessage());
+        } finally {
+            lease.ifPresent(BuildDaemonPool.Lease::close);
         }
     }
 }
@@ -0,0 +1,499 @@
+package com.hsbc.ci.engine.core.tool;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps build tools warm between stage runs. Instead of forking a fresh {@code mvn} or
+ * {@code ./gradlew} JVM, which pays JVM startup, plugin class loading and JIT warm-up
+ * on every invocation, a build is routed to an idle daemon for the same project, JDK and
+ * JVM arguments: an mvnd daemon for Maven, the Gradle daemon for Gradle.
+ *
+ * At most {@code maxPerProject} builds of a project run on daemons at once. A daemon
+ * the pool owns is stopped and replaced once it is older than {@code maxAge}, has run
+ * {@code maxBuilds} builds, or its resident memory exceeds {@code maxHeapMb} (read
+ * every {@value #MEMORY_CHECK_INTERVAL} builds, since it forks the daemon client); Gradle
+ * daemons are shared with every Gradle build on the machine, so they are left to
+ * Gradle's own expiry. When the
+ * daemon client is not installed or every daemon of the project is busy, {@link #lease}
+ * returns empty and the caller forks the build tool as before.
+ *
+ * Settings live under {@code build.daemons} in build.yml.
+ */
+@Component
+public class BuildDaemonPool {
+
+    private static final Logger log = LoggerFactory.getLogger(BuildDaemonPool.class);
+
+    private static final long CONTROL_TIMEOUT_SECONDS = 30;
+
+    static final int MEMORY_CHECK_INTERVAL = 10;
+
+    public record Settings(boolean enabled, int maxPerProject, Duration maxAge, int maxBuilds, long maxHeapMb,
+                           Path directory) {
+
+        public static Settings defaults() {
+            return new Settings(true, 2, Duration.ofHours(1), 200, 2048, Paths.get(".ci-engine/daemons"));
+        }
+    }
+
+    /**
+     * What a daemon is keyed by: builds only share a daemon when all four match.
+     */
+    public record Key(String tool, Path project, String javaHome, String jvmArgs) {
+
+        /**
+         * Key for a build of {@code project}, taking the JDK from {@code JAVA_HOME} in the
+         * stage environment, else the engine's own.
+         */
+        public static Key of(String tool, Path project, Map<String, String> env, String jvmArgs) {
+            String javaHome = env.get("JAVA_HOME");
+            if (javaHome == null) {
+                javaHome = System.getenv("JAVA_HOME");
+            }
+            if (javaHome == null) {
+                javaHome = System.getProperty("java.home");
+            }
+            return new Key(tool, project.toAbsolutePath().normalize(), javaHome, jvmArgs);
+        }
+    }
+
+    /**
+     * How to talk to one kind of build daemon.
+     */
+    public interface Backend {
+
+        boolean available();
+
+        /**
+         * Full command line that runs {@code args} on the daemon.
+         */
+        List<String> command(Daemon daemon, List<String> args);
+
+        /**
+         * Resident memory of the daemon in MB, or -1 when it cannot be told.
+         */
+        long residentMb(Daemon daemon);
+
+        void stop(Daemon daemon);
+
+        /**
+         * Whether each daemon is the pool's own and may be stopped when it is recycled.
+         */
+        default boolean recycles() {
+            return true;
+        }
+    }
+
+    public static final class Daemon {
+        private final Key key;
+        private final int slot;
+        private final long startedNanos;
+        private int builds;
+        private boolean busy;
+
+        Daemon(Key key, int slot, long startedNanos) {
+            this.key = key;
+            this.slot = slot;
+            this.startedNanos = startedNanos;
+        }
+
+        public Key key() {
+            return key;
+        }
+
+        public int slot() {
+            return slot;
+        }
+
+        /**
+         * Stable id of the daemon's slot, so a restarted engine finds the same daemons.
+         */
+        public String id() {
+            return key.tool() + "-" + Integer.toHexString(key.hashCode()) + "-" + slot;
+        }
+
+        public synchronized int builds() {
+            return builds;
+        }
+    }
+
+    /**
+     * A daemon reserved for one build; closing it hands the daemon back.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Daemon daemon;
+        private final Backend backend;
+        private boolean closed;
+
+        private Lease(Daemon daemon, Backend backend) {
+            this.daemon = daemon;
+            this.backend = backend;
+        }
+
+        public Daemon daemon() {
+            return daemon;
+        }
+
+        public List<String> command(List<String> args) {
+            return backend.command(daemon, args);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(daemon, backend);
+            }
+        }
+    }
+
+    private final Settings settings;
+    private final Map<String, Backend> backends;
+    private final LongSupplier clock;
+    private final Map<Key, List<Daemon>> daemons = new HashMap<>();
+
+    public BuildDaemonPool() {
+        this(Settings.defaults(), new ToolRegistry());
+    }
+
+    @Autowired
+    public BuildDaemonPool(ConfigurationLoader configLoader, ToolRegistry tools) {
+        this(settings(configLoader), tools);
+    }
+
+    private BuildDaemonPool(Settings settings, ToolRegistry tools) {
+        this(settings, Map.of(
+            "maven", new MavenDaemons(tools, settings.directory()),
+            "gradle", new GradleDaemons(tools)), System::nanoTime);
+    }
+
+    BuildDaemonPool(Settings settings, Map<String, Backend> backends, LongSupplier clock) {
+        this.settings = settings;
+        this.backends = backends;
+        this.clock = clock;
+    }
+
+    /**
+     * A pool that never leases, so every build forks.
+     */
+    public static BuildDaemonPool disabled() {
+        Settings defaults = Settings.defaults();
+        return new BuildDaemonPool(new Settings(false, 0, defaults.maxAge(), 0, 0, defaults.directory()),
+            Map.of(), System::nanoTime);
+    }
+
+    /**
+     * Reserves an idle daemon for the key, starting a new one if the project has fewer
+     * than {@code maxPerProject}; empty when the build should fork instead.
+     */
+    public Optional<Lease> lease(Key key) {
+        Backend backend = settings.enabled() ? backends.get(key.tool()) : null;
+        if (backend == null || !backend.available()) {
+            return Optional.empty();
+        }
+        List<Daemon> expired = new ArrayList<>();
+        Daemon leased = null;
+        synchronized (this) {
+            List<Daemon> forKey = daemons.computeIfAbsent(key, k -> new ArrayList<>());
+            for (Daemon daemon : List.copyOf(forKey)) {
+                if (daemon.busy) {
+                    continue;
+                }
+                if (backend.recycles() && tooOld(daemon)) {
+                    forKey.remove(daemon);
+                    expired.add(daemon);
+                } else if (leased == null) {
+                    leased = daemon;
+                }
+            }
+            if (leased == null && forKey.size() < settings.maxPerProject()) {
+                leased = new Daemon(key, freeSlot(forKey), clock.getAsLong());
+                forKey.add(leased);
+                log.debug("Starting build daemon {}", leased.id());
+            }
+            if (leased != null) {
+                leased.busy = true;
+            }
+        }
+        expired.forEach(daemon -> stop(daemon, backend, "older than " + settings.maxAge().toMinutes() + "m"));
+        return leased != null ? Optional.of(new Lease(leased, backend)) : Optional.empty();
+    }
+
+    /**
+     * Daemons currently known for the key, busy or idle.
+     */
+    public synchronized List<Daemon> daemons(Key key) {
+        return List.copyOf(daemons.getOrDefault(key, List.of()));
+    }
+
+    /**
+     * Stops every daemon the pool started.
+     */
+    public void stopAll() {
+        List<Daemon> all = new ArrayList<>();
+        synchronized (this) {
+            daemons.values().forEach(all::addAll);
+            daemons.clear();
+        }
+        for (Daemon daemon : all) {
+            Backend backend = backends.get(daemon.key().tool());
+            if (backend.recycles()) {
+                stop(daemon, backend, "pool stopped");
+            }
+        }
+    }
+
+    private void release(Daemon daemon, Backend backend) {
+        String reason;
+        synchronized (daemon) {
+            daemon.builds++;
+        }
+        if (!backend.recycles()) {
+            reason = null;
+        } else if (tooOld(daemon)) {
+            reason = "older than " + settings.maxAge().toMinutes() + "m";
+        } else if (daemon.builds() >= settings.maxBuilds()) {
+            reason = daemon.builds() + " builds";
+        } else if (settings.maxHeapMb() > 0 && daemon.builds() % MEMORY_CHECK_INTERVAL == 0
+                && backend.residentMb(daemon) > settings.maxHeapMb()) {
+            reason = "over " + settings.maxHeapMb() + "MB resident";
+        } else {
+            reason = null;
+        }
+        synchronized (this) {
+            daemon.busy = false;
+            if (reason != null) {
+                daemons.getOrDefault(daemon.key(), new ArrayList<>()).remove(daemon);
+            }
+        }
+        if (reason != null) {
+            stop(daemon, backend, reason);
+        }
+    }
+
+    private boolean tooOld(Daemon daemon) {
+        return clock.getAsLong() - daemon.startedNanos >= settings.maxAge().toNanos();
+    }
+
+    private static int freeSlot(List<Daemon> daemons) {
+        int slot = 0;
+        while (true) {
+            int candidate = slot;
+            if (daemons.stream().noneMatch(daemon -> daemon.slot() == candidate)) {
+                return slot;
+            }
+            slot++;
+        }
+    }
+
+    private static void stop(Daemon daemon, Backend backend, String reason) {
+        log.info("Recycling build daemon {} ({})", daemon.id(), reason);
+        try {
+            backend.stop(daemon);
+        } catch (RuntimeException e) {
+            log.warn("Failed to stop build daemon {}: {}", daemon.id(), e.getMessage());
+        }
+    }
+
+    /**
+     * Maven builds on mvnd, each pool slot with its own daemon storage so it maps to
+     * exactly one mvnd daemon.
+     */
+    public static final class MavenDaemons implements Backend {
+        private final ToolRegistry tools;
+        private final Path directory;
+
+        public MavenDaemons(ToolRegistry tools, Path directory) {
+            this.tools = tools;
+            this.directory = directory;
+        }
+
+        @Override
+        public boolean available() {
+            return tools.find("mvnd").isPresent();
+        }
+
+        @Override
+        public List<String> command(Daemon daemon, List<String> args) {
+            List<String> command = control(daemon);
+            if (daemon.key().javaHome() != null) {
+                command.add("-Dmvnd.javaHome=" + daemon.key().javaHome());
+            }
+            if (daemon.key().jvmArgs() != null) {
+                command.add("-Dmvnd.jvmArgs=" + daemon.key().jvmArgs());
+            }
+            command.addAll(args);
+            return command;
+        }
+
+        @Override
+        public long residentMb(Daemon daemon) {
+            List<String> command = control(daemon);
+            command.add("--status");
+            return BuildDaemonPool.residentMb(pidsOf(run(command)));
+        }
+
+        @Override
+        public void stop(Daemon daemon) {
+            List<String> command = control(daemon);
+            command.add("--stop");
+            run(command);
+        }
+
+        private List<String> control(Daemon daemon) {
+            List<String> command = new ArrayList<>();
+            command.add(tools.resolve("mvnd").command());
+            command.add("-Dmvnd.daemonStorage=" + directory.resolve(daemon.id()).toAbsolutePath());
+            return command;
+        }
+    }
+
+    /**
+     * Gradle builds on the Gradle daemon. Gradle itself picks a compatible idle daemon,
+     * so slots only bound how many builds run at once. No slot maps to one daemon process
+     * and {@code gradle --stop} would stop every daemon of that Gradle version, other
+     * users' builds included, so these daemons are never recycled; Gradle expires idle
+     * and memory-starved daemons itself.
+     */
+    public static final class GradleDaemons implements Backend {
+        private final ToolRegistry tools;
+
+        public GradleDaemons(ToolRegistry tools) {
+            this.tools = tools;
+        }
+
+        @Override
+        public boolean available() {
+            return tools.find("gradle").isPresent();
+        }
+
+        @Override
+        public List<String> command(Daemon daemon, List<String> args) {
+            List<String> command = new ArrayList<>();
+            command.add(tools.resolve("gradle").command());
+            command.add("--daemon");
+            if (daemon.key().javaHome() != null) {
+                command.add("-Dorg.gradle.java.home=" + daemon.key().javaHome());
+            }
+            if (daemon.key().jvmArgs() != null) {
+                command.add("-Dorg.gradle.jvmargs=" + daemon.key().jvmArgs());
+            }
+            args.stream().filter(arg -> !"--no-daemon".equals(arg)).forEach(command::add);
+            return command;
+        }
+
+        @Override
+        public long residentMb(Daemon daemon) {
+            return -1;
+        }
+
+        @Override
+        public void stop(Daemon daemon) {
+        }
+
+        @Override
+        public boolean recycles() {
+            return false;
+        }
+    }
+
+    /**
+     * PIDs from {@code mvnd --status} or {@code gradle --status}: the first all-digit
+     * column among the first two of each row.
+     */
+    static List<Long> pidsOf(String status) {
+        List<Long> pids = new ArrayList<>();
+        for (String line : status.lines().toList()) {
+            String[] columns = line.trim().split("\\s+");
+            for (int i = 0; i < Math.min(2, columns.length); i++) {
+                if (!columns[i].isEmpty() && columns[i].chars().allMatch(Character::isDigit)
+                        && columns[i].length() < 10) {
+                    pids.add(Long.parseLong(columns[i]));
+                    break;
+                }
+            }
+        }
+        return pids;
+    }
+
+    /**
+     * Largest resident set among the processes, read from /proc; -1 where there is none.
+     */
+    static long residentMb(List<Long> pids) {
+        long largest = -1;
+        for (long pid : pids) {
+            try {
+                for (String line : Files.readAllLines(Paths.get("/proc", Long.toString(pid), "status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        long kb = Long.parseLong(line.replaceAll("[^0-9]", ""));
+                        largest = Math.max(largest, kb / 1024);
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                log.debug("No memory figures for pid {}: {}", pid, e.getMessage());
+            }
+        }
+        return largest;
+    }
+
+    private static String run(List<String> command) {
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            process.getOutputStream().close();
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (!process.waitFor(CONTROL_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+            return output;
+        } catch (IOException e) {
+            throw new IllegalStateException(command.get(0) + " failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(command.get(0) + " interrupted", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Settings settings(ConfigurationLoader configLoader) {
+        Settings defaults = Settings.defaults();
+        Object build = configLoader.getConfigFile("build.yml").get("build");
+        Object section = build instanceof Map<?, ?> values ? values.get("daemons") : null;
+        if (!(section instanceof Map<?, ?>)) {
+            return defaults;
+        }
+        Map<String, Object> daemons = (Map<String, Object>) section;
+        return new Settings(
+            !Boolean.FALSE.equals(daemons.get("enabled")),
+            intValue(daemons.get("maxPerProject"), defaults.maxPerProject()),
+            Duration.ofSeconds(intValue(daemons.get("maxAge"), (int) defaults.maxAge().toSeconds())),
+            intValue(daemons.get("maxBuilds"), defaults.maxBuilds()),
+            intValue(daemons.get("maxHeapMb"), (int) defaults.maxHeapMb()),
+            daemons.get("directory") != null ? Paths.get(daemons.get("directory").toString()) : defaults.directory());
+    }
+
+    private static int intValue(Object value, int fallback) {
+        return value instanceof Number number ? number.intValue() : fallback;
+    }
+}
@@ -0,0 +1,321 @@
+package com.hsbc.ci.engine.core.tool;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the executables the stages run (mvn, ./gradlew, docker, kubectl, aws, ...) and
+ * remembers where they are and which version they are.
+ *
+ * A tool is known by a logical name; its executable comes from
+ * {@code build.tools.<name>.executable} in build.yml, else a built-in default. Bare
+ * names are looked up on {@code PATH}, paths are taken relative to the working
+ * directory. Results are kept in memory and in {@code tools.cache} under
+ * {@code tools.directory} of ci-engine.yml, and stay valid while the binary keeps its
+ * modification time and size (and, on disk, while {@code PATH} is unchanged), so a
+ * stage no longer forks a version probe to find out whether its tool exists.
+ *
+ * Layout: {@code [int magic][int version][utf PATH][int count]}, then per tool
+ * {@code [utf name][utf executable][utf path][long mtime][long size][utf version]}.
+ */
+@Component
+public class ToolRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ToolRegistry.class);
+
+    static final String FILE_NAME = "tools.cache";
+
+    private static final int MAGIC = 0x4349544c;
+    private static final int VERSION = 1;
+    private static final long VERSION_PROBE_SECONDS = 10;
+
+    private static final Map<String, String> DEFAULT_EXECUTABLES = Map.of(
+        "maven", "mvn",
+        "gradle", "./gradlew",
+        "docker", "docker",
+        "kubectl", "kubectl",
+        "aws", "aws",
+        "git", "git");
+
+    private static final Map<String, List<String>> VERSION_ARGS = Map.of(
+        "kubectl", List.of("version", "--client"));
+
+    /**
+     * A resolved tool. {@code version} is the first line the tool prints for its version
+     * probe, or null when it was not probed (project wrappers such as ./gradlew).
+     */
+    public record Tool(String name, Path path, String version) {
+
+        public String command() {
+            return path.toString();
+        }
+    }
+
+    private record Entry(Tool tool, String executable, long modified, long size) {
+    }
+
+    private final Map<String, String> executables;
+    private final String searchPath;
+    private final Path cacheFile;
+    private final boolean verify;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private boolean diskLoaded;
+    private int probes;
+
+    public ToolRegistry() {
+        this(Map.of(), System.getenv("PATH"), null, true);
+    }
+
+    @Autowired
+    public ToolRegistry(ConfigurationLoader configLoader) {
+        this(configuredExecutables(configLoader), System.getenv("PATH"), cacheFile(configLoader), true);
+    }
+
+    ToolRegistry(Map<String, String> executables, String searchPath, Path cacheFile, boolean verify) {
+        this.executables = executables;
+        this.searchPath = searchPath != null ? searchPath : "";
+        this.cacheFile = cacheFile;
+        this.verify = verify;
+    }
+
+    /**
+     * A registry that hands out the configured executables without looking for them,
+     * leaving a missing tool to fail when it is started. For stages built outside Spring.
+     */
+    public static ToolRegistry unchecked() {
+        return new ToolRegistry(Map.of(), null, null, false);
+    }
+
+    /**
+     * Returns the tool, or throws {@link IllegalStateException} naming the executable
+     * that was looked for and where.
+     */
+    public Tool resolve(String name) {
+        return find(name).orElseThrow(() -> new IllegalStateException(notFound(name)));
+    }
+
+    public Optional<Tool> find(String name) {
+        String executable = executableOf(name);
+        if (!verify) {
+            return Optional.of(new Tool(name, Paths.get(executable), null));
+        }
+        Entry entry = entries.get(name);
+        if (entry != null && entry.executable().equals(executable) && unchanged(entry)) {
+            return Optional.of(entry.tool());
+        }
+        return Optional.ofNullable(lookup(name, executable));
+    }
+
+    /**
+     * Number of version probes forked, for tests.
+     */
+    synchronized int probes() {
+        return probes;
+    }
+
+    private synchronized Tool lookup(String name, String executable) {
+        loadDisk();
+        Entry entry = entries.get(name);
+        if (entry != null && entry.executable().equals(executable) && unchanged(entry)) {
+            return entry.tool();
+        }
+        Path path = locate(executable);
+        if (path == null) {
+            entries.remove(name);
+            return null;
+        }
+        BasicFileAttributes attributes = attributes(path);
+        if (attributes == null) {
+            return null;
+        }
+        String version = onPath(executable) ? probeVersion(name, path) : null;
+        Tool tool = new Tool(name, path, version);
+        entries.put(name, new Entry(tool, executable, attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+            attributes.size()));
+        log.debug("Resolved tool {} to {} ({})", name, path, version);
+        writeDisk();
+        return tool;
+    }
+
+    private String executableOf(String name) {
+        String configured = executables.get(name);
+        return configured != null ? configured : DEFAULT_EXECUTABLES.getOrDefault(name, name);
+    }
+
+    private static boolean onPath(String executable) {
+        return executable.indexOf('/') < 0 && executable.indexOf(File.separatorChar) < 0;
+    }
+
+    private Path locate(String executable) {
+        if (!onPath(executable)) {
+            Path path = Paths.get(executable).toAbsolutePath().normalize();
+            return Files.isRegularFile(path) && Files.isExecutable(path) ? path : null;
+        }
+        for (String directory : searchPath.split(File.pathSeparator)) {
+            if (directory.isEmpty()) {
+                continue;
+            }
+            Path candidate = Paths.get(directory, executable);
+            if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+                return candidate.toAbsolutePath();
+            }
+        }
+        return null;
+    }
+
+    private static boolean unchanged(Entry entry) {
+        BasicFileAttributes attributes = attributes(entry.tool().path());
+        return attributes != null
+            && attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) == entry.modified()
+            && attributes.size() == entry.size();
+    }
+
+    private static BasicFileAttributes attributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private String probeVersion(String name, Path path) {
+        probes++;
+        List<String> command = new ArrayList<>();
+        command.add(path.toString());
+        command.addAll(VERSION_ARGS.getOrDefault(name, List.of("--version")));
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            process.getOutputStream().close();
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(in.readNBytes(4096), StandardCharsets.UTF_8);
+            }
+            if (!process.waitFor(VERSION_PROBE_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return null;
+            }
+            return output.lines().map(String::trim).filter(line -> !line.isEmpty()).findFirst().orElse(null);
+        } catch (IOException e) {
+            log.debug("Version probe of {} failed: {}", path, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private String notFound(String name) {
+        String executable = executableOf(name);
+        String where = onPath(executable)
+            ? "is not on PATH"
+            : "does not exist or is not executable in " + Paths.get("").toAbsolutePath();
+        return "Tool '" + name + "' not found: '" + executable + "' " + where
+            + " (install it or set build.tools." + name + ".executable in build.yml)";
+    }
+
+    private void loadDisk() {
+        if (diskLoaded || cacheFile == null) {
+            return;
+        }
+        diskLoaded = true;
+        if (!Files.exists(cacheFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(searchPath)) {
+                log.debug("Tool cache {} is outdated", cacheFile);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                String executable = in.readUTF();
+                Path path = Paths.get(in.readUTF());
+                long modified = in.readLong();
+                long size = in.readLong();
+                String version = in.readUTF();
+                entries.putIfAbsent(name, new Entry(new Tool(name, path, version.isEmpty() ? null : version),
+                    executable, modified, size));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable tool cache {}: {}", cacheFile, e.toString());
+        }
+    }
+
+    private void writeDisk() {
+        if (cacheFile == null) {
+            return;
+        }
+        try {
+            if (cacheFile.getParent() != null) {
+                Files.createDirectories(cacheFile.getParent());
+            }
+            Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            Map<String, Entry> snapshot = new HashMap<>(entries);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(searchPath);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Entry> item : snapshot.entrySet()) {
+                    Entry entry = item.getValue();
+                    out.writeUTF(item.getKey());
+                    out.writeUTF(entry.executable());
+                    out.writeUTF(entry.tool().command());
+                    out.writeLong(entry.modified());
+                    out.writeLong(entry.size());
+                    out.writeUTF(entry.tool().version() != null ? entry.tool().version() : "");
+                }
+            }
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write tool cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> configuredExecutables(ConfigurationLoader configLoader) {
+        Map<String, String> executables = new HashMap<>();
+        Object build = configLoader.getConfigFile("build.yml").get("build");
+        Object tools = build instanceof Map<?, ?> section ? section.get("tools") : null;
+        if (tools instanceof Map<?, ?> byName) {
+            ((Map<String, Object>) byName).forEach((name, settings) -> {
+                if (settings instanceof Map<?, ?> values && values.get("executable") != null) {
+                    executables.put(name, String.valueOf(values.get("executable")));
+                }
+            });
+        }
+        return executables;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Path cacheFile(ConfigurationLoader configLoader) {
+        Object settings = configLoader.getEngineConfig().get("tools");
+        Object directory = settings instanceof Map<?, ?> values ? ((Map<String, Object>) values).get("directory") : null;
+        return Paths.get(directory != null ? directory.toString() : ".ci-engine/tools", FILE_NAME);
+    }
+}
@@ -0,0 +1,127 @@
+package com.hsbc.ci.engine.core.artifact;
+
+import com.hsbc.ci.engine.core.config.ConfigCompiler;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArtifactStoreTest {
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void fetch_afterPublish_placesCopyThatCannotChangeTheBlob() throws Exception {
+        ArtifactStore store = new ArtifactStore(workspace.resolve("store"), 1024 * 1024);
+        Path jar = write("myapp/target/myapp-1.0.jar", "jar-bytes");
+
+        ArtifactStore.Artifact published = store.publish("app-jar", jar);
+        Path fetched = workspace.resolve("deploy/app.jar");
+        ArtifactStore.Artifact artifact = store.fetch("app-jar", fetched).orElseThrow();
+
+        assertEquals(published, artifact);
+        assertEquals(ArtifactStore.sha256(jar), artifact.digest());
+        assertEquals("jar-bytes", Files.readString(fetched));
+        assertNotEquals(inode(store.blobPath(artifact.digest())), inode(fetched));
+
+        Files.writeString(fetched, "overwritten by a build");
+        store.fetch("app-jar", workspace.resolve("again/app.jar")).orElseThrow();
+
+        assertEquals("jar-bytes", Files.readString(workspace.resolve("again/app.jar")));
+        assertEquals(artifact.digest(), ArtifactStore.sha256(store.blobPath(artifact.digest())));
+    }
+
+    @Test
+    void fetch_intoDirectory_usesPublishedFileName() throws Exception {
+        ArtifactStore store = new ArtifactStore(workspace.resolve("store"), 1024 * 1024);
+        store.publish("app-jar", write("myapp/target/myapp-1.0.jar", "jar-bytes"));
+        Path target = Files.createDirectories(workspace.resolve("image"));
+
+        store.fetch("app-jar", target).orElseThrow();
+
+        assertEquals("jar-bytes", Files.readString(target.resolve("myapp-1.0.jar")));
+        assertTrue(store.fetch("unknown", target).isEmpty());
+    }
+
+    @Test
+    void publish_identicalContent_isStoredOnce() throws Exception {
+        ArtifactStore store = new ArtifactStore(workspace.resolve("store"), 1024 * 1024);
+
+        ArtifactStore.Artifact first = store.publish("common-lib", write("a/lib.jar", "shared"));
+        ArtifactStore.Artifact second = store.publish("reports-lib", write("b/lib.jar", "shared"));
+
+        assertEquals(first.digest(), second.digest());
+        assertEquals(1, store.size());
+        assertEquals(6, store.getTotalSizeBytes());
+        assertEquals(1, store.getDeduplicated());
+    }
+
+    @Test
+    void publish_overQuota_evictsLeastRecentlyUsedAndItsNames() throws Exception {
+        ArtifactStore store = new ArtifactStore(workspace.resolve("store"), 20);
+        store.publish("a", write("a.jar", "aaaaaaaaaa"));
+        store.publish("b", write("b.jar", "bbbbbbbbbb"));
+        store.fetch("a", workspace.resolve("out/a.jar")).orElseThrow();
+
+        store.publish("c", write("c.jar", "cccccccccc"));
+
+        assertTrue(store.find("a").isPresent());
+        assertTrue(store.find("b").isEmpty());
+        assertTrue(store.find("c").isPresent());
+        assertEquals(20, store.getTotalSizeBytes());
+        assertEquals(1, store.getEvictions());
+        assertEquals("aaaaaaaaaa", Files.readString(workspace.resolve("out/a.jar")));
+    }
+
+    @Test
+    void find_isReadBackByNewInstance() throws Exception {
+        ArtifactStore store = new ArtifactStore(workspace.resolve("store"), 1024 * 1024);
+        ArtifactStore.Artifact published = store.publish("app-jar", write("app.jar", "jar-bytes"));
+
+        ArtifactStore reloaded = new ArtifactStore(workspace.resolve("store"), 1024 * 1024);
+
+        assertEquals(published, reloaded.find("app-jar").orElseThrow());
+        assertEquals(9, reloaded.getTotalSizeBytes());
+    }
+
+    @Test
+    void stageArtifacts_publishAfterBuild_fetchBeforeContainerize() throws Exception {
+        StageArtifacts artifacts = new StageArtifacts(
+            new ArtifactStore(workspace.resolve("store"), 1024 * 1024), workspace);
+        write("target/myapp-1.0.jar", "jar-bytes");
+        StageDefinition build = stage("build", Map.of("publish", Map.of("app-jar", "target/*.jar")));
+        StageDefinition containerize = stage("containerize", Map.of("fetch", Map.of("app-jar", "image/")));
+
+        assertEquals(1, artifacts.publish(build).size());
+        assertEquals(1, artifacts.fetch(containerize).size());
+
+        assertEquals("jar-bytes", Files.readString(workspace.resolve("image/myapp-1.0.jar")));
+        write("target/myapp-1.0-sources.jar", "sources");
+        IllegalStateException ambiguous = assertThrows(IllegalStateException.class, () -> artifacts.publish(build));
+        assertTrue(ambiguous.getMessage().contains("matches 2 files"), ambiguous.getMessage());
+        assertThrows(IllegalStateException.class,
+            () -> artifacts.fetch(stage("deploy", Map.of("fetch", Map.of("manifests", "k8s/")))));
+    }
+
+    private static StageDefinition stage(String type, Map<String, Object> artifacts) {
+        return new ConfigCompiler().compileStage(type, Map.of("name", type, "type", type, "target", "kubernetes",
+            "artifacts", artifacts));
+    }
+
+    private Path write(String path, String content) throws Exception {
+        Path file = workspace.resolve(path);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    private static Object inode(Path file) throws Exception {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+}
@@ -0,0 +1,124 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Compares a JMH JSON result file against the committed baseline and fails when any
+ * benchmark got slower by more than the allowed fraction, when a baseline entry selected
+ * by the run's include pattern has no result, or when the baseline is empty. JSON is
+ * read with SnakeYAML, which parses it as a YAML subset.
+ *
+ * SingleShotTime benchmarks (mode {@code ss}) time a handful of cold invocations, most of
+ * them forking a JVM, and vary far more from run to run than the averaged modes; they are
+ * held to their own, looser tolerance.
+ *
+ * Usage: BenchmarkBaselineCheck <result.json> <baseline.json> [maxRegression, default 0.15] [includes regex]
+ *        [maxSingleShotRegression, default 0.50]
+ * To refresh the baseline, copy target/jmh-result.json over src/test/resources/benchmark/jmh-baseline.json.
+ */
+public class BenchmarkBaselineCheck {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkBaselineCheck <result.json> <baseline.json> [maxRegression] [includes]"
+                + " [maxSingleShotRegression]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : 0.15;
+        Pattern includes = Pattern.compile(args.length > 3 ? args[3] : ".*");
+        double maxSingleShotRegression = args.length > 4 ? Double.parseDouble(args[4]) : 0.50;
+        Map<String, Score> baseline = load(Paths.get(args[1]));
+        if (baseline.isEmpty()) {
+            System.err.println("[ERROR] Baseline " + args[1] + " has no entries; record one from target/jmh-result.json");
+            System.exit(1);
+        }
+        List<String> failures = compare(load(Paths.get(args[0])), baseline, maxRegression, maxSingleShotRegression,
+            includes);
+        String tolerances = Math.round(maxRegression * 100) + "% (single-shot "
+            + Math.round(maxSingleShotRegression * 100) + "%)";
+        if (!failures.isEmpty()) {
+            System.err.println("[ERROR] " + failures.size() + " benchmark(s) regressed beyond " + tolerances
+                + " or have no result");
+            System.exit(1);
+        }
+        System.out.println("[SUCCESS] No benchmark regressed beyond " + tolerances);
+    }
+
+    /**
+     * Prints one line per benchmark and returns the keys of those that regressed, then of
+     * the baseline entries matching {@code includes} that have no result.
+     */
+    static List<String> compare(Map<String, Score> results, Map<String, Score> baseline, double maxRegression,
+                                Pattern includes) {
+        return compare(results, baseline, maxRegression, maxRegression, includes);
+    }
+
+    /**
+     * As {@link #compare(Map, Map, double, Pattern)}, allowing single-shot benchmarks to
+     * regress by {@code maxSingleShotRegression}.
+     */
+    static List<String> compare(Map<String, Score> results, Map<String, Score> baseline, double maxRegression,
+                                double maxSingleShotRegression, Pattern includes) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Score> entry : results.entrySet()) {
+            Score current = entry.getValue();
+            Score reference = baseline.get(entry.getKey());
+            if (reference == null || reference.value() == 0) {
+                System.out.printf("  %-80s %12.3f %s (no baseline)%n", entry.getKey(), current.value(), current.unit());
+                continue;
+            }
+            double change = current.value() / reference.value() - 1;
+            boolean higherIsBetter = current.mode().equals("thrpt");
+            double tolerance = current.mode().equals("ss") ? maxSingleShotRegression : maxRegression;
+            boolean regressed = higherIsBetter ? -change > tolerance : change > tolerance;
+            System.out.printf("  %-80s %12.3f %s (baseline %.3f, %+.1f%%)%s%n", entry.getKey(), current.value(),
+                current.unit(), reference.value(), change * 100, regressed ? "  REGRESSION" : "");
+            if (regressed) {
+                regressions.add(entry.getKey());
+            }
+        }
+        for (String key : baseline.keySet()) {
+            String benchmark = key.contains("{") ? key.substring(0, key.indexOf('{')) : key;
+            if (!results.containsKey(key) && includes.matcher(benchmark).find()) {
+                System.out.printf("  %-80s %12s (no result)  MISSING%n", key, "-");
+                regressions.add(key);
+            }
+        }
+        return regressions;
+    }
+
+    record Score(String mode, double value, String unit) {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Score> load(Path file) throws IOException {
+        Object parsed = new Yaml().load(Files.readString(file));
+        if (!(parsed instanceof List)) {
+            return Collections.emptyMap();
+        }
+        Map<String, Score> scores = new TreeMap<>();
+        for (Map<String, Object> run : (List<Map<String, Object>>) parsed) {
+            String key = (String) run.get("benchmark");
+            Object params = run.get("params");
+            if (params instanceof Map && !((Map<String, Object>) params).isEmpty()) {
+                key += new TreeMap<>((Map<String, Object>) params);
+            }
+            Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+            Object score = metric.get("score");
+            double value = score instanceof Number number ? number.doubleValue() : Double.parseDouble(String.valueOf(score));
+            scores.put(key, new Score((String) run.get("mode"), value, (String) metric.get("scoreUnit")));
+        }
+        return scores;
+    }
+}
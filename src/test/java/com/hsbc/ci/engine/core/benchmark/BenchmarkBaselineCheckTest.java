@@ -0,0 +1,85 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchmarkBaselineCheckTest {
+
+    private static final Pattern ALL = Pattern.compile(".*");
+
+    @Test
+    void compare_withSlowerAverageTime_reportsRegression(@TempDir Path tempDir) throws Exception {
+        Path baseline = write(tempDir, "baseline.json", 100.0, 50.0);
+        Path result = write(tempDir, "result.json", 130.0, 52.0);
+
+        List<String> regressions = BenchmarkBaselineCheck.compare(
+            BenchmarkBaselineCheck.load(result), BenchmarkBaselineCheck.load(baseline), 0.15, ALL);
+
+        assertEquals(List.of("bench.Orchestrator.execute{parallelStages=true}"), regressions);
+    }
+
+    @Test
+    void compare_singleShotBenchmark_usesItsOwnTolerance(@TempDir Path tempDir) throws Exception {
+        Path baseline = write(tempDir, "baseline.json", 100.0, 50.0);
+        Path result = write(tempDir, "result.json", 130.0, 52.0);
+        Files.writeString(baseline, Files.readString(baseline).replace("avgt", "ss"));
+        Files.writeString(result, Files.readString(result).replace("avgt", "ss"));
+
+        assertTrue(BenchmarkBaselineCheck.compare(BenchmarkBaselineCheck.load(result),
+            BenchmarkBaselineCheck.load(baseline), 0.15, 0.50, ALL).isEmpty());
+        assertEquals(List.of("bench.Orchestrator.execute{parallelStages=true}"), BenchmarkBaselineCheck.compare(
+            BenchmarkBaselineCheck.load(result), BenchmarkBaselineCheck.load(baseline), 0.15, 0.25, ALL));
+    }
+
+    @Test
+    void compare_withoutBaseline_reportsNothing(@TempDir Path tempDir) throws Exception {
+        Path baseline = tempDir.resolve("baseline.json");
+        Files.writeString(baseline, "[]");
+        Path result = write(tempDir, "result.json", 500.0, 500.0);
+
+        Map<String, BenchmarkBaselineCheck.Score> scores = BenchmarkBaselineCheck.load(result);
+
+        assertEquals(2, scores.size());
+        assertTrue(BenchmarkBaselineCheck.compare(scores, BenchmarkBaselineCheck.load(baseline), 0.15, ALL).isEmpty());
+    }
+
+    @Test
+    void compare_baselineEntryWithoutResult_fails(@TempDir Path tempDir) throws Exception {
+        Map<String, BenchmarkBaselineCheck.Score> baseline =
+            BenchmarkBaselineCheck.load(write(tempDir, "baseline.json", 100.0, 50.0));
+        Map<String, BenchmarkBaselineCheck.Score> result =
+            BenchmarkBaselineCheck.load(write(tempDir, "result.json", 100.0, 50.0));
+        result.remove("bench.Plugins.lookup");
+
+        assertEquals(List.of("bench.Plugins.lookup"), BenchmarkBaselineCheck.compare(result, baseline, 0.15, ALL));
+        assertTrue(BenchmarkBaselineCheck.compare(result, baseline, 0.15, Pattern.compile("Orchestrator")).isEmpty());
+    }
+
+    private static Path write(Path dir, String name, double parallelScore, double lookupScore) throws Exception {
+        Path file = dir.resolve(name);
+        Files.writeString(file, """
+            [
+                {
+                    "benchmark" : "bench.Orchestrator.execute",
+                    "mode" : "avgt",
+                    "params" : { "parallelStages" : "true" },
+                    "primaryMetric" : { "score" : %s, "scoreUnit" : "us/op" }
+                },
+                {
+                    "benchmark" : "bench.Plugins.lookup",
+                    "mode" : "avgt",
+                    "primaryMetric" : { "score" : %s, "scoreUnit" : "ns/op" }
+                }
+            ]
+            """.formatted(parallelScore, lookupScore));
+        return file;
+    }
+}
@@ -0,0 +1,109 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import com.hsbc.ci.engine.core.tool.BuildDaemonPool;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-invocation latency of a small Maven build, forking {@code mvn} every time versus
+ * routing it through {@link BuildDaemonPool} to a warm mvnd daemon.
+ *
+ * cold: a fresh Maven JVM per invocation.
+ * warm: the same build on a pooled mvnd daemon; warmup iterations start the daemon.
+ *
+ * Only cold runs by default and is in the baseline: the reference machine has no mvnd,
+ * so there is no recorded warm number to compare against. Where mvnd is installed, run
+ * both with JMH's {@code -p mode=cold,warm}. Needs mvn on PATH and the build's plugins in
+ * the local repository (it runs offline):
+ * mvn -Pbenchmark verify -Dbenchmark.includes=BuildDaemonBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BuildDaemonBenchmark {
+
+    private static final String POM = """
+        <project xmlns="http://maven.apache.org/POM/4.0.0">
+          <modelVersion>4.0.0</modelVersion>
+          <groupId>bench</groupId>
+          <artifactId>daemon-bench</artifactId>
+          <version>1.0</version>
+          <packaging>pom</packaging>
+        </project>
+        """;
+
+    @Param({"cold"})
+    public String mode;
+
+    private final ToolRegistry tools = new ToolRegistry();
+    private BuildDaemonPool pool;
+    private BuildDaemonPool.Key key;
+    private Path project;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        project = Files.createTempDirectory("ci-engine-daemon-bench");
+        Files.writeString(project.resolve("pom.xml"), POM);
+        tools.resolve("maven");
+        if ("warm".equals(mode)) {
+            tools.resolve("mvnd");
+            pool = new BuildDaemonPool();
+            key = BuildDaemonPool.Key.of("maven", project, Map.of(), null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.stopAll();
+        }
+    }
+
+    @Benchmark
+    public int invoke() throws Exception {
+        List<String> args = List.of("-q", "-o", "validate", "-f", project.resolve("pom.xml").toString());
+        if ("cold".equals(mode)) {
+            List<String> command = new ArrayList<>();
+            command.add(tools.resolve("maven").command());
+            command.addAll(args);
+            return run(command);
+        }
+        try (BuildDaemonPool.Lease lease = pool.lease(key).orElseThrow()) {
+            return run(lease.command(args));
+        }
+    }
+
+    private static int run(List<String> command) throws Exception {
+        int exitCode = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start()
+            .waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException(String.join(" ", command) + " exited with " + exitCode);
+        }
+        return exitCode;
+    }
+}
@@ -0,0 +1,105 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Config loading cost. With {@code pipelineCount} generated copies of the sample
+ * microservice pipeline: a cold start that runs one pipeline out of them, from YAML and
+ * from a current compiled snapshot, and loading and validating all of them. Engine
+ * config loading does not depend on the pipelines and is measured once.
+ *
+ * The cold starts read only the pipeline they run, so they should stay flat as
+ * {@code pipelineCount} grows; loadPipelines should grow with it.
+ *
+ * Run with: mvn -Pbenchmark verify -Dbenchmark.includes=ConfigurationLoaderBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigurationLoaderBenchmark {
+
+    static final String CONFIG_PATH = "config";
+
+    @State(Scope.Benchmark)
+    public static class Pipelines {
+
+        @Param({"10", "100", "1000"})
+        public int pipelineCount;
+
+        Path yamlOnly;
+        Path withSnapshot;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            String pipeline = Files.readString(Paths.get(CONFIG_PATH, "pipelines", "microservice-cd.yml"));
+            yamlOnly = configDir(pipeline, false);
+            withSnapshot = configDir(pipeline, true);
+            ConfigurationLoader warmup = new ConfigurationLoader();
+            warmup.setConfigPath(withSnapshot.toString());
+            warmup.getValidationErrors();
+        }
+
+        private Path configDir(String pipeline, boolean snapshot) throws Exception {
+            Path dir = Files.createTempDirectory("ci-engine-config");
+            Files.createDirectories(dir.resolve("pipelines"));
+            Files.copy(Paths.get(CONFIG_PATH, "build.yml"), dir.resolve("build.yml"));
+            Files.copy(Paths.get(CONFIG_PATH, "deploy.yml"), dir.resolve("deploy.yml"));
+            Files.writeString(dir.resolve("ci-engine.yml"), "ci-engine:\n  snapshot:\n    enabled: " + snapshot
+                + "\n    directory: " + dir.resolve("snapshot") + "\n");
+            for (int i = 0; i < pipelineCount; i++) {
+                Files.writeString(dir.resolve("pipelines/p" + i + ".yml"), pipeline.replace("microservice-cd", "p" + i));
+            }
+            return dir;
+        }
+    }
+
+    @Benchmark
+    public PipelineDefinition coldStartFromYaml(Pipelines pipelines) {
+        ConfigurationLoader loader = new ConfigurationLoader();
+        loader.setConfigPath(pipelines.yamlOnly.toString());
+        return loader.getPipelineDefinition("p0");
+    }
+
+    @Benchmark
+    public PipelineDefinition coldStartFromSnapshot(Pipelines pipelines) {
+        ConfigurationLoader loader = new ConfigurationLoader();
+        loader.setConfigPath(pipelines.withSnapshot.toString());
+        return loader.getPipelineDefinition("p0");
+    }
+
+    @Benchmark
+    public Map<String, List<String>> loadPipelines(Pipelines pipelines) {
+        ConfigurationLoader loader = new ConfigurationLoader();
+        loader.setConfigPath(pipelines.yamlOnly.toString());
+        return loader.getValidationErrors();
+    }
+
+    @Benchmark
+    public Map<String, Object> loadEngineConfig() {
+        ConfigurationLoader loader = new ConfigurationLoader();
+        loader.setConfigPath(CONFIG_PATH);
+        return loader.getEngineConfig();
+    }
+}
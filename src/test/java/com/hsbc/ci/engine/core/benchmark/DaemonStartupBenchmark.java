@@ -0,0 +1,108 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import com.hsbc.ci.engine.core.daemon.DaemonClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end command latency of a cold CLI JVM versus a warm daemon.
+ *
+ * cold: {@code java -jar} with forwarding disabled, booting Spring every time.
+ * forwarded: {@code java -jar} that finds the daemon and forwards before Spring starts.
+ * client: the socket round trip alone, as seen by an already-running client.
+ *
+ * Needs the packaged jar: mvn -Pbenchmark verify -Dbenchmark.includes=DaemonStartupBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DaemonStartupBenchmark {
+
+    @Param({"cold", "forwarded", "client"})
+    public String mode;
+
+    @Param({"plugin list", "pipeline list", "config"})
+    public String command;
+
+    private String jarPath;
+    private Path socket;
+    private Process daemon;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        try (var files = Files.list(Path.of("target"))) {
+            jarPath = files.filter(p -> p.toString().endsWith(".jar"))
+                .findFirst()
+                .map(p -> p.toAbsolutePath().toString())
+                .orElseThrow(() -> new IllegalStateException("JAR not found in target/, run mvn package"));
+        }
+        socket = Files.createTempDirectory("ci-engine-bench").resolve("engine.sock");
+
+        if (!"cold".equals(mode)) {
+            daemon = new ProcessBuilder("java", "-jar", jarPath, "daemon", "start", "--socket", socket.toString())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            long deadline = System.currentTimeMillis() + 60_000;
+            while (!DaemonClient.isRunning(socket)) {
+                if (System.currentTimeMillis() > deadline || !daemon.isAlive()) {
+                    throw new IllegalStateException("Daemon did not start on " + socket);
+                }
+                Thread.sleep(50);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (daemon != null) {
+            DaemonClient.forward(socket, new String[] {"daemon", "stop"},
+                OutputStream.nullOutputStream(), OutputStream.nullOutputStream());
+            daemon.waitFor(10, TimeUnit.SECONDS);
+            daemon.destroyForcibly();
+        }
+    }
+
+    @Benchmark
+    public int runCommand() throws Exception {
+        String[] args = command.split(" ");
+        if ("client".equals(mode)) {
+            OptionalInt exitCode = DaemonClient.forward(
+                socket, args, OutputStream.nullOutputStream(), OutputStream.nullOutputStream());
+            return exitCode.orElseThrow();
+        }
+
+        List<String> cmd = new ArrayList<>(List.of("java", "-jar", jarPath));
+        cmd.addAll(List.of(args));
+        ProcessBuilder builder = new ProcessBuilder(cmd)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().put(DaemonClient.SOCKET_ENV, socket.toString());
+        if ("cold".equals(mode)) {
+            builder.environment().put(DaemonClient.DAEMON_ENV, "off");
+        }
+        return builder.start().waitFor();
+    }
+}
@@ -0,0 +1,52 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.StageResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation and construction cost of the per-run and per-stage model objects.
+ *
+ * Run with: mvn -Pbenchmark verify -Dbenchmark.includes=ModelConstructionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelConstructionBenchmark {
+
+    private final Map<String, String> variables = Map.of("GIT_COMMIT", "abc123", "GIT_BRANCH", "main");
+
+    @Benchmark
+    public StageResult stageResult() {
+        return StageResult.builder()
+            .stageName("build")
+            .success(true)
+            .output("Build completed successfully")
+            .durationMs(1234)
+            .build();
+    }
+
+    @Benchmark
+    public PipelineContext pipelineContext() {
+        return PipelineContext.builder()
+            .pipelineName("microservice-cd")
+            .environment("dev")
+            .variables(new HashMap<>(variables))
+            .build();
+    }
+}
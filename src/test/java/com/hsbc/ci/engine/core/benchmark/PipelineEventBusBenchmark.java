@@ -0,0 +1,59 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import com.hsbc.ci.engine.core.event.PipelineEventBus;
+import com.hsbc.ci.engine.core.event.PipelineEventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of publishing one stage event with 1, 4 and 16 subscribed listeners.
+ * Run with -prof gc to confirm publishing does not allocate.
+ *
+ * Run with: mvn -Pbenchmark verify -Dbenchmark.includes=PipelineEventBusBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineEventBusBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int subscribers;
+
+    private PipelineEventBus bus;
+    private final AtomicLong consumed = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        bus = new PipelineEventBus(64 * 1024);
+        for (int i = 0; i < subscribers; i++) {
+            bus.subscribe(event -> consumed.lazySet(event.getDurationNanos()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bus.shutdown();
+    }
+
+    @Benchmark
+    public void publish() {
+        bus.publish(PipelineEventType.STAGE_FINISHED, "run", "bench", "build", "build", true, 42, null);
+    }
+}
@@ -0,0 +1,127 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import com.hsbc.ci.engine.core.config.ConfigCompiler;
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.orchestrator.StageGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.yaml.snakeyaml.Yaml;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-run setup cost of the sample microservice pipeline: walking the raw YAML maps
+ * (casts, getOrDefault, nested default lookups, graph from maps) against reading the
+ * definition compiled once at load time.
+ *
+ * Run with: mvn -Pbenchmark verify -Dbenchmark.includes=PipelineModelBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineModelBenchmark {
+
+    private Map<String, Object> rawPipeline;
+    private Map<String, Object> buildYml;
+    private Map<String, Object> deployYml;
+    private PipelineDefinition compiled;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path config = Paths.get("config");
+        rawPipeline = load(config.resolve("pipelines/microservice-cd.yml"));
+        buildYml = load(config.resolve("build.yml"));
+        deployYml = load(config.resolve("deploy.yml"));
+        compiled = new ConfigCompiler(buildYml, deployYml).compilePipeline("microservice-cd.yml", rawPipeline);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void mapLookups(Blackhole blackhole) {
+        List<Map<String, Object>> stages = (List<Map<String, Object>>) rawPipeline.get("stages");
+        blackhole.consume(StageGraph.build(stages));
+        for (Map<String, Object> stage : stages) {
+            String type = (String) stage.get("type");
+            Map<String, Object> config = stage.get("config") instanceof Map
+                ? (Map<String, Object>) stage.get("config") : Map.of();
+            switch (type) {
+                case "build" -> {
+                    blackhole.consume(config.getOrDefault("build-tool", "maven"));
+                    blackhole.consume(config.getOrDefault("goals", "clean package"));
+                }
+                case "test" -> blackhole.consume(config.getOrDefault("test-type", "unit"));
+                case "containerize" -> blackhole.consume(config.getOrDefault("dockerfile", "Dockerfile"));
+                case "deploy" -> {
+                    blackhole.consume(stage.get("target"));
+                    blackhole.consume(config.getOrDefault("namespace", "default"));
+                    blackhole.consume(config.getOrDefault("image", "myapp:latest"));
+                }
+                default -> blackhole.consume(config);
+            }
+            Object timeout = stage.containsKey("timeout") ? stage.get("timeout") : config.get("timeout");
+            if (timeout == null) {
+                timeout = "deploy".equals(type)
+                    ? nested(deployYml, "deploy", String.valueOf(stage.get("target")), "timeout")
+                    : nested(buildYml, "build", "defaults", "timeout");
+            }
+            blackhole.consume(timeout);
+        }
+    }
+
+    @Benchmark
+    public void compiledDefinition(Blackhole blackhole) {
+        blackhole.consume(StageGraph.of(compiled));
+        for (StageDefinition stage : compiled.stages()) {
+            switch (stage.type()) {
+                case "build" -> {
+                    blackhole.consume(stage.build().tool());
+                    blackhole.consume(stage.build().goals());
+                }
+                case "test" -> blackhole.consume(stage.test().testType());
+                case "containerize" -> blackhole.consume(stage.container().dockerfile());
+                case "deploy" -> {
+                    blackhole.consume(stage.deploy().target());
+                    blackhole.consume(stage.deploy().namespace());
+                    blackhole.consume(stage.deploy().image());
+                }
+                default -> blackhole.consume(stage.settings());
+            }
+            blackhole.consume(stage.timeout());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object nested(Map<String, Object> root, String... path) {
+        Object current = root;
+        for (String key : path) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            current = ((Map<String, Object>) current).get(key);
+        }
+        return current;
+    }
+
+    private static Map<String, Object> load(Path file) throws Exception {
+        return new Yaml().load(Files.readString(file));
+    }
+}
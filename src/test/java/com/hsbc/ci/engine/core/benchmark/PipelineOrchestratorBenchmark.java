@@ -0,0 +1,102 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.PipelineResult;
+import com.hsbc.ci.engine.core.model.StageResult;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.orchestrator.PipelineOrchestrator;
+import com.hsbc.ci.engine.core.plugin.PluginManager;
+import com.hsbc.ci.engine.core.stages.StageExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Engine overhead of {@link PipelineOrchestrator#execute} around stages that do
+ * nothing: graph building, scheduling, events and bookkeeping for a six-stage pipeline.
+ *
+ * Run with: mvn -Pbenchmark verify -Dbenchmark.includes=PipelineOrchestratorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineOrchestratorBenchmark {
+
+    @Param({"false", "true"})
+    public boolean parallelStages;
+
+    private Path configDir;
+    private StageExecutor stageExecutor;
+    private PipelineOrchestrator orchestrator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        configDir = Files.createTempDirectory("ci-engine-bench");
+        Files.createDirectories(configDir.resolve("pipelines"));
+        Files.writeString(configDir.resolve("ci-engine.yml"),
+            "ci-engine:\n  global:\n    parallelStages: " + parallelStages + "\n    maxParallelStages: 4\n");
+        Files.writeString(configDir.resolve("pipelines/bench.yml"), """
+            name: bench
+            stages:
+              - name: build
+                type: build
+              - name: unit-tests
+                type: test
+              - name: integration-tests
+                type: test
+                depends-on: build
+              - name: image
+                type: containerize
+                depends-on: build
+              - name: deploy-dev
+                type: deploy
+                target: kubernetes
+                depends-on: [unit-tests, integration-tests, image]
+              - name: deploy-staging
+                type: deploy
+                target: kubernetes
+            """);
+        ConfigurationLoader configLoader = new ConfigurationLoader();
+        configLoader.setConfigPath(configDir.toString());
+
+        stageExecutor = new StageExecutor() {
+            @Override
+            public StageResult execute(StageDefinition stage, PipelineContext context) {
+                return StageResult.builder()
+                    .stageName(stage.name())
+                    .success(true)
+                    .output("ok")
+                    .build();
+            }
+        };
+        orchestrator = new PipelineOrchestrator(configLoader, stageExecutor, new PluginManager());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stageExecutor.shutdown();
+    }
+
+    @Benchmark
+    public PipelineResult execute() {
+        return orchestrator.execute(PipelineContext.builder().pipelineName("bench").build());
+    }
+}
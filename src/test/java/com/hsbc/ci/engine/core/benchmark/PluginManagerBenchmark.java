@@ -0,0 +1,144 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.plugin.PluginManager;
+import com.hsbc.ci.engine.core.plugin.PluginResult;
+import com.hsbc.ci.engine.core.plugin.StagePlugin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plugin registration and lookup in {@link PluginManager}, and startup with the plugins
+ * enabled in plugins.yml resolved from the plugin index. {@code startupFromIndex} should
+ * stay close to {@code startupWithoutPlugins}, as no plugin is instantiated at startup.
+ *
+ * Run with: mvn -Pbenchmark verify -Dbenchmark.includes=PluginManagerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PluginManagerBenchmark {
+
+    @Param({"10", "100"})
+    public int plugins;
+
+    private PluginManager manager;
+    private StagePlugin[] candidates;
+    private int next;
+    private Path workDir;
+    private ConfigurationLoader configuredLoader;
+    private ConfigurationLoader emptyLoader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("plugin-bench");
+        configuredLoader = loader(workDir.resolve("configured"), plugins);
+        emptyLoader = loader(workDir.resolve("empty"), 0);
+        new PluginManager(configuredLoader).init();
+
+        manager = new PluginManager();
+        candidates = new StagePlugin[plugins];
+        for (int i = 0; i < plugins; i++) {
+            candidates[i] = new NoOpStagePlugin("plugin-" + i);
+            manager.registerStage(candidates[i]);
+        }
+    }
+
+    @Benchmark
+    public StagePlugin lookup() {
+        next = (next + 1) % plugins;
+        return manager.getStagePlugin(candidates[next].getName());
+    }
+
+    @Benchmark
+    public PluginManager registerAll() {
+        PluginManager fresh = new PluginManager();
+        for (StagePlugin plugin : candidates) {
+            fresh.registerStage(plugin);
+        }
+        return fresh;
+    }
+
+    @Benchmark
+    public PluginManager startupFromIndex() {
+        PluginManager fresh = new PluginManager(configuredLoader);
+        fresh.init();
+        return fresh;
+    }
+
+    @Benchmark
+    public PluginManager startupWithoutPlugins() {
+        PluginManager fresh = new PluginManager(emptyLoader);
+        fresh.init();
+        return fresh;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(workDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static ConfigurationLoader loader(Path configDir, int pluginCount) throws IOException {
+        Files.createDirectories(configDir.resolve("plugins"));
+        Files.writeString(configDir.resolve("ci-engine.yml"), "ci-engine:\n  plugins:\n"
+            + "    directory: " + configDir.resolve("plugins") + "\n"
+            + "    index: " + configDir.resolve("index") + "\n");
+        StringBuilder yaml = new StringBuilder("plugins:\n");
+        for (int i = 0; i < pluginCount; i++) {
+            yaml.append("  plugin-").append(i).append(":\n")
+                .append("    class: ").append(IndexedStagePlugin.class.getName()).append("\n")
+                .append("    enabled: true\n");
+        }
+        Files.writeString(configDir.resolve("plugins.yml"), yaml.toString());
+        ConfigurationLoader loader = new ConfigurationLoader();
+        loader.setConfigPath(configDir.toString());
+        return loader;
+    }
+
+    public static class IndexedStagePlugin extends NoOpStagePlugin {
+        public IndexedStagePlugin() {
+            super("indexed");
+        }
+    }
+
+    static class NoOpStagePlugin implements StagePlugin {
+        private final String name;
+
+        NoOpStagePlugin(String name) {
+            this.name = name;
+        }
+
+        @Override public String getName() { return name; }
+        @Override public String getVersion() { return "1.0"; }
+        @Override public String getType() { return "stage"; }
+        @Override public void init(Map<String, Object> config) { }
+        @Override public PluginResult execute(Map<String, Object> context) { return null; }
+        @Override public void execute(Map<String, Object> config, Map<String, Object> context) { }
+    }
+}
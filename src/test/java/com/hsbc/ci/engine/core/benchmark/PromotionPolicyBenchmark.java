@@ -0,0 +1,112 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import com.hsbc.ci.engine.core.promote.PromotionCandidate;
+import com.hsbc.ci.engine.core.promote.PromotionDecision;
+import com.hsbc.ci.engine.core.promote.PromotionPolicies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy selection for a batch of commits against the policies of promote.yml plus
+ * {@code extraPolicies} generated tag and environment policies. {@code evaluateBatch}
+ * divided by {@code commits} is the cost of one promotion decision.
+ *
+ * Run with: mvn -Pbenchmark verify -Dbenchmark.includes=PromotionPolicyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromotionPolicyBenchmark {
+
+    private static final String[] ENVIRONMENTS = {"dev", "sit", "uat", "staging", "production"};
+
+    @Param({"1000", "10000"})
+    public int commits;
+
+    @Param({"0", "50"})
+    public int extraPolicies;
+
+    private Map<String, Object> promoteConfig;
+    private PromotionPolicies policies;
+    private List<PromotionCandidate> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        promoteConfig = promoteConfig(extraPolicies);
+        policies = PromotionPolicies.compile(promoteConfig);
+        Random random = new Random(42);
+        batch = new ArrayList<>(commits);
+        for (int i = 0; i < commits; i++) {
+            String message = switch (random.nextInt(10)) {
+                case 0 -> "Fix payment rounding [fast-track]";
+                case 1 -> "Upgrade netty\n\nCVE-2024-0001 [security]";
+                case 2 -> "Tune pool sizes [tag-" + random.nextInt(Math.max(1, extraPolicies)) + "]";
+                default -> "Refactor service layer #" + i;
+            };
+            Set<String> reached = Set.of(ENVIRONMENTS[0], ENVIRONMENTS[1 + random.nextInt(ENVIRONMENTS.length - 1)]);
+            batch.add(new PromotionCandidate("service-" + (i % 40), Integer.toHexString(i), message,
+                reached, Set.of("tests-passed")));
+        }
+    }
+
+    @Benchmark
+    public List<PromotionDecision> evaluateBatch() {
+        return policies.evaluate(batch);
+    }
+
+    @Benchmark
+    public PromotionPolicies compile() {
+        return PromotionPolicies.compile(promoteConfig);
+    }
+
+    private static Map<String, Object> promoteConfig(int extraPolicies) {
+        List<Object> policies = new ArrayList<>();
+        policies.add(policy("fast-track", List.of(message(".*\\[fast-track\\].*")), "tests-passed", "manual-approval"));
+        policies.add(policy("standard", List.of(Map.of("type", "always")), "tests-passed", "coverage"));
+        policies.add(policy("production", List.of(environment("uat")), "tests-passed", "performance-test"));
+        policies.add(policy("security-patch", List.of(message(".*\\[security\\].*")), "security-approval"));
+        for (int i = 0; i < extraPolicies; i++) {
+            policies.add(policy("tagged-" + i,
+                List.of(message(".*\\[tag-" + i + "\\].*"), environment(ENVIRONMENTS[i % ENVIRONMENTS.length])),
+                "tests-passed"));
+        }
+        return Map.of("promotion", Map.of("policies", policies));
+    }
+
+    private static Map<String, Object> policy(String name, List<Object> conditions, String... requirements) {
+        Map<String, Object> policy = new LinkedHashMap<>();
+        policy.put("name", name);
+        policy.put("conditions", conditions);
+        policy.put("requirements", List.of(requirements));
+        return policy;
+    }
+
+    private static Map<String, Object> message(String pattern) {
+        return Map.of("type", "commit-message", "pattern", pattern);
+    }
+
+    private static Map<String, Object> environment(String environment) {
+        return Map.of("type", "environment-reached", "environment", environment);
+    }
+}
@@ -0,0 +1,143 @@
+package com.hsbc.ci.engine.core.benchmark;
+
+import com.hsbc.ci.engine.core.config.ConfigCompiler;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.stages.BuildStage;
+import com.hsbc.ci.engine.core.stages.ContainerizeStage;
+import com.hsbc.ci.engine.core.stages.DeployStage;
+import com.hsbc.ci.engine.core.stages.ProcessRunner;
+import com.hsbc.ci.engine.core.stages.StageExecutor;
+import com.hsbc.ci.engine.core.stages.TestStage;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs N concurrent three-stage pipelines against stubbed processes that block for
+ * {@link #PROCESS_MILLIS} ms, and reports the peak live thread count and heap in use.
+ *
+ * Run with: mvn -Pbenchmark verify -Dbenchmark.includes=StageExecutorScalingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g"})
+public class StageExecutorScalingBenchmark {
+
+    static final long PROCESS_MILLIS = 50;
+
+    private static final List<StageDefinition> STAGES = Stream.of("build", "test", "containerize")
+        .map(type -> new ConfigCompiler().compileStage(type, Map.of()))
+        .toList();
+
+    @Param({"10", "100", "1000"})
+    public int concurrentRuns;
+
+    @Param({"virtual", "platform"})
+    public String threadModel;
+
+    private StageExecutor stageExecutor;
+    private PrintStream originalOut;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long peakThreads;
+        public long heapUsedMb;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProcessRunner processRunner = new ProcessRunner(concurrentRuns) {
+            @Override
+            protected int execute(ProcessBuilder builder) throws InterruptedException {
+                Thread.sleep(PROCESS_MILLIS);
+                return 0;
+            }
+        };
+        stageExecutor = new StageExecutor(
+            new BuildStage(processRunner),
+            new TestStage(processRunner),
+            new ContainerizeStage(processRunner),
+            new DeployStage(processRunner));
+
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+        stageExecutor.shutdown();
+    }
+
+    @Benchmark
+    public void concurrentPipelineRuns(Footprint footprint) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        Runtime runtime = Runtime.getRuntime();
+
+        List<Thread> runs = new ArrayList<>(concurrentRuns);
+        for (int i = 0; i < concurrentRuns; i++) {
+            PipelineContext context = PipelineContext.builder()
+                .pipelineName("bench-" + i)
+                .variables(new HashMap<>(Map.of("GIT_COMMIT", "c" + i)))
+                .build();
+            Runnable run = "virtual".equals(threadModel)
+                ? () -> runOnStageExecutor(context)
+                : () -> runOnCallerThread(context);
+            Thread.Builder builder = "virtual".equals(threadModel) ? Thread.ofVirtual() : Thread.ofPlatform();
+            runs.add(builder.start(run));
+        }
+
+        long heapUsed = 0;
+        for (Thread run : runs) {
+            heapUsed = Math.max(heapUsed, runtime.totalMemory() - runtime.freeMemory());
+            run.join();
+        }
+
+        footprint.peakThreads = threads.getPeakThreadCount();
+        footprint.heapUsedMb = heapUsed / (1024 * 1024);
+    }
+
+    private void runOnStageExecutor(PipelineContext context) {
+        try {
+            for (StageDefinition stage : STAGES) {
+                stageExecutor.submit(stage, context).get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void runOnCallerThread(PipelineContext context) {
+        for (StageDefinition stage : STAGES) {
+            stageExecutor.execute(stage, context);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.hsbc.ci.engine.core.build;
+
+import com.hsbc.ci.engine.core.model.definition.BuildProject;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalBuildsTest {
+
+    private static final List<String> ARGS = List.of("package", "-f", "pom.xml");
+
+    @TempDir
+    Path workspace;
+
+    private Path repo;
+    private BuildProject project;
+    private IncrementalBuilds builds;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repo = workspace.resolve("repo");
+        write("myapp/pom.xml", "<project/>");
+        for (String module : List.of("core", "api", "web")) {
+            write("myapp/" + module + "/pom.xml", "<project/>");
+            write("myapp/" + module + "/src/Main.java", "class Main {}");
+        }
+        write("README.md", "readme");
+        write(".gitignore", "target/\n");
+        git("init", "-q");
+        commit("initial");
+        for (String module : List.of("core", "api", "web")) {
+            write("myapp/" + module + "/target/classes/Main.class", "class");
+        }
+        project = new BuildProject("myapp", "maven", repo.resolve("myapp/pom.xml").toString(), null, "clean package",
+            null, false, false, null, null, List.of("core", "api", "web"), List.of());
+        builds = new IncrementalBuilds(ToolRegistry.unchecked(), workspace.resolve("state").resolve("last-green"));
+    }
+
+    @Test
+    void plan_withoutGreenBuild_isFull() {
+        IncrementalBuilds.Plan plan = builds.plan(project, ARGS);
+
+        assertEquals(IncrementalBuilds.Mode.FULL, plan.mode());
+        assertEquals("no green build recorded with these arguments", plan.reason());
+        assertNotNull(plan.head());
+    }
+
+    @Test
+    void plan_committedAndUntrackedChanges_buildOnlyTheirModules() throws Exception {
+        builds.recordGreen("myapp", ARGS, builds.plan(project, ARGS).head());
+        write("myapp/api/src/Main.java", "class Main { int changed; }");
+        commit("change api");
+        write("myapp/web/src/New.java", "class New {}");
+
+        IncrementalBuilds.Plan plan = builds.plan(project, ARGS);
+
+        assertEquals(IncrementalBuilds.Mode.MODULES, plan.mode());
+        assertEquals(List.of("api", "web"), plan.modules());
+    }
+
+    @Test
+    void plan_nothingChanged_isUpToDate() {
+        builds.recordGreen("myapp", ARGS, builds.plan(project, ARGS).head());
+        write("README.md", "changed outside the project");
+
+        assertEquals(IncrementalBuilds.Mode.UP_TO_DATE, builds.plan(project, ARGS).mode());
+    }
+
+    @Test
+    void plan_moduleOutputDeleted_rebuildsThatModule() throws Exception {
+        builds.recordGreen("myapp", ARGS, builds.plan(project, ARGS).head());
+        deleteTree(repo.resolve("myapp/web/target"));
+
+        IncrementalBuilds.Plan plan = builds.plan(project, ARGS);
+
+        assertEquals(IncrementalBuilds.Mode.MODULES, plan.mode());
+        assertEquals(List.of("web"), plan.modules());
+    }
+
+    @Test
+    void plan_afterClean_isFull() throws Exception {
+        builds.recordGreen("myapp", ARGS, builds.plan(project, ARGS).head());
+        for (String module : List.of("core", "api", "web")) {
+            deleteTree(repo.resolve("myapp/" + module + "/target"));
+        }
+
+        IncrementalBuilds.Plan plan = builds.plan(project, ARGS);
+
+        assertEquals(IncrementalBuilds.Mode.FULL, plan.mode());
+        assertEquals("no build output in any module", plan.reason());
+    }
+
+    @Test
+    void plan_parentPomChanged_isFull() {
+        builds.recordGreen("myapp", ARGS, builds.plan(project, ARGS).head());
+        write("myapp/pom.xml", "<project><modules/></project>");
+
+        IncrementalBuilds.Plan plan = builds.plan(project, ARGS);
+
+        assertEquals(IncrementalBuilds.Mode.FULL, plan.mode());
+        assertTrue(plan.reason().contains("pom.xml is outside every module"), plan.reason());
+    }
+
+    @Test
+    void plan_greenWithOtherArguments_isFull() {
+        String head = builds.plan(project, ARGS).head();
+        builds.recordGreen("myapp", List.of("-DskipTests", "package", "-f", "pom.xml"), head);
+
+        IncrementalBuilds.Plan plan = builds.plan(project, ARGS);
+
+        assertEquals(IncrementalBuilds.Mode.FULL, plan.mode());
+        builds.recordGreen("myapp", ARGS, head);
+        assertEquals(IncrementalBuilds.Mode.UP_TO_DATE, builds.plan(project, ARGS).mode());
+    }
+
+    @Test
+    void recordGreen_isReadBackByNewInstance() {
+        builds.recordGreen("myapp", ARGS, "0123456789abcdef");
+
+        IncrementalBuilds reloaded = new IncrementalBuilds(ToolRegistry.unchecked(),
+            workspace.resolve("state").resolve("last-green"));
+
+        assertEquals("0123456789abcdef", reloaded.lastGreen("myapp", ARGS));
+        assertEquals(IncrementalBuilds.Mode.FULL, reloaded.plan(project, ARGS).mode());
+    }
+
+    @Test
+    void owningModule_prefersDeepestModule() {
+        List<String> modules = List.of("services", "services/billing");
+
+        assertEquals("services/billing", IncrementalBuilds.owningModule(modules, Paths.get("services/billing/A.java")));
+        assertEquals("services", IncrementalBuilds.owningModule(modules, Paths.get("services/pom.xml")));
+        assertNull(IncrementalBuilds.owningModule(modules, Paths.get("servicesX/pom.xml")));
+    }
+
+    private void write(String path, String content) {
+        try {
+            Path file = repo.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, content);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private void commit(String message) throws Exception {
+        git("add", "-A");
+        git("-c", "user.name=ci", "-c", "user.email=ci@example.com", "commit", "-q", "-m", message);
+    }
+
+    private void git(String... args) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).directory(repo.toFile()).inheritIO().start();
+        assertEquals(0, process.waitFor(), String.join(" ", command));
+    }
+}
@@ -0,0 +1,140 @@
+package com.hsbc.ci.engine.core.build;
+
+import com.hsbc.ci.engine.core.model.definition.BuildProject;
+import com.hsbc.ci.engine.core.schedule.TaskScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectBuildSchedulerTest {
+
+    private final List<String> progress = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void run_independentProjects_buildConcurrently() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        long start = System.nanoTime();
+        TaskScheduler.Summary<BuildProject> summary = new ProjectBuildScheduler(8, 8, progress::add).run(
+            List.of(project("myapp"), project("common-lib"), project("reports")), project -> 1, (project, cpus) -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(100);
+                running.decrementAndGet();
+                return "ok";
+            });
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(summary.isSuccess());
+        assertEquals(3, peak.get());
+        assertTrue(elapsedMillis < 250, "took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void run_dependentProject_startsAfterItsDependencies() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        new ProjectBuildScheduler(4, 4, progress::add).run(
+            List.of(project("app", "lib", "api"), project("lib"), project("api", "lib")), project -> 1,
+            (project, cpus) -> {
+                order.add("start " + project.name());
+                Thread.sleep(20);
+                order.add("done " + project.name());
+                return "ok";
+            });
+
+        assertEquals(List.of("start lib", "done lib", "start api", "done api", "start app", "done app"), order);
+    }
+
+    @Test
+    void run_failure_skipsDependentsButBuildsIndependentProjects() throws Exception {
+        TaskScheduler.Summary<BuildProject> summary = new ProjectBuildScheduler(4, 4, progress::add).run(
+            List.of(project("lib"), project("app", "lib"), project("tools")), project -> 1, (project, cpus) -> {
+                if ("lib".equals(project.name())) {
+                    throw new IllegalStateException("Maven build failed with exit code: 1");
+                }
+                return "ok";
+            });
+
+        assertFalse(summary.isSuccess());
+        assertEquals(List.of(TaskScheduler.Status.FAILED, TaskScheduler.Status.SKIPPED,
+                TaskScheduler.Status.SUCCESS),
+            summary.outcomes().stream().map(TaskScheduler.Outcome::status).toList());
+        assertEquals("dependency lib failed", summary.outcomes().get(1).message());
+    }
+
+    @Test
+    void run_parallelBuilds_shareCpuBudget() throws Exception {
+        Map<String, Integer> granted = new ConcurrentHashMap<>();
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        new ProjectBuildScheduler(8, 8, progress::add).run(
+            List.of(project("a"), project("b"), project("c"), project("d")), project -> 8, (project, cpus) -> {
+                granted.put(project.name(), cpus);
+                peak.accumulateAndGet(inUse.addAndGet(cpus), Math::max);
+                Thread.sleep(30);
+                inUse.addAndGet(-cpus);
+                return "ok";
+            });
+
+        assertTrue(peak.get() <= 8, "peak " + peak.get() + " CPUs");
+        assertTrue(granted.values().stream().allMatch(cpus -> cpus >= 1 && cpus <= 8));
+    }
+
+    @Test
+    void run_overlappingParallelBuilds_splitCpusFairly() throws Exception {
+        Map<String, Integer> granted = new ConcurrentHashMap<>();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        TaskScheduler.Summary<BuildProject> summary = new ProjectBuildScheduler(8, 4, progress::add).run(
+            List.of(project("myapp"), project("reports")), project -> 16, (project, cpus) -> {
+                granted.put(project.name(), cpus);
+                bothStarted.countDown();
+                assertTrue(bothStarted.await(5, TimeUnit.SECONDS), "builds did not overlap");
+                return "ok";
+            });
+
+        assertTrue(summary.isSuccess());
+        assertEquals(Map.of("myapp", 4, "reports", 4), granted);
+    }
+
+    @Test
+    void run_dependencyOutsideList_isTakenAsBuilt() throws Exception {
+        TaskScheduler.Summary<BuildProject> summary = new ProjectBuildScheduler(2, 2, progress::add).run(
+            List.of(project("app", "gradle-lib")), project -> 1, (project, cpus) -> "ok");
+
+        assertTrue(summary.isSuccess());
+    }
+
+    @Test
+    void checkDependencies_unknownOrCycle_fails() {
+        assertThrows(IllegalArgumentException.class,
+            () -> ProjectBuildScheduler.checkDependencies(List.of(project("app", "missing"))));
+        IllegalArgumentException cycle = assertThrows(IllegalArgumentException.class,
+            () -> ProjectBuildScheduler.checkDependencies(List.of(project("a", "b"), project("b", "a"))));
+        assertTrue(cycle.getMessage().contains("a -> b -> a"), cycle.getMessage());
+    }
+
+    @Test
+    void cpuDemand_readsMavenThreadCount() {
+        assertEquals(32, ProjectBuildScheduler.cpuDemand("2C", 32));
+        assertEquals(16, ProjectBuildScheduler.cpuDemand("0.5C", 32));
+        assertEquals(4, ProjectBuildScheduler.cpuDemand("4", 32));
+        assertEquals(2, ProjectBuildScheduler.cpuDemand("4", 2));
+    }
+
+    private static BuildProject project(String name, String... dependsOn) {
+        return new BuildProject(name, "maven", name + "/pom.xml", null, "package", null, false, false, null, null,
+            List.of(), List.of(dependsOn));
+    }
+}
@@ -0,0 +1,146 @@
+package com.hsbc.ci.engine.core.cache;
+
+import com.hsbc.ci.engine.core.config.ConfigCompiler;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.StageResult;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageCacheTest {
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void restore_afterSuccessfulStore_returnsResultAndRestoresOutputs() throws Exception {
+        writeProject();
+        StageCache cache = new StageCache(workspace.resolve(".cache"), 1024 * 1024, workspace);
+        StageDefinition stage = stage("build", Map.of("name", "build"));
+        PipelineContext context = PipelineContext.builder().pipelineName("p").build();
+
+        String key = cache.keyFor(stage, context);
+        assertTrue(cache.restore(key, "build").isEmpty());
+        cache.store(key, stage, success("Build completed successfully"));
+        Files.delete(workspace.resolve("target/app.jar"));
+
+        Optional<StageResult> cached = cache.restore(cache.keyFor(stage, context), "build");
+
+        assertTrue(cached.isPresent());
+        assertEquals("Build completed successfully", cached.get().getOutput());
+        assertEquals("hit", cached.get().getMetadata().get("cache"));
+        assertEquals("jar-bytes", Files.readString(workspace.resolve("target/app.jar")));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void restore_resultNoLongerReusable_countsAsMiss() throws Exception {
+        writeProject();
+        StageCache cache = new StageCache(workspace.resolve(".cache"), 1024 * 1024, workspace);
+        StageDefinition stage = stage("build", Map.of("name", "build"));
+        PipelineContext context = PipelineContext.builder().pipelineName("p").build();
+        String key = cache.keyFor(stage, context);
+        cache.store(key, stage, success("Build completed successfully"));
+
+        assertTrue(cache.restore(key, "build", () -> false).isEmpty());
+        assertTrue(cache.restore(key, "build", () -> true).isPresent());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void keyFor_changesWhenSourcesOrConfigChange() throws Exception {
+        writeProject();
+        StageCache cache = new StageCache(workspace.resolve(".cache"), 1024 * 1024, workspace);
+        PipelineContext context = PipelineContext.builder().pipelineName("p").build();
+        StageDefinition stage = stage("build", Map.of("name", "build", "config", Map.of("goals", "package")));
+
+        String original = cache.keyFor(stage, context);
+        assertEquals(original, cache.keyFor(
+            stage("build", Map.of("name", "renamed", "config", Map.of("goals", "package"))), context));
+
+        Files.writeString(workspace.resolve("src/main/App.java"), "class App { int x; }");
+        String changedSource = cache.keyFor(stage, context);
+        assertNotEquals(original, changedSource);
+
+        String changedConfig = cache.keyFor(
+            stage("build", Map.of("name", "build", "config", Map.of("goals", "verify"))), context);
+        assertNotEquals(changedSource, changedConfig);
+    }
+
+    @Test
+    void keyFor_buildYmlDefaultChanged_misses() throws Exception {
+        writeProject();
+        StageCache cache = new StageCache(workspace.resolve(".cache"), 1024 * 1024, workspace);
+        PipelineContext context = PipelineContext.builder().pipelineName("p").build();
+        Map<String, Object> raw = Map.of("name", "build");
+        StageDefinition before = compiler(Map.of("jvmOpts", "-Xmx1g", "timeout", 600)).compileStage("build", raw);
+        StageDefinition after = compiler(Map.of("jvmOpts", "-Xmx2g", "timeout", 600)).compileStage("build", raw);
+
+        String key = cache.keyFor(before, context);
+        cache.store(key, before, success("Build completed successfully"));
+
+        assertTrue(cache.restore(cache.keyFor(before, context), "build").isPresent());
+        assertNotEquals(key, cache.keyFor(after, context));
+        assertTrue(cache.restore(cache.keyFor(after, context), "build").isEmpty());
+
+        StageDefinition longerTimeout = compiler(Map.of("jvmOpts", "-Xmx1g", "timeout", 900)).compileStage("build", raw);
+        assertNotEquals(key, cache.keyFor(longerTimeout, context));
+    }
+
+    @Test
+    void keyFor_deployOrDisabledStage_isNotCached() {
+        StageCache cache = new StageCache(workspace.resolve(".cache"), 1024 * 1024, workspace);
+        PipelineContext context = PipelineContext.builder().pipelineName("p").build();
+
+        assertNull(cache.keyFor(stage("deploy", Map.of("name", "deploy", "config", Map.of("target", "kubernetes"))), context));
+        assertNull(cache.keyFor(stage("build", Map.of("name", "build", "cache", Map.of("enabled", false))), context));
+        assertNull(new StageCache().keyFor(stage("build", Map.of("name", "build")), context));
+    }
+
+    @Test
+    void store_beyondMaxSize_evictsLeastRecentlyUsed() throws Exception {
+        Files.createDirectories(workspace.resolve("target"));
+        Files.write(workspace.resolve("target/app.jar"), new byte[600]);
+        LocalStageCacheStore store = new LocalStageCacheStore(workspace.resolve(".cache"), 1000);
+        List<Path> outputs = List.of(Path.of("target/app.jar"));
+
+        store.store("a", success("a"), workspace, outputs);
+        store.store("b", success("b"), workspace, outputs);
+
+        assertEquals(1, store.size());
+        assertEquals(1, store.getEvictions());
+        assertTrue(store.restore("a", workspace).isEmpty());
+        assertTrue(store.restore("b", workspace).isPresent());
+        assertEquals(1, new LocalStageCacheStore(workspace.resolve(".cache"), 1000).size());
+    }
+
+    private void writeProject() throws Exception {
+        Files.createDirectories(workspace.resolve("src/main"));
+        Files.createDirectories(workspace.resolve("target"));
+        Files.writeString(workspace.resolve("pom.xml"), "<project/>");
+        Files.writeString(workspace.resolve("src/main/App.java"), "class App {}");
+        Files.writeString(workspace.resolve("target/app.jar"), "jar-bytes");
+    }
+
+    private static StageDefinition stage(String type, Map<String, Object> raw) {
+        return new ConfigCompiler().compileStage(type, raw);
+    }
+
+    private static ConfigCompiler compiler(Map<String, Object> buildDefaults) {
+        return new ConfigCompiler(Map.of("build", Map.of("defaults", buildDefaults)), Map.of());
+    }
+
+    private static StageResult success(String output) {
+        return StageResult.builder().stageName("build").success(true).output(output).durationMs(10).build();
+    }
+}
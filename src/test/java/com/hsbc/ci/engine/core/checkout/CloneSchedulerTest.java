@@ -0,0 +1,108 @@
+package com.hsbc.ci.engine.core.checkout;
+
+import com.hsbc.ci.engine.core.schedule.TaskScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CloneSchedulerTest {
+
+    private final List<String> progress = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void run_clonesConcurrentlyUpToLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        TaskScheduler.Summary<CloneScheduler.Repository> summary = new CloneScheduler(3, TaskScheduler.FailurePolicy.CONTINUE,
+            progress::add).run(repositories("a", "b", "c", "d", "e", "f"), (repository, output) -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                running.decrementAndGet();
+            });
+
+        assertTrue(summary.isSuccess());
+        assertEquals(3, peak.get());
+        assertEquals(List.of("a", "b", "c", "d", "e", "f"),
+            summary.outcomes().stream().map(TaskScheduler.Outcome::name).toList());
+    }
+
+    @Test
+    void run_continuePolicy_attemptsEveryRepositoryAndKeepsFailedOutput() throws Exception {
+        TaskScheduler.Summary<CloneScheduler.Repository> summary = new CloneScheduler(2, TaskScheduler.FailurePolicy.CONTINUE,
+            progress::add).run(repositories("myapp", "common-lib", "reports"), (repository, output) -> {
+                output.accept("Cloning into '" + repository.name() + "'...");
+                if ("common-lib".equals(repository.name())) {
+                    output.accept("fatal: repository not found");
+                    throw new IllegalStateException("Git clone failed with exit code: 128");
+                }
+            });
+
+        assertFalse(summary.isSuccess());
+        assertEquals(List.of(TaskScheduler.Status.SUCCESS, TaskScheduler.Status.FAILED,
+                TaskScheduler.Status.SUCCESS),
+            summary.outcomes().stream().map(TaskScheduler.Outcome::status).toList());
+        TaskScheduler.Outcome<CloneScheduler.Repository> failed = summary.failed().get(0);
+        assertEquals("Git clone failed with exit code: 128", failed.message());
+        assertEquals(List.of("Cloning into 'common-lib'...", "fatal: repository not found"), failed.output());
+    }
+
+    @Test
+    void run_cancelPolicy_stopsRunningAndPendingClones() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+
+        TaskScheduler.Summary<CloneScheduler.Repository> summary = new CloneScheduler(2, TaskScheduler.FailurePolicy.CANCEL,
+            progress::add).run(repositories("slow", "broken", "later"), (repository, output) -> {
+                if ("slow".equals(repository.name())) {
+                    slowStarted.countDown();
+                    Thread.sleep(60_000);
+                }
+                slowStarted.await();
+                throw new IllegalStateException("Git clone failed with exit code: 128");
+            });
+
+        assertEquals(List.of(TaskScheduler.Status.CANCELLED, TaskScheduler.Status.FAILED,
+                TaskScheduler.Status.CANCELLED),
+            summary.outcomes().stream().map(TaskScheduler.Outcome::status).toList());
+        assertEquals("cancelled after broken failed", summary.outcomes().get(2).message());
+        assertTrue(summary.durationNanos() < 10_000_000_000L);
+        assertFalse(progress.contains("[INFO] Cloning later (3/3)"));
+    }
+
+    @Test
+    void run_sameNameTwice_reportsEachClone() throws Exception {
+        List<CloneScheduler.Repository> repositories = List.of(
+            new CloneScheduler.Repository("app", "https://github.com/org/app.git", "./repos/app-main", "main", 5,
+                null, null),
+            new CloneScheduler.Repository("app", "https://github.com/org/app.git", "./repos/app-release", "release",
+                5, null, null));
+
+        TaskScheduler.Summary<CloneScheduler.Repository> summary = new CloneScheduler(2, TaskScheduler.FailurePolicy.CONTINUE,
+            progress::add).run(repositories, (repository, output) -> {
+                output.accept("branch " + repository.branch());
+                if ("release".equals(repository.branch())) {
+                    throw new IllegalStateException("Remote branch release not found");
+                }
+            });
+
+        assertEquals(List.of(TaskScheduler.Status.SUCCESS, TaskScheduler.Status.FAILED),
+            summary.outcomes().stream().map(TaskScheduler.Outcome::status).toList());
+        assertEquals("cloned to ./repos/app-main", summary.outcomes().get(0).message());
+        assertEquals(List.of("branch release"), summary.outcomes().get(1).output());
+    }
+
+    private static List<CloneScheduler.Repository> repositories(String... names) {
+        List<CloneScheduler.Repository> repositories = new ArrayList<>();
+        for (String name : names) {
+            repositories.add(new CloneScheduler.Repository(name, "https://github.com/org/" + name + ".git",
+                "./repos/" + name, "main", 5, null, null));
+        }
+        return repositories;
+    }
+}
@@ -0,0 +1,192 @@
+package com.hsbc.ci.engine.core.config;
+
+import com.hsbc.ci.engine.core.model.definition.BuildConfig;
+import com.hsbc.ci.engine.core.model.definition.BuildProject;
+import com.hsbc.ci.engine.core.model.definition.DeploySettings;
+import com.hsbc.ci.engine.core.model.definition.FleetService;
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigCompilerTest {
+
+    private final ConfigCompiler compiler = new ConfigCompiler(
+        Map.of("build", Map.of("defaultTool", "gradle", "defaults", Map.of("timeout", 600, "jvmOpts", "-Xmx1g"))),
+        Map.of("deploy", Map.of("kubernetes", Map.of("timeout", 300, "defaultNamespace", "apps"))));
+
+    @Test
+    void compilePipeline_withSamplePipelines_compilesAll() throws Exception {
+        Path config = Paths.get("config");
+        ConfigCompiler samples = new ConfigCompiler(load(config.resolve("build.yml")), load(config.resolve("deploy.yml")));
+        int compiled = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(config.resolve("pipelines"), "*.yml")) {
+            for (Path file : files) {
+                PipelineDefinition pipeline = samples.compilePipeline(file.getFileName().toString(), load(file));
+                assertFalse(pipeline.stages().isEmpty());
+                compiled++;
+            }
+        }
+        assertTrue(compiled > 0);
+    }
+
+    @Test
+    void compilePipeline_withDefaults_resolvesTypedSettings() {
+        PipelineDefinition pipeline = compiler.compilePipeline("app.yml", Map.of(
+            "name", "app",
+            "stages", List.of(
+                Map.of("name", "build", "type", "build", "config", Map.of("goals", "clean verify")),
+                Map.of("name", "unit", "type", "test", "config", Map.of("timeout", 30)),
+                Map.of("name", "dev", "type", "deploy", "target", "kubernetes", "depends-on", "build"),
+                Map.of("name", "scan", "type", "plugin:security-scan", "config", Map.of("threshold", "HIGH")))));
+
+        StageDefinition build = pipeline.stage("build");
+        assertEquals("gradle", build.build().tool());
+        assertEquals(List.of("clean", "verify"), build.build().goals());
+        assertEquals("-Xmx1g", build.build().jvmOpts());
+        assertEquals(600, build.timeout().toSeconds());
+        assertEquals(30, pipeline.stage("unit").timeout().toSeconds());
+        assertEquals(List.of("build"), pipeline.stage("unit").dependsOn());
+        assertEquals(build.build().jvmOpts(), pipeline.stage("unit").test().jvmOpts());
+
+        StageDefinition deploy = pipeline.stage("dev");
+        assertEquals("kubernetes", deploy.deploy().target());
+        assertEquals("apps", deploy.deploy().namespace());
+        assertEquals(300, deploy.timeout().toSeconds());
+        assertEquals(List.of("build"), deploy.dependsOn());
+
+        assertEquals("security-scan", pipeline.stage("scan").plugin().pluginName());
+        assertNull(pipeline.stage("scan").timeout());
+        assertThrows(IllegalStateException.class, () -> build.deploy());
+    }
+
+    @Test
+    void compilePipeline_withInvalidStages_reportsEveryError() {
+        ConfigValidationException e = assertThrows(ConfigValidationException.class, () ->
+            compiler.compilePipeline("broken.yml", Map.of(
+                "name", "broken",
+                "stages", List.of(
+                    Map.of("name", "build", "type", "compile"),
+                    Map.of("name", "dev", "type", "deploy"),
+                    Map.of("name", "prod", "type", "deploy", "target", "heroku", "timeout", -1)))));
+
+        assertEquals("broken.yml", e.getSource());
+        assertEquals(4, e.getErrors().size(), e.getErrors().toString());
+        assertTrue(e.getErrors().get(0).contains("unknown stage type 'compile'"));
+        assertTrue(e.getErrors().get(1).contains("needs a target"));
+    }
+
+    @Test
+    void compilePipeline_withFleetDeploy_resolvesServices() {
+        PipelineDefinition pipeline = compiler.compilePipeline("fleet.yml", Map.of(
+            "name", "fleet",
+            "stages", List.of(Map.of("name", "uat", "type", "deploy", "target", "kubernetes", "config", Map.of(
+                "concurrency", 4,
+                "services", List.of(
+                    "config-server",
+                    Map.of("name", "accounts", "depends-on", "config-server", "image", "accounts:2.0")))))));
+
+        DeploySettings deploy = pipeline.stage("uat").deploy();
+        assertTrue(deploy.isFleet());
+        assertEquals(4, deploy.concurrency());
+        assertEquals(new FleetService("accounts", List.of("config-server"), "accounts:2.0"), deploy.services().get(1));
+    }
+
+    @Test
+    void compilePipeline_withFleetDeploy_separatesServiceAndFleetTimeouts() {
+        Map<String, Object> fleetStage = Map.of("name", "uat", "type", "deploy", "target", "kubernetes",
+            "config", Map.of("services", List.of(
+                "config-server",
+                Map.of("name", "accounts", "depends-on", "config-server"),
+                Map.of("name", "gateway", "depends-on", "accounts"))));
+        ConfigCompiler withFleetTimeout = new ConfigCompiler(Map.of(), Map.of("deploy", Map.of(
+            "kubernetes", Map.of("timeout", 300), "fleet", Map.of("timeout", 1200))));
+
+        StageDefinition perWave = compiler.compilePipeline("fleet.yml",
+            Map.of("name", "fleet", "stages", List.of(fleetStage))).stage("uat");
+        StageDefinition explicit = withFleetTimeout.compilePipeline("fleet.yml",
+            Map.of("name", "fleet", "stages", List.of(fleetStage))).stage("uat");
+
+        assertEquals(300, perWave.deploy().serviceTimeout().toSeconds());
+        assertEquals(900, perWave.timeout().toSeconds());
+        assertEquals(300, explicit.deploy().serviceTimeout().toSeconds());
+        assertEquals(1200, explicit.timeout().toSeconds());
+    }
+
+    @Test
+    void compilePipeline_withCyclicFleet_fails() {
+        ConfigValidationException e = assertThrows(ConfigValidationException.class, () ->
+            compiler.compilePipeline("fleet.yml", Map.of(
+                "name", "fleet",
+                "stages", List.of(Map.of("name", "uat", "type", "deploy", "target", "kubernetes", "config", Map.of(
+                    "services", List.of(
+                        Map.of("name", "a", "depends-on", List.of("b")),
+                        Map.of("name", "b", "depends-on", List.of("a")))))))));
+
+        assertTrue(e.getErrors().get(0).contains("cyclic service dependencies"), e.getErrors().toString());
+    }
+
+    @Test
+    void compilePipeline_withUnknownDependency_fails() {
+        ConfigValidationException e = assertThrows(ConfigValidationException.class, () ->
+            compiler.compilePipeline("deps.yml", Map.of(
+                "name", "deps",
+                "stages", List.of(Map.of("name", "unit", "type", "test", "depends-on", "build")))));
+
+        assertEquals(List.of("Stage 'unit' depends on unknown stage: build"), e.getErrors());
+    }
+
+    @Test
+    void compileBuildConfig_withProjects_appliesDefaults() {
+        BuildConfig build = ConfigCompiler.compileBuildConfig("build.yml", Map.of("build", Map.of(
+            "tools", Map.of("maven", Map.of("goals", "clean install")),
+            "defaults", Map.of("skipTests", true, "timeout", 600),
+            "projects", List.of(
+                Map.of("name", "api", "tool", "maven"),
+                Map.of("name", "web", "tool", "maven", "goals", "package", "skipTests", false)))));
+
+        BuildProject api = build.projects().get(0);
+        assertEquals("clean install", api.goals());
+        assertEquals("pom.xml", api.pom());
+        assertTrue(api.skipTests());
+        assertEquals(600, api.timeout().toSeconds());
+        assertEquals("package", build.projects().get(1).goals());
+        assertFalse(build.projects().get(1).skipTests());
+    }
+
+    @Test
+    void compileBuildConfig_withDependenciesAndToolOptions_keepsThem() {
+        BuildConfig build = ConfigCompiler.compileBuildConfig("build.yml", Map.of("build", Map.of(
+            "tools", Map.of("maven", Map.of("options", "-DskipTests")),
+            "projects", List.of(
+                Map.of("name", "lib", "tool", "maven"),
+                Map.of("name", "app", "tool", "maven", "dependsOn", List.of("lib"))))));
+
+        assertEquals("-DskipTests", build.projects().get(0).options());
+        assertEquals(List.of("lib"), build.projects().get(1).dependsOn());
+    }
+
+    @Test
+    void compileBuildConfig_dependencyCycle_fails() {
+        ConfigValidationException e = assertThrows(ConfigValidationException.class,
+            () -> ConfigCompiler.compileBuildConfig("build.yml", Map.of("build", Map.of(
+                "projects", List.of(
+                    Map.of("name", "lib", "dependsOn", List.of("app")),
+                    Map.of("name", "app", "dependsOn", List.of("lib")))))));
+
+        assertEquals(List.of("project dependency cycle: lib -> app -> lib"), e.getErrors());
+    }
+
+    private static Map<String, Object> load(Path file) throws Exception {
+        return new Yaml().load(Files.readString(file));
+    }
+}
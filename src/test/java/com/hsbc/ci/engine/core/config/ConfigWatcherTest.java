@@ -0,0 +1,95 @@
+package com.hsbc.ci.engine.core.config;
+
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigWatcherTest {
+
+    @TempDir
+    Path configDir;
+
+    private ConfigurationLoader loader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(configDir.resolve("pipelines"));
+        Files.writeString(configDir.resolve("ci-engine.yml"), "ci-engine:\n  snapshot:\n    enabled: false\n");
+        writePipeline("app", "dev");
+        writePipeline("other", "dev");
+        loader = new ConfigurationLoader();
+        loader.setConfigPath(configDir.toString());
+    }
+
+    @Test
+    void reload_changedPipeline_swapsDefinitionAndKeepsOldOne() throws Exception {
+        PipelineDefinition before = loader.getPipelineDefinition("app");
+        writePipeline("app", "staging-long-name");
+
+        loader.reload(List.of("pipelines/app.yml"));
+
+        PipelineDefinition after = loader.getPipelineDefinition("app");
+        assertNotNull(after.stage("staging-long-name"));
+        assertNotNull(before.stage("dev"));
+        assertNull(before.stage("staging-long-name"));
+    }
+
+    @Test
+    void reload_unchangedPipeline_keepsSameDefinition() throws Exception {
+        PipelineDefinition other = loader.getPipelineDefinition("other");
+        writePipeline("app", "staging-long-name");
+
+        loader.reload(List.of("pipelines/app.yml"));
+
+        assertSame(other, loader.getPipelineDefinition("other"));
+    }
+
+    @Test
+    void reload_invalidChange_recordsErrors() throws Exception {
+        loader.getPipelineDefinition("app");
+        Files.writeString(configDir.resolve("pipelines/app.yml"),
+            "name: app\nstages:\n  - name: build\n    type: compile\n");
+
+        loader.reload(List.of("pipelines/app.yml"));
+
+        assertTrue(loader.getValidationErrors().containsKey("app"));
+        assertThrows(ConfigValidationException.class, () -> loader.getPipelineDefinition("app"));
+    }
+
+    @Test
+    void start_fileChanged_reloadsPipeline() throws Exception {
+        loader.getPipelineDefinition("app");
+
+        try (ConfigWatcher watcher = ConfigWatcher.start(loader)) {
+            writePipeline("app", "staging-long-name");
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (loader.getPipelineDefinition("app").stage("staging-long-name") == null
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        }
+
+        assertNotNull(loader.getPipelineDefinition("app").stage("staging-long-name"));
+    }
+
+    private void writePipeline(String name, String deployStage) throws Exception {
+        Files.writeString(configDir.resolve("pipelines/" + name + ".yml"), """
+            name: %s
+            stages:
+              - name: build
+                type: build
+              - name: %s
+                type: deploy
+                target: kubernetes
+                depends-on: [build]
+            """.formatted(name, deployStage));
+    }
+}
@@ -0,0 +1,150 @@
+package com.hsbc.ci.engine.core.config;
+
+import com.hsbc.ci.engine.core.model.definition.PipelineDefinition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineSnapshotTest {
+
+    @TempDir
+    Path configDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(configDir.resolve("pipelines"));
+        Files.writeString(configDir.resolve("ci-engine.yml"), "ci-engine:\n  snapshot:\n    enabled: true\n"
+            + "    directory: " + configDir.resolve("snapshot") + "\n");
+        Files.writeString(configDir.resolve("build.yml"), "build:\n  defaults:\n    timeout: 600\n");
+        Files.writeString(configDir.resolve("pipelines/app.yml"), """
+            name: app
+            stages:
+              - name: build
+                type: build
+                config:
+                  cache: {inputs: ["src/**"], ratio: 0.5, enabled: true}
+              - name: scan
+                type: plugin:security-scan
+                config:
+                  scanners: [sast, foss]
+              - name: dev
+                type: deploy
+                target: kubernetes
+                config:
+                  image: "registry/{service}:1.0"
+                  concurrency: 4
+                  services:
+                    - config-server
+                    - name: accounts
+                      depends-on: [config-server]
+                gates:
+                  - type: security-findings
+                    max-critical: 0
+            """);
+        Files.writeString(configDir.resolve("pipelines/broken.yml"), """
+            name: broken
+            stages:
+              - name: build
+                type: compile
+            """);
+    }
+
+    @Test
+    void getPipelineDefinition_fromSnapshot_matchesCompiledYaml() {
+        PipelineDefinition compiled = loader().getPipelineDefinition("app");
+
+        ConfigurationLoader restarted = loader();
+        PipelineDefinition restored = restarted.getPipelineDefinition("app");
+
+        assertEquals(compiled, restored);
+        assertEquals(600, restored.stage("build").timeout().toSeconds());
+        assertFalse(restarted.getLoadTimes().containsKey("pipeline-compile"));
+    }
+
+    @Test
+    void getPipelineDefinition_afterYamlChange_recompiles() throws Exception {
+        loader().getPipelineDefinition("app");
+        Path file = configDir.resolve("pipelines/app.yml");
+        Files.writeString(file, Files.readString(file).replace("name: dev", "name: staging"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+
+        ConfigurationLoader restarted = loader();
+
+        assertNotNull(restarted.getPipelineDefinition("app").stage("staging"));
+        assertTrue(restarted.getLoadTimes().containsKey("pipeline-compile"));
+    }
+
+    @Test
+    void getValidationErrors_fromSnapshot_keepsErrors() {
+        List<String> errors = loader().getValidationErrors().get("broken");
+
+        ConfigurationLoader restarted = loader();
+
+        assertEquals(errors, restarted.getValidationErrors().get("broken"));
+        assertThrows(ConfigValidationException.class, () -> restarted.getPipelineDefinition("broken"));
+        assertFalse(restarted.getLoadTimes().containsKey("pipeline-compile"));
+    }
+
+    @Test
+    void getPipelineDefinition_withCorruptSnapshot_fallsBackToYaml() throws Exception {
+        loader().getPipelineDefinition("app");
+        try (Stream<Path> files = Files.list(configDir.resolve("snapshot"))) {
+            for (Path file : files.toList()) {
+                byte[] bytes = Files.readAllBytes(file);
+                bytes[bytes.length - 3] ^= 0x5A;
+                Files.write(file, bytes);
+            }
+        }
+
+        ConfigurationLoader restarted = loader();
+
+        assertEquals("app", restarted.getPipelineDefinition("app").name());
+        assertTrue(restarted.getLoadTimes().containsKey("pipeline-compile"));
+    }
+
+    @Test
+    void write_concurrentWriters_leaveOneCompleteSnapshot() throws Exception {
+        Path file = configDir.resolve("snapshot/pipelines.snapshot");
+        List<Thread> writers = new ArrayList<>();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 8; i++) {
+            byte[] body = ("body-" + i).getBytes(StandardCharsets.UTF_8);
+            writers.add(Thread.ofVirtual().start(() -> {
+                try {
+                    PipelineSnapshot.write(file, 42, Map.of("app", new PipelineSnapshot.Stamp(1, 2)),
+                        Map.of("app", body));
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(List.of(), errors);
+        PipelineSnapshot snapshot = PipelineSnapshot.open(file, 42);
+        assertTrue(new String(snapshot.body("app"), StandardCharsets.UTF_8).startsWith("body-"));
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    private ConfigurationLoader loader() {
+        ConfigurationLoader loader = new ConfigurationLoader();
+        loader.setConfigPath(configDir.toString());
+        return loader;
+    }
+}
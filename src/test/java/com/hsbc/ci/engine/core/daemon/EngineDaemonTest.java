@@ -0,0 +1,172 @@
+package com.hsbc.ci.engine.core.daemon;
+
+import com.hsbc.ci.engine.core.cli.checkout.CheckoutCommand;
+import com.hsbc.ci.engine.core.cli.checkout.CloneCommand;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import picocli.CommandLine;
+import picocli.spring.PicocliSpringFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineDaemonTest {
+
+    @Test
+    void forward_toRunningDaemon_streamsOutputAndExitCode(@TempDir Path tempDir) throws Exception {
+        Path socket = tempDir.resolve("engine.sock");
+        EngineDaemon daemon = new EngineDaemon(args -> {
+            System.out.println("hello " + String.join(" ", args));
+            System.err.println("warning");
+            return 3;
+        });
+        Thread server = startDaemon(daemon, socket);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        OptionalInt exitCode = DaemonClient.forward(socket, new String[] {"plugin", "list"}, out, err);
+
+        assertEquals(OptionalInt.of(3), exitCode);
+        assertTrue(out.toString().contains("hello plugin list"));
+        assertTrue(err.toString().contains("warning"));
+
+        OptionalInt stopped = DaemonClient.forward(
+            socket, new String[] {"daemon", "stop"}, new ByteArrayOutputStream(), new ByteArrayOutputStream());
+        assertEquals(OptionalInt.of(0), stopped);
+        server.join(5000);
+        assertFalse(server.isAlive());
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    void forward_concurrentCommands_keepTheirOwnOptions(@TempDir Path tempDir) throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(ToolRegistry.class, ToolRegistry::unchecked);
+            context.register(CloneCommand.class);
+            context.refresh();
+            CommandLine.IFactory factory = new PicocliSpringFactory(context);
+            assertNotSame(factory.create(CloneCommand.class), factory.create(CloneCommand.class));
+
+            Path socket = tempDir.resolve("engine.sock");
+            EngineDaemon daemon = new EngineDaemon(args -> new CommandLine(new CheckoutCommand(), factory)
+                .execute(args));
+            Thread server = startDaemon(daemon, socket);
+
+            List<String> names = List.of("orders", "payments", "ledger", "accounts");
+            List<Callable<OptionalInt>> clones = new ArrayList<>();
+            for (String name : names) {
+                Path origin = gitRepository(tempDir.resolve("origin-" + name), name);
+                clones.add(() -> DaemonClient.forward(socket, new String[] {"clone",
+                        "--url", origin.toString(), "--target", tempDir.resolve("clone-" + name).toString()},
+                    new ByteArrayOutputStream(), new ByteArrayOutputStream()));
+            }
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (Future<OptionalInt> exitCode : clients.invokeAll(clones)) {
+                    assertEquals(OptionalInt.of(0), exitCode.get());
+                }
+            } finally {
+                daemon.stop();
+                server.join(5000);
+            }
+            for (String name : names) {
+                assertEquals(name, Files.readString(tempDir.resolve("clone-" + name).resolve("name.txt")));
+            }
+        }
+    }
+
+    @Test
+    void forward_withoutDaemon_returnsEmpty(@TempDir Path tempDir) throws Exception {
+        OptionalInt exitCode = DaemonClient.forward(tempDir.resolve("missing.sock"),
+            new String[] {"version"}, new ByteArrayOutputStream(), new ByteArrayOutputStream());
+
+        assertTrue(exitCode.isEmpty());
+    }
+
+    @Test
+    void tryForward_daemonDiesMidCommand_reportsErrorInsteadOfRunningLocally(@TempDir Path tempDir)
+            throws Exception {
+        Path socket = tempDir.resolve("engine.sock");
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            Thread daemon = Thread.ofVirtual().start(() -> {
+                try (SocketChannel client = server.accept()) {
+                    DaemonProtocol.readRequest(new DataInputStream(Channels.newInputStream(client)));
+                    DataOutputStream frames = new DataOutputStream(Channels.newOutputStream(client));
+                    byte[] line = "Deploying payments\n".getBytes(StandardCharsets.UTF_8);
+                    DaemonProtocol.writeFrame(frames, DaemonProtocol.STDOUT, line, 0, line.length);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            OptionalInt exitCode = DaemonClient.tryForward(socket, new String[] {"deploy", "run"},
+                new PrintStream(out, true), new PrintStream(err, true));
+            daemon.join(5000);
+
+            assertEquals(OptionalInt.of(DaemonClient.EXIT_CONNECTION_LOST), exitCode);
+            assertTrue(out.toString().contains("Deploying payments"));
+            assertTrue(err.toString().contains("not re-run locally"), err.toString());
+        }
+    }
+
+    @Test
+    void shouldForward_daemonStart_runsLocally() {
+        assertFalse(DaemonClient.shouldForward(new String[] {"daemon", "start"}));
+        assertTrue(DaemonClient.shouldForward(new String[] {"daemon", "stop"}));
+        assertTrue(DaemonClient.shouldForward(new String[] {"pipeline", "run", "sample-pipeline"}));
+    }
+
+    private static Path gitRepository(Path directory, String name) throws Exception {
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("name.txt"), name);
+        git(directory, "init", "-q", "-b", "main");
+        git(directory, "add", "name.txt");
+        git(directory, "-c", "user.name=ci", "-c", "user.email=ci@example.com", "commit", "-q", "-m", name);
+        return directory;
+    }
+
+    private static void git(Path directory, String... args) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).inheritIO().start();
+        assertEquals(0, process.waitFor(), String.join(" ", command));
+    }
+
+    private static Thread startDaemon(EngineDaemon daemon, Path socket) throws Exception {
+        Thread server = Thread.ofPlatform().daemon().start(() -> {
+            try {
+                daemon.serve(socket);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!DaemonClient.isRunning(socket) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return server;
+    }
+}
@@ -0,0 +1,86 @@
+package com.hsbc.ci.engine.core.deploy;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link LocalClusterApi} that can fail revisions on demand: revisions of an image passed
+ * to {@link #failImage} report failed once they are ready, and {@link #markFailed} fails
+ * the newest revision of a service at any time. Also records which threads called it.
+ */
+class FaultyClusterApi extends LocalClusterApi {
+
+    private final Set<String> failingImages = new HashSet<>();
+    private final Set<String> failedRevisions = new HashSet<>();
+    private final Map<String, String> images = new HashMap<>();
+    private final Map<String, String> newest = new HashMap<>();
+    private final Set<String> callerThreads = new HashSet<>();
+
+    FaultyClusterApi(Duration readyDelay, int replicas) {
+        super(readyDelay, replicas);
+    }
+
+    @Override
+    public synchronized String createRevision(String namespace, String service, String image, RolloutStrategy strategy) {
+        callerThreads.add(Thread.currentThread().getName());
+        String revision = super.createRevision(namespace, service, image, strategy);
+        images.put(revision, image);
+        newest.put(namespace + "/" + service, revision);
+        return revision;
+    }
+
+    @Override
+    public synchronized Health health(String namespace, String service, String revision) {
+        callerThreads.add(Thread.currentThread().getName());
+        Health health = super.health(namespace, service, revision);
+        if (health.isReady() && failingImages.contains(images.get(revision))) {
+            failedRevisions.add(revision);
+        }
+        if (failedRevisions.contains(revision)) {
+            return new Health(0, health.desired(), true, revision + " is failing health checks");
+        }
+        return health;
+    }
+
+    @Override
+    public synchronized void setTraffic(String namespace, String service, String revision, int percent) {
+        callerThreads.add(Thread.currentThread().getName());
+        super.setTraffic(namespace, service, revision, percent);
+    }
+
+    @Override
+    public synchronized void promote(String namespace, String service, String revision) {
+        callerThreads.add(Thread.currentThread().getName());
+        super.promote(namespace, service, revision);
+    }
+
+    @Override
+    public synchronized void rollback(String namespace, String service, String revision) {
+        callerThreads.add(Thread.currentThread().getName());
+        super.rollback(namespace, service, revision);
+    }
+
+    synchronized void failImage(String image) {
+        failingImages.add(image);
+    }
+
+    /**
+     * Fails the newest revision of the service, as if its pods started crashing.
+     */
+    synchronized void markFailed(String namespace, String service) {
+        String revision = newest.get(namespace + "/" + service);
+        if (revision != null) {
+            failedRevisions.add(revision);
+        }
+    }
+
+    /**
+     * Names of the threads that called the cluster.
+     */
+    synchronized Set<String> callerThreads() {
+        return Set.copyOf(callerThreads);
+    }
+}
@@ -0,0 +1,98 @@
+package com.hsbc.ci.engine.core.deploy;
+
+import com.hsbc.ci.engine.core.model.definition.FleetService;
+import com.hsbc.ci.engine.core.schedule.TaskScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetDeployerTest {
+
+    private final List<String> progress = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void plan_groupsServicesIntoDependencyWaves() {
+        FleetPlan plan = FleetPlan.of(List.of(
+            service("gateway", "accounts", "payments"),
+            service("config-server"),
+            service("accounts", "config-server"),
+            service("payments", "config-server", "config-server"),
+            service("audit")));
+
+        assertEquals(List.of(List.of("config-server", "audit"), List.of("accounts", "payments"), List.of("gateway")),
+            plan.waves().stream().map(wave -> wave.stream().map(FleetService::name).toList()).toList());
+    }
+
+    @Test
+    void plan_withCycleOrUnknownDependency_fails() {
+        assertThrows(IllegalArgumentException.class, () -> FleetPlan.of(List.of(service("a", "b"), service("b", "a"))));
+        assertThrows(IllegalArgumentException.class, () -> FleetPlan.of(List.of(service("a", "missing"))));
+        assertThrows(IllegalArgumentException.class, () -> FleetPlan.of(List.of(service("a"), service("a"))));
+    }
+
+    @Test
+    void deploy_wideWave_runsConcurrentlyUpToLimit() throws Exception {
+        List<FleetService> services = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            services.add(service("svc-" + i));
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        long start = System.nanoTime();
+        TaskScheduler.Summary<FleetService> result = new FleetDeployer(5, progress::add).deploy(FleetPlan.of(services), service -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(100);
+            running.decrementAndGet();
+            return "ok";
+        });
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(result.isSuccess());
+        assertEquals(5, peak.get());
+        assertTrue(elapsedMillis < 1_500, "fleet took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void deploy_nextWaveStartsAfterCurrentIsHealthy() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        FleetPlan plan = FleetPlan.of(List.of(service("db-migrate"), service("api", "db-migrate"), service("web", "api")));
+
+        new FleetDeployer(10, progress::add).deploy(plan, service -> {
+            order.add("start " + service.name());
+            Thread.sleep(20);
+            order.add("healthy " + service.name());
+            return "ok";
+        });
+
+        assertEquals(List.of("start db-migrate", "healthy db-migrate", "start api", "healthy api",
+            "start web", "healthy web"), order);
+    }
+
+    @Test
+    void deploy_failure_finishesWaveAndSkipsLaterWaves() throws Exception {
+        FleetPlan plan = FleetPlan.of(List.of(service("a"), service("b"), service("c", "a", "b")));
+
+        TaskScheduler.Summary<FleetService> result = new FleetDeployer(4, progress::add).deploy(plan, service -> {
+            if ("a".equals(service.name())) {
+                throw new IllegalStateException("rollout status exited with 1");
+            }
+            return "ok";
+        });
+
+        assertFalse(result.isSuccess());
+        assertEquals(List.of(TaskScheduler.Status.FAILED, TaskScheduler.Status.SUCCESS, TaskScheduler.Status.SKIPPED),
+            result.outcomes().stream().map(TaskScheduler.Outcome::status).toList());
+        assertEquals("a", result.failed().get(0).name());
+        assertTrue(progress.stream().anyMatch(line -> line.contains("a FAILED")));
+    }
+
+    private static FleetService service(String name, String... dependsOn) {
+        return new FleetService(name, List.of(dependsOn), null);
+    }
+}
@@ -0,0 +1,220 @@
+package com.hsbc.ci.engine.core.deploy;
+
+import com.hsbc.ci.engine.core.config.ConfigCompiler;
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.stages.DeployStage;
+import com.hsbc.ci.engine.core.stages.ProcessRunner;
+import com.hsbc.ci.engine.core.tool.ToolRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RolloutControllerTest {
+
+    private static final Duration POLL = Duration.ofMillis(10);
+
+    private final FaultyClusterApi cluster = new FaultyClusterApi(Duration.ofMillis(30), 3);
+    private final RolloutController controller = new RolloutController(cluster, POLL, message -> { });
+
+    @AfterEach
+    void tearDown() {
+        controller.close();
+    }
+
+    @Test
+    void strategy_fromDeployYml_buildsTrafficSteps() {
+        RolloutStrategy canary = RolloutStrategy.of("canary",
+            Map.of("initialTrafficPercentage", 10, "incrementPercentage", 20, "incrementInterval", 300));
+
+        assertEquals(List.of(10, 30, 50, 70, 90, 100),
+            canary.steps().stream().map(RolloutStrategy.TrafficStep::percent).toList());
+        assertEquals(Duration.ofSeconds(300), canary.steps().get(0).hold());
+        assertEquals(List.of(), RolloutStrategy.of("rolling", Map.of()).steps());
+        assertThrows(IllegalArgumentException.class, () -> RolloutStrategy.of("shadow", Map.of()));
+    }
+
+    @Test
+    void start_canary_stepsTrafficThenPromotes() throws Exception {
+        RolloutController.RolloutResult result = controller.start(request("payments", "payments:2.0",
+            new RolloutStrategy.Canary(25, 25, Duration.ofMillis(20)))).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isPromoted());
+        assertEquals("payments:2.0", cluster.stableImage("uat", "payments"));
+        List<String> traffic = cluster.history("uat", "payments").stream()
+            .filter(line -> line.startsWith("traffic")).map(line -> line.substring(line.lastIndexOf(' ') + 1)).toList();
+        assertEquals(List.of("25", "50", "75", "100"), traffic);
+    }
+
+    @Test
+    void start_healthFailureDuringHold_rollsBackAtNextPoll() throws Exception {
+        controller.start(request("orders", "orders:1.0", new RolloutStrategy.Rolling(1, 0))).get(5, TimeUnit.SECONDS);
+        CompletableFuture<RolloutController.RolloutResult> pending = controller.start(request("orders", "orders:1.1",
+            new RolloutStrategy.BlueGreen(100, Duration.ofSeconds(30))));
+        waitForTraffic("orders", 100);
+
+        long start = System.nanoTime();
+        cluster.markFailed("uat", "orders");
+        RolloutController.RolloutResult result = pending.get(5, TimeUnit.SECONDS);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(RolloutController.Status.ROLLED_BACK, result.status());
+        assertEquals(100, result.traffic());
+        assertTrue(elapsedMillis < 1_000, "abort took " + elapsedMillis + "ms");
+        assertEquals("orders:1.0", cluster.stableImage("uat", "orders"));
+    }
+
+    @Test
+    void start_revisionNeverReady_rollsBackAfterReadyTimeout() throws Exception {
+        LocalClusterApi slowCluster = new LocalClusterApi(Duration.ofHours(1), 3);
+        try (RolloutController slow = new RolloutController(slowCluster, POLL, message -> { })) {
+            RolloutController.RolloutResult result = slow.start(new RolloutController.RolloutRequest("uat", "search",
+                "search:3.0", new RolloutStrategy.Rolling(1, 0), Duration.ofMillis(100))).get(5, TimeUnit.SECONDS);
+
+            assertFalse(result.isPromoted());
+            assertTrue(result.reason().contains("not ready"), result.reason());
+        }
+    }
+
+    @Test
+    void start_manyRollouts_callClusterOffTheSchedulerThread() throws Exception {
+        cluster.failImage("svc-7:2.0");
+        List<CompletableFuture<RolloutController.RolloutResult>> pending = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pending.add(controller.start(request("svc-" + i, "svc-" + i + ":2.0",
+                new RolloutStrategy.Canary(50, 50, Duration.ofMillis(50)))));
+        }
+
+        long promoted = 0;
+        for (CompletableFuture<RolloutController.RolloutResult> future : pending) {
+            promoted += future.get(10, TimeUnit.SECONDS).isPromoted() ? 1 : 0;
+        }
+
+        assertEquals(199, promoted);
+        assertFalse(cluster.callerThreads().contains("rollout-scheduler"));
+        assertTrue(cluster.callerThreads().stream().allMatch(name -> name.startsWith("rollout-")),
+            cluster.callerThreads().toString());
+    }
+
+    @Test
+    void start_slowClusterCall_delaysOnlyItsOwnRollout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        LocalClusterApi stuckCluster = new LocalClusterApi(Duration.ofMillis(30), 3) {
+            @Override
+            public Health health(String namespace, String service, String revision) {
+                if ("stuck".equals(service)) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.health(namespace, service, revision);
+            }
+        };
+        try (RolloutController shared = new RolloutController(stuckCluster, POLL, message -> { })) {
+            CompletableFuture<RolloutController.RolloutResult> stuck = shared.start(request("stuck", "stuck:2.0",
+                new RolloutStrategy.Rolling(1, 0)));
+            RolloutController.RolloutResult other = shared.start(request("billing", "billing:2.0",
+                new RolloutStrategy.Canary(50, 50, Duration.ofMillis(20)))).get(5, TimeUnit.SECONDS);
+
+            assertTrue(other.isPromoted());
+            assertFalse(stuck.isDone());
+            release.countDown();
+            assertTrue(stuck.get(5, TimeUnit.SECONDS).isPromoted());
+        }
+    }
+
+    @Test
+    void start_cancelled_rollsBack() throws Exception {
+        CompletableFuture<RolloutController.RolloutResult> pending = controller.start(request("cart", "cart:5.0",
+            new RolloutStrategy.Canary(10, 10, Duration.ofSeconds(30))));
+        waitForTraffic("cart", 10);
+
+        pending.cancel(true);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!cluster.history("uat", "cart").stream().anyMatch(line -> line.startsWith("rollback"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(cluster.history("uat", "cart").stream().anyMatch(line -> line.startsWith("rollback")));
+    }
+
+    @Test
+    void close_withRolloutInFlight_completesItExceptionally() {
+        LocalClusterApi slowCluster = new LocalClusterApi(Duration.ofHours(1), 3);
+        RolloutController closing = new RolloutController(slowCluster, POLL, message -> { });
+        CompletableFuture<RolloutController.RolloutResult> pending = closing.start(request("search", "search:3.0",
+            new RolloutStrategy.Rolling(1, 0)));
+
+        closing.close();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> pending.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause().getMessage().contains("closed"), failure.getCause().getMessage());
+        assertThrows(IllegalStateException.class, () -> closing.start(request("search", "search:3.1",
+            new RolloutStrategy.Rolling(1, 0))));
+    }
+
+    @Test
+    void deployStage_withClusterApi_runsRollout() {
+        DeployStage stage = new DeployStage();
+        stage.setClusterApi(cluster);
+        StageDefinition definition = new ConfigCompiler().compileStage("deploy", Map.of(
+            "target", "kubernetes",
+            "config", Map.of("namespace", "uat", "image", "registry.company.com/team/payments:2.1")));
+
+        String result = stage.execute(definition, PipelineContext.builder().pipelineName("app").build());
+
+        assertTrue(result.contains("rollout completed"), result);
+        assertEquals("registry.company.com/team/payments:2.1", cluster.stableImage("uat", "payments"));
+    }
+
+    @Test
+    void deployStage_withLocalClusterSetting_runsRollout(@TempDir Path configDir) throws Exception {
+        Files.writeString(configDir.resolve("deploy.yml"), """
+            deploy:
+              cluster: local
+            """);
+        ConfigurationLoader configLoader = new ConfigurationLoader();
+        configLoader.setConfigPath(configDir.toString());
+        DeployStage stage = new DeployStage(new ProcessRunner(), configLoader, ToolRegistry.unchecked());
+        StageDefinition definition = new ConfigCompiler().compileStage("deploy", Map.of(
+            "target", "kubernetes",
+            "config", Map.of("namespace", "uat", "image", "registry.company.com/team/payments:2.2")));
+
+        String result = stage.execute(definition, PipelineContext.builder().pipelineName("app").build());
+
+        assertTrue(result.contains("rollout completed"), result);
+    }
+
+    private static RolloutController.RolloutRequest request(String service, String image, RolloutStrategy strategy) {
+        return new RolloutController.RolloutRequest("uat", service, image, strategy, Duration.ofSeconds(5));
+    }
+
+    private void waitForTraffic(String service, int percent) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (cluster.history("uat", service).stream().anyMatch(line -> line.startsWith("traffic")
+                    && line.endsWith(" " + percent))) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        fail("no " + percent + "% traffic step for " + service);
+    }
+}
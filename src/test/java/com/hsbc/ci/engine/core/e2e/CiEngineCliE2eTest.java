@@ -77,6 +77,16 @@ class CiEngineCliE2eTest {
         assertTrue(result.exitCode != 0 || result.stdout.contains("Usage") || result.stdout.contains("Unmatched"));
     }
 
+    @Test
+    void failingCommand_exitsNonZero(@TempDir Path tempDir) throws Exception {
+        ProcessResult result = runCli("checkout", "clone",
+            "--url", tempDir.resolve("missing-repo.git").toString(),
+            "--target", tempDir.resolve("clone").toString());
+
+        assertNotEquals(0, result.exitCode, result.stdout);
+        assertTrue(result.stdout.contains("Clone failed"), result.stdout);
+    }
+
     @Test
     void buildMaven_showsUsage(@TempDir Path tempDir) throws Exception {
         copyConfigToTemp(tempDir);
@@ -0,0 +1,145 @@
+package com.hsbc.ci.engine.core.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineEventBusTest {
+
+    private final PipelineEventBus bus = new PipelineEventBus(8);
+
+    @AfterEach
+    void tearDown() {
+        bus.shutdown();
+    }
+
+    @Test
+    void publish_withSeveralSubscribers_deliversEveryEventInOrder() {
+        List<List<String>> seen = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<String> names = new CopyOnWriteArrayList<>();
+            seen.add(names);
+            bus.subscribe(event -> names.add(event.getName()));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            bus.publish(PipelineEventType.STAGE_FINISHED, "run1", "p", "stage-" + i, "build", true, i, null);
+        }
+        bus.drain();
+
+        for (List<String> names : seen) {
+            assertEquals(100, names.size());
+            assertEquals("stage-0", names.get(0));
+            assertEquals("stage-99", names.get(99));
+        }
+    }
+
+    @Test
+    void publish_withSlowSubscriberAndSmallBuffer_neverDropsEvents() throws Exception {
+        List<Long> durations = new CopyOnWriteArrayList<>();
+        bus.subscribe(event -> {
+            durations.add(event.getDurationNanos());
+            Thread.onSpinWait();
+        });
+
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            producers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 250; i++) {
+                    bus.publish(PipelineEventType.STAGE_STARTED, "run", "p", "s", "test", true, 1, null);
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        bus.drain();
+
+        assertEquals(1000, durations.size());
+    }
+
+    @Test
+    void subscribe_whenListenerThrows_keepsConsuming() {
+        List<PipelineEventType> types = new CopyOnWriteArrayList<>();
+        bus.subscribe(event -> {
+            types.add(event.getType());
+            throw new IllegalStateException("boom");
+        });
+
+        bus.publish(PipelineEventType.RUN_STARTED, "run", "p", null, null, true, 0, null);
+        bus.publish(PipelineEventType.RUN_FINISHED, "run", "p", null, null, true, 5, null);
+        bus.drain();
+
+        assertEquals(List.of(PipelineEventType.RUN_STARTED, PipelineEventType.RUN_FINISHED), types);
+    }
+
+    @Test
+    void unsubscribe_stopsDeliveryAndReleasesGating() {
+        PipelineEventListener listener = event -> { };
+        bus.subscribe(listener);
+        bus.unsubscribe(listener);
+
+        for (int i = 0; i < 20; i++) {
+            bus.publish(PipelineEventType.STAGE_STARTED, "run", "p", "s", "build", true, 0, null);
+        }
+
+        assertEquals(0, bus.getSubscriberCount());
+    }
+
+    @Test
+    void subscribe_idleConsumer_parksUntilNextPublish() throws Exception {
+        List<String> names = new CopyOnWriteArrayList<>();
+        Thread[] consumer = new Thread[1];
+        bus.subscribe(event -> {
+            consumer[0] = Thread.currentThread();
+            names.add(event.getName());
+        });
+        bus.publish(PipelineEventType.RUN_STARTED, "run", "p", "run", null, true, 0, null);
+        bus.drain();
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (consumer[0].getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, consumer[0].getState());
+
+        bus.publish(PipelineEventType.STAGE_STARTED, "run", "p", "build", "build", true, 0, null);
+        bus.drain();
+        assertEquals(List.of("run", "build"), names);
+    }
+
+    @Test
+    void shutdown_deliversEventsPublishedBefore() {
+        List<String> names = new CopyOnWriteArrayList<>();
+        bus.subscribe(event -> {
+            names.add(event.getName());
+            sleep(5);
+        });
+
+        for (int i = 0; i < 20; i++) {
+            bus.publish(PipelineEventType.STAGE_FINISHED, "run", "p", "stage-" + i, "build", true, 0, null);
+        }
+        bus.shutdown();
+
+        assertEquals(20, names.size());
+        assertEquals(0, bus.getSubscriberCount());
+    }
+
+    @Test
+    void constructor_withNonPowerOfTwo_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new PipelineEventBus(1000));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.hsbc.ci.engine.core.gate;
+
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.StageResult;
+import com.hsbc.ci.engine.core.model.definition.GateDefinition;
+import com.hsbc.ci.engine.core.plugin.GatePlugin;
+import com.hsbc.ci.engine.core.plugin.GateResult;
+import com.hsbc.ci.engine.core.plugin.PluginManager;
+import com.hsbc.ci.engine.core.plugin.PluginResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GateEngineTest {
+
+    @TempDir
+    Path configDir;
+
+    private final PluginManager pluginManager = new PluginManager();
+    private ConfigurationLoader configLoader;
+    private GateEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(configDir.resolve("promote.yml"), """
+            gates:
+              coverage:
+                min: 80
+            """);
+        configLoader = new ConfigurationLoader();
+        configLoader.setConfigPath(configDir.toString());
+        engine = new GateEngine(pluginManager, configLoader);
+    }
+
+    @Test
+    void evaluate_blockingFailure_shortCircuitsSlowGates() {
+        AtomicBoolean slowInterrupted = new AtomicBoolean();
+        pluginManager.registerGate(new TestGate("slow", config -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                slowInterrupted.set(true);
+            }
+            return GateResult.pass("slow");
+        }));
+        pluginManager.registerGate(new TestGate("fails", config -> GateResult.fail("coverage 40%")));
+
+        long start = System.nanoTime();
+        GateEngine.GateEvaluation evaluation = engine.evaluate("unit", gates("slow", "fails"), context("abc"));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertFalse(evaluation.isPassed());
+        assertEquals("fails", evaluation.blockedBy().type());
+        assertTrue(elapsedMillis < 5_000, "waited " + elapsedMillis + "ms");
+        waitFor(slowInterrupted);
+    }
+
+    @Test
+    void evaluate_sameCommitAndConfig_isMemoized() {
+        AtomicInteger calls = new AtomicInteger();
+        pluginManager.registerGate(new TestGate("coverage", config -> {
+            calls.incrementAndGet();
+            return GateResult.pass("ok");
+        }));
+
+        engine.evaluate("deploy-dev", gates("coverage"), context("abc"));
+        GateEngine.GateEvaluation second = engine.evaluate("deploy-uat", gates("coverage"), context("abc"));
+        engine.evaluate("deploy-dev", gates("coverage"), context("def"));
+        engine.evaluate("deploy-dev", List.of(new GateDefinition("coverage", Map.of("min", 90))), context("abc"));
+
+        assertTrue(second.outcomes().get(0).cached());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void evaluate_failedGate_isEvaluatedAgain() {
+        AtomicInteger calls = new AtomicInteger();
+        pluginManager.registerGate(new TestGate("security-scan", config -> calls.incrementAndGet() == 1
+            ? GateResult.fail("scanner unavailable") : GateResult.pass("no findings")));
+
+        GateEngine.GateEvaluation first = engine.evaluate("deploy-dev", gates("security-scan"), context("abc"));
+        GateEngine.GateEvaluation retry = engine.evaluate("deploy-dev", gates("security-scan"), context("abc"));
+
+        assertFalse(first.isPassed());
+        assertTrue(retry.isPassed());
+        assertFalse(retry.outcomes().get(0).cached());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void evaluate_withoutCommit_isNotMemoized() {
+        AtomicInteger calls = new AtomicInteger();
+        pluginManager.registerGate(new TestGate("coverage", config -> {
+            calls.incrementAndGet();
+            return GateResult.pass("ok");
+        }));
+
+        engine.evaluate("unit", gates("coverage"), context(null));
+        engine.evaluate("unit", gates("coverage"), context(null));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void evaluate_mergesPromoteDefaultsWithStageParams() {
+        Map<String, Object> seen = new HashMap<>();
+        pluginManager.registerGate(new TestGate("coverage", config -> {
+            seen.putAll(config);
+            return GateResult.pass("ok");
+        }));
+
+        engine.evaluate("unit", List.of(new GateDefinition("coverage", Map.of("failOnDecrease", true))), context("abc"));
+
+        assertEquals(80, seen.get("min"));
+        assertEquals(true, seen.get("failOnDecrease"));
+    }
+
+    @Test
+    void evaluate_promoteChangedMidRun_usesRunsConfigGeneration() throws Exception {
+        Map<String, Object> seen = new HashMap<>();
+        pluginManager.registerGate(new TestGate("coverage", config -> {
+            seen.putAll(config);
+            return GateResult.pass("ok");
+        }));
+        PipelineContext context = context(null);
+        context.setConfigState(configLoader.getState());
+
+        Files.writeString(configDir.resolve("promote.yml"), """
+            gates:
+              coverage:
+                min: 95
+            """);
+        configLoader.reload(List.of("promote.yml"));
+        engine.evaluate("unit", gates("coverage"), context);
+
+        assertEquals(80, seen.get("min"));
+        engine.evaluate("unit", gates("coverage"), context(null));
+        assertEquals(95, seen.get("min"));
+    }
+
+    @Test
+    void evaluate_nonBlockingFailure_passes() {
+        pluginManager.registerGate(new TestGate("advisory", config -> GateResult.fail("slow endpoint")));
+
+        GateEngine.GateEvaluation evaluation = engine.evaluate("perf",
+            List.of(new GateDefinition("advisory", Map.of("blocking", false))), context("abc"));
+
+        assertTrue(evaluation.isPassed());
+        assertFalse(evaluation.outcomes().get(0).result().isPassed());
+    }
+
+    @Test
+    void evaluate_blockingGateWithoutPlugin_fails() {
+        GateEngine.GateEvaluation evaluation = engine.evaluate("it", gates("service-resilience"), context("abc"));
+
+        assertFalse(evaluation.isPassed());
+        assertEquals("No gate plugin for 'service-resilience'", evaluation.blockedBy().result().getMessage());
+    }
+
+    @Test
+    void evaluate_nonBlockingGateWithoutPlugin_isSkippedWithWarning() {
+        GateEngine.GateEvaluation evaluation = engine.evaluate("it",
+            List.of(new GateDefinition("service-resilience", Map.of("blocking", false))), context("abc"));
+
+        assertTrue(evaluation.isPassed());
+        assertEquals("WARN", evaluation.outcomes().get(0).result().getSeverity());
+    }
+
+    @Test
+    void evaluate_testPassed_checksTestStagesNotGatedStage() {
+        PipelineContext context = context("abc");
+        context.addStageResult("unit", StageResult.builder().stageName("unit").success(false).build());
+        context.addStageResult("release", StageResult.builder().stageName("release").success(true).build());
+
+        GateEngine.GateEvaluation failed = engine.evaluate("release", gates("test-passed"), List.of("unit"), context);
+        GateEngine.GateEvaluation noTests = engine.evaluate("release", gates("test-passed"), List.of(), context);
+        context.addStageResult("unit", StageResult.builder().stageName("unit").success(true).build());
+        GateEngine.GateEvaluation passed = engine.evaluate("release", gates("test-passed"), List.of("unit"), context);
+
+        assertEquals("Tests failed in unit", failed.blockedBy().result().getMessage());
+        assertEquals("No test stage runs before release", noTests.blockedBy().result().getMessage());
+        assertTrue(passed.isPassed());
+    }
+
+    @Test
+    void cache_expiresAndEvictsLeastRecentlyUsed() {
+        AtomicLong now = new AtomicLong();
+        GateResultCache cache = new GateResultCache(2, 100, now::get);
+        cache.put("a", GateResult.pass("a"));
+        cache.put("b", GateResult.pass("b"));
+        cache.get("a");
+        cache.put("c", GateResult.pass("c"));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        now.set(100);
+        assertNull(cache.get("c"));
+    }
+
+    private static List<GateDefinition> gates(String... types) {
+        return Arrays.stream(types).map(type -> new GateDefinition(type, Map.of())).toList();
+    }
+
+    private static PipelineContext context(String commit) {
+        Map<String, String> variables = new HashMap<>();
+        if (commit != null) {
+            variables.put("GIT_COMMIT", commit);
+        }
+        return PipelineContext.builder().pipelineName("app").variables(variables).build();
+    }
+
+    private static void waitFor(AtomicBoolean flag) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!flag.get() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(flag.get());
+    }
+
+    static class TestGate implements GatePlugin {
+        private final String name;
+        private final Function<Map<String, Object>, GateResult> body;
+
+        TestGate(String name, Function<Map<String, Object>, GateResult> body) {
+            this.name = name;
+            this.body = body;
+        }
+
+        @Override public String getName() { return name; }
+        @Override public String getVersion() { return "1.0.0"; }
+        @Override public void init(Map<String, Object> config) {}
+        @Override public String getType() { return "gate"; }
+        @Override public PluginResult execute(Map<String, Object> context) { return PluginResult.success(name); }
+
+        @Override
+        public GateResult evaluate(Map<String, Object> config, Map<String, Object> context) {
+            return body.apply(config);
+        }
+    }
+}
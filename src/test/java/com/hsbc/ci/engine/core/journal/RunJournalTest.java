@@ -0,0 +1,146 @@
+package com.hsbc.ci.engine.core.journal;
+
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.StageResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void replay_rebuildsContextWithSuccessfulStagesOnly() {
+        RunJournal journal = new RunJournal(tempDir);
+        PipelineContext context = PipelineContext.builder()
+            .pipelineName("microservice-cd")
+            .environment("uat")
+            .variables(new HashMap<>(Map.of("GIT_COMMIT", "abc123")))
+            .build();
+
+        journal.runStarted(context);
+        journal.stageStarted(context.getRunId(), "build");
+        journal.stageFinished(context.getRunId(), "build", result("build", true));
+        journal.stageStarted(context.getRunId(), "deploy-uat");
+        journal.stageFinished(context.getRunId(), "deploy-uat", result("deploy", false));
+        journal.runFinished(context.getRunId(), false, "Stage failed: deploy-uat");
+        journal.close();
+
+        RunState state = new RunJournal(tempDir)
+            .replay(context.getRunId()).orElseThrow();
+        PipelineContext resumed = state.toContext(false);
+
+        assertTrue(state.isFinished());
+        assertFalse(state.isSuccess());
+        assertEquals(context.getRunId(), resumed.getRunId());
+        assertEquals("microservice-cd", resumed.getPipelineName());
+        assertEquals("uat", resumed.getEnvironment());
+        assertEquals("abc123", resumed.getVariable("GIT_COMMIT"));
+        assertTrue(resumed.getStageResults().containsKey("build"));
+        assertFalse(resumed.getStageResults().containsKey("deploy-uat"));
+    }
+
+    @Test
+    void replay_withTornTailRecord_keepsEarlierRecords() throws Exception {
+        RunJournal journal = new RunJournal(tempDir);
+        PipelineContext context = PipelineContext.builder().pipelineName("p").build();
+        journal.runStarted(context);
+        journal.stageFinished(context.getRunId(), "build", result("build", true));
+        journal.close();
+
+        try (FileChannel channel = FileChannel.open(journal.segment(context.getRunId()), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        RunState state = new RunJournal(tempDir).replay(context.getRunId()).orElseThrow();
+        assertEquals("p", state.getPipelineName());
+        assertTrue(state.getFinishedStages().isEmpty());
+    }
+
+    @Test
+    void replayAll_withManyRuns_indexesEveryRun() {
+        RunJournal journal = new RunJournal(tempDir, 200);
+        for (int i = 0; i < 200; i++) {
+            PipelineContext context = PipelineContext.builder().pipelineName("p" + i).build();
+            journal.runStarted(context);
+            journal.stageFinished(context.getRunId(), "build", result("build", true));
+            journal.runFinished(context.getRunId(), true, null);
+        }
+        journal.close();
+
+        Map<String, RunState> runs = new RunJournal(tempDir, 200).replayAll();
+
+        assertEquals(200, runs.size());
+        assertTrue(runs.values().stream().allMatch(RunState::isSuccess));
+    }
+
+    @Test
+    void runStarted_beyondKeep_deletesOldestSegments() throws Exception {
+        RunJournal journal = new RunJournal(tempDir, 3);
+        List<String> runIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            PipelineContext context = PipelineContext.builder().pipelineName("p" + i).build();
+            journal.runStarted(context);
+            journal.runFinished(context.getRunId(), true, null);
+            Files.setLastModifiedTime(journal.segment(context.getRunId()), FileTime.fromMillis(1_000L * i));
+            runIds.add(context.getRunId());
+        }
+
+        assertEquals(Set.copyOf(runIds.subList(2, 5)), journal.replayAll().keySet());
+        assertTrue(journal.replay(runIds.get(1)).isEmpty());
+        assertTrue(journal.replay(runIds.get(4)).orElseThrow().isSuccess());
+    }
+
+    @Test
+    void append_unwritableJournal_isDisabledForThatRun() throws Exception {
+        Path notADirectory = Files.writeString(tempDir.resolve("journal"), "");
+        RunJournal journal = new RunJournal(notADirectory);
+        PipelineContext context = PipelineContext.builder().pipelineName("p").build();
+
+        journal.runStarted(context);
+        journal.stageFinished(context.getRunId(), "build", result("build", true));
+        journal.runFinished(context.getRunId(), true, null);
+
+        assertTrue(journal.replay(context.getRunId()).isEmpty());
+    }
+
+    @Test
+    void replay_invalidRunId_findsNothing() {
+        assertTrue(new RunJournal(tempDir).replay("../runs").isEmpty());
+    }
+
+    @Test
+    void disabledJournal_ignoresEventsAndReplaysNothing() {
+        RunJournal journal = new RunJournal();
+        PipelineContext context = PipelineContext.builder().pipelineName("p").build();
+
+        journal.runStarted(context);
+
+        assertFalse(journal.isEnabled());
+        assertTrue(journal.replay(context.getRunId()).isEmpty());
+    }
+
+    private static StageResult result(String stageType, boolean success) {
+        return StageResult.builder()
+            .stageName(stageType)
+            .success(success)
+            .output(success ? "ok" : "failed")
+            .durationMs(42)
+            .metadata(Map.of("exitCode", success ? "0" : "1"))
+            .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.hsbc.ci.engine.core.metrics;
+
+import com.hsbc.ci.engine.core.cache.StageCache;
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.event.PipelineEventBus;
+import com.hsbc.ci.engine.core.event.PipelineEventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EngineMetricsTest {
+
+    @Test
+    void toPrometheus_rendersSummaryWithQuantilesAndMax() {
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.record(EngineMetrics.STAGE_DURATION, "containerize", 40_000_000_000L);
+
+        String text = metrics.toPrometheus();
+
+        assertTrue(text.contains("# TYPE ci_engine_stage_duration_seconds summary"));
+        assertTrue(text.contains("ci_engine_stage_duration_seconds{stage=\"containerize\",quantile=\"0.95\"}"));
+        assertTrue(text.contains("ci_engine_stage_duration_seconds_count{stage=\"containerize\"} 1"));
+        assertTrue(text.contains("ci_engine_stage_duration_seconds_max{stage=\"containerize\"} 40.0"));
+    }
+
+    @Test
+    void toPrometheus_withStageCache_rendersCounters(@TempDir Path tempDir) {
+        StageCache cache = new StageCache(tempDir, 1024 * 1024, tempDir);
+        cache.restore("missing", "build");
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.setStageCache(cache);
+
+        String text = metrics.toPrometheus();
+
+        assertTrue(text.contains("# TYPE ci_engine_stage_cache_misses_total counter"), text);
+        assertTrue(text.contains("ci_engine_stage_cache_misses_total 1"), text);
+        assertTrue(text.contains("ci_engine_stage_cache_hits_total 0"), text);
+    }
+
+    @Test
+    void flush_thenNewInstance_mergesEarlierRuns(@TempDir Path tempDir) throws Exception {
+        EngineMetrics first = new EngineMetrics(tempDir);
+        first.record(EngineMetrics.STAGE_DURATION, "build", 1_000_000);
+        first.flush();
+
+        EngineMetrics second = new EngineMetrics(tempDir);
+        second.record(EngineMetrics.STAGE_DURATION, "build", 3_000_000);
+        second.flush();
+
+        assertEquals(2, new EngineMetrics(tempDir).histogram(EngineMetrics.STAGE_DURATION, "build").getCount());
+        assertTrue(Files.readString(tempDir.resolve(EngineMetrics.PROMETHEUS_FILE))
+            .contains("ci_engine_stage_duration_seconds_count{stage=\"build\"} 2"));
+    }
+
+    @Test
+    void events_fromBus_recordStageAndPluginTimings(@TempDir Path tempDir) throws Exception {
+        Files.writeString(tempDir.resolve("ci-engine.yml"), "ci-engine:\n  metrics:\n    port: 0\n");
+        ConfigurationLoader configLoader = new ConfigurationLoader();
+        configLoader.setConfigPath(tempDir.toString());
+        PipelineEventBus bus = new PipelineEventBus();
+        EngineMetrics metrics = new EngineMetrics(configLoader, bus);
+
+        bus.publish(PipelineEventType.STAGE_FINISHED, "run", "p", "compile", "build", true, 5_000_000, null);
+        bus.publish(PipelineEventType.PLUGIN_FINISHED, "run", "p", "security-scan", null, true, 1_000, null);
+        bus.drain();
+        bus.shutdown();
+
+        assertEquals(1, metrics.histogram(EngineMetrics.STAGE_DURATION, "build").getCount());
+        assertEquals(1, metrics.histogram(EngineMetrics.PLUGIN_DURATION, "security-scan").getCount());
+        assertTrue(metrics.snapshot().get(EngineMetrics.CONFIG_LOAD_DURATION).containsKey("ci-engine.yml"));
+    }
+
+    @Test
+    void endpoint_servesPrometheusText() throws Exception {
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.record(EngineMetrics.PROCESS_SPAWN_DURATION, "mvn", 2_000_000);
+
+        try (MetricsEndpoint endpoint = MetricsEndpoint.start(metrics, 0)) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + endpoint.getPort() + "/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("ci_engine_process_spawn_duration_seconds_count{command=\"mvn\"} 1"));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.hsbc.ci.engine.core.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentile_withUniformValues_isWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long ms = 1; ms <= 1000; ms++) {
+            histogram.record(ms * 1_000_000);
+        }
+
+        assertWithin(500_000_000, histogram.percentile(0.5));
+        assertWithin(950_000_000, histogram.percentile(0.95));
+        assertWithin(990_000_000, histogram.percentile(0.99));
+        assertEquals(1_000_000_000, histogram.getMax());
+        assertEquals(1000, histogram.getCount());
+    }
+
+    @Test
+    void merge_combinesCountsAndMax() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            fast.record(40_000_000_000L);
+        }
+        for (int i = 0; i < 10; i++) {
+            slow.record(180_000_000_000L);
+        }
+
+        fast.merge(slow);
+
+        assertEquals(100, fast.getCount());
+        assertWithin(40_000_000_000L, fast.percentile(0.5));
+        assertWithin(180_000_000_000L, fast.percentile(0.95));
+        assertEquals(180_000_000_000L, fast.getMax());
+    }
+
+    @Test
+    void bucketOf_upperBound_coversValue() {
+        for (long value : new long[] {0, 1, 15, 16, 17, 1023, 1024, 123_456_789, Long.MAX_VALUE / 4}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket < LatencyHistogram.BUCKETS);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= value);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < value);
+        }
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.07,
+            "expected ~" + expected + " but was " + actual);
+    }
+}
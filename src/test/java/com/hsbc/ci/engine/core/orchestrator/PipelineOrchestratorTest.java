@@ -1,14 +1,34 @@
 package com.hsbc.ci.engine.core.orchestrator;
 
 import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.event.PipelineEventBus;
+import com.hsbc.ci.engine.core.event.PipelineEventType;
+import com.hsbc.ci.engine.core.journal.RunJournal;
+import com.hsbc.ci.engine.core.metrics.EngineMetrics;
 import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.PipelineResult;
+import com.hsbc.ci.engine.core.model.StageResult;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import com.hsbc.ci.engine.core.plugin.GatePlugin;
+import com.hsbc.ci.engine.core.plugin.GateResult;
 import com.hsbc.ci.engine.core.plugin.PluginManager;
+import com.hsbc.ci.engine.core.plugin.PluginResult;
+import com.hsbc.ci.engine.core.plugin.StagePlugin;
 import com.hsbc.ci.engine.core.stages.StageExecutor;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -39,4 +59,283 @@ class PipelineOrchestratorTest {
         
         assertNotNull(orchestrator);
     }
+
+    @Test
+    void execute_withParallelStages_runsIndependentStagesConcurrently(@TempDir Path tempDir) throws Exception {
+        ConfigurationLoader configLoader = parallelConfig(tempDir);
+        RecordingStageExecutor stageExecutor = new RecordingStageExecutor(null);
+
+        PipelineOrchestrator orchestrator =
+            new PipelineOrchestrator(configLoader, stageExecutor, new PluginManager());
+        PipelineContext context = PipelineContext.builder().pipelineName("fan-out").build();
+
+        PipelineResult result = orchestrator.execute(context);
+
+        assertTrue(result.isSuccess());
+        assertEquals(4, context.getStageResults().size());
+        assertEquals(2, stageExecutor.maxConcurrent.get());
+    }
+
+    @Test
+    void execute_withParallelStages_stopsOnFirstFailure(@TempDir Path tempDir) throws Exception {
+        ConfigurationLoader configLoader = parallelConfig(tempDir);
+        RecordingStageExecutor stageExecutor = new RecordingStageExecutor("left");
+
+        PipelineOrchestrator orchestrator =
+            new PipelineOrchestrator(configLoader, stageExecutor, new PluginManager());
+        PipelineContext context = PipelineContext.builder().pipelineName("fan-out").build();
+
+        PipelineResult result = orchestrator.execute(context);
+
+        assertFalse(result.isSuccess());
+        assertEquals("Stage failed: left", result.getError());
+        assertNull(context.getStageResults().get("join"));
+    }
+
+    @Test
+    void execute_resumedFromJournal_skipsStagesThatAlreadySucceeded(@TempDir Path tempDir) throws Exception {
+        ConfigurationLoader configLoader = parallelConfig(tempDir);
+        RunJournal journal = new RunJournal(tempDir.resolve("journal"));
+        PipelineContext first = PipelineContext.builder().pipelineName("fan-out").build();
+
+        new PipelineOrchestrator(configLoader, new RecordingStageExecutor("left"), new PluginManager(), journal)
+            .execute(first);
+
+        RecordingStageExecutor retry = new RecordingStageExecutor(null);
+        PipelineContext resumed = journal.replay(first.getRunId()).orElseThrow().toContext(false);
+        PipelineResult result = new PipelineOrchestrator(configLoader, retry, new PluginManager(), journal)
+            .execute(resumed);
+
+        assertTrue(result.isSuccess());
+        assertFalse(retry.executed.contains("build"));
+        assertTrue(retry.executed.contains("left"));
+        assertTrue(retry.executed.contains("join"));
+        assertTrue(journal.replay(first.getRunId()).orElseThrow().isSuccess());
+    }
+
+    @Test
+    void cancel_withActiveRun_stopsRemainingStages(@TempDir Path tempDir) throws Exception {
+        ConfigurationLoader configLoader = parallelConfig(tempDir);
+        RecordingStageExecutor stageExecutor = new RecordingStageExecutor(null);
+        PipelineOrchestrator orchestrator =
+            new PipelineOrchestrator(configLoader, stageExecutor, new PluginManager());
+        PipelineContext context = PipelineContext.builder().pipelineName("fan-out").build();
+
+        PipelineResult[] result = new PipelineResult[1];
+        Thread run = Thread.ofVirtual().start(() -> result[0] = orchestrator.execute(context));
+        while (stageExecutor.executed.isEmpty()) {
+            Thread.sleep(5);
+        }
+
+        assertTrue(orchestrator.cancel(context.getRunId()));
+        run.join();
+
+        assertEquals("Pipeline cancelled", result[0].getError());
+        assertFalse(stageExecutor.executed.contains("join"));
+        assertFalse(orchestrator.isActive(context.getRunId()));
+        assertFalse(orchestrator.cancel(context.getRunId()));
+    }
+
+    @Test
+    void execute_withBlockingGateFailure_failsStage(@TempDir Path tempDir) throws Exception {
+        ConfigurationLoader configLoader = parallelConfig(tempDir);
+        Files.writeString(tempDir.resolve("pipelines/gated.yml"), """
+            name: gated
+            stages:
+              - name: unit
+                type: test
+                gates:
+                  - type: test-passed
+                  - type: coverage
+                    min: 90
+              - name: release
+                type: deploy
+                target: kubernetes
+            """);
+        PluginManager pluginManager = new PluginManager();
+        pluginManager.registerGate(new FailingGate("coverage", "coverage 72% < 90%"));
+        RecordingStageExecutor stageExecutor = new RecordingStageExecutor(null);
+        PipelineContext context = PipelineContext.builder().pipelineName("gated").build();
+
+        PipelineResult result = new PipelineOrchestrator(configLoader, stageExecutor, pluginManager).execute(context);
+
+        assertEquals("Stage failed: unit", result.getError());
+        assertEquals("Gate coverage failed: coverage 72% < 90%", context.getStageResults().get("unit").getOutput());
+        assertFalse(stageExecutor.executed.contains("release"));
+    }
+
+    @Test
+    void execute_testPassedGateWithoutTestStage_failsStage(@TempDir Path tempDir) throws Exception {
+        ConfigurationLoader configLoader = parallelConfig(tempDir);
+        Files.writeString(tempDir.resolve("pipelines/untested.yml"), """
+            name: untested
+            stages:
+              - name: compile
+                type: build
+              - name: release
+                type: deploy
+                target: kubernetes
+                gates:
+                  - type: test-passed
+            """);
+        RecordingStageExecutor stageExecutor = new RecordingStageExecutor(null);
+        PipelineContext context = PipelineContext.builder().pipelineName("untested").build();
+
+        PipelineResult result = new PipelineOrchestrator(configLoader, stageExecutor, new PluginManager())
+            .execute(context);
+
+        assertEquals("Stage failed: release", result.getError());
+        assertEquals("Gate test-passed failed: No test stage runs before release",
+            context.getStageResults().get("release").getOutput());
+    }
+
+    @Test
+    void execute_runsOnlyPluginsDeclaredForEachHook(@TempDir Path tempDir) throws Exception {
+        ConfigurationLoader configLoader = parallelConfig(tempDir);
+        PluginManager pluginManager = new PluginManager();
+        RecordingPlugin scan = new RecordingPlugin("scan");
+        RecordingPlugin notify = new RecordingPlugin("notify");
+        RecordingPlugin packager = new RecordingPlugin("packager");
+        pluginManager.registerStage(scan, "pre-stage");
+        pluginManager.registerStage(notify, "pre-run", "post-run");
+        pluginManager.registerStage(packager);
+        pluginManager.getStagePlugin("packager");
+        PipelineContext context = PipelineContext.builder().pipelineName("fan-out").build();
+
+        PipelineResult result = new PipelineOrchestrator(configLoader, new RecordingStageExecutor(null), pluginManager)
+            .execute(context);
+
+        assertTrue(result.isSuccess());
+        assertEquals(List.of("pre-stage", "pre-stage", "pre-stage", "pre-stage"), scan.hooks);
+        assertEquals(List.of("pre-run", "post-run"), notify.hooks);
+        assertTrue(packager.hooks.isEmpty());
+    }
+
+    @Test
+    void execute_returnsAfterListenersHandledRunFinished(@TempDir Path tempDir) throws Exception {
+        ConfigurationLoader configLoader = parallelConfig(tempDir);
+        Files.writeString(tempDir.resolve("ci-engine.yml"), "ci-engine:\n  metrics:\n    directory: "
+            + tempDir.resolve("metrics") + "\n");
+        configLoader.setConfigPath(tempDir.toString());
+        PipelineEventBus eventBus = new PipelineEventBus();
+        new EngineMetrics(configLoader, eventBus);
+        List<PipelineEventType> seen = Collections.synchronizedList(new ArrayList<>());
+        eventBus.subscribe(event -> {
+            if (event.getType() == PipelineEventType.RUN_FINISHED) {
+                sleep(200);
+            }
+            seen.add(event.getType());
+        });
+        PipelineContext context = PipelineContext.builder().pipelineName("fan-out").build();
+
+        PipelineResult result = new PipelineOrchestrator(configLoader, new RecordingStageExecutor(null),
+            new PluginManager(), new RunJournal(tempDir.resolve("journal")), eventBus).execute(context);
+
+        assertTrue(result.isSuccess());
+        assertTrue(seen.contains(PipelineEventType.RUN_FINISHED));
+        assertTrue(Files.exists(tempDir.resolve("metrics").resolve("ci-engine.prom")));
+        eventBus.shutdown();
+    }
+
+    private ConfigurationLoader parallelConfig(Path tempDir) throws Exception {
+        Files.createDirectories(tempDir.resolve("pipelines"));
+        Files.writeString(tempDir.resolve("ci-engine.yml"),
+            "ci-engine:\n  global:\n    parallelStages: true\n    maxParallelStages: 4\n");
+        Files.writeString(tempDir.resolve("pipelines/fan-out.yml"), """
+            name: fan-out
+            stages:
+              - name: build
+                type: build
+              - name: left
+                type: test
+                depends-on: build
+              - name: right
+                type: test
+                depends-on: build
+              - name: join
+                type: deploy
+                target: kubernetes
+            """);
+        ConfigurationLoader configLoader = new ConfigurationLoader();
+        configLoader.setConfigPath(tempDir.toString());
+        return configLoader;
+    }
+
+    static class RecordingStageExecutor extends StageExecutor {
+        private final String failingStage;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final Set<String> executed = ConcurrentHashMap.newKeySet();
+
+        RecordingStageExecutor(String failingStage) {
+            this.failingStage = failingStage;
+        }
+
+        @Override
+        public StageResult execute(StageDefinition stage, PipelineContext context) {
+            String name = stage.name();
+            executed.add(name);
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return StageResult.builder()
+                .stageName(name)
+                .success(!name.equals(failingStage))
+                .build();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static class RecordingPlugin implements StagePlugin {
+        private final String name;
+        private final List<String> hooks = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingPlugin(String name) {
+            this.name = name;
+        }
+
+        @Override public String getName() { return name; }
+        @Override public String getVersion() { return "1.0.0"; }
+        @Override public void init(Map<String, Object> config) {}
+        @Override public String getType() { return "stage"; }
+        @Override public PluginResult execute(Map<String, Object> context) { return PluginResult.success(name); }
+
+        @Override
+        public void execute(Map<String, Object> config, Map<String, Object> context) {
+            hooks.add((String) context.get("hook"));
+        }
+    }
+
+    static class FailingGate implements GatePlugin {
+        private final String name;
+        private final String message;
+
+        FailingGate(String name, String message) {
+            this.name = name;
+            this.message = message;
+        }
+
+        @Override public String getName() { return name; }
+        @Override public String getVersion() { return "1.0.0"; }
+        @Override public void init(Map<String, Object> config) {}
+        @Override public String getType() { return "gate"; }
+        @Override public PluginResult execute(Map<String, Object> context) { return PluginResult.success(name); }
+
+        @Override
+        public GateResult evaluate(Map<String, Object> config, Map<String, Object> context) {
+            return GateResult.fail(message);
+        }
+    }
 }
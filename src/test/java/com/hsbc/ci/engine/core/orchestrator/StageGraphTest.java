@@ -0,0 +1,55 @@
+package com.hsbc.ci.engine.core.orchestrator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageGraphTest {
+
+    @Test
+    void build_withoutDependsOn_chainsStagesInOrder() {
+        StageGraph graph = StageGraph.build(List.of(
+            stage("build"), stage("test"), stage("containerize")));
+
+        assertEquals(Set.of(), graph.getDependencies("build"));
+        assertEquals(Set.of("build"), graph.getDependencies("test"));
+        assertEquals(Set.of("test"), graph.getDependencies("containerize"));
+        assertEquals(3, graph.levels().size());
+    }
+
+    @Test
+    void build_withConfigDependsOn_runsSiblingsInSameLevel() {
+        StageGraph graph = StageGraph.build(List.of(
+            stage("build"),
+            stage("containerize"),
+            Map.of("name", "class-tests", "config", Map.of("depends-on", "containerize")),
+            Map.of("name", "service-tests", "config", Map.of("depends-on", "containerize")),
+            stage("deploy")));
+
+        assertEquals(Set.of("containerize"), graph.getDependencies("service-tests"));
+        assertEquals(Set.of("class-tests", "service-tests"), graph.getDependencies("deploy"));
+        assertEquals(List.of("class-tests", "service-tests"), graph.levels().get(2));
+    }
+
+    @Test
+    void build_withUnknownDependency_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> StageGraph.build(List.of(
+            stage("build"),
+            Map.of("name", "test", "depends-on", "missing"))));
+    }
+
+    @Test
+    void build_withCycle_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> StageGraph.build(List.of(
+            Map.of("name", "a", "depends-on", "b"),
+            Map.of("name", "b", "depends-on", List.of("a")))));
+    }
+
+    private static Map<String, Object> stage(String name) {
+        return Map.of("name", name, "type", "test");
+    }
+}
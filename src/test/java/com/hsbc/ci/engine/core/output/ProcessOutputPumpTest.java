@@ -0,0 +1,84 @@
+package com.hsbc.ci.engine.core.output;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessOutputPumpTest {
+
+    @Test
+    void ringBuffer_afterOverflow_keepsOnlyLastLines() {
+        LogRingBuffer buffer = new LogRingBuffer(3);
+        for (int i = 1; i <= 10; i++) {
+            buffer.append("line " + i);
+        }
+
+        assertEquals(List.of("line 8", "line 9", "line 10"), buffer.tail(5));
+        assertEquals(List.of("line 10"), buffer.tail(1));
+        assertEquals(10, buffer.getLinesWritten());
+    }
+
+    @Test
+    void pump_withChattyProcess_boundsTailAndWritesFullLog(@TempDir Path tempDir) throws Exception {
+        ProcessOutputPump pump = new ProcessOutputPump(tempDir, 5, false);
+        List<String> received = new CopyOnWriteArrayList<>();
+        pump.subscribe((runId, stage, stderr, line) -> received.add((stderr ? "err:" : "out:") + line));
+
+        StageOutput output = pump.open("run1", "build");
+        Process process = new ProcessBuilder("sh", "-c", "for i in $(seq 1 1000); do echo out $i; done; echo oops >&2")
+            .start();
+        ProcessOutputPump.pump(process, output).await();
+        process.waitFor();
+        output.close();
+
+        assertEquals(1001, output.getLinesWritten());
+        assertEquals(5, output.tail().split("\n").length);
+        assertTrue(received.contains("err:oops"));
+        assertTrue(received.contains("out:out 1000"));
+        Path logFile = tempDir.resolve("run1").resolve("build.log");
+        assertEquals(logFile, output.getLogFile());
+        assertEquals(1001, Files.readAllLines(logFile).size());
+    }
+
+    @Test
+    void line_afterClose_isDroppedWithoutReopeningLog(@TempDir Path tempDir) throws Exception {
+        StageOutput output = new ProcessOutputPump(tempDir, 5, false).open("run1", "build");
+        output.line(false, "compiling");
+        output.close();
+
+        output.line(false, "late line from a pump that outlived the stage");
+
+        assertEquals(1, output.getLinesWritten());
+        assertEquals(1, output.getLinesDropped());
+        assertEquals(List.of("compiling"), Files.readAllLines(output.getLogFile()));
+    }
+
+    @Test
+    void pump_withUnterminatedLongLine_splitsAtMaxLength() throws Exception {
+        StageOutput output = new ProcessOutputPump(null, 10, false).open("run1", "test");
+        int length = ProcessOutputPump.MAX_LINE_LENGTH * 2 + 10;
+        Process process = new ProcessBuilder("sh", "-c", "head -c " + length + " /dev/zero | tr '\\0' x").start();
+
+        ProcessOutputPump.pump(process, output).await();
+
+        assertEquals(3, output.getLinesWritten());
+        assertEquals(10, output.tail(1).length());
+    }
+
+    @Test
+    void capture_bindsOutputOnlyForTheBody() throws Exception {
+        ProcessOutputPump pump = new ProcessOutputPump();
+        StageOutput output = pump.open("run1", "deploy");
+
+        StageOutput bound = pump.capture(output, StageOutput::current);
+
+        assertSame(output, bound);
+        assertNull(StageOutput.current());
+    }
+}
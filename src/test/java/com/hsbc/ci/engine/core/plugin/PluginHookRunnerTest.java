@@ -0,0 +1,151 @@
+package com.hsbc.ci.engine.core.plugin;
+
+import com.hsbc.ci.engine.core.event.PipelineEventBus;
+import com.hsbc.ci.engine.core.event.PipelineEventType;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginHookRunnerTest {
+
+    private final PluginManager manager = new PluginManager();
+    private final PipelineEventBus bus = new PipelineEventBus();
+    private final PluginHookRunner runner = new PluginHookRunner(manager, bus);
+    private final PipelineContext context = PipelineContext.builder()
+        .pipelineName("app")
+        .variables(new HashMap<>(Map.of("GIT_COMMIT", "abc123")))
+        .build();
+
+    @Test
+    void run_slowPlugin_isCutOffAtBudget() {
+        manager.setDefaultBudget(Duration.ofMillis(200));
+        manager.registerStage(new HookPlugin("fast", (config, view) -> { }));
+        manager.registerStage(new HookPlugin("slow", (config, view) -> sleep(10_000)));
+
+        long start = System.nanoTime();
+        List<PluginHookRunner.HookResult> results =
+            runner.run(hooks("pre-stage", "fast", "slow"), "pre-stage", "build", context);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 5_000, "hook waited " + elapsedMillis + "ms");
+        assertTrue(results.get(0).success());
+        assertFalse(results.get(1).success());
+        assertTrue(results.get(1).timedOut());
+    }
+
+    @Test
+    void run_pluginsRunConcurrently() {
+        manager.setDefaultBudget(Duration.ofSeconds(10));
+        for (int i = 0; i < 5; i++) {
+            manager.registerStage(new HookPlugin("p" + i, (config, view) -> sleep(300)));
+        }
+
+        long start = System.nanoTime();
+        List<PluginHookRunner.HookResult> results =
+            runner.run(hooks("pre-run", "p0", "p1", "p2", "p3", "p4"), "pre-run", null, context);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(5, results.stream().filter(PluginHookRunner.HookResult::success).count());
+        assertTrue(elapsedMillis < 1_200, "hook waited " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void run_contextView_isReadOnly() {
+        Object[] seen = new Object[2];
+        manager.registerStage(new HookPlugin("reader", (config, view) -> {
+            seen[0] = view.get("stage");
+            seen[1] = ((Map<?, ?>) view.get("variables")).get("GIT_COMMIT");
+        }));
+        manager.registerStage(new HookPlugin("writer", (config, view) -> {
+            @SuppressWarnings("unchecked")
+            Map<String, String> variables = (Map<String, String>) view.get("variables");
+            variables.put("GIT_COMMIT", "tampered");
+        }));
+
+        List<PluginHookRunner.HookResult> results =
+            runner.run(hooks("pre-stage", "reader", "writer"), "pre-stage", "test", context);
+
+        assertEquals("test", seen[0]);
+        assertEquals("abc123", seen[1]);
+        assertFalse(results.get(1).success());
+        assertEquals("abc123", context.getVariable("GIT_COMMIT"));
+    }
+
+    @Test
+    void run_publishesPerPluginTiming() {
+        Map<String, Long> durations = new ConcurrentHashMap<>();
+        bus.subscribe(event -> {
+            if (event.getType() == PipelineEventType.PLUGIN_FINISHED) {
+                durations.put(event.getName(), event.getDurationNanos());
+            }
+        });
+        manager.registerStage(new HookPlugin("timed", (config, view) -> sleep(20)));
+
+        runner.run(hooks("pre-run", "timed"), "pre-run", null, context);
+        bus.drain();
+        bus.shutdown();
+
+        assertTrue(durations.get("timed") >= 20_000_000L);
+    }
+
+    @Test
+    void run_fastPluginAwaitedAfterSlowOne_reportsItsOwnDuration() {
+        manager.setDefaultBudget(Duration.ofSeconds(10));
+        manager.registerStage(new HookPlugin("slow", (config, view) -> sleep(400)));
+        manager.registerStage(new HookPlugin("fast", (config, view) -> sleep(10)));
+
+        List<PluginHookRunner.HookResult> results =
+            runner.run(hooks("pre-stage", "slow", "fast"), "pre-stage", "build", context);
+
+        assertTrue(results.get(0).durationNanos() >= 400_000_000L);
+        long fastMillis = results.get(1).durationNanos() / 1_000_000;
+        assertTrue(fastMillis >= 10 && fastMillis < 200, "fast plugin reported " + fastMillis + "ms");
+    }
+
+    @Test
+    void run_pluginOfTheRunNotFound_isReportedAsFailed() {
+        manager.registerStage(new HookPlugin("present", (config, view) -> { }));
+
+        List<PluginHookRunner.HookResult> results =
+            runner.run(hooks("post-run", "present", "removed"), "post-run", null, context);
+
+        assertEquals(List.of("present", "removed"), results.stream().map(PluginHookRunner.HookResult::plugin).toList());
+        assertFalse(results.get(1).success());
+        assertEquals("plugin not found", results.get(1).error());
+        assertTrue(runner.run(hooks("post-run", "present"), "pre-stage", "build", context).isEmpty());
+    }
+
+    private static PluginHookRunner.Hooks hooks(String hook, String... plugins) {
+        return new PluginHookRunner.Hooks(Map.of(hook, List.of(plugins)));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static class HookPlugin extends PluginManagerTest.TestStagePlugin {
+        private final BiConsumer<Map<String, Object>, Map<String, Object>> body;
+
+        HookPlugin(String name, BiConsumer<Map<String, Object>, Map<String, Object>> body) {
+            super(name);
+            this.body = body;
+        }
+
+        @Override
+        public void execute(Map<String, Object> config, Map<String, Object> context) {
+            body.accept(config, context);
+        }
+    }
+}
@@ -1,15 +1,28 @@
 package com.hsbc.ci.engine.core.plugin;
 
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class PluginManagerTest {
 
+    @TempDir
+    Path workDir;
+
     @Test
     void registerStage_addsPluginToList() {
         PluginManager manager = new PluginManager();
@@ -55,6 +68,142 @@ class PluginManagerTest {
         assertTrue(all.get("notifiers").contains("slack-notify"));
     }
 
+    @Test
+    void init_configuredPlugin_instantiatesOnFirstLookup() throws Exception {
+        CountingStagePlugin.INSTANCES.set(0);
+        PluginManager manager = configuredManager("counting", CountingStagePlugin.class);
+
+        assertTrue(manager.listStagePlugins().contains("counting"));
+        assertTrue(manager.loadedStagePlugins().isEmpty());
+        assertEquals(0, CountingStagePlugin.INSTANCES.get());
+
+        StagePlugin plugin = manager.getStagePlugin("counting");
+
+        assertEquals("ok", ((CountingStagePlugin) plugin).config.get("mode"));
+        assertSame(plugin, manager.getStagePlugin("counting"));
+        assertEquals(1, CountingStagePlugin.INSTANCES.get());
+        assertNull(manager.getGatePlugin("counting"));
+    }
+
+    @Test
+    void preload_referencedPlugins_initializesEachOnce() throws Exception {
+        CountingStagePlugin.INSTANCES.set(0);
+        PluginManager manager = configuredManager("counting", CountingStagePlugin.class);
+
+        manager.preload(List.of("counting", "counting", "unknown"));
+
+        assertEquals(List.of("counting"), List.copyOf(manager.loadedStagePlugins()));
+        assertEquals(1, CountingStagePlugin.INSTANCES.get());
+    }
+
+    @Test
+    void getStagePlugin_fromJar_usesIsolatedClassLoader() throws Exception {
+        Path pluginDir = Files.createDirectories(workDir.resolve("plugins"));
+        writeJar(pluginDir.resolve("isolated.jar"), IsolatedStagePlugin.class);
+        PluginManager manager = configuredManager("isolated", IsolatedStagePlugin.class);
+
+        StagePlugin plugin = manager.getStagePlugin("isolated");
+
+        assertNotNull(plugin);
+        assertTrue(plugin.getClass().getClassLoader() instanceof PluginClassLoader);
+        assertNotSame(IsolatedStagePlugin.class, plugin.getClass());
+        manager.shutdown();
+    }
+
+    @Test
+    void resolve_unchangedPluginDirectory_usesIndexWithoutScanning() throws Exception {
+        Path pluginDir = Files.createDirectories(workDir.resolve("plugins"));
+        writeJar(pluginDir.resolve("isolated.jar"), IsolatedStagePlugin.class);
+        Path indexFile = workDir.resolve("index").resolve(PluginIndex.FILE_NAME);
+        List<String> classes = List.of(IsolatedStagePlugin.class.getName(), CountingStagePlugin.class.getName());
+
+        PluginIndex first = new PluginIndex(pluginDir, indexFile, getClass().getClassLoader());
+        Map<String, PluginIndex.Location> scanned = first.resolve(classes);
+        PluginIndex second = new PluginIndex(pluginDir, indexFile, getClass().getClassLoader());
+        Map<String, PluginIndex.Location> indexed = second.resolve(classes);
+
+        assertEquals(1, first.scans());
+        assertEquals(0, second.scans());
+        assertEquals(scanned, indexed);
+        assertEquals(pluginDir.resolve("isolated.jar"), indexed.get(IsolatedStagePlugin.class.getName()).jar());
+        assertNull(indexed.get(CountingStagePlugin.class.getName()).jar());
+    }
+
+    @Test
+    void hookPlugins_listsDeclaredHooksWithoutLoading() throws Exception {
+        Path configDir = Files.createDirectories(workDir.resolve("config"));
+        Files.writeString(configDir.resolve("ci-engine.yml"), "ci-engine:\n  plugins:\n"
+            + "    directory: " + workDir.resolve("plugins") + "\n"
+            + "    index: " + workDir.resolve("index") + "\n");
+        Files.writeString(configDir.resolve("plugins.yml"), "plugins:\n"
+            + "  scan:\n    class: " + CountingStagePlugin.class.getName() + "\n    hooks: [pre-stage, post-run, nightly]\n"
+            + "  packager:\n    class: " + IsolatedStagePlugin.class.getName() + "\n");
+        ConfigurationLoader configLoader = new ConfigurationLoader();
+        configLoader.setConfigPath(configDir.toString());
+        PluginManager manager = new PluginManager(configLoader);
+        manager.init();
+        manager.getStagePlugin("packager");
+
+        Map<String, List<String>> hooks = manager.hookPlugins();
+
+        assertEquals(List.of(), hooks.get("pre-run"));
+        assertEquals(List.of("scan"), hooks.get("pre-stage"));
+        assertEquals(List.of("scan"), hooks.get("post-run"));
+        assertEquals(List.of("packager"), List.copyOf(manager.loadedStagePlugins()));
+        assertThrows(IllegalArgumentException.class,
+            () -> manager.registerStage(new TestStagePlugin("x"), "nightly"));
+        manager.shutdown();
+    }
+
+    private PluginManager configuredManager(String name, Class<?> pluginClass) throws Exception {
+        Path configDir = Files.createDirectories(workDir.resolve("config"));
+        Files.writeString(configDir.resolve("ci-engine.yml"), "ci-engine:\n  plugins:\n"
+            + "    directory: " + workDir.resolve("plugins") + "\n"
+            + "    index: " + workDir.resolve("index") + "\n");
+        Files.writeString(configDir.resolve("plugins.yml"), "plugins:\n  " + name + ":\n"
+            + "    class: " + pluginClass.getName() + "\n    enabled: true\n    config:\n      mode: ok\n");
+        ConfigurationLoader configLoader = new ConfigurationLoader();
+        configLoader.setConfigPath(configDir.toString());
+        PluginManager manager = new PluginManager(configLoader);
+        manager.init();
+        return manager;
+    }
+
+    private static void writeJar(Path jar, Class<?> pluginClass) throws Exception {
+        String entry = pluginClass.getName().replace('.', '/') + ".class";
+        try (OutputStream file = Files.newOutputStream(jar);
+             JarOutputStream out = new JarOutputStream(file);
+             InputStream in = pluginClass.getClassLoader().getResourceAsStream(entry)) {
+            out.putNextEntry(new JarEntry(entry));
+            in.transferTo(out);
+            out.closeEntry();
+        }
+    }
+
+    public static class CountingStagePlugin extends TestStagePlugin {
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+        Map<String, Object> config;
+
+        public CountingStagePlugin() {
+            super("counting");
+            INSTANCES.incrementAndGet();
+        }
+
+        @Override
+        public void init(Map<String, Object> config) {
+            this.config = config;
+        }
+    }
+
+    public static class IsolatedStagePlugin implements StagePlugin {
+        @Override public String getName() { return "isolated"; }
+        @Override public String getVersion() { return "1.0.0"; }
+        @Override public void init(Map<String, Object> config) {}
+        @Override public String getType() { return "stage"; }
+        @Override public void execute(Map<String, Object> config, Map<String, Object> context) {}
+        @Override public PluginResult execute(Map<String, Object> context) { return PluginResult.success("isolated"); }
+    }
+
     static class TestStagePlugin implements StagePlugin {
         private final String name;
         
@@ -0,0 +1,171 @@
+package com.hsbc.ci.engine.core.promote;
+
+import com.hsbc.ci.engine.core.config.ConfigValidationException;
+import com.hsbc.ci.engine.core.config.ConfigurationLoader;
+import com.hsbc.ci.engine.core.model.definition.GateDefinition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.yaml.snakeyaml.Yaml;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromotionPoliciesTest {
+
+    private static final String POLICIES = """
+        promotion:
+          policies:
+            - name: fast-track
+              conditions:
+                - type: commit-message
+                  pattern: ".*\\\\[fast-track\\\\].*"
+              requirements:
+                - type: tests-passed
+                - type: manual-approval
+                  roles: [tech-lead]
+            - name: standard
+              conditions:
+                - type: always
+              requirements:
+                - type: tests-passed
+                - type: coverage
+                  min: 80
+            - name: production
+              conditions:
+                - type: environment-reached
+                  environment: uat
+              requirements:
+                - type: tests-passed
+                - type: performance-test
+            - name: security-patch
+              priority: 10
+              conditions:
+                - type: commit-message
+                  pattern: ".*\\\\[security\\\\].*"
+              requirements:
+                - type: security-approval
+        """;
+
+    @TempDir
+    Path configDir;
+
+    private final PromotionPolicies policies = PromotionPolicies.compile(yaml(POLICIES));
+
+    @Test
+    void compile_ordersByPriorityThenSpecificityThenDeclaration() {
+        assertEquals(List.of("security-patch", "fast-track", "production", "standard"), policies.policyNames());
+        assertEquals(3, policies.conditionCount());
+    }
+
+    @Test
+    void evaluate_selectsFirstMatchingPolicy() {
+        assertEquals("standard", policies.evaluate(candidate("Bump dependency", Set.of("dev"))).policy());
+        assertEquals("production", policies.evaluate(candidate("Bump dependency", Set.of("dev", "uat"))).policy());
+        assertEquals("fast-track", policies.evaluate(candidate("Fix NPE\n\n[fast-track]", Set.of("uat"))).policy());
+        assertEquals("security-patch",
+            policies.evaluate(candidate("[fast-track] [security] CVE fix", Set.of())).policy());
+    }
+
+    @Test
+    void evaluate_reportsOutstandingRequirements() {
+        PromotionDecision decision = policies.evaluate(new PromotionCandidate(
+            "payments", "abc123", "Add endpoint", Set.of(), Set.of("tests-passed")));
+
+        assertFalse(decision.isApproved());
+        assertEquals(List.of(new GateDefinition("coverage", Map.of("min", 80))), decision.outstanding());
+
+        PromotionDecision done = policies.evaluate(new PromotionCandidate(
+            "payments", "abc123", "Add endpoint", Set.of(), Set.of("tests-passed", "coverage")));
+        assertTrue(done.isApproved());
+    }
+
+    @Test
+    void evaluate_batch_matchesSingleEvaluation() {
+        List<PromotionCandidate> batch = List.of(
+            candidate("[security] patch", Set.of()),
+            candidate("Refactor", Set.of("uat")),
+            candidate("Refactor", Set.of()));
+
+        List<PromotionDecision> decisions = policies.evaluate(batch);
+
+        assertEquals(3, decisions.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(policies.evaluate(batch.get(i)), decisions.get(i));
+        }
+    }
+
+    @Test
+    void evaluate_withoutMatchingPolicy_isNotMatched() {
+        PromotionPolicies onlyTagged = PromotionPolicies.compile(yaml("""
+            promotion:
+              policies:
+                - name: hotfix
+                  conditions:
+                    - type: commit-message
+                      pattern: "^hotfix:.*"
+            """));
+
+        assertTrue(onlyTagged.evaluate(candidate("hotfix: retry", Set.of())).isApproved());
+        assertFalse(onlyTagged.evaluate(candidate("feature: retry", Set.of())).isMatched());
+    }
+
+    @Test
+    void compile_invalidPolicies_reportsEveryError() {
+        ConfigValidationException e = assertThrows(ConfigValidationException.class, () -> PromotionPolicies.compile(yaml("""
+            promotion:
+              policies:
+                - name: broken
+                  conditions:
+                    - type: commit-message
+                      pattern: "[unclosed"
+                    - type: branch
+                - conditions:
+                    - type: environment-reached
+            """)));
+
+        assertEquals("promote.yml", e.getSource());
+        assertEquals(4, e.getErrors().size(), e.getErrors().toString());
+    }
+
+    @Test
+    void literalInfix_onlyForPlainSubstringPatterns() {
+        assertEquals("[security]", PromotionPolicies.literalInfix(".*\\[security\\].*"));
+        assertNull(PromotionPolicies.literalInfix(".*fix(es)?.*"));
+        assertNull(PromotionPolicies.literalInfix("^hotfix:.*"));
+        assertNull(PromotionPolicies.literalInfix(".*\\d+.*"));
+    }
+
+    @Test
+    void engine_recompilesWhenPromoteYmlIsReloaded() throws Exception {
+        Files.writeString(configDir.resolve("promote.yml"), POLICIES);
+        ConfigurationLoader configLoader = new ConfigurationLoader();
+        configLoader.setConfigPath(configDir.toString());
+        PromotionEngine engine = new PromotionEngine(configLoader);
+        PromotionPolicies first = engine.policies();
+        assertSame(first, engine.policies());
+
+        Files.writeString(configDir.resolve("promote.yml"), """
+            promotion:
+              policies:
+                - name: everything
+                  conditions:
+                    - type: always
+            """);
+        configLoader.reload(Set.of("promote.yml"));
+
+        assertEquals(List.of("everything"), engine.policies().policyNames());
+    }
+
+    private static PromotionCandidate candidate(String message, Set<String> reached) {
+        return new PromotionCandidate("app", "abc123", message, reached, Set.of());
+    }
+
+    private static Map<String, Object> yaml(String content) {
+        return new Yaml().load(content);
+    }
+}
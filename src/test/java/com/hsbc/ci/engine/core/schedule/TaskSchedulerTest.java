@@ -0,0 +1,123 @@
+package com.hsbc.ci.engine.core.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSchedulerTest {
+
+    @Test
+    void run_dependencies_startOnceAllHaveSucceeded() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        TaskScheduler.Summary<String> summary = scheduler(4, TaskScheduler.FailurePolicy.CONTINUE).run(
+            List.of("app", "lib", "api"), List.of(List.of(1, 2), List.of(), List.of(1)), (task, slot) -> {
+                order.add("start " + task);
+                Thread.sleep(20);
+                order.add("done " + task);
+                return "ok";
+            });
+
+        assertTrue(summary.isSuccess());
+        assertEquals(List.of("start lib", "done lib", "start api", "done api", "start app", "done app"), order);
+        assertEquals(List.of("app", "lib", "api"), summary.outcomes().stream().map(TaskScheduler.Outcome::name).toList());
+    }
+
+    @Test
+    void run_independentTasks_runConcurrentlyUpToLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        TaskScheduler.Summary<String> summary = scheduler(3, TaskScheduler.FailurePolicy.CONTINUE).run(
+            List.of("a", "b", "c", "d", "e", "f"), (task, slot) -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(50);
+                running.decrementAndGet();
+                return "ok";
+            });
+
+        assertTrue(summary.isSuccess());
+        assertEquals(3, peak.get());
+    }
+
+    @Test
+    void run_continuePolicy_skipsDependentsOfFailureAndRunsTheRest() throws Exception {
+        TaskScheduler.Summary<String> summary = scheduler(2, TaskScheduler.FailurePolicy.CONTINUE).run(
+            List.of("lib", "api", "app", "tools"), List.of(List.of(), List.of(0), List.of(1), List.of()),
+            (task, slot) -> {
+                slot.output().accept("building " + task);
+                if ("lib".equals(task)) {
+                    throw new IllegalStateException("compilation failed");
+                }
+                return "ok";
+            });
+
+        assertFalse(summary.isSuccess());
+        assertEquals(List.of(TaskScheduler.Status.FAILED, TaskScheduler.Status.SKIPPED, TaskScheduler.Status.SKIPPED,
+                TaskScheduler.Status.SUCCESS),
+            summary.outcomes().stream().map(TaskScheduler.Outcome::status).toList());
+        assertEquals("compilation failed", summary.failed().get(0).message());
+        assertEquals(List.of("building lib"), summary.failed().get(0).output());
+        assertEquals("dependency lib failed", summary.outcomes().get(1).message());
+        assertEquals("dependency api was skipped", summary.outcomes().get(2).message());
+    }
+
+    @Test
+    void run_cancelPolicy_interruptsRunningAndStartsNoMore() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+        long start = System.nanoTime();
+        TaskScheduler.Summary<String> summary = scheduler(2, TaskScheduler.FailurePolicy.CANCEL).run(
+            List.of("slow", "broken", "later"), (task, slot) -> {
+                started.add(task);
+                if ("slow".equals(task)) {
+                    slowStarted.countDown();
+                    Thread.sleep(60_000);
+                }
+                slowStarted.await();
+                throw new IllegalStateException("failed");
+            });
+
+        assertEquals(List.of(TaskScheduler.Status.CANCELLED, TaskScheduler.Status.FAILED,
+                TaskScheduler.Status.CANCELLED),
+            summary.outcomes().stream().map(TaskScheduler.Outcome::status).toList());
+        assertEquals("cancelled after broken failed", summary.outcomes().get(2).message());
+        assertFalse(started.contains("later"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    void run_slot_countsTasksThatCanRunTogether() throws Exception {
+        Map<String, Integer> runnable = new ConcurrentHashMap<>();
+
+        scheduler(4, TaskScheduler.FailurePolicy.CONTINUE).run(List.of("a", "b", "c"),
+            List.of(List.of(), List.of(), List.of(0, 1)), (task, slot) -> {
+                runnable.put(task, slot.runnable());
+                return "ok";
+            });
+
+        assertEquals(2, runnable.get("a"));
+        assertEquals(1, runnable.get("c"));
+    }
+
+    @Test
+    void parse_failurePolicy() {
+        assertEquals(TaskScheduler.FailurePolicy.CANCEL, TaskScheduler.FailurePolicy.parse("cancel"));
+        assertEquals(TaskScheduler.FailurePolicy.CONTINUE, TaskScheduler.FailurePolicy.parse("Continue"));
+        assertThrows(IllegalArgumentException.class, () -> TaskScheduler.FailurePolicy.parse("retry"));
+    }
+
+    private static TaskScheduler<String> scheduler(int concurrency, TaskScheduler.FailurePolicy policy) {
+        return new TaskScheduler<>("task-", concurrency, policy, task -> task);
+    }
+}
@@ -0,0 +1,83 @@
+package com.hsbc.ci.engine.core.stages;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessRunnerTest {
+
+    @Test
+    void run_withManyCallers_neverExceedsProcessLimit() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ProcessRunner runner = new ProcessRunner(3) {
+            @Override
+            protected int execute(ProcessBuilder builder) throws InterruptedException {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20);
+                running.decrementAndGet();
+                return 0;
+            }
+        };
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    runner.run(new ProcessBuilder("true"));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(3, maxRunning.get());
+        assertEquals(0, runner.getRunningProcesses());
+    }
+
+    @Test
+    void killTree_withBackgroundChild_killsParentAndDescendants() throws Exception {
+        Process process = new ProcessBuilder("sh", "-c", "sleep 60 & sleep 60").start();
+        Thread.sleep(500);
+        List<ProcessHandle> tree = new ArrayList<>(process.descendants().toList());
+        tree.add(process.toHandle());
+        assertTrue(tree.size() >= 2, "expected a shell with a child");
+
+        ProcessRunner.killTree(process.toHandle());
+
+        for (ProcessHandle handle : tree) {
+            handle.onExit().get(5, TimeUnit.SECONDS);
+            assertFalse(handle.isAlive());
+        }
+    }
+
+    @Test
+    void killTree_processIgnoringSigterm_returnsBeforeGraceAndKillsItAfter() throws Exception {
+        Process process = new ProcessBuilder("sh", "-c", "trap '' TERM; sleep 60").start();
+        Thread.sleep(500);
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> killed = ProcessRunner.killTree(process.toHandle(), Duration.ofMillis(500));
+        long returnedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(returnedMillis < 250, "killTree blocked for " + returnedMillis + "ms");
+        assertTrue(process.isAlive());
+        killed.get(5, TimeUnit.SECONDS);
+        assertTrue(process.waitFor(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void constructor_withZeroLimit_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> new ProcessRunner(0));
+    }
+}
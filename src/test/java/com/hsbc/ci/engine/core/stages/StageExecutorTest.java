@@ -0,0 +1,82 @@
+package com.hsbc.ci.engine.core.stages;
+
+import com.hsbc.ci.engine.core.config.ConfigCompiler;
+import com.hsbc.ci.engine.core.model.PipelineContext;
+import com.hsbc.ci.engine.core.model.StageResult;
+import com.hsbc.ci.engine.core.model.definition.StageDefinition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageExecutorTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final ProcessRunner hangingRunner = new ProcessRunner() {
+        @Override
+        protected int execute(ProcessBuilder builder) throws InterruptedException {
+            started.countDown();
+            Thread.sleep(60_000);
+            return 0;
+        }
+    };
+    private final StageExecutor stageExecutor = new StageExecutor(
+        new BuildStage(hangingRunner),
+        new TestStage(hangingRunner),
+        new ContainerizeStage(hangingRunner),
+        new DeployStage(hangingRunner));
+
+    @AfterEach
+    void tearDown() {
+        stageExecutor.shutdown();
+    }
+
+    @Test
+    void execute_whenStageTimeoutPasses_returnsTimedOutFailure() {
+        PipelineContext context = PipelineContext.builder().pipelineName("hang").build();
+
+        long start = System.nanoTime();
+        StageResult result = stageExecutor.execute(build(Map.of("name", "build", "timeout", 1)), context);
+
+        assertFalse(result.isSuccess());
+        assertEquals("Timed out after 1s", result.getOutput());
+        assertEquals("true", result.getMetadata().get("timedOut"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void execute_afterPipelineDeadline_failsWithoutRunning() {
+        PipelineContext context = PipelineContext.builder().pipelineName("late").build();
+        context.setDeadline(Instant.now().minusSeconds(1));
+
+        StageResult result = stageExecutor.execute(build(Map.of("name", "build")), context);
+
+        assertFalse(result.isSuccess());
+        assertEquals("Pipeline deadline exceeded", result.getOutput());
+        assertEquals(1, started.getCount());
+    }
+
+    @Test
+    void cancel_withInFlightStage_interruptsIt() throws Exception {
+        PipelineContext context = PipelineContext.builder().pipelineName("cancel").build();
+        Future<StageResult> future = stageExecutor.submit(build(Map.of("name", "build")), context);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        context.cancel();
+        assertEquals(1, stageExecutor.cancel(context.getRunId()));
+
+        StageResult result = future.get(5, TimeUnit.SECONDS);
+        assertFalse(result.isSuccess());
+        assertEquals("true", result.getMetadata().get("cancelled"));
+    }
+
+    private static StageDefinition build(Map<String, Object> stage) {
+        return new ConfigCompiler().compileStage("build", stage);
+    }
+}
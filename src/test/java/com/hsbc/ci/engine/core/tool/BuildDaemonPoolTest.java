@@ -0,0 +1,188 @@
+package com.hsbc.ci.engine.core.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildDaemonPoolTest {
+
+    private final FakeBackend backend = new FakeBackend();
+    private final AtomicLong clock = new AtomicLong();
+    private final BuildDaemonPool.Key key = new BuildDaemonPool.Key("maven", Path.of("/work/app"), "/jdk21", null);
+
+    @Test
+    void lease_idleDaemon_isReused() {
+        BuildDaemonPool pool = pool(2, 100, 0);
+
+        String first = build(pool, key);
+        String second = build(pool, key);
+
+        assertEquals(first, second);
+        assertEquals(2, pool.daemons(key).get(0).builds());
+        assertEquals(List.of("mvnd", "-Dstorage=" + first, "package"),
+            pool.lease(key).orElseThrow().command(List.of("package")));
+    }
+
+    @Test
+    void lease_allBusy_startsAnotherUpToLimitThenFallsBack() {
+        BuildDaemonPool pool = pool(2, 100, 0);
+
+        Optional<BuildDaemonPool.Lease> first = pool.lease(key);
+        Optional<BuildDaemonPool.Lease> second = pool.lease(key);
+        Optional<BuildDaemonPool.Lease> third = pool.lease(key);
+
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        assertNotEquals(first.get().daemon().id(), second.get().daemon().id());
+        assertTrue(third.isEmpty());
+        first.get().close();
+        assertTrue(pool.lease(key).isPresent());
+    }
+
+    @Test
+    void lease_differentJdkOrProject_getsOwnDaemon() {
+        BuildDaemonPool pool = pool(1, 100, 0);
+        BuildDaemonPool.Key otherJdk = new BuildDaemonPool.Key("maven", Path.of("/work/app"), "/jdk17", null);
+        BuildDaemonPool.Key otherProject = new BuildDaemonPool.Key("maven", Path.of("/work/lib"), "/jdk21", null);
+
+        assertTrue(pool.lease(key).isPresent());
+        assertTrue(pool.lease(otherJdk).isPresent());
+        assertTrue(pool.lease(otherProject).isPresent());
+    }
+
+    @Test
+    void release_afterMaxBuilds_stopsAndReplacesDaemon() {
+        BuildDaemonPool pool = pool(2, 3, 0);
+
+        String first = build(pool, key);
+        build(pool, key);
+        build(pool, key);
+
+        assertEquals(List.of(first), backend.stopped);
+        assertTrue(pool.daemons(key).isEmpty());
+        assertEquals(first, build(pool, key));
+    }
+
+    @Test
+    void release_residentMemoryOverLimit_stopsDaemonAtNextCheck() {
+        BuildDaemonPool pool = pool(2, 100, 1024);
+        backend.residentMb = 1500;
+
+        String daemon = build(pool, key);
+        for (int i = 1; i < BuildDaemonPool.MEMORY_CHECK_INTERVAL; i++) {
+            assertTrue(backend.stopped.isEmpty());
+            build(pool, key);
+        }
+
+        assertEquals(List.of(daemon), backend.stopped);
+        assertEquals(1, backend.memoryChecks);
+    }
+
+    @Test
+    void lease_idleDaemonPastMaxAge_isStoppedAndReplaced() {
+        BuildDaemonPool pool = pool(2, 100, 0);
+        build(pool, key);
+        clock.addAndGet(Duration.ofHours(2).toNanos());
+
+        BuildDaemonPool.Lease lease = pool.lease(key).orElseThrow();
+
+        assertEquals(1, backend.stopped.size());
+        assertEquals(0, lease.daemon().builds());
+    }
+
+    @Test
+    void release_sharedDaemons_areNeverStopped() {
+        backend.recycles = false;
+        BuildDaemonPool pool = pool(1, 2, 1024);
+        backend.residentMb = 1500;
+
+        String first = build(pool, key);
+        build(pool, key);
+        clock.addAndGet(Duration.ofHours(2).toNanos());
+        String third = build(pool, key);
+        pool.stopAll();
+
+        assertEquals(first, third);
+        assertTrue(backend.stopped.isEmpty());
+    }
+
+    @Test
+    void lease_backendUnavailableOrDisabled_forks() {
+        backend.available = false;
+
+        assertTrue(pool(2, 100, 0).lease(key).isEmpty());
+        assertTrue(BuildDaemonPool.disabled().lease(key).isEmpty());
+        assertTrue(pool(2, 100, 0).lease(new BuildDaemonPool.Key("npm", Path.of("."), null, null)).isEmpty());
+    }
+
+    @Test
+    void pidsOf_readsMvndAndGradleStatus() {
+        String mvnd = """
+            ID        PID      Address          Status  RSS     Last activity  Java home
+            4d3c2b1a  41207    inet:/127.0.0.1  Idle    612m    2024-03-01     /opt/jdk-21
+            """;
+        String gradle = """
+               PID STATUS   INFO
+             52311 IDLE     8.5
+            """;
+
+        assertEquals(List.of(41207L), BuildDaemonPool.pidsOf(mvnd));
+        assertEquals(List.of(52311L), BuildDaemonPool.pidsOf(gradle));
+    }
+
+    private BuildDaemonPool pool(int maxPerProject, int maxBuilds, long maxHeapMb) {
+        BuildDaemonPool.Settings settings = new BuildDaemonPool.Settings(true, maxPerProject, Duration.ofHours(1),
+            maxBuilds, maxHeapMb, Path.of("daemons"));
+        return new BuildDaemonPool(settings, Map.of("maven", backend), clock::get);
+    }
+
+    private static String build(BuildDaemonPool pool, BuildDaemonPool.Key key) {
+        try (BuildDaemonPool.Lease lease = pool.lease(key).orElseThrow()) {
+            return lease.daemon().id();
+        }
+    }
+
+    private static final class FakeBackend implements BuildDaemonPool.Backend {
+        final List<String> stopped = new ArrayList<>();
+        boolean available = true;
+        boolean recycles = true;
+        long residentMb = 200;
+        int memoryChecks;
+
+        @Override
+        public boolean available() {
+            return available;
+        }
+
+        @Override
+        public List<String> command(BuildDaemonPool.Daemon daemon, List<String> args) {
+            List<String> command = new ArrayList<>(List.of("mvnd", "-Dstorage=" + daemon.id()));
+            command.addAll(args);
+            return command;
+        }
+
+        @Override
+        public long residentMb(BuildDaemonPool.Daemon daemon) {
+            memoryChecks++;
+            return residentMb;
+        }
+
+        @Override
+        public void stop(BuildDaemonPool.Daemon daemon) {
+            stopped.add(daemon.id());
+        }
+
+        @Override
+        public boolean recycles() {
+            return recycles;
+        }
+    }
+}
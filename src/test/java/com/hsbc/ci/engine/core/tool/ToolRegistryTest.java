@@ -0,0 +1,107 @@
+package com.hsbc.ci.engine.core.tool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolRegistryTest {
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void resolve_onPath_returnsAbsolutePathAndVersion() throws Exception {
+        Path mvn = executable("bin/mvn", "Apache Maven 3.9.6");
+        ToolRegistry registry = registry(Map.of(), null);
+
+        ToolRegistry.Tool tool = registry.resolve("maven");
+
+        assertEquals(mvn.toAbsolutePath(), tool.path());
+        assertEquals("Apache Maven 3.9.6", tool.version());
+    }
+
+    @Test
+    void resolve_repeated_probesVersionOnce() throws Exception {
+        executable("bin/docker", "Docker version 25.0.3");
+        ToolRegistry registry = registry(Map.of(), null);
+
+        for (int i = 0; i < 5; i++) {
+            registry.resolve("docker");
+        }
+
+        assertEquals(1, registry.probes());
+    }
+
+    @Test
+    void resolve_binaryReplaced_probesAgain() throws Exception {
+        Path docker = executable("bin/docker", "Docker version 25.0.3");
+        ToolRegistry registry = registry(Map.of(), null);
+        registry.resolve("docker");
+
+        executable("bin/docker", "Docker version 26.1.0");
+        Files.setLastModifiedTime(docker, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+
+        assertEquals("Docker version 26.1.0", registry.resolve("docker").version());
+        assertEquals(2, registry.probes());
+    }
+
+    @Test
+    void resolve_freshRegistry_reusesDiskCache() throws Exception {
+        executable("bin/kubectl", "Client Version: v1.29.2");
+        Path cacheFile = workspace.resolve("cache").resolve(ToolRegistry.FILE_NAME);
+        registry(Map.of(), cacheFile).resolve("kubectl");
+
+        ToolRegistry restarted = registry(Map.of(), cacheFile);
+
+        assertEquals("Client Version: v1.29.2", restarted.resolve("kubectl").version());
+        assertEquals(0, restarted.probes());
+    }
+
+    @Test
+    void resolve_configuredPath_usesItWithoutProbing() throws Exception {
+        Path gradlew = executable("project/gradlew", "Gradle 8.5");
+        ToolRegistry registry = registry(Map.of("gradle", gradlew.toString()), null);
+
+        ToolRegistry.Tool tool = registry.resolve("gradle");
+
+        assertEquals(gradlew.toAbsolutePath(), tool.path());
+        assertNull(tool.version());
+        assertEquals(0, registry.probes());
+    }
+
+    @Test
+    void resolve_missing_failsNamingExecutableAndSetting() {
+        ToolRegistry registry = registry(Map.of(), null);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> registry.resolve("aws"));
+
+        assertTrue(error.getMessage().contains("'aws' is not on PATH"), error.getMessage());
+        assertTrue(error.getMessage().contains("build.tools.aws.executable"), error.getMessage());
+        assertTrue(registry.find("aws").isEmpty());
+    }
+
+    @Test
+    void unchecked_passesExecutableThrough() {
+        assertEquals("mvn", ToolRegistry.unchecked().resolve("maven").command());
+    }
+
+    private ToolRegistry registry(Map<String, String> executables, Path cacheFile) {
+        return new ToolRegistry(executables, workspace.resolve("bin").toString(), cacheFile, true);
+    }
+
+    private Path executable(String name, String version) throws IOException {
+        Path file = workspace.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "#!/bin/sh\necho '" + version + "'\n");
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return file;
+    }
+}